@@ -0,0 +1,168 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.dtos.GoogleBooksCacheStatsDTO;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorador do {@link GoogleBooksClient} que guarda as respostas da API do Google Books em memória.
+ * O cache é limitado por quantidade de consultas (política W-TinyLFU do Caffeine) e expira cada
+ * entrada após um TTL; consultas sem resultados ficam guardadas por um TTL menor (cache negativo).
+ * Chamadas simultâneas com a mesma consulta compartilham uma única requisição à API.
+ * <p>
+ * Cada chamada recebe cópias dos livros guardados, que podem ser alteradas e salvas à vontade.
+ */
+@Primary
+@Component
+public class CachingGoogleBooksClient implements GoogleBooksClient {
+
+    static final String DELEGATE = "googleBooksFeignClient";
+
+    private final GoogleBooksClient delegate;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncLoadingCache<String, List<Book>> cache;
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Construtor que injeta o cliente Feign e os parâmetros do cache.
+     *
+     * @param delegate           o cliente Feign que acessa a API do Google Books
+     * @param maxSize            a quantidade máxima de consultas guardadas
+     * @param ttlMinutes         por quanto tempo uma resposta com resultados é reaproveitada
+     * @param negativeTtlMinutes por quanto tempo uma resposta sem resultados é reaproveitada
+     */
+    @Autowired
+    public CachingGoogleBooksClient(@Qualifier(DELEGATE) GoogleBooksClient delegate,
+                                    @Value("${biblioteca.google-books.cache.max-size:10000}") long maxSize,
+                                    @Value("${biblioteca.google-books.cache.ttl-minutes:720}") long ttlMinutes,
+                                    @Value("${biblioteca.google-books.cache.negative-ttl-minutes:10}") long negativeTtlMinutes) {
+        this(delegate, maxSize, Duration.ofMinutes(ttlMinutes), Duration.ofMinutes(negativeTtlMinutes), Ticker.systemTicker());
+    }
+
+    CachingGoogleBooksClient(GoogleBooksClient delegate, long maxSize, Duration ttl, Duration negativeTtl, Ticker ticker) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ResponseExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .executor(loader)
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync((query, executor) -> CompletableFuture.supplyAsync(() -> delegate.searchBooks(query), executor));
+    }
+
+    /**
+     * Busca livros na API do Google Books, reaproveitando respostas recentes da mesma consulta.
+     * A consulta é normalizada (espaços e maiúsculas) antes de ser usada como chave.
+     * Falhas da API não são guardadas: a próxima chamada tenta de novo.
+     *
+     * @param query a consulta enviada à API
+     * @return os livros encontrados; uma lista vazia se não houver resultados
+     */
+    @Override
+    public List<Book> searchBooks(String query) {
+        String key = normalize(query);
+        CompletableFuture<List<Book>> pending = cache.asMap().get(key);
+        if (pending != null && !pending.isDone()) {
+            coalesced.increment();
+        }
+        CompletableFuture<List<Book>> future = cache.get(key);
+        try {
+            return copyOf(future.join());
+        } catch (CompletionException e) {
+            // O Caffeine remove o carregamento que falhou de forma assíncrona; remove aqui para que
+            // a próxima chamada não receba a mesma falha
+            cache.asMap().remove(key, future);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Retorna as estatísticas de uso do cache.
+     *
+     * @return acertos, faltas, carregamentos e remoções desde o início da aplicação
+     */
+    public GoogleBooksCacheStatsDTO getStats() {
+        CacheStats stats = cache.synchronous().stats();
+        return GoogleBooksCacheStatsDTO.builder()
+                .size(cache.synchronous().estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .loadSuccessCount(stats.loadSuccessCount())
+                .loadFailureCount(stats.loadFailureCount())
+                .coalescedCount(coalesced.sum())
+                .evictionCount(stats.evictionCount())
+                .averageLoadMillis(stats.averageLoadPenalty() / 1_000_000d)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isEmpty(List<Book> response) {
+        return response == null || response.isEmpty();
+    }
+
+    private static List<Book> copyOf(List<Book> books) {
+        if (books == null) {
+            return List.of();
+        }
+        List<Book> copies = new ArrayList<>(books.size());
+        for (Book book : books) {
+            copies.add(new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                    book.getPublicationDate(), book.getCategory(), book.getThumbnail_url(), null));
+        }
+        return copies;
+    }
+
+    /**
+     * Define o TTL de cada resposta no momento em que ela é carregada:
+     * respostas sem resultados recebem o TTL negativo.
+     */
+    private record ResponseExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<String, List<Book>> {
+
+        @Override
+        public long expireAfterCreate(String key, List<Book> value, long currentTime) {
+            return isEmpty(value) ? negativeTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, List<Book> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, List<Book> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
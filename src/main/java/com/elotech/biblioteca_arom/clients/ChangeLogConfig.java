@@ -0,0 +1,81 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.enums.ChangedEntity;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.services.ChangeFeedService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * Liga o registro de alterações de {@link ChangeFeedService} aos eventos do Hibernate: cada inclusão,
+ * alteração ou exclusão de livro, usuário ou empréstimo é registrada na transação que a fez,
+ * qualquer que seja o serviço que fez a alteração.
+ * <p>
+ * O ouvinte é registrado depois do de {@link CollectionVersionsConfig}. Os dois bloqueiam uma linha logo antes
+ * do commit, na ordem em que a transação registrou a primeira alteração em cada um; com a mesma ordem em todas
+ * as transações, uma não espera pela linha que a outra já bloqueou. Atualizações em massa registram as
+ * alterações nessa mesma ordem (ver {@code OverdueLoanService}).
+ */
+@Configuration
+public class ChangeLogConfig {
+
+    @Bean
+    @DependsOn("collectionChangeListener")
+    public ChangeLogListener changeLogListener(EntityManagerFactory entityManagerFactory,
+                                               ChangeFeedService changeFeedService) {
+        ChangeLogListener listener = new ChangeLogListener(changeFeedService);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return listener;
+    }
+
+    /**
+     * Ouvinte das inclusões, alterações e exclusões de entidades, chamado durante o flush.
+     */
+    public static class ChangeLogListener implements PostInsertEventListener, PostUpdateEventListener,
+            PostDeleteEventListener {
+
+        private final ChangeFeedService changeFeedService;
+
+        ChangeLogListener(ChangeFeedService changeFeedService) {
+            this.changeFeedService = changeFeedService;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            record(event.getSession(), event.getPersister(), event.getId(), ChangeType.CREATED);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            record(event.getSession(), event.getPersister(), event.getId(), ChangeType.UPDATED);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            record(event.getSession(), event.getPersister(), event.getId(), ChangeType.DELETED);
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        private void record(EventSource session, EntityPersister persister, Object id, ChangeType op) {
+            ChangedEntity entity = ChangedEntity.of(persister.getMappedClass());
+            if (entity != null) {
+                changeFeedService.record(session, entity, ((Number) id).longValue(), op);
+            }
+        }
+    }
+}
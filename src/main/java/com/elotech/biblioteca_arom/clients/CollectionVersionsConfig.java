@@ -0,0 +1,72 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.services.CollectionVersions;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Liga os contadores de {@link CollectionVersions} aos eventos do Hibernate: cada inclusão, alteração
+ * ou exclusão de livro, usuário ou empréstimo incrementa o contador da coleção na transação que a fez,
+ * qualquer que seja o serviço que fez a alteração. Transações desfeitas não alteram os contadores.
+ */
+@Configuration
+public class CollectionVersionsConfig {
+
+    @Bean
+    public CollectionChangeListener collectionChangeListener(EntityManagerFactory entityManagerFactory,
+                                                             CollectionVersions collectionVersions) {
+        CollectionChangeListener listener = new CollectionChangeListener(collectionVersions);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return listener;
+    }
+
+    /**
+     * Ouvinte das inclusões, alterações e exclusões de entidades, chamado durante o flush.
+     */
+    public static class CollectionChangeListener implements PostInsertEventListener, PostUpdateEventListener,
+            PostDeleteEventListener {
+
+        private final CollectionVersions collectionVersions;
+
+        CollectionChangeListener(CollectionVersions collectionVersions) {
+            this.collectionVersions = collectionVersions;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            changed(event.getSession(), event.getPersister());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            changed(event.getSession(), event.getPersister());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            changed(event.getSession(), event.getPersister());
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        private void changed(EventSource session, EntityPersister persister) {
+            CollectionVersions.Tracked collection = CollectionVersions.Tracked.of(persister.getMappedClass());
+            if (collection != null) {
+                collectionVersions.changed(session, collection);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configura o cache de segundo nível do Hibernate para {@link Book} e {@link User}.
+ * As regiões são caches Caffeine locais (via JCache), limitadas por quantidade de entidades
+ * e com um TTL que limita por quanto tempo uma alteração feita por outra instância pode ficar invisível.
+ * Alterações feitas por esta instância atualizam ou removem a entrada no commit da transação.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    @Bean
+    public CacheManager entityCacheManager(
+            @Value("${biblioteca.entity-cache.book.max-size:10000}") long bookMaxSize,
+            @Value("${biblioteca.entity-cache.user.max-size:10000}") long userMaxSize,
+            @Value("${biblioteca.entity-cache.ttl-minutes:10}") long ttlMinutes) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        createRegion(cacheManager, Book.CACHE_REGION, bookMaxSize, ttlMinutes);
+        createRegion(cacheManager, User.CACHE_REGION, userMaxSize, ttlMinutes);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    private static void createRegion(CacheManager cacheManager, String region, long maxSize, long ttlMinutes) {
+        if (cacheManager.getCache(region) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(ttlMinutes)));
+        cacheManager.createCache(region, configuration);
+    }
+}
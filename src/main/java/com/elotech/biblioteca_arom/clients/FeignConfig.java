@@ -0,0 +1,9 @@
+package com.elotech.biblioteca_arom.clients;
+
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableFeignClients
+public class FeignConfig {
+}
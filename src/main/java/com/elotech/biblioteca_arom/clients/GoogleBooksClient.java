@@ -1,13 +1,16 @@
 package com.elotech.biblioteca_arom.clients;
 
+import com.elotech.biblioteca_arom.entities.Book;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.Map;
+import java.util.List;
 
-@FeignClient(name = "googleBooksClient", url = "https://www.googleapis.com/books/v1")
+@FeignClient(name = "googleBooksClient", url = "${biblioteca.google-books.url:https://www.googleapis.com/books/v1}",
+        configuration = GoogleBooksClientConfig.class,
+        qualifiers = CachingGoogleBooksClient.DELEGATE, primary = false)
 public interface GoogleBooksClient {
     @GetMapping("/volumes")
-    Map<String, Object> searchBooks(@RequestParam("q") String query);
-}
\ No newline at end of file
+    List<Book> searchBooks(@RequestParam("q") String query);
+}
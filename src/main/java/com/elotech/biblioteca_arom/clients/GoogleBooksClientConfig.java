@@ -0,0 +1,39 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import feign.FeignException;
+import feign.Response;
+import feign.codec.Decoder;
+import org.springframework.context.annotation.Bean;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Configuração exclusiva do {@link GoogleBooksClient}. Não é anotada com {@code @Configuration}
+ * para não ser aplicada aos demais clientes Feign.
+ */
+public class GoogleBooksClientConfig {
+
+    /**
+     * Decodifica as respostas da API do Google Books com o {@link GoogleBooksVolumesParser},
+     * sem passar por uma árvore {@code Map<String, Object>}.
+     *
+     * @return o decodificador do cliente
+     */
+    @Bean
+    public Decoder googleBooksDecoder() {
+        return GoogleBooksClientConfig::decode;
+    }
+
+    static List<Book> decode(Response response, Type type) throws IOException, FeignException {
+        if (response.status() == 204 || response.body() == null) {
+            return List.of();
+        }
+        try (InputStream body = response.body().asInputStream()) {
+            return GoogleBooksVolumesParser.parse(body);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê a resposta do endpoint {@code /volumes} da API do Google Books com o {@link JsonParser}
+ * de streaming do Jackson, montando os objetos {@link Book} diretamente a partir dos tokens.
+ * Apenas os campos usados pelo {@link Book} são lidos (título, autores, ISBN, data de publicação,
+ * categorias e miniatura); todo o resto da resposta é pulado sem ser materializado.
+ */
+public final class GoogleBooksVolumesParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private GoogleBooksVolumesParser() {
+    }
+
+    /**
+     * Lê os volumes da resposta da API.
+     *
+     * @param body o corpo da resposta
+     * @return os livros encontrados; uma lista vazia se a resposta não tiver itens
+     * @throws IOException se o corpo não for um JSON válido
+     */
+    public static List<Book> parse(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    /**
+     * Lê os volumes da resposta da API.
+     *
+     * @param body o corpo da resposta
+     * @return os livros encontrados; uma lista vazia se a resposta não tiver itens
+     * @throws IOException se o corpo não for um JSON válido
+     */
+    public static List<Book> parse(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    private static List<Book> parse(JsonParser parser) throws IOException {
+        List<Book> books = new ArrayList<>();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return books;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    Book book = readVolume(parser);
+                    if (book != null) {
+                        books.add(book);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Lê um item de {@code items}; retorna {@code null} se ele não tiver {@code volumeInfo}.
+     */
+    private static Book readVolume(JsonParser parser) throws IOException {
+        Book book = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("volumeInfo".equals(field) && value == JsonToken.START_OBJECT) {
+                book = readVolumeInfo(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return book;
+    }
+
+    private static Book readVolumeInfo(JsonParser parser) throws IOException {
+        Book book = new Book();
+        String firstIdentifier = null;
+        String isbn13 = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "title" -> book.setTitle(textOf(parser, value));
+                case "publishedDate" -> book.setPublicationDate(textOf(parser, value));
+                case "authors" -> book.setAuthor(joinedTextOf(parser, value));
+                case "categories" -> book.setCategory(joinedTextOf(parser, value));
+                case "imageLinks" -> book.setThumbnail_url(thumbnailOf(parser, value));
+                case "industryIdentifiers" -> {
+                    if (value != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        break;
+                    }
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        String type = null;
+                        String identifier = null;
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String name = parser.currentName();
+                            JsonToken token = parser.nextToken();
+                            if ("type".equals(name)) {
+                                type = textOf(parser, token);
+                            } else if ("identifier".equals(name)) {
+                                identifier = textOf(parser, token);
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                        if (firstIdentifier == null) {
+                            firstIdentifier = identifier;
+                        }
+                        if (isbn13 == null && "ISBN_13".equals(type)) {
+                            isbn13 = identifier;
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        book.setIsbn(isbn13 != null ? isbn13 : firstIdentifier);
+        return book;
+    }
+
+    private static String thumbnailOf(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String thumbnail = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("thumbnail".equals(field)) {
+                thumbnail = textOf(parser, token);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Junta os valores de um array de textos com ", "; retorna {@code null} se o array estiver vazio.
+     */
+    private static String joinedTextOf(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            return textOf(parser, value);
+        }
+        StringBuilder joined = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            String text = textOf(parser, token);
+            if (text == null) {
+                continue;
+            }
+            if (joined == null) {
+                joined = new StringBuilder(text);
+            } else {
+                joined.append(", ").append(text);
+            }
+        }
+        return joined == null ? null : joined.toString();
+    }
+
+    private static String textOf(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
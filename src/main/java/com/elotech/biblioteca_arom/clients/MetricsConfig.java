@@ -0,0 +1,88 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import com.elotech.biblioteca_arom.services.BookAvailabilityIndex;
+import com.elotech.biblioteca_arom.services.LoanStreamHub;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas da aplicação, publicadas em {@code /actuator/prometheus}.
+ * <p>
+ * Os serviços e métodos anotados com {@code @Timed(SERVICE_TIMER)} são medidos por um timer
+ * (contagem, tempo total e máximo, com as tags {@code class}, {@code method} e {@code exception});
+ * anotado na classe, vale para todos os métodos públicos. O {@code LoanService} publica o mesmo timer
+ * com {@link ServiceTimers}, sem o aspecto.
+ * As consultas dos repositórios ({@code spring.data.repository.invocations}), o pool de conexões
+ * ({@code hikaricp.*}) e o cliente Feign ({@code feign.*}) são medidos pelo Spring Boot e pelo
+ * {@code feign-micrometer}, sem configuração aqui.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "biblioteca.service";
+    public static final String ACTIVE_LOANS_GAUGE = "biblioteca.loans.active";
+    public static final String LOAN_STREAM_SUBSCRIBERS_GAUGE = "biblioteca.loans.stream.subscribers";
+
+    /**
+     * Aspecto que mede os métodos anotados com {@code @Timed}.
+     * Pode ser desligado com {@code biblioteca.metrics.service-timers=false}.
+     *
+     * @param registry o registro de métricas
+     * @return o aspecto
+     */
+    @Bean
+    @ConditionalOnProperty(name = "biblioteca.metrics.service-timers", havingValue = "true", matchIfMissing = true)
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Descarta o timer dos serviços, inclusive o dos {@link ServiceTimers}, quando
+     * {@code biblioteca.metrics.service-timers=false}.
+     *
+     * @return o filtro
+     */
+    @Bean
+    @ConditionalOnProperty(name = "biblioteca.metrics.service-timers", havingValue = "false")
+    public MeterFilter serviceTimersFilter() {
+        return MeterFilter.deny(id -> id.getName().equals(SERVICE_TIMER));
+    }
+
+    /**
+     * Quantidade de empréstimos ativos. Vem do {@link BookAvailabilityIndex} quando ele está pronto;
+     * antes disso, de uma contagem no banco.
+     *
+     * @param availabilityIndex o índice em memória dos livros emprestados
+     * @param loanRepository    o repositório de empréstimos
+     * @return o registrador do gauge
+     */
+    @Bean
+    public MeterBinder activeLoansGauge(BookAvailabilityIndex availabilityIndex, LoanRepository loanRepository) {
+        return registry -> Gauge.builder(ACTIVE_LOANS_GAUGE, () -> availabilityIndex.isReady()
+                        ? availabilityIndex.onLoanCount()
+                        : loanRepository.countByStatus(Status.EMPRESTADO))
+                .description("Empréstimos ativos")
+                .register(registry);
+    }
+
+    /**
+     * Quantidade de painéis conectados ao fluxo de alterações de empréstimos ({@code GET /api/loans/stream}).
+     *
+     * @param loanStreamHub o envio das alterações de empréstimos
+     * @return o registrador do gauge
+     */
+    @Bean
+    public MeterBinder loanStreamSubscribersGauge(LoanStreamHub loanStreamHub) {
+        return registry -> Gauge.builder(LOAN_STREAM_SUBSCRIBERS_GAUGE, loanStreamHub::getSubscriberCount)
+                .description("Painéis conectados ao fluxo de empréstimos")
+                .register(registry);
+    }
+}
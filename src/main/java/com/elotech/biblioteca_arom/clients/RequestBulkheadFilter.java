@@ -0,0 +1,65 @@
+package com.elotech.biblioteca_arom.clients;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita a quantidade de requisições atendidas ao mesmo tempo.
+ * <p>
+ * Com as requisições em threads virtuais, o Tomcat deixa de ter um teto de threads e aceita tantas
+ * requisições simultâneas quantas chegarem; sem um limite, todas disputariam as poucas conexões do pool
+ * e a maioria esperaria até o timeout do Hikari. Este filtro devolve esse teto: uma requisição espera
+ * por uma vaga até o prazo configurado e, se não conseguir, recebe 503 com {@code Retry-After}.
+ */
+public class RequestBulkheadFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long queueTimeoutMillis;
+
+    /**
+     * Construtor que define o limite de requisições simultâneas.
+     *
+     * @param maxConcurrentRequests a quantidade máxima de requisições atendidas ao mesmo tempo
+     * @param queueTimeoutMillis    por quanto tempo uma requisição espera por uma vaga
+     */
+    public RequestBulkheadFilter(int maxConcurrentRequests, long queueTimeoutMillis) {
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Servidor sobrecarregado, tente novamente!");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+}
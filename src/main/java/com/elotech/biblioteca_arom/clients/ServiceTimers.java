@@ -0,0 +1,83 @@
+package com.elotech.biblioteca_arom.clients;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Timers de um serviço registrados uma única vez, para as classes em que o aspecto do {@code @Timed}
+ * custaria caro demais por chamada (ver {@code ServiceHotPathBenchmark}).
+ * <p>
+ * Publica o mesmo timer {@value MetricsConfig#SERVICE_TIMER} do aspecto, com as mesmas tags ({@code class},
+ * {@code method} e {@code exception}). O timer de sucesso de cada método é criado no construtor, e cada
+ * chamada só lê o relógio e registra a duração; o timer de uma exceção é procurado no registro apenas
+ * quando ela acontece.
+ */
+public final class ServiceTimers {
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry registry;
+    private final String className;
+    private final Map<String, Timer> succeeded;
+
+    /**
+     * Registra os timers de sucesso dos métodos informados.
+     *
+     * @param registry o registro de métricas
+     * @param type     a classe medida, usada na tag {@code class}
+     * @param methods  os nomes dos métodos medidos
+     */
+    public ServiceTimers(MeterRegistry registry, Class<?> type, String... methods) {
+        this.registry = registry;
+        this.className = type.getName();
+        Map<String, Timer> timers = new HashMap<>();
+        for (String method : methods) {
+            timers.put(method, timer(method, NO_EXCEPTION));
+        }
+        this.succeeded = Map.copyOf(timers);
+    }
+
+    /**
+     * Executa e mede uma chamada do método informado.
+     *
+     * @param method o nome do método, um dos informados no construtor
+     * @param call   a chamada
+     * @return o resultado da chamada
+     */
+    public <T> T record(String method, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            sample.stop(timer(method, e.getClass().getSimpleName()));
+            throw e;
+        }
+        Timer timer = succeeded.get(method);
+        sample.stop(timer != null ? timer : timer(method, NO_EXCEPTION));
+        return result;
+    }
+
+    /**
+     * Executa e mede uma chamada sem resultado do método informado.
+     *
+     * @param method o nome do método, um dos informados no construtor
+     * @param call   a chamada
+     */
+    public void run(String method, Runnable call) {
+        record(method, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private Timer timer(String method, String exception) {
+        return Timer.builder(MetricsConfig.SERVICE_TIMER)
+                .tags("class", className, "method", method, "exception", exception)
+                .register(registry);
+    }
+}
@@ -0,0 +1,59 @@
+package com.elotech.biblioteca_arom.clients;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Ajustes aplicados quando as requisições rodam em threads virtuais ({@code spring.threads.virtual.enabled=true},
+ * ativado pelo perfil {@code virtual}). O Spring Boot já coloca o Tomcat, o {@code @Async} e o agendador em
+ * threads virtuais; esta configuração limita a concorrência que chega ao banco e faz o Feign usar o
+ * {@link HttpClient} do JDK, que não prende a thread virtual à thread do sistema durante a espera pela resposta.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    /**
+     * Registra o {@link RequestBulkheadFilter} antes dos demais filtros, para que requisições recusadas
+     * não cheguem a passar pela segurança.
+     *
+     * @param maxConcurrentRequests a quantidade máxima de requisições atendidas ao mesmo tempo
+     * @param queueTimeoutMillis    por quanto tempo uma requisição espera por uma vaga
+     * @return o registro do filtro
+     */
+    @Bean
+    public FilterRegistrationBean<RequestBulkheadFilter> requestBulkheadFilter(
+            @Value("${biblioteca.virtual-threads.max-concurrent-requests:200}") int maxConcurrentRequests,
+            @Value("${biblioteca.virtual-threads.queue-timeout-ms:2000}") long queueTimeoutMillis) {
+        FilterRegistrationBean<RequestBulkheadFilter> registration =
+                new FilterRegistrationBean<>(new RequestBulkheadFilter(maxConcurrentRequests, queueTimeoutMillis));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Cliente HTTP usado pelo Feign ({@code spring.cloud.openfeign.http2client.enabled=true}),
+     * com as respostas assíncronas tratadas em threads virtuais.
+     *
+     * @param connectTimeoutMillis o tempo máximo para abrir a conexão
+     * @return o cliente HTTP
+     */
+    @Bean
+    public HttpClient feignHttpClient(
+            @Value("${biblioteca.virtual-threads.http-connect-timeout-ms:5000}") long connectTimeoutMillis) {
+        return HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+}
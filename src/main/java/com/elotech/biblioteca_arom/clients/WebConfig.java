@@ -2,6 +2,7 @@ package com.elotech.biblioteca_arom.clients;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -17,6 +18,7 @@ public class WebConfig {
                         .allowedOrigins("http://localhost:4200") // Permitir apenas a origem correta
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD")
                         .allowedHeaders("*")
+                        .exposedHeaders(HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED) // Usados nas consultas condicionais
                         .allowCredentials(true); // Isso permite o envio de cookies se necessário
             }
         };
@@ -0,0 +1,64 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos binários da API, escolhidos pelo cabeçalho {@code Accept}: Smile ({@value #SMILE_VALUE}) e
+ * CBOR ({@value #CBOR_VALUE}), além do JSON padrão. Os dois representam os mesmos objetos do JSON, mas sem
+ * aspas, com números e datas em binário; o Smile também escreve cada nome de campo e cada texto curto
+ * repetido uma única vez e depois só a referência, o que reduz bastante as listas de livros e empréstimos.
+ * <p>
+ * Os mappers partem do mesmo {@link Jackson2ObjectMapperBuilder} do JSON, com as mesmas configurações
+ * e módulos. A compressão gzip das respostas fica a cargo do Tomcat ({@code server.compression.*}).
+ */
+@Configuration
+public class WireFormatConfig {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_VALUE = "application/cbor";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+    public static final MediaType CBOR = MediaType.parseMediaType(CBOR_VALUE);
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper(builder));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper(builder));
+    }
+
+    /**
+     * Cria o mapper Smile, com o compartilhamento de textos repetidos ligado.
+     *
+     * @param builder o builder com as configurações do JSON
+     * @return o mapper Smile
+     */
+    public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return builder.factory(factory).build();
+    }
+
+    /**
+     * Cria o mapper CBOR.
+     *
+     * @param builder o builder com as configurações do JSON
+     * @return o mapper CBOR
+     */
+    public static ObjectMapper cborMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new CBORFactory()).build();
+    }
+}
@@ -1,13 +1,34 @@
 package com.elotech.biblioteca_arom.controllers;
 
+import com.elotech.biblioteca_arom.clients.CachingGoogleBooksClient;
+import com.elotech.biblioteca_arom.dtos.BookImportStatusDTO;
+import com.elotech.biblioteca_arom.dtos.BookPageDTO;
+import com.elotech.biblioteca_arom.dtos.BookSuggestionDTO;
+import com.elotech.biblioteca_arom.dtos.BookSummary;
+import com.elotech.biblioteca_arom.dtos.EntityCacheStatsDTO;
+import com.elotech.biblioteca_arom.dtos.GoogleBooksCacheStatsDTO;
+import com.elotech.biblioteca_arom.dtos.SuggestionStatsDTO;
 import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.services.BookImportService;
 import com.elotech.biblioteca_arom.services.BookService;
+import com.elotech.biblioteca_arom.services.BookSuggestionService;
+import com.elotech.biblioteca_arom.services.CollectionVersions;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Snapshot;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Tracked;
+import com.elotech.biblioteca_arom.services.EntityCacheService;
+import com.elotech.biblioteca_arom.services.GoogleBooksService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Controlador responsável por gerenciar as operações relacionadas aos livros.
@@ -17,17 +38,41 @@ import java.util.List;
 @RequestMapping("/api/books")
 public class BookController {
 
+    // O JSON de um livro inclui os seus empréstimos
+    private static final Tracked[] BOOK_REPRESENTATION = {Tracked.BOOKS, Tracked.LOANS};
+
     private final BookService bookService;
+    private final GoogleBooksService googleBooksService;
+    private final CachingGoogleBooksClient googleBooksCache;
+    private final BookImportService bookImportService;
+    private final BookSuggestionService bookSuggestionService;
+    private final EntityCacheService entityCacheService;
+    private final CollectionVersions collectionVersions;
 
 
     /**
      * Construtor que injeta o serviço de gerenciamento de livros.
      *
-     * @param bookService o serviço de livros
+     * @param bookService           o serviço de livros
+     * @param googleBooksService    o serviço de busca na API do Google Books
+     * @param googleBooksCache      o cache das respostas da API do Google Books
+     * @param bookImportService     o serviço de importação em massa de livros
+     * @param bookSuggestionService o serviço de sugestões de títulos e autores
+     * @param entityCacheService    o serviço de estatísticas do cache de entidades
+     * @param collectionVersions    os contadores de alteração usados nos ETags
      */
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, GoogleBooksService googleBooksService,
+                          CachingGoogleBooksClient googleBooksCache, BookImportService bookImportService,
+                          BookSuggestionService bookSuggestionService, EntityCacheService entityCacheService,
+                          CollectionVersions collectionVersions) {
         this.bookService = bookService;
+        this.googleBooksService = googleBooksService;
+        this.googleBooksCache = googleBooksCache;
+        this.bookImportService = bookImportService;
+        this.bookSuggestionService = bookSuggestionService;
+        this.entityCacheService = entityCacheService;
+        this.collectionVersions = collectionVersions;
     }
 
     /**
@@ -44,22 +89,202 @@ public class BookController {
 
     /**
      * Retorna uma lista de todos os livros cadastrados.
+     * Responde 304 (Not Modified), com uma única consulta aos contadores de alteração, se nenhum livro
+     * ou empréstimo mudou desde o ETag ({@code If-None-Match}) ou a data ({@code If-Modified-Since}) informados.
      *
+     * @param request a requisição, com os cabeçalhos condicionais
      * @return uma lista de livros
      */
     @GetMapping
-    public List<Book> getAllBooks() {
+    public List<Book> getAllBooks(WebRequest request) {
+        Snapshot versions = collectionVersions.snapshot(BOOK_REPRESENTATION);
+        if (ConditionalRequests.notModified(request, versions.etag(), versions.lastModified())) {
+            return null;
+        }
         return bookService.getAllBooks();
     }
 
+    /**
+     * Retorna uma página de livros usando paginação por cursor.
+     * Use o campo {@code nextCursor} da resposta como parâmetro {@code after} da próxima chamada.
+     *
+     * @param after o ID do último livro da página anterior (opcional)
+     * @param limit a quantidade máxima de livros na página
+     * @return a página de livros e o cursor da próxima página
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<BookPageDTO> getBooksPage(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam("limit") int limit) {
+        return ResponseEntity.ok(bookService.getBooksPage(after, limit));
+    }
+
+    /**
+     * Retorna a página seguinte ao cursor informado sem {@code limit}, com {@value BookService#DEFAULT_PAGE_SIZE}
+     * livros, em vez de cair na listagem completa.
+     *
+     * @param after o ID do último livro da página anterior
+     * @return a página de livros e o cursor da próxima página
+     */
+    @GetMapping(params = {"after", "!limit"})
+    public ResponseEntity<BookPageDTO> getBooksPageAfter(@RequestParam("after") Long after) {
+        return getBooksPage(after, BookService.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Retorna uma página dos livros disponíveis (sem empréstimo ativo) usando paginação por cursor.
+     *
+     * @param after o ID do último livro da página anterior (opcional)
+     * @param limit a quantidade máxima de livros na página
+     * @return a página de livros disponíveis e o cursor da próxima página
+     */
+    @GetMapping("/available")
+    public ResponseEntity<BookPageDTO> getAvailableBooks(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return ResponseEntity.ok(bookService.getAvailableBooksPage(after, limit));
+    }
+
+    /**
+     * Busca livros do acervo por título, autor, categoria ou ISBN.
+     *
+     * @param query o texto da busca
+     * @param limit a quantidade máxima de livros retornados
+     * @return os livros encontrados, do mais para o menos relevante
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<BookSummary>> searchBooks(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(bookService.searchBooks(query, limit));
+    }
+
+    /**
+     * Sugere títulos e autores que começam com o texto digitado, dos mais para os menos emprestados.
+     *
+     * @param prefix o texto digitado
+     * @param limit  a quantidade máxima de sugestões
+     * @return as sugestões encontradas
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestionDTO>> suggestBooks(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookSuggestionService.suggest(prefix, limit));
+    }
+
+    /**
+     * Retorna o tamanho em memória do dicionário de sugestões e a latência média das consultas.
+     *
+     * @return as estatísticas do dicionário de sugestões
+     */
+    @GetMapping("/suggest/stats")
+    public ResponseEntity<SuggestionStatsDTO> getSuggestionStats() {
+        return ResponseEntity.ok(bookSuggestionService.getStats());
+    }
+
+    /**
+     * Busca livros na API do Google Books para facilitar o cadastro.
+     *
+     * @param query a consulta (título, autor ou "isbn:...")
+     * @return os livros encontrados, ainda não cadastrados no acervo
+     */
+    @GetMapping("/google")
+    public List<Book> searchGoogleBooks(@RequestParam("q") String query) {
+        return googleBooksService.searchBooks(query);
+    }
+
+    /**
+     * Retorna as estatísticas do cache de consultas à API do Google Books.
+     *
+     * @return acertos, faltas e carregamentos do cache
+     */
+    @GetMapping("/google/cache")
+    public ResponseEntity<GoogleBooksCacheStatsDTO> getGoogleBooksCacheStats() {
+        return ResponseEntity.ok(googleBooksCache.getStats());
+    }
+
+    /**
+     * Retorna as estatísticas do cache de segundo nível de livros.
+     *
+     * @return acertos, faltas e taxa de acerto do cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<EntityCacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(entityCacheService.getStats(Book.CACHE_REGION));
+    }
+
+    /**
+     * Inicia a importação em massa de livros do Google Books a partir de um arquivo
+     * com um ISBN ou consulta por linha.
+     *
+     * @param file o arquivo de importação
+     * @return uma resposta HTTP com o andamento inicial da importação e status 202 (Accepted),
+     *         ou status 400 (Bad Request) se o arquivo for inválido
+     * @throws IOException se o arquivo não puder ser lido
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importBooks(@RequestParam("file") MultipartFile file) throws IOException {
+        return startImport(new String(file.getBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Inicia a importação em massa de livros do Google Books a partir de um texto
+     * com um ISBN ou consulta por linha.
+     *
+     * @param body o conteúdo do arquivo de importação
+     * @return uma resposta HTTP com o andamento inicial da importação e status 202 (Accepted),
+     *         ou status 400 (Bad Request) se o conteúdo for inválido
+     */
+    @PostMapping(value = "/import", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> importBooks(@RequestBody String body) {
+        return startImport(body);
+    }
+
+    private ResponseEntity<?> startImport(String content) {
+        try {
+            BookImportStatusDTO status = bookImportService.startImport(content.lines().toList());
+            return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Retorna o andamento de uma importação em massa: progresso, vazão e falhas.
+     *
+     * @param jobId o ID retornado ao iniciar a importação
+     * @return uma resposta HTTP com o andamento e status 200 (OK),
+     *         ou status 404 (Not Found) se a importação não existir
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<?> getImportStatus(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(bookImportService.getStatus(jobId));
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
     /**
      * Retorna um livro com base no ID fornecido.
+     * O ETag combina a versão do livro com o contador de empréstimos; se ele coincidir com o
+     * {@code If-None-Match}, responde 304 (Not Modified) sem carregar o livro.
      *
-     * @param id o ID do livro a ser recuperado
+     * @param id      o ID do livro a ser recuperado
+     * @param request a requisição, com os cabeçalhos condicionais
      * @return uma resposta HTTP com o livro encontrado e status 200 (OK)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    public ResponseEntity<Book> getBookById(@PathVariable Long id, WebRequest request) {
+        Optional<Long> version = bookService.getBookVersion(id);
+        if (version.isPresent()) {
+            Snapshot versions = collectionVersions.snapshot(BOOK_REPRESENTATION);
+            if (ConditionalRequests.notModified(request,
+                    versions.etag(id, version.get(), Tracked.LOANS), versions.lastModified())) {
+                return null;
+            }
+        }
         Book book = bookService.getBookById(id);
         return ResponseEntity.ok(book);
     }
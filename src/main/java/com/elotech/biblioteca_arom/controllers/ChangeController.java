@@ -0,0 +1,58 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.services.ChangeFeedService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controlador do registro de alterações, usado pelo front end e pelas réplicas para sincronizar
+ * livros, usuários e empréstimos de forma incremental, em vez de baixar as coleções inteiras.
+ */
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    private final ChangeFeedService changeFeedService;
+
+    /**
+     * Construtor que injeta o serviço do registro de alterações.
+     *
+     * @param changeFeedService o serviço do registro de alterações
+     */
+    public ChangeController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    /**
+     * Retorna as alterações posteriores a {@code since}, em ordem. Se não houver nenhuma, a resposta
+     * espera até {@code wait} segundos por uma nova (long polling). Sem {@code since}, retorna apenas
+     * o número de sequência atual, a partir do qual o cliente que acabou de carregar as coleções continua.
+     * Se {@code resync} vier verdadeiro, as alterações posteriores a {@code since} já foram descartadas:
+     * o cliente deve recarregar as coleções e continuar a partir de {@code lastSeq}.
+     *
+     * @param since o último número de sequência já processado pelo cliente
+     * @param limit a quantidade máxima de alterações retornadas
+     * @param wait  o tempo máximo de espera, em segundos, quando não houver alterações
+     * @return uma resposta HTTP com as alterações e status 200 (OK),
+     *         ou status 400 (Bad Request) se os parâmetros forem inválidos
+     */
+    @GetMapping
+    public CompletableFuture<ResponseEntity<?>> getChanges(
+            @RequestParam(value = "since", required = false) Long since,
+            @RequestParam(value = "limit", defaultValue = "500") int limit,
+            @RequestParam(value = "wait", defaultValue = "0") int wait) {
+        try {
+            return changeFeedService.awaitChanges(since, limit, Duration.ofSeconds(wait))
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST));
+        }
+    }
+}
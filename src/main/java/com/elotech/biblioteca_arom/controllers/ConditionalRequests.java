@@ -0,0 +1,53 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.clients.WireFormatConfig;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Respostas condicionais das listagens e consultas por ID.
+ * <p>
+ * Um mesmo recurso pode ser devolvido em JSON, Smile ou CBOR, conforme o cabeçalho {@code Accept}
+ * (ver {@link WireFormatConfig}). Cada formato é uma representação diferente, então o ETag recebe
+ * o formato pedido e a resposta informa {@code Vary: Accept} para os caches.
+ * <p>
+ * Os ETags são enviados como fracos ({@code W/"..."}): o Tomcat não comprime respostas com ETag forte,
+ * e a versão com gzip não é idêntica byte a byte à sem compressão. O {@code If-None-Match} já é
+ * comparado de forma fraca, então um ETag forte enviado por um cliente antigo continua valendo.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Verifica os cabeçalhos {@code If-None-Match} e {@code If-Modified-Since}. Se o recurso não mudou,
+     * a resposta já fica com status 304 e o controlador deve retornar null; senão, a resposta recebe
+     * o ETag, como ETag fraco, e o Last-Modified.
+     *
+     * @param request      a requisição
+     * @param etag         o ETag da representação JSON, entre aspas
+     * @param lastModified o instante da última alteração, em milissegundos
+     * @return true se o recurso não foi modificado
+     */
+    static boolean notModified(WebRequest request, String etag, long lastModified) {
+        if (request instanceof NativeWebRequest nativeRequest
+                && nativeRequest.getNativeResponse() instanceof HttpServletResponse response) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        String variant = withFormat(etag, request.getHeader(HttpHeaders.ACCEPT));
+        return request.checkNotModified("W/" + variant, lastModified);
+    }
+
+    private static String withFormat(String etag, String accept) {
+        if (accept == null) {
+            return etag;
+        }
+        String format = accept.contains(WireFormatConfig.SMILE_VALUE) ? "smile"
+                : accept.contains(WireFormatConfig.CBOR_VALUE) ? "cbor"
+                : null;
+        return format == null ? etag : etag.substring(0, etag.length() - 1) + "-" + format + "\"";
+    }
+}
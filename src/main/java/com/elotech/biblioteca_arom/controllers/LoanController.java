@@ -1,16 +1,38 @@
 package com.elotech.biblioteca_arom.controllers;
 
+import com.elotech.biblioteca_arom.dtos.LoanBatchRequestDTO;
+import com.elotech.biblioteca_arom.dtos.LoanBatchResultDTO;
 import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.dtos.LoanJournalStatsDTO;
+import com.elotech.biblioteca_arom.dtos.LoanReturnBatchRequestDTO;
+import com.elotech.biblioteca_arom.dtos.LoanStreamStatsDTO;
+import com.elotech.biblioteca_arom.dtos.OverdueStatsDTO;
+import com.elotech.biblioteca_arom.dtos.SimilarityStatsDTO;
 import com.elotech.biblioteca_arom.entities.Book;
 import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.LoanAudit;
 import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.services.CollaborativeRecommender;
+import com.elotech.biblioteca_arom.services.CollectionVersions;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Snapshot;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Tracked;
+import com.elotech.biblioteca_arom.services.LoanAuditService;
+import com.elotech.biblioteca_arom.services.LoanExportService;
 import com.elotech.biblioteca_arom.services.LoanService;
+import com.elotech.biblioteca_arom.services.LoanStreamHub;
+import com.elotech.biblioteca_arom.services.OverdueLoanService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador responsável por gerenciar as operações relacionadas aos empréstimos de livros.
@@ -20,15 +42,39 @@ import java.util.List;
 @RequestMapping("/api/loans")
 public class LoanController {
 
+    // Os detalhes de um empréstimo incluem o nome do usuário e o título do livro
+    private static final Tracked[] LOAN_DETAILS = {Tracked.LOANS, Tracked.USERS, Tracked.BOOKS};
+
     private final LoanService loanService;
+    private final LoanExportService loanExportService;
+    private final CollaborativeRecommender collaborativeRecommender;
+    private final OverdueLoanService overdueLoanService;
+    private final CollectionVersions collectionVersions;
+    private final LoanStreamHub loanStreamHub;
+    private final LoanAuditService loanAuditService;
 
     /**
-     * Construtor que injeta o serviço de empréstimos.
+     * Construtor que injeta os serviços de empréstimos.
      *
-     * @param loanService o serviço de gerenciamento de empréstimos
+     * @param loanService              o serviço de gerenciamento de empréstimos
+     * @param loanExportService        o serviço de exportação em streaming dos empréstimos
+     * @param collaborativeRecommender o serviço de recomendação por co-empréstimos
+     * @param overdueLoanService       o serviço de verificação de empréstimos atrasados
+     * @param collectionVersions       os contadores de alteração usados nos ETags
+     * @param loanStreamHub            o envio das alterações de empréstimos aos painéis conectados
+     * @param loanAuditService         a trilha de auditoria dos empréstimos
      */
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, LoanExportService loanExportService,
+                          CollaborativeRecommender collaborativeRecommender, OverdueLoanService overdueLoanService,
+                          CollectionVersions collectionVersions, LoanStreamHub loanStreamHub,
+                          LoanAuditService loanAuditService) {
         this.loanService = loanService;
+        this.loanExportService = loanExportService;
+        this.collaborativeRecommender = collaborativeRecommender;
+        this.overdueLoanService = overdueLoanService;
+        this.collectionVersions = collectionVersions;
+        this.loanStreamHub = loanStreamHub;
+        this.loanAuditService = loanAuditService;
     }
 
     /**
@@ -47,15 +93,50 @@ public class LoanController {
         }
     }
 
+    /**
+     * Cria os empréstimos de vários livros para um mesmo usuário em uma única requisição.
+     *
+     * @param request o usuário, os livros e as datas do empréstimo
+     * @return uma resposta HTTP com o resultado de cada livro e status 200 (OK),
+     *         ou status 400 (Bad Request) se o pedido for inválido
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createLoans(@RequestBody LoanBatchRequestDTO request) {
+        try {
+            List<LoanBatchResultDTO> results = loanService.createLoans(request);
+            return ResponseEntity.ok(results);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Registra a devolução de vários empréstimos em uma única requisição.
+     *
+     * @param request os IDs dos empréstimos e a data de devolução
+     * @return uma resposta HTTP com o resultado de cada empréstimo e status 200 (OK),
+     *         ou status 400 (Bad Request) se o pedido for inválido
+     */
+    @PutMapping("/batch/return")
+    public ResponseEntity<?> returnLoans(@RequestBody LoanReturnBatchRequestDTO request) {
+        try {
+            List<LoanBatchResultDTO> results = loanService.returnLoans(request);
+            return ResponseEntity.ok(results);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /**
      * Atualiza um empréstimo existente com base no ID fornecido.
      *
      * @param id o ID do empréstimo a ser atualizado
      * @param returnDateStr a data de devolução no formato String
-     * @return uma resposta HTTP com o empréstimo atualizado e status 200 (OK)
+     * @return uma resposta HTTP com o empréstimo atualizado e status 200 (OK),
+     *         ou status 400 (Bad Request) se o empréstimo não existir ou o livro já estiver emprestado
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Loan> updateLoan(
+    public ResponseEntity<?> updateLoan(
             @PathVariable Long id,
             @RequestParam("returnDate") String returnDateStr,
             @RequestParam(value = "status", required = false) String statusStr) {
@@ -63,22 +144,111 @@ public class LoanController {
         LocalDate returnDate = LocalDate.parse(returnDateStr);
         Status status = (statusStr != null) ? Status.valueOf(statusStr) : null;
 
-        Loan updatedLoan = loanService.updateLoan(id, returnDate, status);
-        return ResponseEntity.ok(updatedLoan);
+        try {
+            Loan updatedLoan = loanService.updateLoan(id, returnDate, status);
+            return ResponseEntity.ok(updatedLoan);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
 
     /**
      * Retorna uma lista de todos os empréstimos cadastrados.
+     * Responde 304 (Not Modified), com uma única consulta aos contadores de alteração, se nenhum empréstimo,
+     * usuário ou livro mudou desde o ETag ({@code If-None-Match}) ou a data ({@code If-Modified-Since}) informados.
      *
+     * @param request a requisição, com os cabeçalhos condicionais
      * @return uma lista de empréstimos
      */
     @GetMapping
-    public ResponseEntity<List<LoanDTO>> getAllLoans() {
+    public ResponseEntity<List<LoanDTO>> getAllLoans(WebRequest request) {
+        Snapshot versions = collectionVersions.snapshot(LOAN_DETAILS);
+        if (ConditionalRequests.notModified(request, versions.etag(), versions.lastModified())) {
+            return null;
+        }
         List<LoanDTO> loanDetails = loanService.getAllLoanDetails();
         return ResponseEntity.ok(loanDetails);
     }
 
+    /**
+     * Abre uma conexão Server-Sent Events que recebe cada empréstimo criado, atualizado ou excluído,
+     * assim que a alteração é confirmada, em vez de consultar a listagem periodicamente. Cada evento tem
+     * o nome da operação ({@code CREATED}, {@code UPDATED} ou {@code DELETED}) e o empréstimo em JSON.
+     * Ao reconectar, o painel deve recarregar a listagem, pois os eventos enviados enquanto estava
+     * desconectado não são repetidos.
+     *
+     * @return uma resposta HTTP com o fluxo de eventos e status 200 (OK),
+     *         ou status 503 (Service Unavailable) se o limite de painéis conectados for atingido
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamLoans() {
+        try {
+            SseEmitter emitter = loanStreamHub.subscribe();
+            return ResponseEntity.ok(emitter);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Retorna a quantidade de painéis conectados ao fluxo de empréstimos e os totais de eventos enviados.
+     *
+     * @return as estatísticas do fluxo de empréstimos
+     */
+    @GetMapping("/stream/stats")
+    public ResponseEntity<LoanStreamStatsDTO> getStreamStats() {
+        return ResponseEntity.ok(loanStreamHub.getStats());
+    }
+
+    /**
+     * Retorna as alterações de um empréstimo registradas na trilha de auditoria, da mais antiga à mais recente.
+     * As alterações chegam à auditoria em segundo plano, alguns milissegundos depois de confirmadas.
+     *
+     * @param id o ID do empréstimo
+     * @return uma lista com as alterações do empréstimo
+     */
+    @GetMapping("/{id}/audit")
+    public ResponseEntity<List<LoanAudit>> getLoanAudit(@PathVariable Long id) {
+        return ResponseEntity.ok(loanAuditService.getAudit(id));
+    }
+
+    /**
+     * Retorna as posições do diário de empréstimos (gravação, gravação em disco e projeção na auditoria)
+     * e os totais de eventos gravados e projetados.
+     *
+     * @return as estatísticas do diário de empréstimos
+     */
+    @GetMapping("/journal/stats")
+    public ResponseEntity<LoanJournalStatsDTO> getJournalStats() {
+        return ResponseEntity.ok(loanAuditService.getStats());
+    }
+
+    /**
+     * Exporta todos os empréstimos em streaming, sem carregar a lista completa em memória.
+     * Cada linha é escrita na resposta assim que é lida do banco.
+     *
+     * @param format o formato de saída: "ndjson" (padrão) ou "csv"
+     * @return uma resposta HTTP com o corpo escrito em streaming,
+     *         ou status 400 (Bad Request) se o formato não for suportado
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportLoans(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        LoanExportService.Format exportFormat;
+        try {
+            exportFormat = LoanExportService.Format.of(format);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        StreamingResponseBody body = out -> loanExportService.exportLoanDetails(exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"loans." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     /**
      * Retorna uma lista de empréstimos associados a um determinado usuário.
      *
@@ -91,6 +261,18 @@ public class LoanController {
         return ResponseEntity.ok(userLoans);
     }
 
+    /**
+     * Retorna os detalhes dos empréstimos de um usuário, com nome do usuário e título do livro,
+     * obtidos em uma única consulta.
+     *
+     * @param userId o ID do usuário
+     * @return uma lista de detalhes dos empréstimos do usuário
+     */
+    @GetMapping("/user/{userId}/details")
+    public ResponseEntity<List<LoanDTO>> getLoanDetailsByUser(@PathVariable Long userId) {
+        return ResponseEntity.ok(loanService.getLoanDetailsByUser(userId));
+    }
+
     /**
      * Retorna uma lista de empréstimos associados a um determinado livro.
      *
@@ -103,21 +285,87 @@ public class LoanController {
         return ResponseEntity.ok(bookLoans);
     }
 
+    /**
+     * Retorna os detalhes dos empréstimos de um livro, com nome do usuário e título do livro,
+     * obtidos em uma única consulta.
+     *
+     * @param bookId o ID do livro
+     * @return uma lista de detalhes dos empréstimos do livro
+     */
+    @GetMapping("/book/{bookId}/details")
+    public ResponseEntity<List<LoanDTO>> getLoanDetailsByBook(@PathVariable Long bookId) {
+        return ResponseEntity.ok(loanService.getLoanDetailsByBook(bookId));
+    }
+
     /**
      * Endpoint para recomendar livros com base nas categorias dos livros que o usuário já emprestou.
      * O sistema verifica quais categorias de livros o usuário já emprestou e, a partir disso,
      * recomenda livros da mesma categoria que ele ainda não pegou emprestado.
+     * Com {@code mode=collaborative}, recomenda livros que outros usuários pegaram junto
+     * com os livros do histórico dele.
      *
      * @param userId o ID do usuário para o qual as recomendações serão geradas
+     * @param limit a quantidade máxima de livros recomendados (padrão 20, máximo 100)
+     * @param mode "category" (padrão) ou "collaborative"
      * @return ResponseEntity contendo uma lista de objetos Book recomendados ao usuário
      *         e o status HTTP 200 (OK) se as recomendações forem geradas com sucesso.
      */
     @GetMapping("/recomendations/{userId}")
-    public ResponseEntity<List<Book>> recomendBooks(@PathVariable Long userId) {
-        List<Book> recomendations = loanService.recomendBooksForUser(userId);
+    public ResponseEntity<List<Book>> recomendBooks(
+            @PathVariable Long userId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "mode", defaultValue = "category") String mode) {
+        int boundedLimit = Math.clamp(limit, 1, 100);
+        List<Book> recomendations = "collaborative".equalsIgnoreCase(mode)
+                ? loanService.recomendBooksByCoBorrowing(userId, boundedLimit)
+                : loanService.recomendBooksForUser(userId, boundedLimit);
         return ResponseEntity.ok(recomendations);
     }
 
+    /**
+     * Retorna as estatísticas da última reconstrução da matriz de similaridade:
+     * tempo de construção, quantidade de empréstimos lidos e memória estimada.
+     *
+     * @return as estatísticas da matriz de similaridade
+     */
+    @GetMapping("/recomendations/similarity")
+    public ResponseEntity<SimilarityStatsDTO> getSimilarityStats() {
+        return ResponseEntity.ok(collaborativeRecommender.getStats());
+    }
+
+    /**
+     * Dispara a reconstrução da matriz de similaridade em segundo plano.
+     *
+     * @return uma resposta HTTP com status 202 (Accepted)
+     */
+    @PostMapping("/recomendations/similarity/rebuild")
+    public ResponseEntity<Void> rebuildSimilarity() {
+        CompletableFuture.runAsync(collaborativeRecommender::rebuild);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Retorna a quantidade de empréstimos ativos em atraso e os números da última verificação
+     * incremental de vencimentos.
+     *
+     * @return as estatísticas de empréstimos atrasados
+     */
+    @GetMapping("/overdue/stats")
+    public ResponseEntity<OverdueStatsDTO> getOverdueStats() {
+        return ResponseEntity.ok(overdueLoanService.getStats());
+    }
+
+    /**
+     * Dispara em segundo plano a verificação dos empréstimos vencidos desde a última execução.
+     *
+     * @return uma resposta HTTP com status 202 (Accepted)
+     */
+    @PostMapping("/overdue/scan")
+    public ResponseEntity<Void> scanOverdue() {
+        CompletableFuture.runAsync(overdueLoanService::detectOverdueLoans);
+        return ResponseEntity.accepted().build();
+    }
+
     /**
      * Exclui um empréstimo com base no ID fornecido.
      *
@@ -1,13 +1,21 @@
 package com.elotech.biblioteca_arom.controllers;
 
+import com.elotech.biblioteca_arom.dtos.EntityCacheStatsDTO;
+import com.elotech.biblioteca_arom.dtos.UserBatchResultDTO;
 import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.services.CollectionVersions;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Snapshot;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Tracked;
+import com.elotech.biblioteca_arom.services.EntityCacheService;
 import com.elotech.biblioteca_arom.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Controlador responsável por gerenciar as operações relacionadas aos usuários.
@@ -17,16 +25,26 @@ import java.util.List;
 @RequestMapping("/api/users")
 public class UserController {
 
+    // O JSON de um usuário inclui os seus empréstimos
+    private static final Tracked[] USER_REPRESENTATION = {Tracked.USERS, Tracked.LOANS};
+
     private final UserService userService;
+    private final EntityCacheService entityCacheService;
+    private final CollectionVersions collectionVersions;
 
     /**
      * Construtor que injeta o serviço de usuários.
      *
-     * @param userService o serviço de gerenciamento de usuários
+     * @param userService        o serviço de gerenciamento de usuários
+     * @param entityCacheService o serviço de estatísticas do cache de entidades
+     * @param collectionVersions os contadores de alteração usados nos ETags
      */
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, EntityCacheService entityCacheService,
+                          CollectionVersions collectionVersions) {
         this.userService = userService;
+        this.entityCacheService = entityCacheService;
+        this.collectionVersions = collectionVersions;
     }
 
     /**
@@ -41,24 +59,69 @@ public class UserController {
         return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
     }
 
+    /**
+     * Cadastra vários usuários em uma única requisição.
+     *
+     * @param users os usuários a serem cadastrados
+     * @return uma resposta HTTP com o resultado de cada usuário e status 200 (OK),
+     *         ou status 400 (Bad Request) se o pedido for inválido
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createUsers(@RequestBody List<User> users) {
+        try {
+            List<UserBatchResultDTO> results = userService.createUsers(users);
+            return ResponseEntity.ok(results);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /**
      * Retorna uma lista de todos os usuários cadastrados.
+     * Responde 304 (Not Modified), com uma única consulta aos contadores de alteração, se nenhum usuário
+     * ou empréstimo mudou desde o ETag ({@code If-None-Match}) ou a data ({@code If-Modified-Since}) informados.
      *
+     * @param request a requisição, com os cabeçalhos condicionais
      * @return uma lista de usuários
      */
     @GetMapping
-    public List<User> getAllUsers() {
+    public List<User> getAllUsers(WebRequest request) {
+        Snapshot versions = collectionVersions.snapshot(USER_REPRESENTATION);
+        if (ConditionalRequests.notModified(request, versions.etag(), versions.lastModified())) {
+            return null;
+        }
         return userService.getAllUsers();
     }
 
+    /**
+     * Retorna as estatísticas do cache de segundo nível de usuários.
+     *
+     * @return acertos, faltas e taxa de acerto do cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<EntityCacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(entityCacheService.getStats(User.CACHE_REGION));
+    }
+
     /**
      * Retorna um usuário específico com base no ID fornecido.
+     * O ETag combina a versão do usuário com o contador de empréstimos; se ele coincidir com o
+     * {@code If-None-Match}, responde 304 (Not Modified) sem carregar o usuário.
      *
-     * @param id o ID do usuário
+     * @param id      o ID do usuário
+     * @param request a requisição, com os cabeçalhos condicionais
      * @return o usuário encontrado e status 200 (OK)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
+    public ResponseEntity<User> getUserById(@PathVariable Long id, WebRequest request) {
+        Optional<Long> version = userService.getUserVersion(id);
+        if (version.isPresent()) {
+            Snapshot versions = collectionVersions.snapshot(USER_REPRESENTATION);
+            if (ConditionalRequests.notModified(request,
+                    versions.etag(id, version.get(), Tracked.LOANS), versions.lastModified())) {
+                return null;
+            }
+        }
         User user = userService.getUserById(id);
         return ResponseEntity.ok(user);
     }
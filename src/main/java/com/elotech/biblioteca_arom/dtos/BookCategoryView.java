@@ -0,0 +1,10 @@
+package com.elotech.biblioteca_arom.dtos;
+
+/**
+ * Projeção com o ID e a categoria de um livro, usada para reconstruir índices em memória.
+ */
+public interface BookCategoryView {
+    Long getId();
+
+    String getCategory();
+}
@@ -0,0 +1,13 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BookImportFailureDTO {
+    private String entry;
+    private String message;
+}
@@ -0,0 +1,26 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BookImportStatusDTO {
+    private String jobId;
+    private String state;
+    private String startedAt;
+    private String finishedAt;
+    private int total;
+    private int processed;
+    private int inserted;
+    private int updated;
+    private int duplicates;
+    private int notFound;
+    private int failed;
+    private double booksPerSecond;
+    private List<BookImportFailureDTO> failures;
+}
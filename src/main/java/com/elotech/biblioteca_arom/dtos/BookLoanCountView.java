@@ -0,0 +1,15 @@
+package com.elotech.biblioteca_arom.dtos;
+
+/**
+ * Projeção com o título, o autor e a quantidade de empréstimos de um livro,
+ * usada para reconstruir o dicionário de sugestões.
+ */
+public interface BookLoanCountView {
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    Long getLoans();
+}
@@ -0,0 +1,15 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BookPageDTO {
+    private List<BookSummary> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BookSuggestionDTO {
+    private String text;
+    private String type;
+    private Long bookId;
+    private long loans;
+}
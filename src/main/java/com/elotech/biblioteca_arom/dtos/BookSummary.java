@@ -0,0 +1,21 @@
+package com.elotech.biblioteca_arom.dtos;
+
+/**
+ * Projeção leve de um livro usada nas listagens paginadas.
+ * Contém apenas as colunas da tabela book, sem carregar a coleção de empréstimos.
+ */
+public interface BookSummary {
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    String getIsbn();
+
+    String getPublicationDate();
+
+    String getCategory();
+
+    String getThumbnail_url();
+}
@@ -0,0 +1,17 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import com.elotech.biblioteca_arom.entities.enums.ChangedEntity;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ChangeDTO {
+    private long seq;
+    private ChangedEntity entity;
+    private long id;
+    private ChangeType op;
+}
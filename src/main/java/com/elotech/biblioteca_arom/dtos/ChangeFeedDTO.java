@@ -0,0 +1,17 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ChangeFeedDTO {
+    private List<ChangeDTO> changes;
+    private long lastSeq;
+    private boolean hasMore;
+    private boolean resync;
+}
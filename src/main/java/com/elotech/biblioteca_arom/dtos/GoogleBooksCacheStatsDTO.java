@@ -0,0 +1,20 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class GoogleBooksCacheStatsDTO {
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long loadSuccessCount;
+    private long loadFailureCount;
+    private long coalescedCount;
+    private long evictionCount;
+    private double averageLoadMillis;
+}
@@ -0,0 +1,18 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class LoanBatchRequestDTO {
+    private Long userId;
+    private List<Long> bookIds;
+    private LocalDate loanDate;
+    private LocalDate returnDate;
+}
@@ -0,0 +1,15 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class LoanBatchResultDTO {
+    private Long bookId;
+    private Long loanId;
+    private boolean success;
+    private String message;
+}
@@ -1,7 +1,10 @@
 package com.elotech.biblioteca_arom.dtos;
 
+import com.elotech.biblioteca_arom.entities.enums.Status;
 import lombok.*;
 
+import java.time.LocalDate;
+
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -14,4 +17,17 @@ public class LoanDTO {
     private String status;
     private String userName;
     private String bookTitle;
+
+    /**
+     * Construtor usado pelas consultas JPQL com expressão {@code select new},
+     * que leem apenas as colunas necessárias sem instanciar as entidades.
+     */
+    public LoanDTO(Long loanId, LocalDate loanDate, LocalDate returnDate, Status status, String userName, String bookTitle) {
+        this(loanId,
+                loanDate.toString(),
+                returnDate != null ? returnDate.toString() : null,
+                status.name(),
+                userName,
+                bookTitle);
+    }
  }
@@ -0,0 +1,12 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção com o ID e a data prevista de devolução de um empréstimo, usada na detecção de atrasos.
+ */
+public interface LoanDueView {
+    Long getId();
+
+    LocalDate getDueDate();
+}
@@ -0,0 +1,20 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class LoanJournalStatsDTO {
+    private long appendedEvents;
+    private long projectedEvents;
+    private long writePosition;
+    private long durablePosition;
+    private long projectedPosition;
+    private long flushes;
+    private int segments;
+    private long lastBatchSize;
+    private long lastBatchMillis;
+}
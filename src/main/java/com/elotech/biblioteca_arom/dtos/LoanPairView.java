@@ -0,0 +1,12 @@
+package com.elotech.biblioteca_arom.dtos;
+
+/**
+ * Projeção com o par usuário/livro de um empréstimo, usada para reconstruir índices em memória.
+ */
+public interface LoanPairView {
+    Long getLoanId();
+
+    Long getUserId();
+
+    Long getBookId();
+}
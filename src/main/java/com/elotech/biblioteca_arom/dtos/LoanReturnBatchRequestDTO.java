@@ -0,0 +1,16 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class LoanReturnBatchRequestDTO {
+    private List<Long> loanIds;
+    private LocalDate returnDate;
+}
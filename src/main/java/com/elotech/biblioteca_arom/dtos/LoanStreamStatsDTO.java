@@ -0,0 +1,15 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class LoanStreamStatsDTO {
+    private int subscribers;
+    private long publishedEvents;
+    private long deliveredEvents;
+    private long droppedSubscribers;
+}
@@ -0,0 +1,20 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OverdueStatsDTO {
+    private long activeOverdueLoans;
+    private LocalDate watermark;
+    private String lastRunAt;
+    private long lastRunMillis;
+    private long lastRunMarked;
+    private long lastRunBatches;
+    private long totalMarked;
+}
@@ -0,0 +1,18 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class SimilarityStatsDTO {
+    private String builtAt;
+    private long buildMillis;
+    private long loansScanned;
+    private int books;
+    private long neighbors;
+    private long estimatedBytes;
+    private int parallelism;
+}
@@ -0,0 +1,18 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class SuggestionStatsDTO {
+    private String builtAt;
+    private long buildMillis;
+    private int entries;
+    private long estimatedBytes;
+    private double bytesPerEntry;
+    private long lookups;
+    private double averageLookupMicros;
+}
@@ -0,0 +1,15 @@
+package com.elotech.biblioteca_arom.dtos;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class UserBatchResultDTO {
+    private String email;
+    private Long userId;
+    private boolean success;
+    private String message;
+}
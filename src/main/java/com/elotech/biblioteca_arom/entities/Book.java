@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.List;
@@ -16,8 +18,12 @@ import java.util.List;
 @Setter
 @Entity
 @Table(name = "book")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
 public class Book implements Serializable {
 
+    public static final String CACHE_REGION = "book";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -43,4 +49,13 @@ public class Book implements Serializable {
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL)
     @JsonManagedReference(value = "book-loans")
     private List<Loan> loans;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    public Book(Long id, String title, String author, String isbn, String publicationDate, String category,
+                String thumbnail_url, List<Loan> loans) {
+        this(id, title, author, isbn, publicationDate, category, thumbnail_url, loans, 0);
+    }
 }
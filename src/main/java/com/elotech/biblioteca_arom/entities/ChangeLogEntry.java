@@ -0,0 +1,42 @@
+package com.elotech.biblioteca_arom.entities;
+
+import com.elotech.biblioteca_arom.entities.enums.ChangedEntity;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Uma alteração de livro, usuário ou empréstimo. O número de sequência segue a ordem de commit das
+ * transações (ver {@code ChangeFeedService}); as linhas são gravadas por JDBC, não pelo Hibernate.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "ix_change_log_entity", columnList = "entity, entity_id, seq"))
+public class ChangeLogEntry implements Serializable {
+
+    @Id
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private ChangedEntity entity;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private ChangeType op;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
@@ -0,0 +1,33 @@
+package com.elotech.biblioteca_arom.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * A linha única com o último número de sequência do registro de alterações e o número até o qual
+ * as alterações já foram descartadas pela retenção.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "change_log_sequence")
+public class ChangeLogSequence implements Serializable {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    @Column(name = "truncated_through", nullable = false)
+    private long truncatedThrough;
+}
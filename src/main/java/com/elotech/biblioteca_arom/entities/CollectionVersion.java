@@ -0,0 +1,32 @@
+package com.elotech.biblioteca_arom.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * O contador de alterações de uma coleção (livros, usuários ou empréstimos) e o instante da última
+ * alteração, compartilhados por todas as instâncias da aplicação.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "collection_version")
+public class CollectionVersion implements Serializable {
+
+    @Id
+    private String collection;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(nullable = false)
+    private Instant modifiedAt;
+}
@@ -0,0 +1,29 @@
+package com.elotech.biblioteca_arom.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "job_watermark")
+public class JobWatermark implements Serializable {
+
+    @Id
+    private String job;
+
+    @Column(nullable = false)
+    private LocalDate watermark;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
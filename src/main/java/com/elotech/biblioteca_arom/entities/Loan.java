@@ -15,19 +15,20 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Entity
-@Table(name = "loan")
+@Table(name = "loan", indexes = @Index(name = "ix_loan_status_due_date", columnList = "status, due_date, id"))
 public class Loan implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonBackReference(value = "user-loans")
     private User user;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     @JsonBackReference(value = "book-loans")
     private Book book;
@@ -41,4 +42,18 @@ public class Loan implements Serializable {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Status status;
+
+    @Column
+    private LocalDate due_date;
+
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean overdue;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    public Loan(Long id, User user, Book book, LocalDate loan_date, LocalDate return_date, Status status) {
+        this(id, user, book, loan_date, return_date, status, null, false, 0);
+    }
 }
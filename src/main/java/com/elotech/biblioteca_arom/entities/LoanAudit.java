@@ -0,0 +1,80 @@
+package com.elotech.biblioteca_arom.entities;
+
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Uma alteração de empréstimo na trilha de auditoria, com o estado do empréstimo depois da alteração
+ * (só o ID nas exclusões). A chave é o identificador do diário de empréstimos ({@code LoanJournal}) que
+ * registrou o evento e a posição do evento nesse diário, já que cada instância tem o seu diário; as linhas
+ * são gravadas em lotes por JDBC pelo {@code LoanAuditService}, não pelo Hibernate.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "loan_audit", indexes = @Index(name = "ix_loan_audit_loan", columnList = "loan_id, recorded_at"))
+@IdClass(LoanAudit.Key.class)
+public class LoanAudit implements Serializable {
+
+    @Id
+    @Column(name = "journal_id", length = 36)
+    private String journalId;
+
+    @Id
+    private Long lsn;
+
+    @Column(name = "loan_id", nullable = false)
+    private Long loanId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private ChangeType op;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Status status;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "loan_date")
+    private LocalDate loanDate;
+
+    @Column(name = "return_date")
+    private LocalDate returnDate;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(name = "recorded_at", nullable = false)
+    private Instant recordedAt;
+
+    /**
+     * A chave de uma alteração na auditoria: o diário e a posição nele.
+     */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private String journalId;
+        private Long lsn;
+    }
+}
@@ -0,0 +1,33 @@
+package com.elotech.biblioteca_arom.entities.enums;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+
+/**
+ * As entidades cujas alterações são gravadas no registro de alterações ({@code change_log}).
+ */
+public enum ChangedEntity {
+    BOOK,
+    USER,
+    LOAN;
+
+    /**
+     * Retorna a entidade registrada de uma classe.
+     *
+     * @param entityClass a classe da entidade
+     * @return a entidade, ou null se as alterações da classe não forem registradas
+     */
+    public static ChangedEntity of(Class<?> entityClass) {
+        if (entityClass == Book.class) {
+            return BOOK;
+        }
+        if (entityClass == User.class) {
+            return USER;
+        }
+        if (entityClass == Loan.class) {
+            return LOAN;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.elotech.biblioteca_arom.events;
+
+import com.elotech.biblioteca_arom.entities.Book;
+
+/**
+ * Evento publicado pelo BookService sempre que um livro é criado, atualizado ou excluído.
+ *
+ * @param bookId o ID do livro alterado
+ * @param book   o livro salvo, ou null quando o livro foi excluído
+ * @param type   o tipo de alteração
+ */
+public record BookChangedEvent(Long bookId, Book book, ChangeType type) {
+}
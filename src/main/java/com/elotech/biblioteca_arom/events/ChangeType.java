@@ -0,0 +1,7 @@
+package com.elotech.biblioteca_arom.events;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,13 @@
+package com.elotech.biblioteca_arom.events;
+
+import com.elotech.biblioteca_arom.entities.Loan;
+
+/**
+ * Evento publicado pelo LoanService sempre que um empréstimo é criado, atualizado ou excluído.
+ *
+ * @param loanId o ID do empréstimo alterado
+ * @param loan   o empréstimo salvo, ou null quando o empréstimo foi excluído
+ * @param type   o tipo de alteração
+ */
+public record LoanChangedEvent(Long loanId, Loan loan, ChangeType type) {
+}
@@ -1,15 +1,67 @@
 package com.elotech.biblioteca_arom.repositories;
 
+import com.elotech.biblioteca_arom.dtos.BookCategoryView;
+import com.elotech.biblioteca_arom.dtos.BookLoanCountView;
+import com.elotech.biblioteca_arom.dtos.BookSummary;
 import com.elotech.biblioteca_arom.entities.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
-    List<Book> findByCategoryInAndIdNotIn(Set<String> categories, List<Long> excludedIds);
+    @Query("select b.id as id, b.title as title, b.author as author, b.isbn as isbn, " +
+            "b.publicationDate as publicationDate, b.category as category, b.thumbnail_url as thumbnail_url " +
+            "from Book b where b.id > :after order by b.id")
+    List<BookSummary> findSummariesAfter(@Param("after") Long after, Limit limit);
+
+    @Query("select b.id as id, b.title as title, b.author as author, b.isbn as isbn, " +
+            "b.publicationDate as publicationDate, b.category as category, b.thumbnail_url as thumbnail_url " +
+            "from Book b where b.id in :ids")
+    List<BookSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id as id, b.title as title, b.author as author, b.isbn as isbn, " +
+            "b.publicationDate as publicationDate, b.category as category, b.thumbnail_url as thumbnail_url " +
+            "from Book b")
+    Stream<BookSummary> streamBookSummaries();
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    @Query("select b.id as id, b.title as title, b.author as author, count(l.id) as loans " +
+            "from Book b left join b.loans l where b.id > :after group by b.id, b.title, b.author order by b.id")
+    List<BookLoanCountView> findLoanCountsAfter(@Param("after") Long after, Limit limit);
+
+    @Query("select b.id from Book b where b.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id as id, b.category as category from Book b")
+    Stream<BookCategoryView> streamBookCategories();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id from Book b")
+    Stream<Long> streamAllIds();
+
+    @Query("select b.id as id, b.title as title, b.author as author, b.isbn as isbn, " +
+            "b.publicationDate as publicationDate, b.category as category, b.thumbnail_url as thumbnail_url " +
+            "from Book b where b.id > :after and not exists " +
+            "(select 1 from Loan l where l.book = b and l.status = com.elotech.biblioteca_arom.entities.enums.Status.EMPRESTADO) " +
+            "order by b.id")
+    List<BookSummary> findAvailableSummariesAfter(@Param("after") Long after, Limit limit);
 
 }
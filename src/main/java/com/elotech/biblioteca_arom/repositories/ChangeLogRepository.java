@@ -0,0 +1,38 @@
+package com.elotech.biblioteca_arom.repositories;
+
+import com.elotech.biblioteca_arom.entities.ChangeLogEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("select e from ChangeLogEntry e where e.seq > :since order by e.seq")
+    List<ChangeLogEntry> findAfter(@Param("since") long since, Limit limit);
+
+    @Query("select min(e.seq) from ChangeLogEntry e")
+    Optional<Long> findFirstSeq();
+
+    @Query("select max(e.seq) from ChangeLogEntry e where e.changedAt < :before")
+    Optional<Long> findLastSeqBefore(@Param("before") Instant before);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ChangeLogEntry e where e.seq > :from and e.seq <= :to")
+    int deleteRange(@Param("from") long from, @Param("to") long to);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ChangeLogEntry e where e.seq > :from and e.seq <= :to and exists " +
+            "(select n.seq from ChangeLogEntry n where n.entity = e.entity and n.entityId = e.entityId and n.seq > e.seq)")
+    int deleteSupersededInRange(@Param("from") long from, @Param("to") long to);
+}
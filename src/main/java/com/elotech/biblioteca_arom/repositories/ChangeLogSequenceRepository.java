@@ -0,0 +1,19 @@
+package com.elotech.biblioteca_arom.repositories;
+
+import com.elotech.biblioteca_arom.entities.ChangeLogSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ChangeLogSequenceRepository extends JpaRepository<ChangeLogSequence, Integer> {
+
+    @Transactional
+    @Modifying
+    @Query("update ChangeLogSequence s set s.truncatedThrough = :through " +
+            "where s.id = " + ChangeLogSequence.ID + " and s.truncatedThrough < :through")
+    int advanceTruncation(@Param("through") long through);
+}
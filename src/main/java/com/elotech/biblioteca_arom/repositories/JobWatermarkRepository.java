@@ -0,0 +1,9 @@
+package com.elotech.biblioteca_arom.repositories;
+
+import com.elotech.biblioteca_arom.entities.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+}
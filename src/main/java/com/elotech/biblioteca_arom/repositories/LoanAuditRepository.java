@@ -0,0 +1,30 @@
+package com.elotech.biblioteca_arom.repositories;
+
+import com.elotech.biblioteca_arom.entities.LoanAudit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LoanAuditRepository extends JpaRepository<LoanAudit, LoanAudit.Key> {
+
+    /**
+     * Retorna as alterações de um empréstimo na ordem em que foram registradas.
+     *
+     * @param loanId o ID do empréstimo
+     * @return as alterações do empréstimo
+     */
+    List<LoanAudit> findByLoanIdOrderByRecordedAtAscLsnAsc(Long loanId);
+
+    /**
+     * Retorna a posição da última alteração de um diário projetada na auditoria, ou -1 se não houver nenhuma.
+     *
+     * @param journalId o identificador do diário
+     * @return a maior posição gravada pelo diário
+     */
+    @Query("select coalesce(max(a.lsn), -1) from LoanAudit a where a.journalId = :journalId")
+    long findLastLsn(@Param("journalId") String journalId);
+}
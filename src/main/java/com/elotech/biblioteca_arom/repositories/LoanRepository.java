@@ -1,12 +1,26 @@
 package com.elotech.biblioteca_arom.repositories;
 
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.dtos.LoanDueView;
+import com.elotech.biblioteca_arom.dtos.LoanPairView;
 import com.elotech.biblioteca_arom.entities.Loan;
 import com.elotech.biblioteca_arom.entities.enums.Status;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
@@ -17,5 +31,62 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
 
     List<Loan> findByBookIdAndStatus(Long bookId, Status status);
 
+    long countByStatus(Status status);
+
+    @Query("select l.book.id from Loan l where l.book.id in :bookIds and l.status = :status")
+    List<Long> findBookIdsByStatus(@Param("bookIds") Collection<Long> bookIds, @Param("status") Status status);
+
+    @Query("select l.book.id from Loan l where l.status = :status")
+    List<Long> findAllBookIdsByStatus(@Param("status") Status status);
+
+    @Query("select new com.elotech.biblioteca_arom.dtos.LoanDTO(l.id, l.loan_date, l.return_date, l.status, u.name, b.title) " +
+            "from Loan l join l.user u join l.book b order by l.id")
+    List<LoanDTO> findAllLoanDetails();
+
+    @Query("select new com.elotech.biblioteca_arom.dtos.LoanDTO(l.id, l.loan_date, l.return_date, l.status, u.name, b.title) " +
+            "from Loan l join l.user u join l.book b where l.id = :id")
+    Optional<LoanDTO> findLoanDetailsById(@Param("id") Long id);
+
+    @Query("select new com.elotech.biblioteca_arom.dtos.LoanDTO(l.id, l.loan_date, l.return_date, l.status, u.name, b.title) " +
+            "from Loan l join l.user u join l.book b where u.id = :userId order by l.id")
+    List<LoanDTO> findLoanDetailsByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.elotech.biblioteca_arom.dtos.LoanDTO(l.id, l.loan_date, l.return_date, l.status, u.name, b.title) " +
+            "from Loan l join l.user u join l.book b where b.id = :bookId order by l.id")
+    List<LoanDTO> findLoanDetailsByBookId(@Param("bookId") Long bookId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.elotech.biblioteca_arom.dtos.LoanDTO(l.id, l.loan_date, l.return_date, l.status, u.name, b.title) " +
+            "from Loan l join l.user u join l.book b order by l.id")
+    Stream<LoanDTO> streamAllLoanDetails();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select l.id as loanId, l.user.id as userId, l.book.id as bookId from Loan l")
+    Stream<LoanPairView> streamUserBookPairs();
+
+    @Query("select l.id as loanId, l.user.id as userId, l.book.id as bookId from Loan l where l.id > :after order by l.id")
+    List<LoanPairView> findLoanPairsAfter(@Param("after") Long after, Limit limit);
+
+    @Query("select distinct l.book.id from Loan l where l.user.id = :userId")
+    List<Long> findDistinctBookIdsByUserId(@Param("userId") Long userId);
+
+    @Query("select l.id as id, l.due_date as dueDate from Loan l " +
+            "where l.status = :status and l.due_date >= :from and l.due_date < :to and l.overdue = false " +
+            "and (l.due_date > :afterDue or (l.due_date = :afterDue and l.id > :afterId)) " +
+            "order by l.due_date, l.id")
+    List<LoanDueView> findDueBetween(@Param("status") Status status, @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to, @Param("afterDue") LocalDate afterDue,
+                                     @Param("afterId") Long afterId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("update Loan l set l.overdue = true, l.version = l.version + 1 where l.id in :ids and l.status = :status and l.overdue = false")
+    int markOverdue(@Param("ids") Collection<Long> ids, @Param("status") Status status);
+
+    @Query("select count(l) from Loan l where l.status = :status and l.overdue = true")
+    long countOverdue(@Param("status") Status status);
 
 }
@@ -0,0 +1,261 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória da disponibilidade dos livros, com um bit por livro cadastrado e um bit por
+ * livro emprestado ({@link BitSet} indexado pelo ID). Responde "este livro está emprestado?" em O(1)
+ * e lista os livros disponíveis em ordem de ID sem consultar o banco.
+ * <p>
+ * O índice é montado a partir do banco quando a aplicação inicia e ressincronizado periodicamente
+ * (para absorver alterações feitas por outras instâncias); o {@link LoanService} o atualiza logo após
+ * gravar cada empréstimo, devolução ou exclusão. Alterações que chegam durante uma reconstrução são
+ * reaplicadas sobre o novo estado antes da troca. Enquanto o índice não estiver pronto, quem o usa
+ * deve consultar o banco.
+ */
+@Component
+public class BookAvailabilityIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookAvailabilityIndex.class);
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private List<Consumer<State>> pendingChanges;
+    private volatile boolean ready;
+
+    /**
+     * Construtor que injeta os repositórios usados na reconstrução do índice.
+     *
+     * @param bookRepository o repositório de livros
+     * @param loanRepository o repositório de empréstimos
+     */
+    @Autowired
+    public BookAvailabilityIndex(BookRepository bookRepository, LoanRepository loanRepository) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+    }
+
+    /**
+     * Indica se o índice já foi montado a partir do banco e pode substituir as consultas.
+     *
+     * @return true se o índice estiver pronto
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Verifica se o livro tem um empréstimo ativo.
+     *
+     * @param bookId o ID do livro
+     * @return true se o livro estiver emprestado
+     */
+    public boolean isOnLoan(long bookId) {
+        if (!fits(bookId)) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return state.onLoan.get((int) bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Conta os livros com empréstimo ativo.
+     *
+     * @return a quantidade de livros emprestados
+     */
+    public int onLoanCount() {
+        lock.readLock().lock();
+        try {
+            return state.onLoan.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtra os livros que têm um empréstimo ativo.
+     *
+     * @param bookIds os IDs dos livros
+     * @return os IDs, entre os informados, dos livros emprestados
+     */
+    public Set<Long> onLoanAmong(Collection<Long> bookIds) {
+        Set<Long> onLoan = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (Long bookId : bookIds) {
+                if (fits(bookId) && state.onLoan.get((int) (long) bookId)) {
+                    onLoan.add(bookId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return onLoan;
+    }
+
+    /**
+     * Lista os livros cadastrados e sem empréstimo ativo, em ordem de ID.
+     *
+     * @param after o ID a partir do qual a lista começa (exclusivo)
+     * @param limit a quantidade máxima de IDs
+     * @return os IDs dos livros disponíveis
+     */
+    public List<Long> availableAfter(long after, int limit) {
+        List<Long> available = new ArrayList<>(Math.min(limit, 1024));
+        if (after >= Integer.MAX_VALUE) {
+            return available;
+        }
+        lock.readLock().lock();
+        try {
+            int next = state.books.nextSetBit((int) Math.max(after + 1, 0));
+            while (next >= 0 && available.size() < limit) {
+                if (!state.onLoan.get(next)) {
+                    available.add((long) next);
+                }
+                next = next == Integer.MAX_VALUE ? -1 : state.books.nextSetBit(next + 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return available;
+    }
+
+    /**
+     * Registra que o livro foi emprestado.
+     *
+     * @param bookId o ID do livro
+     */
+    public void markOnLoan(long bookId) {
+        apply(bookId, current -> current.onLoan.set((int) bookId));
+    }
+
+    /**
+     * Registra que o livro foi devolvido ou que o seu empréstimo ativo foi excluído.
+     *
+     * @param bookId o ID do livro
+     */
+    public void markReturned(long bookId) {
+        apply(bookId, current -> current.onLoan.clear((int) bookId));
+    }
+
+    /**
+     * Mantém a lista de livros cadastrados sincronizada com o acervo.
+     * Um livro excluído leva junto os seus empréstimos.
+     *
+     * @param event o evento de alteração de livro
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        long bookId = event.bookId();
+        if (event.type() == ChangeType.DELETED) {
+            apply(bookId, current -> {
+                current.books.clear((int) bookId);
+                current.onLoan.clear((int) bookId);
+            });
+        } else if (event.type() == ChangeType.CREATED) {
+            apply(bookId, current -> current.books.set((int) bookId));
+        }
+    }
+
+    /**
+     * Reconstrói o índice a partir dos livros e dos empréstimos ativos gravados no banco.
+     * O novo estado é montado fora do lock; as alterações recebidas nesse meio tempo são
+     * reaplicadas sobre ele e só então ele substitui o estado atual.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${biblioteca.availability.resync-interval-ms:600000}",
+            fixedDelayString = "${biblioteca.availability.resync-interval-ms:600000}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State fresh = new State();
+        boolean complete;
+        try (Stream<Long> bookIds = bookRepository.streamAllIds()) {
+            complete = bookIds.allMatch(bookId -> {
+                if (!fits(bookId)) {
+                    return false;
+                }
+                fresh.books.set((int) (long) bookId);
+                return true;
+            });
+        }
+        for (Long bookId : loanRepository.findAllBookIdsByStatus(Status.EMPRESTADO)) {
+            if (fits(bookId)) {
+                fresh.onLoan.set((int) (long) bookId);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(change -> change.accept(fresh));
+            pendingChanges = null;
+            state = fresh;
+            ready = complete;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (complete) {
+            LOGGER.info("Índice de disponibilidade reconstruído: {} livros, {} emprestados em {} ms",
+                    fresh.books.cardinality(), fresh.onLoan.cardinality(), (System.nanoTime() - start) / 1_000_000);
+        } else {
+            LOGGER.warn("Índice de disponibilidade desativado: há livros com ID maior que {}", Integer.MAX_VALUE);
+        }
+    }
+
+    private void apply(long bookId, Consumer<State> change) {
+        if (!fits(bookId)) {
+            ready = false;
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean fits(Long bookId) {
+        return bookId != null && bookId >= 0 && bookId <= Integer.MAX_VALUE;
+    }
+
+    private static final class State {
+        private final BitSet books = new BitSet();
+        private final BitSet onLoan = new BitSet();
+    }
+}
@@ -0,0 +1,78 @@
+package com.elotech.biblioteca_arom.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto fixo de locks indexado pelo ID do livro (lock striping).
+ * Empréstimos do mesmo livro sempre disputam o mesmo lock, enquanto empréstimos de livros
+ * diferentes quase sempre caem em locks diferentes e podem seguir em paralelo.
+ * O lock protege apenas esta instância da aplicação; entre instâncias, a garantia final
+ * é o índice único parcial {@value LoanService#ACTIVE_LOAN_INDEX} no banco.
+ */
+final class BookCheckoutLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes a quantidade de locks, arredondada para a próxima potência de dois
+     */
+    BookCheckoutLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Retorna o lock responsável pelo livro informado.
+     */
+    Lock lockFor(long bookId) {
+        return stripes[stripeOf(bookId)];
+    }
+
+    /**
+     * Adquire os locks de todos os livros informados, sempre em ordem crescente de lock,
+     * para que dois lotes com livros em comum nunca esperem um pelo outro em ciclo.
+     *
+     * @return os locks adquiridos, que devem ser liberados com {@link #unlockAll(List)}
+     */
+    List<Lock> lockAll(Collection<Long> bookIds) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Long bookId : bookIds) {
+            indexes.add(stripeOf(bookId));
+        }
+        List<Lock> acquired = new ArrayList<>(indexes.size());
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                acquired.add(stripes[index]);
+            }
+        } catch (RuntimeException e) {
+            unlockAll(acquired);
+            throw e;
+        }
+        return acquired;
+    }
+
+    /**
+     * Libera os locks adquiridos por {@link #lockAll(Collection)}, na ordem inversa.
+     */
+    void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    int stripeOf(long bookId) {
+        long hash = bookId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
@@ -0,0 +1,128 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookImportFailureDTO;
+import com.elotech.biblioteca_arom.dtos.BookImportStatusDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Andamento de uma importação do {@link BookImportService}. Os contadores são atualizados
+ * pelas threads da importação e lidos a qualquer momento pelo endpoint de status.
+ */
+class BookImportJob {
+
+    static final int MAX_REPORTED_FAILURES = 100;
+
+    enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final int total;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger notFound = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final Queue<BookImportFailureDTO> failures = new ConcurrentLinkedQueue<>();
+
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile long finishedNanos;
+
+    BookImportJob(String id, int total) {
+        this.id = id;
+        this.total = total;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void inserted(int count) {
+        inserted.addAndGet(count);
+        processed.addAndGet(count);
+    }
+
+    void updated(int count) {
+        updated.addAndGet(count);
+        processed.addAndGet(count);
+    }
+
+    void duplicate() {
+        duplicates.incrementAndGet();
+        processed.incrementAndGet();
+    }
+
+    void notFound(String entry) {
+        notFound.incrementAndGet();
+        processed.incrementAndGet();
+        report(entry, "Nenhum livro encontrado!");
+    }
+
+    /**
+     * Registra a falha de uma entrada; apenas as primeiras {@value #MAX_REPORTED_FAILURES}
+     * mensagens são guardadas, mas todas são contadas.
+     */
+    void failed(String entry, String message) {
+        failed.incrementAndGet();
+        processed.incrementAndGet();
+        report(entry, message);
+    }
+
+    private void report(String entry, String message) {
+        if (failures.size() < MAX_REPORTED_FAILURES) {
+            failures.add(new BookImportFailureDTO(entry, message));
+        }
+    }
+
+    void finish(State finalState) {
+        finishedNanos = System.nanoTime();
+        finishedAt = Instant.now();
+        state = finalState;
+        done.countDown();
+    }
+
+    boolean await(Duration timeout) throws InterruptedException {
+        return done.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    BookImportStatusDTO toStatus() {
+        long end = isFinished() ? finishedNanos : System.nanoTime();
+        double seconds = (end - startNanos) / 1_000_000_000d;
+        int saved = inserted.get() + updated.get();
+        return BookImportStatusDTO.builder()
+                .jobId(id)
+                .state(state.name())
+                .startedAt(startedAt.toString())
+                .finishedAt(finishedAt != null ? finishedAt.toString() : null)
+                .total(total)
+                .processed(processed.get())
+                .inserted(inserted.get())
+                .updated(updated.get())
+                .duplicates(duplicates.get())
+                .notFound(notFound.get())
+                .failed(failed.get())
+                .booksPerSecond(seconds > 0 ? saved / seconds : 0)
+                .failures(new ArrayList<>(failures))
+                .build();
+    }
+}
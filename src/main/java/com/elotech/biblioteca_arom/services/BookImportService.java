@@ -0,0 +1,325 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.clients.GoogleBooksClient;
+import com.elotech.biblioteca_arom.dtos.BookImportStatusDTO;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Serviço responsável pela importação em massa de livros a partir da API do Google Books.
+ * Recebe uma lista de ISBNs ou consultas, busca cada entrada em virtual threads com um limite
+ * de requisições simultâneas e novas tentativas com espera exponencial, descarta ISBNs repetidos
+ * e grava os livros no acervo em lotes JDBC, atualizando os livros que já tinham o mesmo ISBN.
+ * <p>
+ * A importação roda em segundo plano; o andamento é consultado pelo ID retornado ao iniciá-la.
+ */
+@Service
+public class BookImportService {
+
+    static final int MAX_ENTRIES = 10_000;
+    static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(24);
+
+    private static final Pattern ISBN = Pattern.compile("\\d{9}[\\dX]|\\d{13}");
+
+    private final GoogleBooksClient googleBooksClient;
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final TransactionOperations transactionOperations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int concurrency;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final ExecutorService runner = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, BookImportJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Construtor que injeta o cliente da API, o repositório e os parâmetros da importação.
+     *
+     * @param googleBooksClient     o cliente usado para buscar os livros
+     * @param bookRepository        o repositório de livros
+     * @param entityManager         usado para ajustar o tamanho dos lotes JDBC de cada gravação
+     * @param transactionOperations usado para delimitar a transação de cada lote
+     * @param eventPublisher        o publicador usado para notificar alterações no catálogo
+     * @param concurrency           a quantidade máxima de requisições simultâneas à API
+     * @param batchSize             a quantidade de livros gravados por lote
+     * @param maxAttempts           a quantidade máxima de tentativas por entrada
+     * @param backoffMillis         a espera antes da segunda tentativa; dobra a cada nova tentativa
+     */
+    @Autowired
+    public BookImportService(GoogleBooksClient googleBooksClient, BookRepository bookRepository,
+                             EntityManager entityManager, TransactionOperations transactionOperations,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${biblioteca.import.concurrency:8}") int concurrency,
+                             @Value("${biblioteca.import.batch-size:50}") int batchSize,
+                             @Value("${biblioteca.import.max-attempts:3}") int maxAttempts,
+                             @Value("${biblioteca.import.backoff-millis:200}") long backoffMillis) {
+        this.googleBooksClient = googleBooksClient;
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.transactionOperations = transactionOperations;
+        this.eventPublisher = eventPublisher;
+        this.concurrency = Math.max(1, concurrency);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+    }
+
+    /**
+     * Inicia a importação das entradas informadas, uma por linha.
+     * Linhas em branco e linhas iniciadas por {@code #} são ignoradas. Uma linha com 10 ou 13 dígitos
+     * (hífens e espaços são desconsiderados) é buscada como ISBN; as demais, como consulta livre,
+     * e o primeiro livro encontrado é importado.
+     *
+     * @param lines as linhas do arquivo de importação
+     * @return o andamento inicial da importação, com o ID usado para acompanhá-la
+     * @throws RuntimeException se não houver entradas ou se houver mais de {@value #MAX_ENTRIES}
+     */
+    public BookImportStatusDTO startImport(List<String> lines) {
+        List<String> entries = lines.stream()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
+        if (entries.isEmpty()) {
+            throw new RuntimeException("Informe ao menos um ISBN ou consulta!");
+        }
+        if (entries.size() > MAX_ENTRIES) {
+            throw new RuntimeException("A importação pode ter no máximo " + MAX_ENTRIES + " entradas!");
+        }
+
+        Instant cutoff = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+
+        BookImportJob job = new BookImportJob(UUID.randomUUID().toString(), entries.size());
+        jobs.put(job.getId(), job);
+        runner.execute(() -> run(job, entries));
+        return job.toStatus();
+    }
+
+    /**
+     * Retorna o andamento de uma importação: entradas processadas, livros inseridos e atualizados,
+     * repetidos, não encontrados, falhas e a vazão em livros gravados por segundo.
+     *
+     * @param jobId o ID retornado ao iniciar a importação
+     * @return o andamento da importação
+     * @throws RuntimeException se a importação não for encontrada
+     */
+    public BookImportStatusDTO getStatus(String jobId) {
+        BookImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Importação não encontrada!");
+        }
+        return job.toStatus();
+    }
+
+    BookImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void run(BookImportJob job, List<String> entries) {
+        try {
+            importEntries(job, entries);
+            job.finish(BookImportJob.State.COMPLETED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(BookImportJob.State.FAILED);
+        } catch (RuntimeException | ExecutionException e) {
+            job.failed(null, messageOf(e));
+            job.finish(BookImportJob.State.FAILED);
+        }
+    }
+
+    /**
+     * Dispara uma busca por entrada distinta e grava os resultados à medida que chegam,
+     * sempre nesta thread, para que os lotes sejam gravados um de cada vez.
+     */
+    private void importEntries(BookImportJob job, List<String> entries) throws InterruptedException, ExecutionException {
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<Fetched> completion = new ExecutorCompletionService<>(fetchers);
+            Set<String> queries = new HashSet<>();
+            int submitted = 0;
+            for (String entry : entries) {
+                String query = queryOf(entry);
+                if (!queries.add(query.toLowerCase(Locale.ROOT))) {
+                    job.duplicate();
+                    continue;
+                }
+                completion.submit(() -> fetch(entry, query, permits));
+                submitted++;
+            }
+
+            Set<String> isbns = new HashSet<>();
+            List<Fetched> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < submitted; i++) {
+                Fetched fetched = completion.take().get();
+                if (fetched.error() != null) {
+                    job.failed(fetched.entry(), fetched.error());
+                } else if (fetched.book() == null) {
+                    job.notFound(fetched.entry());
+                } else if (!isComplete(fetched.book())) {
+                    job.failed(fetched.entry(), "O livro encontrado não tem título, autor, ISBN, data e categoria!");
+                } else if (!isbns.add(fetched.book().getIsbn())) {
+                    job.duplicate();
+                } else {
+                    batch.add(fetched);
+                    if (batch.size() == batchSize) {
+                        upsert(job, batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                upsert(job, batch);
+            }
+        }
+    }
+
+    /**
+     * Busca uma entrada na API, tentando de novo apenas em falhas temporárias
+     * (erros de rede, 429 e 5xx). Nunca lança exceção: falhas viram um {@link Fetched} com erro.
+     */
+    private Fetched fetch(String entry, String query, Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Fetched(entry, null, "Importação interrompida!");
+        }
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return new Fetched(entry, pick(query, googleBooksClient.searchBooks(query)), null);
+                } catch (RuntimeException e) {
+                    if (attempt >= maxAttempts || !isRetryable(e)) {
+                        return new Fetched(entry, null, messageOf(e));
+                    }
+                }
+                Thread.sleep(backoffFor(attempt));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Fetched(entry, null, "Importação interrompida!");
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Grava um lote em uma única transação: livros com ISBN já cadastrado são atualizados,
+     * os demais são inseridos. Se o lote falhar, todas as suas entradas são contadas como falhas.
+     * Os ISBNs do lote já chegam sem repetições.
+     */
+    private void upsert(BookImportJob job, List<Fetched> batch) {
+        List<String> isbns = batch.stream().map(fetched -> fetched.book().getIsbn()).toList();
+        List<BookChangedEvent> events;
+        try {
+            events = transactionOperations.execute(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                Map<String, Book> existing = bookRepository.findByIsbnIn(isbns).stream()
+                        .collect(Collectors.toMap(Book::getIsbn, Function.identity(), (a, b) -> a));
+
+                List<Book> created = new ArrayList<>();
+                List<BookChangedEvent> changes = new ArrayList<>(batch.size());
+                for (Fetched fetched : batch) {
+                    Book book = fetched.book();
+                    Book current = existing.get(book.getIsbn());
+                    if (current == null) {
+                        created.add(book);
+                    } else {
+                        current.setTitle(book.getTitle());
+                        current.setAuthor(book.getAuthor());
+                        current.setPublicationDate(book.getPublicationDate());
+                        current.setCategory(book.getCategory());
+                        current.setThumbnail_url(book.getThumbnail_url());
+                        changes.add(new BookChangedEvent(current.getId(), current, ChangeType.UPDATED));
+                    }
+                }
+                for (Book saved : bookRepository.saveAll(created)) {
+                    changes.add(new BookChangedEvent(saved.getId(), saved, ChangeType.CREATED));
+                }
+                return changes;
+            });
+        } catch (RuntimeException e) {
+            String message = messageOf(e);
+            batch.forEach(fetched -> job.failed(fetched.entry(), message));
+            return;
+        }
+
+        int created = (int) events.stream().filter(event -> event.type() == ChangeType.CREATED).count();
+        job.inserted(created);
+        job.updated(events.size() - created);
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    private long backoffFor(int attempt) {
+        long delay = backoffMillis << Math.min(attempt - 1, 16);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * Entradas que parecem ISBN viram a consulta {@code isbn:<dígitos>}; as demais são enviadas como estão.
+     */
+    static String queryOf(String entry) {
+        String digits = entry.replaceAll("[\\s-]", "").toUpperCase(Locale.ROOT);
+        return ISBN.matcher(digits).matches() ? "isbn:" + digits : entry;
+    }
+
+    /**
+     * Em buscas por ISBN prefere o livro com o mesmo ISBN; caso contrário, usa o primeiro resultado.
+     */
+    private static Book pick(String query, List<Book> books) {
+        if (books == null || books.isEmpty()) {
+            return null;
+        }
+        if (query.startsWith("isbn:")) {
+            String isbn = query.substring("isbn:".length());
+            for (Book book : books) {
+                if (isbn.equals(book.getIsbn())) {
+                    return book;
+                }
+            }
+        }
+        return books.getFirst();
+    }
+
+    private static boolean isComplete(Book book) {
+        return book.getTitle() != null && book.getAuthor() != null && book.getIsbn() != null
+                && book.getPublicationDate() != null && book.getCategory() != null;
+    }
+
+    private static boolean isRetryable(RuntimeException e) {
+        return e instanceof FeignException feign && (feign.status() < 0 || feign.status() == 429 || feign.status() >= 500);
+    }
+
+    private static String messageOf(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private record Fetched(String entry, Book book, String error) {
+    }
+}
@@ -0,0 +1,318 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookCategoryView;
+import com.elotech.biblioteca_arom.dtos.LoanPairView;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Motor de recomendação por categoria mantido em memória.
+ * Guarda, para cada usuário, quantos empréstimos ele fez em cada categoria (afinidade) e quais livros
+ * já pegou, e, para cada categoria, o ranking dos livros por popularidade (número de empréstimos).
+ * Os contadores são atualizados de forma incremental a cada empréstimo criado e a estrutura completa
+ * é reconstruída a partir do banco quando a aplicação inicia. Livros e usuários ficam em mapas de chaves
+ * {@code long} ({@link LongMap}), sem um {@link Long} e um nó de {@code HashMap} por entrada.
+ */
+@Component
+public class BookRecommendationEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookRecommendationEngine.class);
+
+    private static final Comparator<BookEntry> BY_POPULARITY = Comparator
+            .comparingInt((BookEntry entry) -> entry.loans).reversed()
+            .thenComparingLong(entry -> entry.id);
+
+    private static final Comparator<Candidate> BY_SCORE = Comparator
+            .comparingLong(Candidate::score)
+            .thenComparing(Comparator.comparingLong(Candidate::bookId).reversed());
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    // Alterações recebidas durante uma reconstrução, reaplicadas no novo estado; só com o lock de escrita
+    private List<Consumer<State>> pendingChanges;
+
+    /**
+     * Construtor que injeta os repositórios usados na reconstrução do índice.
+     *
+     * @param bookRepository o repositório de livros
+     * @param loanRepository o repositório de empréstimos
+     */
+    @Autowired
+    public BookRecommendationEngine(BookRepository bookRepository, LoanRepository loanRepository) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+    }
+
+    /**
+     * Retorna os IDs dos livros mais recomendados para o usuário, em ordem decrescente de pontuação.
+     * A pontuação de um livro é a afinidade do usuário com a categoria do livro multiplicada pela
+     * popularidade do livro (empréstimos + 1). Livros que o usuário já pegou são ignorados.
+     * Como cada ranking de categoria está ordenado por popularidade, a busca em uma categoria
+     * para assim que nenhum livro restante consegue entrar no top-K.
+     *
+     * @param userId o ID do usuário
+     * @param limit  a quantidade máxima de recomendações
+     * @return os IDs dos livros recomendados, do mais para o menos relevante
+     */
+    public List<Long> recommend(Long userId, int limit) {
+        if (userId == null || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            UserProfile profile = state.users.get(userId);
+            if (profile == null) {
+                return List.of();
+            }
+
+            PriorityQueue<Candidate> top = new PriorityQueue<>(limit, BY_SCORE);
+            for (int category = 0; category < profile.affinity.length; category++) {
+                int affinity = profile.affinity[category];
+                if (affinity == 0) {
+                    continue;
+                }
+                for (BookEntry entry : state.rankings.get(category)) {
+                    if (profile.hasBorrowed(entry.id)) {
+                        continue;
+                    }
+                    Candidate candidate = new Candidate(entry.id, (long) affinity * (entry.loans + 1));
+                    if (top.size() < limit) {
+                        top.add(candidate);
+                    } else if (BY_SCORE.compare(candidate, top.peek()) > 0) {
+                        top.poll();
+                        top.add(candidate);
+                    } else {
+                        break;
+                    }
+                }
+            }
+
+            Long[] bookIds = new Long[top.size()];
+            for (int i = bookIds.length - 1; i >= 0; i--) {
+                bookIds[i] = top.poll().bookId();
+            }
+            return Arrays.asList(bookIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstrói todo o índice a partir do banco de dados.
+     * O novo estado é montado fora do lock, então as leituras continuam sendo atendidas pelo estado
+     * anterior durante a reconstrução; as alterações recebidas nesse meio tempo são reaplicadas sobre
+     * ele e só então ele substitui o estado atual. Um empréstimo que a leitura do banco já trouxe não
+     * é contado de novo na reaplicação.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State fresh = new State();
+        try (Stream<BookCategoryView> books = bookRepository.streamBookCategories()) {
+            books.forEach(book -> fresh.putBook(book.getId(), book.getCategory()));
+        }
+        long[] loanIds = new long[1024];
+        int loanCount = 0;
+        try (Stream<LoanPairView> loans = loanRepository.streamUserBookPairs()) {
+            for (Iterator<LoanPairView> iterator = loans.iterator(); iterator.hasNext(); ) {
+                LoanPairView loan = iterator.next();
+                if (loanCount == loanIds.length) {
+                    loanIds = Arrays.copyOf(loanIds, loanCount * 2);
+                }
+                loanIds[loanCount++] = loan.getLoanId();
+                fresh.recordLoan(loan.getUserId(), loan.getBookId());
+            }
+        }
+        Arrays.sort(loanIds, 0, loanCount);
+        fresh.loadedLoanIds = loanIds;
+        fresh.loadedLoanCount = loanCount;
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(change -> change.accept(fresh));
+            pendingChanges = null;
+            fresh.loadedLoanIds = null;
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Índice de recomendação reconstruído: {} livros, {} usuários, {} categorias em {} ms",
+                fresh.books.size(), fresh.users.size(), fresh.rankings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Mantém o catálogo do índice sincronizado com as alterações de livros.
+     *
+     * @param event o evento de alteração de livro
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        long bookId = event.bookId();
+        if (event.type() == ChangeType.DELETED) {
+            apply(current -> current.removeBook(bookId));
+        } else {
+            String category = event.book().getCategory();
+            apply(current -> current.putBook(bookId, category));
+        }
+    }
+
+    /**
+     * Atualiza a afinidade do usuário e a popularidade do livro a cada empréstimo criado.
+     *
+     * @param event o evento de alteração de empréstimo
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.type() != ChangeType.CREATED) {
+            return;
+        }
+        long loanId = event.loanId();
+        long userId = event.loan().getUser().getId();
+        long bookId = event.loan().getBook().getId();
+        apply(current -> {
+            if (!current.isLoaded(loanId)) {
+                current.recordLoan(userId, bookId);
+            }
+        });
+    }
+
+    private void apply(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Candidate(long bookId, long score) {
+    }
+
+    private static final class BookEntry {
+        private final long id;
+        private int category;
+        private int loans;
+
+        private BookEntry(long id, int category) {
+            this.id = id;
+            this.category = category;
+        }
+    }
+
+    private static final class UserProfile {
+        private int[] affinity = new int[0];
+        private long[] borrowed = new long[4];
+        private int borrowedCount;
+
+        private void addAffinity(int category) {
+            if (category >= affinity.length) {
+                affinity = Arrays.copyOf(affinity, category + 1);
+            }
+            affinity[category]++;
+        }
+
+        private boolean hasBorrowed(long bookId) {
+            return Arrays.binarySearch(borrowed, 0, borrowedCount, bookId) >= 0;
+        }
+
+        private void addBorrowed(long bookId) {
+            int index = Arrays.binarySearch(borrowed, 0, borrowedCount, bookId);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -(index + 1);
+            if (borrowedCount == borrowed.length) {
+                borrowed = Arrays.copyOf(borrowed, borrowedCount * 2);
+            }
+            System.arraycopy(borrowed, insertAt, borrowed, insertAt + 1, borrowedCount - insertAt);
+            borrowed[insertAt] = bookId;
+            borrowedCount++;
+        }
+    }
+
+    private static final class State {
+        private final Map<String, Integer> categoryIds = new HashMap<>();
+        private final List<NavigableSet<BookEntry>> rankings = new ArrayList<>();
+        private final LongMap<BookEntry> books = new LongMap<>();
+        private final LongMap<UserProfile> users = new LongMap<>();
+        // Os IDs, em ordem, dos empréstimos lidos do banco, enquanto a reconstrução não termina
+        private long[] loadedLoanIds;
+        private int loadedLoanCount;
+
+        private int categoryId(String category) {
+            return categoryIds.computeIfAbsent(category, key -> {
+                rankings.add(new TreeSet<>(BY_POPULARITY));
+                return rankings.size() - 1;
+            });
+        }
+
+        private void putBook(long bookId, String category) {
+            int categoryId = categoryId(category);
+            BookEntry entry = books.get(bookId);
+            if (entry == null) {
+                entry = new BookEntry(bookId, categoryId);
+                books.put(bookId, entry);
+            } else if (entry.category != categoryId) {
+                rankings.get(entry.category).remove(entry);
+                entry.category = categoryId;
+            }
+            rankings.get(categoryId).add(entry);
+        }
+
+        private boolean isLoaded(long loanId) {
+            return loadedLoanIds != null && Arrays.binarySearch(loadedLoanIds, 0, loadedLoanCount, loanId) >= 0;
+        }
+
+        private void removeBook(long bookId) {
+            BookEntry entry = books.remove(bookId);
+            if (entry != null) {
+                rankings.get(entry.category).remove(entry);
+            }
+        }
+
+        private void recordLoan(long userId, long bookId) {
+            UserProfile profile = users.computeIfAbsent(userId, key -> new UserProfile());
+            profile.addBorrowed(bookId);
+
+            BookEntry entry = books.get(bookId);
+            if (entry == null) {
+                return;
+            }
+            NavigableSet<BookEntry> ranking = rankings.get(entry.category);
+            ranking.remove(entry);
+            entry.loans++;
+            ranking.add(entry);
+            profile.addAffinity(entry.category);
+        }
+    }
+}
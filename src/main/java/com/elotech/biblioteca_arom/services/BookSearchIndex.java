@@ -0,0 +1,583 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookSummary;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido em memória para a busca textual no acervo.
+ * Indexa título, autor, categoria e ISBN de cada livro; os termos são normalizados sem acentos e em
+ * minúsculas, e as palavras vazias mais comuns do português são descartadas. Todos os termos da consulta
+ * precisam aparecer no livro, sendo que o último termo também casa como prefixo (para buscas enquanto
+ * o usuário digita). Os resultados são ordenados por BM25, com peso maior para título e ISBN.
+ * <p>
+ * O índice é reconstruído a partir do banco quando a aplicação inicia e atualizado a cada livro
+ * criado, alterado ou excluído. Livros excluídos são apenas marcados e saem das listas de ocorrências
+ * quando passam de um quarto do índice.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 1;
+    private static final int ISBN_WEIGHT = 3;
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+
+    private static final Pattern ISBN_QUERY = Pattern.compile("\\d[\\d\\s-]*[\\dXx]");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos",
+            "um", "uma", "uns", "umas", "para", "por", "com", "ao", "aos", "the", "of", "and");
+
+    private final BookRepository bookRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    // Alterações recebidas durante uma reconstrução, reaplicadas no novo estado; só com o lock de escrita
+    private List<Consumer<State>> pendingChanges;
+
+    /**
+     * Construtor que injeta o repositório usado na reconstrução do índice.
+     *
+     * @param bookRepository o repositório de livros
+     */
+    @Autowired
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Busca livros pelo texto informado.
+     *
+     * @param query o texto da busca
+     * @param limit a quantidade máxima de resultados
+     * @return os IDs dos livros encontrados, do mais para o menos relevante
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = queryTokens(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return state.search(tokens, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna a quantidade de livros no índice.
+     *
+     * @return a quantidade de livros indexados
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.docByBook.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstrói todo o índice a partir do banco de dados.
+     * O novo estado é montado fora do lock, então as buscas continuam sendo atendidas pelo estado
+     * anterior durante a reconstrução; as alterações recebidas nesse meio tempo são reaplicadas sobre
+     * ele, na ordem em que chegaram, e só então ele substitui o estado atual.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State fresh = new State();
+        try (Stream<BookSummary> books = bookRepository.streamBookSummaries()) {
+            books.forEach(book -> fresh.put(book.getId(), book.getTitle(), book.getAuthor(), book.getCategory(), book.getIsbn()));
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(change -> change.accept(fresh));
+            pendingChanges = null;
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Índice de busca reconstruído: {} livros, {} termos em {} ms",
+                fresh.docByBook.size(), fresh.terms.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Mantém o índice sincronizado com as alterações de livros.
+     *
+     * @param event o evento de alteração de livro
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        long bookId = event.bookId();
+        Consumer<State> change;
+        if (event.type() == ChangeType.DELETED) {
+            change = current -> current.remove(bookId);
+        } else {
+            Book book = event.book();
+            String title = book.getTitle();
+            String author = book.getAuthor();
+            String category = book.getCategory();
+            String isbn = book.getIsbn();
+            change = current -> current.put(bookId, title, author, category, isbn);
+        }
+
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quebra um texto em termos: remove acentos, converte para minúsculas, separa em letras e dígitos
+     * e descarta as palavras vazias.
+     *
+     * @param text o texto a ser quebrado
+     * @return os termos do texto, na ordem em que aparecem
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TextFolding.NON_ALPHANUMERIC.split(TextFolding.fold(text))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Uma consulta só com dígitos, hífens e espaços é tratada como ISBN (inteiro ou o começo dele).
+     */
+    private static List<String> queryTokens(String query) {
+        if (query != null && ISBN_QUERY.matcher(query.strip()).matches()) {
+            return List.of(isbnTerm(query));
+        }
+        return tokenize(query);
+    }
+
+    /**
+     * O ISBN vira um único termo só com letras e dígitos, para que "978-85-..." e "97885..." casem.
+     */
+    private static String isbnTerm(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        String term = TextFolding.NON_ALPHANUMERIC.matcher(TextFolding.fold(isbn)).replaceAll("");
+        return term.isEmpty() ? null : term;
+    }
+
+    /**
+     * Lista de ocorrências de um termo: os documentos em ordem crescente e a frequência ponderada em cada um.
+     */
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int[] freqs = new int[2];
+        private int size;
+
+        private void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    /**
+     * Documentos de um termo da consulta, em ordem crescente. Termos exatos são pontuados sob demanda,
+     * só nos documentos que sobrevivem à interseção; prefixos com várias expansões já chegam pontuados.
+     */
+    private static final class TermGroup {
+        private final int[] docs;
+        private final int size;
+        private final int[] freqs;
+        private final float idf;
+        private final float[] scores;
+
+        private TermGroup(Postings postings, float idf) {
+            this.docs = postings.docs;
+            this.size = postings.size;
+            this.freqs = postings.freqs;
+            this.idf = idf;
+            this.scores = null;
+        }
+
+        private TermGroup(int[] docs, float[] scores, int size) {
+            this.docs = docs;
+            this.size = size;
+            this.freqs = null;
+            this.idf = 0;
+            this.scores = scores;
+        }
+
+        /**
+         * Avança a partir de {@code from} até o primeiro documento maior ou igual a {@code doc},
+         * com busca exponencial seguida de busca binária.
+         */
+        private int advance(int from, int doc) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && docs[high] < doc) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (docs[middle] < doc) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class State {
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+        private final Map<Long, Integer> docByBook = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private long[] bookIds = new long[1024];
+        private int[] lengths = new int[1024];
+        private int docCount;
+        private int deletedCount;
+        private long totalLength;
+
+        private void put(long bookId, String title, String author, String category, String isbn) {
+            remove(bookId);
+
+            Map<String, Integer> freqs = new HashMap<>();
+            addField(freqs, tokenize(title), TITLE_WEIGHT);
+            addField(freqs, tokenize(author), AUTHOR_WEIGHT);
+            addField(freqs, tokenize(category), CATEGORY_WEIGHT);
+            String isbnTerm = isbnTerm(isbn);
+            if (isbnTerm != null) {
+                freqs.merge(isbnTerm, ISBN_WEIGHT, Integer::sum);
+            }
+
+            int doc = docCount++;
+            if (doc == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, doc * 2);
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+                terms.computeIfAbsent(entry.getKey(), key -> new Postings()).add(doc, entry.getValue());
+                length += entry.getValue();
+            }
+            bookIds[doc] = bookId;
+            lengths[doc] = length;
+            totalLength += length;
+            docByBook.put(bookId, doc);
+        }
+
+        private static void addField(Map<String, Integer> freqs, List<String> tokens, int weight) {
+            for (String token : tokens) {
+                freqs.merge(token, weight, Integer::sum);
+            }
+        }
+
+        private void remove(long bookId) {
+            Integer doc = docByBook.remove(bookId);
+            if (doc == null) {
+                return;
+            }
+            deleted.set(doc);
+            deletedCount++;
+            totalLength -= lengths[doc];
+            if (deletedCount >= MIN_DELETED_FOR_COMPACTION && deletedCount * 4 > docCount) {
+                compact();
+            }
+        }
+
+        /**
+         * Tira os documentos excluídos das listas de ocorrências e renumera os restantes, mantendo a ordem.
+         */
+        private void compact() {
+            int[] renumbered = new int[docCount];
+            int live = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    renumbered[doc] = -1;
+                } else {
+                    renumbered[doc] = live;
+                    bookIds[live] = bookIds[doc];
+                    lengths[live] = lengths[doc];
+                    docByBook.put(bookIds[live], live);
+                    live++;
+                }
+            }
+
+            Iterator<Postings> iterator = terms.values().iterator();
+            while (iterator.hasNext()) {
+                Postings postings = iterator.next();
+                int kept = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = renumbered[postings.docs[i]];
+                    if (doc >= 0) {
+                        postings.docs[kept] = doc;
+                        postings.freqs[kept] = postings.freqs[i];
+                        kept++;
+                    }
+                }
+                postings.size = kept;
+                if (kept == 0) {
+                    iterator.remove();
+                }
+            }
+            docCount = live;
+            deletedCount = 0;
+            deleted.clear();
+        }
+
+        /**
+         * Começa pelo termo com menos documentos e, para cada termo seguinte, mantém apenas os candidatos
+         * que também aparecem nele, somando a pontuação BM25 de cada termo. O primeiro termo só é
+         * pontuado no fim, nos candidatos que sobraram.
+         */
+        private List<Long> search(List<String> tokens, int limit) {
+            TermGroup[] groups = new TermGroup[tokens.size()];
+            for (int i = 0; i < groups.length; i++) {
+                boolean last = i == groups.length - 1;
+                groups[i] = last ? prefixGroup(tokens.get(i)) : exactGroup(tokens.get(i));
+                if (groups[i] == null) {
+                    return List.of();
+                }
+            }
+            Arrays.sort(groups, Comparator.comparingInt(group -> group.size));
+
+            float averageLength = averageLength();
+            TermGroup smallest = groups[0];
+            int[] candidates = new int[smallest.size];
+            int[] origins = new int[smallest.size];
+            float[] scores = new float[smallest.size];
+            int count = 0;
+            for (int i = 0; i < smallest.size; i++) {
+                int doc = smallest.docs[i];
+                if (deletedCount == 0 || !deleted.get(doc)) {
+                    candidates[count] = doc;
+                    origins[count] = i;
+                    count++;
+                }
+            }
+
+            for (int g = 1; g < groups.length && count > 0; g++) {
+                TermGroup group = groups[g];
+                int kept = 0;
+                int position = 0;
+                for (int i = 0; i < count; i++) {
+                    position = group.advance(position, candidates[i]);
+                    if (position == group.size) {
+                        break;
+                    }
+                    if (group.docs[position] == candidates[i]) {
+                        candidates[kept] = candidates[i];
+                        origins[kept] = origins[i];
+                        scores[kept] = scores[i] + score(group, position, averageLength);
+                        kept++;
+                    }
+                }
+                count = kept;
+            }
+            for (int i = 0; i < count; i++) {
+                scores[i] += score(smallest, origins[i], averageLength);
+            }
+            return topBooks(candidates, scores, count, limit);
+        }
+
+        private TermGroup exactGroup(String term) {
+            Postings postings = terms.get(term);
+            return postings == null ? null : new TermGroup(postings, idf(postings.size));
+        }
+
+        /**
+         * Junta os documentos de todos os termos que começam com o prefixo, limitado aos
+         * {@value #MAX_PREFIX_EXPANSIONS} termos mais frequentes. Cada ocorrência vira um {@code long}
+         * com o documento nos bits altos e a pontuação nos baixos; depois de ordenadas, ocorrências
+         * do mesmo documento ficam vizinhas e têm as pontuações somadas.
+         */
+        private TermGroup prefixGroup(String prefix) {
+            SortedMap<String, Postings> range = terms.subMap(prefix, prefix + Character.MAX_VALUE);
+            if (range.isEmpty()) {
+                return null;
+            }
+
+            PriorityQueue<Postings> expansions = new PriorityQueue<>(Comparator.comparingInt((Postings postings) -> postings.size));
+            int total = 0;
+            for (Postings postings : range.values()) {
+                expansions.add(postings);
+                total += postings.size;
+                if (expansions.size() > MAX_PREFIX_EXPANSIONS) {
+                    total -= expansions.poll().size;
+                }
+            }
+            if (expansions.size() == 1) {
+                return exactGroup(range.firstKey());
+            }
+
+            float averageLength = averageLength();
+            long[] entries = new long[total];
+            int count = 0;
+            for (Postings postings : expansions) {
+                TermGroup group = new TermGroup(postings, idf(postings.size));
+                for (int i = 0; i < group.size; i++) {
+                    int doc = group.docs[i];
+                    if (deletedCount == 0 || !deleted.get(doc)) {
+                        entries[count++] = ((long) doc << 32) | Float.floatToRawIntBits(score(group, i, averageLength));
+                    }
+                }
+            }
+            Arrays.sort(entries, 0, count);
+
+            int[] docs = new int[count];
+            float[] scores = new float[count];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                int doc = (int) (entries[i] >>> 32);
+                float score = Float.intBitsToFloat((int) entries[i]);
+                if (size > 0 && docs[size - 1] == doc) {
+                    scores[size - 1] += score;
+                } else {
+                    docs[size] = doc;
+                    scores[size] = score;
+                    size++;
+                }
+            }
+            return size == 0 ? null : new TermGroup(docs, scores, size);
+        }
+
+        private float idf(int postings) {
+            int live = docByBook.size();
+            int documentFrequency = Math.min(postings, live);
+            return (float) Math.log(1 + (live - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        }
+
+        private float averageLength() {
+            int live = docByBook.size();
+            return live == 0 ? 1 : (float) totalLength / live;
+        }
+
+        private float score(TermGroup group, int position, float averageLength) {
+            if (group.scores != null) {
+                return group.scores[position];
+            }
+            float freq = group.freqs[position];
+            float norm = K1 * (1 - B + B * lengths[group.docs[position]] / averageLength);
+            return group.idf * freq * (K1 + 1) / (freq + norm);
+        }
+
+        /**
+         * Seleciona os {@code limit} melhores candidatos com um heap mínimo em arrays primitivos;
+         * empates ficam com o livro de menor ID.
+         */
+        private List<Long> topBooks(int[] candidates, float[] scores, int count, int limit) {
+            int capacity = Math.min(limit, count);
+            int[] heapDocs = new int[capacity];
+            float[] heapScores = new float[capacity];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                int doc = candidates[i];
+                float score = scores[i];
+                if (size < capacity) {
+                    int child = size++;
+                    while (child > 0) {
+                        int parent = (child - 1) >>> 1;
+                        if (!better(heapScores[parent], heapDocs[parent], score, doc)) {
+                            break;
+                        }
+                        heapDocs[child] = heapDocs[parent];
+                        heapScores[child] = heapScores[parent];
+                        child = parent;
+                    }
+                    heapDocs[child] = doc;
+                    heapScores[child] = score;
+                } else if (capacity > 0 && better(score, doc, heapScores[0], heapDocs[0])) {
+                    siftDown(heapDocs, heapScores, size, doc, score);
+                }
+            }
+
+            Long[] result = new Long[size];
+            while (size > 0) {
+                result[size - 1] = bookIds[heapDocs[0]];
+                size--;
+                if (size > 0) {
+                    siftDown(heapDocs, heapScores, size, heapDocs[size], heapScores[size]);
+                }
+            }
+            return Arrays.asList(result);
+        }
+
+        private void siftDown(int[] heapDocs, float[] heapScores, int size, int doc, float score) {
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && better(heapScores[child], heapDocs[child], heapScores[child + 1], heapDocs[child + 1])) {
+                    child++;
+                }
+                if (!better(score, doc, heapScores[child], heapDocs[child])) {
+                    break;
+                }
+                heapDocs[parent] = heapDocs[child];
+                heapScores[parent] = heapScores[child];
+                parent = child;
+            }
+            heapDocs[parent] = doc;
+            heapScores[parent] = score;
+        }
+
+        private boolean better(float score, int doc, float otherScore, int otherDoc) {
+            return score > otherScore || (score == otherScore && bookIds[doc] < bookIds[otherDoc]);
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.elotech.biblioteca_arom.services;
 
+import com.elotech.biblioteca_arom.clients.MetricsConfig;
+import com.elotech.biblioteca_arom.dtos.BookPageDTO;
+import com.elotech.biblioteca_arom.dtos.BookSummary;
 import com.elotech.biblioteca_arom.entities.Book;
 import com.elotech.biblioteca_arom.entities.Loan;
 import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
 import com.elotech.biblioteca_arom.repositories.BookRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Serviço responsável pela gestão de livros no sistema de biblioteca.
@@ -16,18 +29,33 @@ import java.util.Optional;
  * como verificar se um livro tem empréstimos ativos.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class BookService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_SEARCH_RESULTS = 100;
+
     private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookSearchIndex searchIndex;
+    private final BookAvailabilityIndex availabilityIndex;
 
     /**
      * Construtor que injeta o repositório de livros no serviço.
      *
-     * @param bookRepository o repositório de livros usado para acessar os dados persistentes
+     * @param bookRepository    o repositório de livros usado para acessar os dados persistentes
+     * @param eventPublisher    o publicador usado para notificar alterações no catálogo
+     * @param searchIndex       o índice em memória usado na busca textual
+     * @param availabilityIndex o índice em memória dos livros emprestados
      */
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, ApplicationEventPublisher eventPublisher,
+                       BookSearchIndex searchIndex, BookAvailabilityIndex availabilityIndex) {
         this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.availabilityIndex = availabilityIndex;
     }
 
     /**
@@ -37,7 +65,9 @@ public class BookService {
      * @return o livro criado com um ID gerado
      */
     public Book createBook(Book book) {
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(savedBook.getId(), savedBook, ChangeType.CREATED));
+        return savedBook;
     }
 
     /**
@@ -49,8 +79,84 @@ public class BookService {
         return bookRepository.findAll();
     }
 
+    /**
+     * Recupera uma página de livros usando paginação por cursor (keyset).
+     * A consulta usa a projeção {@link BookSummary}, que nunca carrega os empréstimos,
+     * e busca no máximo {@code limit + 1} linhas, mantendo a memória por requisição limitada.
+     *
+     * @param after o ID do último livro da página anterior, ou null para a primeira página
+     * @param limit a quantidade de livros desejada, limitada a {@value #MAX_PAGE_SIZE}
+     * @return a página de livros e o cursor da próxima página (null se for a última)
+     */
+    public BookPageDTO getBooksPage(Long after, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<BookSummary> rows = bookRepository.findSummariesAfter(
+                after != null ? after : 0L, Limit.of(pageSize + 1));
+
+        if (rows.size() <= pageSize) {
+            return new BookPageDTO(rows, null);
+        }
+
+        List<BookSummary> items = rows.subList(0, pageSize);
+        return new BookPageDTO(items, items.getLast().getId());
+    }
+
+    /**
+     * Recupera uma página dos livros sem empréstimo ativo, usando paginação por cursor (keyset).
+     * Os IDs da página vêm do {@link BookAvailabilityIndex} e apenas esses livros são lidos do banco;
+     * enquanto o índice não estiver pronto, a disponibilidade é filtrada na própria consulta.
+     *
+     * @param after o ID do último livro da página anterior, ou null para a primeira página
+     * @param limit a quantidade de livros desejada, limitada a {@value #MAX_PAGE_SIZE}
+     * @return a página de livros disponíveis e o cursor da próxima página (null se for a última)
+     */
+    public BookPageDTO getAvailableBooksPage(Long after, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        long cursor = after != null ? after : 0L;
+
+        List<BookSummary> rows;
+        if (availabilityIndex.isReady()) {
+            List<Long> bookIds = availabilityIndex.availableAfter(cursor, pageSize + 1);
+            rows = bookIds.isEmpty() ? List.of() : bookRepository.findSummariesByIdIn(bookIds).stream()
+                    .sorted(Comparator.comparing(BookSummary::getId))
+                    .toList();
+        } else {
+            rows = bookRepository.findAvailableSummariesAfter(cursor, Limit.of(pageSize + 1));
+        }
+
+        if (rows.size() <= pageSize) {
+            return new BookPageDTO(rows, null);
+        }
+
+        List<BookSummary> items = rows.subList(0, pageSize);
+        return new BookPageDTO(items, items.getLast().getId());
+    }
+
+    /**
+     * Busca livros por título, autor, categoria ou ISBN, ignorando acentos e maiúsculas.
+     * A busca é feita no {@link BookSearchIndex} e apenas os livros encontrados são lidos do banco.
+     *
+     * @param query o texto da busca; o último termo também casa como prefixo
+     * @param limit a quantidade de livros desejada, limitada a {@value #MAX_SEARCH_RESULTS}
+     * @return os livros encontrados, do mais para o menos relevante
+     */
+    public List<BookSummary> searchBooks(String query, int limit) {
+        List<Long> bookIds = searchIndex.search(query, Math.clamp(limit, 1, MAX_SEARCH_RESULTS));
+        if (bookIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, BookSummary> booksById = bookRepository.findSummariesByIdIn(bookIds).stream()
+                .collect(Collectors.toMap(BookSummary::getId, Function.identity()));
+        return bookIds.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     /**
      * Recupera um livro específico pelo seu ID.
+     * Livros lidos recentemente vêm do cache de segundo nível, sem consulta ao banco.
      *
      * @param id o ID do livro a ser recuperado
      * @return o livro correspondente ao ID fornecido
@@ -61,6 +167,16 @@ public class BookService {
                 .orElseThrow(() -> new RuntimeException("Livro não encontrado!"));
     }
 
+    /**
+     * Retorna a versão atual de um livro ({@code @Version}) sem carregar a entidade.
+     *
+     * @param id o ID do livro
+     * @return a versão do livro, ou vazio se o livro não existir
+     */
+    public Optional<Long> getBookVersion(Long id) {
+        return bookRepository.findVersionById(id);
+    }
+
     /**
      * Atualiza os detalhes de um livro existente.
      *
@@ -76,7 +192,9 @@ public class BookService {
         existingBook.setIsbn(updateBook.getIsbn());
         existingBook.setCategory(updateBook.getCategory());
         existingBook.setThumbnail_url(updateBook.getThumbnail_url());
-        return bookRepository.save(existingBook);
+        Book savedBook = bookRepository.save(existingBook);
+        eventPublisher.publishEvent(new BookChangedEvent(savedBook.getId(), savedBook, ChangeType.UPDATED));
+        return savedBook;
     }
 
     /**
@@ -86,6 +204,7 @@ public class BookService {
      */
     public void deleteBook(Long id) {
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(new BookChangedEvent(id, null, ChangeType.DELETED));
     }
 
  }
@@ -0,0 +1,305 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookSuggestionDTO;
+
+import java.util.*;
+
+/**
+ * Dicionário imutável e compacto de sugestões (títulos e autores) para a busca enquanto se digita.
+ * <p>
+ * As chaves normalizadas ficam ordenadas em um único {@code char[]} com codificação incremental
+ * (front coding) em blocos de {@value #BLOCK_SIZE}: a primeira chave de cada bloco é guardada inteira
+ * e as demais guardam só o tamanho do prefixo em comum com a anterior e o restante. Uma busca por
+ * prefixo localiza o bloco por busca binária e decodifica no máximo um bloco em cada ponta da faixa.
+ * Dentro da faixa, as sugestões mais emprestadas saem de uma árvore de segmentos com o índice
+ * do maior peso de cada intervalo, sem percorrer a faixa inteira.
+ */
+final class BookSuggestionIndex {
+
+    static final int BLOCK_SIZE = 16;
+    static final int MAX_KEY_LENGTH = 200;
+
+    static final BookSuggestionIndex EMPTY = build(List.of());
+
+    enum Kind { TITLE, AUTHOR }
+
+    /**
+     * Texto candidato a sugestão, antes da deduplicação.
+     *
+     * @param text   o título ou nome do autor como cadastrado
+     * @param kind   se o texto é um título ou um autor
+     * @param bookId o livro de origem
+     * @param loans  os empréstimos do livro de origem
+     */
+    record Candidate(String text, Kind kind, long bookId, int loans) {
+    }
+
+    private final int size;
+    private final char[] keyData;
+    private final int[] blockOffsets;
+    private final char[] labelData;
+    private final int[] labelOffsets;
+    private final byte[] kinds;
+    private final long[] bookIds;
+    private final int[] weights;
+    private final int[] maxTree;
+
+    private BookSuggestionIndex(int size, char[] keyData, int[] blockOffsets, char[] labelData, int[] labelOffsets,
+                                byte[] kinds, long[] bookIds, int[] weights) {
+        this.size = size;
+        this.keyData = keyData;
+        this.blockOffsets = blockOffsets;
+        this.labelData = labelData;
+        this.labelOffsets = labelOffsets;
+        this.kinds = kinds;
+        this.bookIds = bookIds;
+        this.weights = weights;
+        this.maxTree = new int[2 * size];
+        for (int i = 0; i < size; i++) {
+            maxTree[size + i] = i;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            maxTree[node] = heavier(maxTree[2 * node], maxTree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Constrói o dicionário. Textos com a mesma chave normalizada e o mesmo tipo viram uma única sugestão,
+     * com os empréstimos somados; o texto exibido e o livro de um título são os do livro mais emprestado.
+     *
+     * @param candidates os títulos e autores do acervo
+     * @return o dicionário construído
+     */
+    static BookSuggestionIndex build(Collection<Candidate> candidates) {
+        Map<String, Entry> entries = new HashMap<>();
+        for (Candidate candidate : candidates) {
+            if (candidate.text() == null) {
+                continue;
+            }
+            String key = TextFolding.key(candidate.text());
+            if (key.isEmpty()) {
+                continue;
+            }
+            if (key.length() > MAX_KEY_LENGTH) {
+                key = key.substring(0, MAX_KEY_LENGTH);
+            }
+            Entry entry = entries.computeIfAbsent(key + '\0' + candidate.kind().ordinal(), k -> new Entry());
+            entry.add(candidate);
+        }
+
+        List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+        sorted.sort(Map.Entry.comparingByKey());
+
+        int size = sorted.size();
+        StringBuilder keys = new StringBuilder();
+        StringBuilder labels = new StringBuilder();
+        int[] blockOffsets = new int[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        int[] labelOffsets = new int[size + 1];
+        byte[] kinds = new byte[size];
+        long[] bookIds = new long[size];
+        int[] weights = new int[size];
+
+        String previous = "";
+        for (int i = 0; i < size; i++) {
+            String composite = sorted.get(i).getKey();
+            String key = composite.substring(0, composite.indexOf('\0'));
+            Entry entry = sorted.get(i).getValue();
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = keys.length();
+                keys.append((char) key.length()).append(key);
+            } else {
+                int shared = sharedPrefix(previous, key);
+                keys.append((char) shared).append((char) (key.length() - shared)).append(key, shared, key.length());
+            }
+            previous = key;
+
+            labelOffsets[i] = labels.length();
+            labels.append(entry.label);
+            kinds[i] = (byte) entry.kind.ordinal();
+            bookIds[i] = entry.kind == Kind.TITLE ? entry.bookId : -1;
+            weights[i] = (int) Math.min(Integer.MAX_VALUE, entry.loans);
+        }
+        labelOffsets[size] = labels.length();
+
+        char[] keyData = new char[keys.length()];
+        keys.getChars(0, keys.length(), keyData, 0);
+        char[] labelData = new char[labels.length()];
+        labels.getChars(0, labels.length(), labelData, 0);
+        return new BookSuggestionIndex(size, keyData, blockOffsets, labelData, labelOffsets, kinds, bookIds, weights);
+    }
+
+    /**
+     * Retorna as sugestões cuja chave normalizada começa com o prefixo, das mais para as menos emprestadas.
+     *
+     * @param prefix o texto digitado
+     * @param limit  a quantidade máxima de sugestões
+     * @return as sugestões encontradas
+     */
+    List<BookSuggestionDTO> suggest(String prefix, int limit) {
+        if (prefix == null || limit <= 0 || size == 0) {
+            return List.of();
+        }
+        String key = TextFolding.key(prefix);
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return List.of();
+        }
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key = key + ' ';
+        }
+
+        char[] buffer = new char[MAX_KEY_LENGTH];
+        int from = lowerBound(key, buffer, false);
+        int to = lowerBound(key, buffer, true);
+        if (from >= to) {
+            return List.of();
+        }
+
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[0] == b[0] ? 0 : heavier(a[0], b[0]) == a[0] ? -1 : 1);
+        ranges.add(new int[]{maxIndex(from, to), from, to});
+        List<BookSuggestionDTO> suggestions = new ArrayList<>(Math.min(limit, to - from));
+        while (!ranges.isEmpty() && suggestions.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[0];
+            suggestions.add(toSuggestion(best));
+            if (range[1] < best) {
+                ranges.add(new int[]{maxIndex(range[1], best), range[1], best});
+            }
+            if (best + 1 < range[2]) {
+                ranges.add(new int[]{maxIndex(best + 1, range[2]), best + 1, range[2]});
+            }
+        }
+        return suggestions;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Estimativa do espaço ocupado em heap pelo dicionário, em bytes (cabeçalhos de array incluídos).
+     */
+    long estimatedBytes() {
+        long arrayHeader = 16;
+        return arrayHeader * 8
+                + 2L * keyData.length + 2L * labelData.length
+                + 4L * blockOffsets.length + 4L * labelOffsets.length
+                + kinds.length + 8L * bookIds.length + 4L * weights.length + 4L * maxTree.length;
+    }
+
+    private BookSuggestionDTO toSuggestion(int index) {
+        String label = new String(labelData, labelOffsets[index], labelOffsets[index + 1] - labelOffsets[index]);
+        Kind kind = Kind.values()[kinds[index]];
+        return new BookSuggestionDTO(label, kind.name(), bookIds[index] >= 0 ? bookIds[index] : null, weights[index]);
+    }
+
+    /**
+     * Primeira posição cuja chave é maior ou igual ao prefixo ou, com {@code pastPrefix}, a primeira
+     * chave que já não começa com o prefixo.
+     */
+    private int lowerBound(String prefix, char[] buffer, boolean pastPrefix) {
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        int block = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = blockOffsets[middle];
+            if (compare(keyData, offset + 1, keyData[offset], prefix, pastPrefix) < 0) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        int index = block * BLOCK_SIZE;
+        int end = Math.min(index + BLOCK_SIZE, size);
+        int offset = blockOffsets[block];
+        int length = keyData[offset];
+        System.arraycopy(keyData, offset + 1, buffer, 0, length);
+        offset += 1 + length;
+        while (true) {
+            if (compare(buffer, 0, length, prefix, pastPrefix) >= 0) {
+                return index;
+            }
+            index++;
+            if (index == end) {
+                return index;
+            }
+            int shared = keyData[offset];
+            int suffix = keyData[offset + 1];
+            System.arraycopy(keyData, offset + 2, buffer, shared, suffix);
+            length = shared + suffix;
+            offset += 2 + suffix;
+        }
+    }
+
+    /**
+     * Compara uma chave com o prefixo. Com {@code pastPrefix}, chaves que começam com o prefixo
+     * são consideradas menores que ele, o que faz a busca parar logo depois da faixa.
+     */
+    private static int compare(char[] data, int offset, int length, String prefix, boolean pastPrefix) {
+        int common = Math.min(length, prefix.length());
+        for (int i = 0; i < common; i++) {
+            int difference = data[offset + i] - prefix.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        if (length >= prefix.length()) {
+            return pastPrefix ? -1 : 0;
+        }
+        return -1;
+    }
+
+    private int maxIndex(int from, int to) {
+        int best = -1;
+        for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                best = best < 0 ? maxTree[low] : heavier(best, maxTree[low]);
+                low++;
+            }
+            if ((high & 1) == 1) {
+                high--;
+                best = best < 0 ? maxTree[high] : heavier(best, maxTree[high]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Entre duas posições, a de maior peso; em caso de empate, a que vem antes na ordem alfabética.
+     */
+    private int heavier(int a, int b) {
+        if (weights[a] != weights[b]) {
+            return weights[a] > weights[b] ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    private static int sharedPrefix(String a, String b) {
+        int common = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < common && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Entry {
+        private String label;
+        private Kind kind;
+        private long bookId;
+        private long loans;
+        private int bestLoans = -1;
+
+        private void add(Candidate candidate) {
+            loans += candidate.loans();
+            if (candidate.loans() > bestLoans) {
+                bestLoans = candidate.loans();
+                label = candidate.text();
+                kind = candidate.kind();
+                bookId = candidate.bookId();
+            }
+        }
+    }
+}
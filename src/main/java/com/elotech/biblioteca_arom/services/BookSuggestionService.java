@@ -0,0 +1,163 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookLoanCountView;
+import com.elotech.biblioteca_arom.dtos.BookSuggestionDTO;
+import com.elotech.biblioteca_arom.dtos.SuggestionStatsDTO;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serviço de sugestões de títulos e autores para a busca enquanto se digita.
+ * As sugestões vêm de um {@link BookSuggestionIndex} imutável, ponderado pela quantidade de empréstimos.
+ * Alterações no acervo e novos empréstimos apenas marcam o dicionário como desatualizado; um job em
+ * segundo plano constrói um dicionário novo e o publica de forma atômica, então as consultas
+ * nunca esperam pela reconstrução.
+ */
+@Service
+public class BookSuggestionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookSuggestionService.class);
+
+    static final int CHUNK_SIZE = 10_000;
+    static final int MAX_SUGGESTIONS = 20;
+
+    private final BookRepository bookRepository;
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+
+    private volatile BookSuggestionIndex index = BookSuggestionIndex.EMPTY;
+    private volatile Instant builtAt;
+    private volatile long buildMillis;
+
+    /**
+     * Construtor que injeta o repositório usado na reconstrução do dicionário.
+     *
+     * @param bookRepository o repositório de livros
+     */
+    @Autowired
+    public BookSuggestionService(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Retorna os títulos e autores que começam com o texto digitado, ignorando acentos, maiúsculas
+     * e pontuação, dos mais para os menos emprestados.
+     *
+     * @param prefix o texto digitado
+     * @param limit  a quantidade de sugestões desejada, limitada a {@value #MAX_SUGGESTIONS}
+     * @return as sugestões encontradas
+     */
+    public List<BookSuggestionDTO> suggest(String prefix, int limit) {
+        long start = System.nanoTime();
+        List<BookSuggestionDTO> suggestions = index.suggest(prefix, Math.clamp(limit, 1, MAX_SUGGESTIONS));
+        lookupNanos.add(System.nanoTime() - start);
+        lookups.increment();
+        return suggestions;
+    }
+
+    /**
+     * Reconstrói o dicionário se o acervo ou os empréstimos mudaram desde a última reconstrução.
+     */
+    @Scheduled(fixedDelayString = "${biblioteca.suggest.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (stale.getAndSet(false)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reconstrói o dicionário a partir de todos os livros e das suas quantidades de empréstimos.
+     * Os livros são lidos em blocos de {@value #CHUNK_SIZE} por paginação de cursor no ID.
+     * Se uma reconstrução já estiver em andamento, a chamada é ignorada.
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            List<BookSuggestionIndex.Candidate> candidates = new ArrayList<>();
+            Long after = 0L;
+            while (true) {
+                List<BookLoanCountView> chunk = bookRepository.findLoanCountsAfter(after, Limit.of(CHUNK_SIZE));
+                for (BookLoanCountView book : chunk) {
+                    int loans = (int) Math.min(Integer.MAX_VALUE, book.getLoans());
+                    candidates.add(new BookSuggestionIndex.Candidate(book.getTitle(), BookSuggestionIndex.Kind.TITLE, book.getId(), loans));
+                    candidates.add(new BookSuggestionIndex.Candidate(book.getAuthor(), BookSuggestionIndex.Kind.AUTHOR, book.getId(), loans));
+                }
+                if (chunk.size() < CHUNK_SIZE) {
+                    break;
+                }
+                after = chunk.getLast().getId();
+            }
+
+            BookSuggestionIndex built = BookSuggestionIndex.build(candidates);
+            index = built;
+            buildMillis = (System.nanoTime() - start) / 1_000_000;
+            builtAt = Instant.now();
+            LOGGER.info("Dicionário de sugestões reconstruído: {} entradas, ~{} KB ({} bytes por entrada) em {} ms",
+                    built.size(), built.estimatedBytes() / 1024,
+                    built.size() == 0 ? 0 : built.estimatedBytes() / built.size(), buildMillis);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Marca o dicionário como desatualizado quando um livro é criado, alterado ou excluído.
+     *
+     * @param event o evento de alteração de livro
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        stale.set(true);
+    }
+
+    /**
+     * Marca o dicionário como desatualizado a cada empréstimo criado, que muda o peso das sugestões.
+     *
+     * @param event o evento de alteração de empréstimo
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.type() == ChangeType.CREATED) {
+            stale.set(true);
+        }
+    }
+
+    /**
+     * Retorna o tamanho do dicionário publicado e a latência média das consultas.
+     *
+     * @return as estatísticas do dicionário de sugestões
+     */
+    public SuggestionStatsDTO getStats() {
+        BookSuggestionIndex current = index;
+        long count = lookups.sum();
+        return SuggestionStatsDTO.builder()
+                .builtAt(builtAt != null ? builtAt.toString() : null)
+                .buildMillis(buildMillis)
+                .entries(current.size())
+                .estimatedBytes(current.estimatedBytes())
+                .bytesPerEntry(current.size() == 0 ? 0 : (double) current.estimatedBytes() / current.size())
+                .lookups(count)
+                .averageLookupMicros(count == 0 ? 0 : lookupNanos.sum() / 1_000d / count)
+                .build();
+    }
+}
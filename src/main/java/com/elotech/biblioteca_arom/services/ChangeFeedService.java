@@ -0,0 +1,410 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.ChangeDTO;
+import com.elotech.biblioteca_arom.dtos.ChangeFeedDTO;
+import com.elotech.biblioteca_arom.entities.ChangeLogEntry;
+import com.elotech.biblioteca_arom.entities.ChangeLogSequence;
+import com.elotech.biblioteca_arom.entities.enums.ChangedEntity;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.ChangeLogRepository;
+import com.elotech.biblioteca_arom.repositories.ChangeLogSequenceRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serviço do registro de alterações ({@code change_log}), usado pelos clientes e réplicas para buscar
+ * apenas o que mudou desde a última sincronização ({@code GET /api/changes?since=}).
+ * <p>
+ * Cada inclusão, alteração ou exclusão de livro, usuário ou empréstimo feita pelo Hibernate é registrada
+ * por {@code ChangeLogConfig}; atualizações em massa chamam {@link #record(ChangedEntity, Collection, ChangeType)}.
+ * As alterações de uma transação são gravadas na própria transação, logo antes do commit, e recebem números
+ * de sequência consecutivos tirados da linha única de {@link ChangeLogSequence}. O bloqueio dessa linha dura
+ * até o commit, então os números seguem a ordem de commit: um cliente que leu até o número N nunca perde
+ * uma alteração que receba um número menor depois. O custo é serializar o fim das transações de escrita.
+ * <p>
+ * A manutenção periódica compacta o registro, mantendo só a alteração mais recente de cada entidade entre
+ * as mais antigas que {@code biblioteca.changes.compact-after-minutes}, e descarta as alterações mais antigas
+ * que {@code biblioteca.changes.retention-hours}. Clientes que ficaram para trás da retenção recebem
+ * {@code resync}: devem recarregar as coleções e continuar a partir de {@code lastSeq}.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    public static final int MAX_LIMIT = 5_000;
+    public static final Duration MAX_WAIT = Duration.ofSeconds(60);
+
+    static final String ADVANCE_SEQ =
+            "update change_log_sequence set last_seq = last_seq + ? where id = " + ChangeLogSequence.ID;
+    static final String READ_SEQ = "select last_seq from change_log_sequence where id = " + ChangeLogSequence.ID;
+    static final String CREATE_SEQ = "insert into change_log_sequence (id, last_seq, truncated_through) values ("
+            + ChangeLogSequence.ID + ", ?, 0)";
+    static final String INSERT_CHANGE =
+            "insert into change_log (seq, entity, entity_id, op, changed_at) values (?, ?, ?, ?, ?)";
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeLogSequenceRepository sequenceRepository;
+    private final EntityManager entityManager;
+    private final boolean enabled;
+    private final Duration retention;
+    private final Duration compactAfter;
+    private final int maintenanceBatchSize;
+    private final Map<SessionImplementor, PendingChanges> pending = new ConcurrentHashMap<>();
+    private final NavigableSet<Waiter> waiters = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Waiter::since).thenComparingLong(Waiter::id));
+    private final AtomicLong waiterIds = new AtomicLong();
+    private final AtomicLong lastCommittedSeq = new AtomicLong();
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Construtor que injeta os repositórios e a configuração de retenção e compactação.
+     *
+     * @param changeLogRepository  o repositório das alterações
+     * @param sequenceRepository   o repositório da sequência do registro
+     * @param entityManager        usado para chegar à sessão da transação corrente nas atualizações em massa
+     * @param enabled              se as alterações devem ser registradas
+     * @param retentionHours       por quantas horas as alterações são mantidas
+     * @param compactAfterMinutes  a idade a partir da qual as alterações são compactadas
+     * @param maintenanceBatchSize a faixa de números de sequência apagada por comando na manutenção
+     */
+    @Autowired
+    public ChangeFeedService(ChangeLogRepository changeLogRepository, ChangeLogSequenceRepository sequenceRepository,
+                             EntityManager entityManager,
+                             @Value("${biblioteca.changes.enabled:true}") boolean enabled,
+                             @Value("${biblioteca.changes.retention-hours:168}") long retentionHours,
+                             @Value("${biblioteca.changes.compact-after-minutes:60}") long compactAfterMinutes,
+                             @Value("${biblioteca.changes.maintenance-batch-size:10000}") int maintenanceBatchSize) {
+        this.changeLogRepository = changeLogRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.entityManager = entityManager;
+        this.enabled = enabled;
+        this.retention = Duration.ofHours(retentionHours);
+        this.compactAfter = Duration.ofMinutes(compactAfterMinutes);
+        this.maintenanceBatchSize = maintenanceBatchSize;
+    }
+
+    /**
+     * Registra a alteração de uma entidade na transação da sessão. A alteração é gravada logo antes
+     * do commit e descartada se a transação for desfeita.
+     *
+     * @param session a sessão do Hibernate que fez a alteração
+     * @param entity  a entidade alterada
+     * @param id      o ID da entidade
+     * @param op      a operação
+     */
+    public void record(SessionImplementor session, ChangedEntity entity, long id, ChangeType op) {
+        if (!enabled) {
+            return;
+        }
+        PendingChanges changes = pending.get(session);
+        if (changes == null) {
+            PendingChanges created = new PendingChanges();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s ->
+                    s.doWork(connection -> created.lastSeq = append(connection, created.changes, Instant.now())));
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+                pending.remove(session);
+                if (success && created.lastSeq > 0) {
+                    committed(created.lastSeq);
+                }
+            });
+            pending.put(session, created);
+            changes = created;
+        }
+        changes.add(entity, id, op);
+    }
+
+    /**
+     * Registra a alteração de várias entidades na transação corrente, para as atualizações em massa
+     * que não passam pelos eventos do Hibernate.
+     *
+     * @param entity a entidade alterada
+     * @param ids    os IDs das entidades
+     * @param op     a operação
+     */
+    public void record(ChangedEntity entity, Collection<Long> ids, ChangeType op) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("As alterações em massa devem ser registradas dentro de uma transação!");
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        for (Long id : ids) {
+            record(session, entity, id, op);
+        }
+    }
+
+    /**
+     * Grava as alterações de uma transação com números de sequência consecutivos.
+     *
+     * @param connection a conexão da transação
+     * @param changes    as alterações, na ordem em que ocorreram
+     * @param now        o instante registrado nas alterações
+     * @return o número de sequência da última alteração, ou 0 se não houver alterações
+     */
+    static long append(Connection connection, Map<ChangeKey, ChangeType> changes, Instant now) throws SQLException {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        int count = changes.size();
+        long lastSeq = count;
+        try (PreparedStatement advance = connection.prepareStatement(ADVANCE_SEQ)) {
+            advance.setLong(1, count);
+            if (advance.executeUpdate() == 0) {
+                // Primeira alteração num banco em que schema-postgresql.sql não rodou (ex.: H2)
+                try (PreparedStatement create = connection.prepareStatement(CREATE_SEQ)) {
+                    create.setLong(1, count);
+                    create.executeUpdate();
+                }
+            } else {
+                try (PreparedStatement read = connection.prepareStatement(READ_SEQ);
+                     ResultSet result = read.executeQuery()) {
+                    result.next();
+                    lastSeq = result.getLong(1);
+                }
+            }
+        }
+
+        long seq = lastSeq - count;
+        Timestamp changedAt = Timestamp.from(now);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_CHANGE)) {
+            for (Map.Entry<ChangeKey, ChangeType> change : changes.entrySet()) {
+                insert.setLong(1, ++seq);
+                insert.setString(2, change.getKey().entity().name());
+                insert.setLong(3, change.getKey().id());
+                insert.setString(4, change.getValue().name());
+                insert.setTimestamp(5, changedAt);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        return lastSeq;
+    }
+
+    /**
+     * Avisa os clientes em espera que alterações até o número informado foram confirmadas. Só acorda
+     * quem espera por alterações posteriores a um número menor; os demais continuam esperando.
+     *
+     * @param lastSeq o número de sequência da última alteração confirmada
+     */
+    void committed(long lastSeq) {
+        lastCommittedSeq.accumulateAndGet(lastSeq, Math::max);
+        Iterator<Waiter> waiting = waiters.headSet(new Waiter(lastSeq, Long.MIN_VALUE, null)).iterator();
+        while (waiting.hasNext()) {
+            Waiter waiter = waiting.next();
+            waiting.remove();
+            waiter.signal().complete(null);
+        }
+    }
+
+    /**
+     * Retorna as alterações posteriores ao número de sequência informado, em ordem.
+     * Sem {@code since}, retorna apenas o número atual, para o cliente que acabou de carregar as coleções.
+     *
+     * @param since o último número de sequência já processado pelo cliente, ou null
+     * @param limit a quantidade máxima de alterações retornadas
+     * @return as alterações, o número até o qual o cliente pode avançar e se há mais alterações
+     */
+    public ChangeFeedDTO getChanges(Long since, int limit) {
+        validate(since, limit);
+        ChangeLogSequence sequence = sequenceRepository.findById(ChangeLogSequence.ID)
+                .orElseGet(() -> new ChangeLogSequence(ChangeLogSequence.ID, 0, 0));
+        if (since == null || since < sequence.getTruncatedThrough() || since > sequence.getLastSeq()) {
+            return ChangeFeedDTO.builder()
+                    .changes(List.of())
+                    .lastSeq(sequence.getLastSeq())
+                    .resync(since != null)
+                    .build();
+        }
+
+        List<ChangeLogEntry> entries = changeLogRepository.findAfter(since, Limit.of(limit + 1));
+        List<ChangeDTO> changes = entries.stream()
+                .limit(limit)
+                .map(entry -> new ChangeDTO(entry.getSeq(), entry.getEntity(), entry.getEntityId(), entry.getOp()))
+                .toList();
+        return ChangeFeedDTO.builder()
+                .changes(changes)
+                .lastSeq(changes.isEmpty() ? since : changes.getLast().getSeq())
+                .hasMore(entries.size() > limit)
+                .build();
+    }
+
+    /**
+     * Como {@link #getChanges(Long, int)}, mas, se não houver alterações, espera até {@code wait} por uma
+     * sem ocupar a thread da requisição (long polling). A espera termina assim que uma transação desta
+     * instância confirmar alterações; as de outras instâncias só são vistas ao fim da espera. A nova consulta
+     * roda numa thread virtual própria, e não na thread que confirmou a transação nem no pool comum.
+     *
+     * @param since o último número de sequência já processado pelo cliente, ou null
+     * @param limit a quantidade máxima de alterações retornadas
+     * @param wait  o tempo máximo de espera
+     * @return as alterações, quando houver ou quando a espera terminar
+     */
+    public CompletableFuture<ChangeFeedDTO> awaitChanges(Long since, int limit, Duration wait) {
+        if (wait.isNegative() || wait.compareTo(MAX_WAIT) > 0) {
+            throw new RuntimeException("A espera deve ser de no máximo " + MAX_WAIT.toSeconds() + " segundos!");
+        }
+        ChangeFeedDTO feed = getChanges(since, limit);
+        if (since == null || feed.isResync() || !feed.getChanges().isEmpty() || wait.isZero()) {
+            return CompletableFuture.completedFuture(feed);
+        }
+
+        Waiter waiter = new Waiter(since, waiterIds.incrementAndGet(), new CompletableFuture<>());
+        waiters.add(waiter);
+        waiter.signal().whenComplete((ignored, error) -> waiters.remove(waiter));
+        // Uma alteração confirmada entre a leitura e o registro da espera não acordaria o cliente
+        if (lastCommittedSeq.get() > since) {
+            waiter.signal().complete(null);
+        }
+        return waiter.signal().completeOnTimeout(null, wait.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApplyAsync(ignored -> getChanges(since, limit), readers);
+    }
+
+    /**
+     * Retorna a quantidade de clientes esperando por alterações.
+     *
+     * @return a quantidade de esperas em aberto
+     */
+    public int getWaiting() {
+        return waiters.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readers.shutdownNow();
+    }
+
+    private static void validate(Long since, int limit) {
+        if (since != null && since < 0) {
+            throw new RuntimeException("O número de sequência não pode ser negativo!");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new RuntimeException("O limite deve estar entre 1 e " + MAX_LIMIT + "!");
+        }
+    }
+
+    /**
+     * Compacta e aplica a retenção do registro de alterações.
+     */
+    @Scheduled(cron = "${biblioteca.changes.maintenance-cron:0 15 * * * *}")
+    public void maintain() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        long compacted = compact(now);
+        long expired = expire(now);
+        LOGGER.info("Manutenção do registro de alterações: {} compactadas e {} descartadas ({} ms)",
+                compacted, expired, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Apaga, entre as alterações anteriores a {@code compact-after-minutes}, as que já foram sucedidas por
+     * uma alteração mais recente da mesma entidade. Quem sincroniza a partir de qualquer ponto continua
+     * recebendo a alteração mais recente de cada entidade, que é o que precisa para ficar em dia.
+     *
+     * @param now o instante de referência
+     * @return a quantidade de alterações apagadas
+     */
+    long compact(Instant now) {
+        Optional<Long> first = changeLogRepository.findFirstSeq();
+        Optional<Long> through = changeLogRepository.findLastSeqBefore(now.minus(compactAfter));
+        if (first.isEmpty() || through.isEmpty()) {
+            return 0;
+        }
+        long removed = 0;
+        for (long from = first.get() - 1; from < through.get(); from += maintenanceBatchSize) {
+            removed += changeLogRepository.deleteSupersededInRange(from, Math.min(from + maintenanceBatchSize, through.get()));
+        }
+        return removed;
+    }
+
+    /**
+     * Descarta as alterações anteriores a {@code retention-hours}. O ponto de corte é gravado antes da
+     * exclusão, para que os clientes que ficaram para trás recebam {@code resync} em vez de uma lacuna.
+     *
+     * @param now o instante de referência
+     * @return a quantidade de alterações descartadas
+     */
+    long expire(Instant now) {
+        Optional<Long> first = changeLogRepository.findFirstSeq();
+        Optional<Long> through = changeLogRepository.findLastSeqBefore(now.minus(retention));
+        if (first.isEmpty() || through.isEmpty()) {
+            return 0;
+        }
+        sequenceRepository.advanceTruncation(through.get());
+        long removed = 0;
+        for (long from = first.get() - 1; from < through.get(); from += maintenanceBatchSize) {
+            removed += changeLogRepository.deleteRange(from, Math.min(from + maintenanceBatchSize, through.get()));
+        }
+        return removed;
+    }
+
+    /**
+     * Identifica uma entidade alterada.
+     *
+     * @param entity a entidade
+     * @param id     o ID
+     */
+    record ChangeKey(ChangedEntity entity, long id) {
+    }
+
+    /**
+     * Um cliente esperando por alterações posteriores a {@code since}.
+     *
+     * @param since  o último número de sequência já processado pelo cliente
+     * @param id     desempata as esperas com o mesmo {@code since}
+     * @param signal completado quando houver alterações confirmadas posteriores a {@code since}
+     */
+    record Waiter(long since, long id, CompletableFuture<Void> signal) {
+    }
+
+    /**
+     * As alterações ainda não gravadas de uma transação. Várias alterações da mesma entidade viram uma:
+     * uma inclusão seguida de alterações continua sendo uma inclusão, e uma inclusão seguida de exclusão
+     * não é registrada.
+     */
+    static final class PendingChanges {
+
+        final Map<ChangeKey, ChangeType> changes = new LinkedHashMap<>();
+        volatile long lastSeq;
+
+        void add(ChangedEntity entity, long id, ChangeType op) {
+            ChangeKey key = new ChangeKey(entity, id);
+            ChangeType previous = changes.get(key);
+            if (previous == ChangeType.CREATED) {
+                if (op == ChangeType.DELETED) {
+                    changes.remove(key);
+                }
+                return;
+            }
+            changes.put(key, op);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.elotech.biblioteca_arom.services;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Matriz esparsa e imutável de similaridade livro-livro baseada em co-empréstimos
+ * ("quem pegou X também pegou Y"). Para cada livro guarda apenas os N vizinhos mais similares,
+ * em arrays primitivos paralelos ({@code long} para o ID do vizinho e {@code float} para a similaridade).
+ * A similaridade entre dois livros é o cosseno entre os conjuntos de usuários que os pegaram:
+ * {@code co-empréstimos / sqrt(leitores(a) * leitores(b))}.
+ */
+final class CoBorrowSimilarityMatrix {
+
+    static final CoBorrowSimilarityMatrix EMPTY =
+            new CoBorrowSimilarityMatrix(new long[0], new long[0][], new float[0][]);
+
+    private static final long[] NO_IDS = new long[0];
+    private static final float[] NO_SCORES = new float[0];
+
+    private final long[] bookIds;
+    private final long[][] neighborIds;
+    private final float[][] neighborScores;
+
+    private CoBorrowSimilarityMatrix(long[] bookIds, long[][] neighborIds, float[][] neighborScores) {
+        this.bookIds = bookIds;
+        this.neighborIds = neighborIds;
+        this.neighborScores = neighborScores;
+    }
+
+    /**
+     * Retorna os IDs dos vizinhos de um livro, do mais para o menos similar.
+     */
+    long[] neighborIds(long bookId) {
+        int index = Arrays.binarySearch(bookIds, bookId);
+        return index >= 0 ? neighborIds[index] : NO_IDS;
+    }
+
+    /**
+     * Retorna as similaridades dos vizinhos de um livro, na mesma ordem de {@link #neighborIds(long)}.
+     */
+    float[] neighborScores(long bookId) {
+        int index = Arrays.binarySearch(bookIds, bookId);
+        return index >= 0 ? neighborScores[index] : NO_SCORES;
+    }
+
+    /**
+     * Retorna o índice denso de um livro, ou um valor negativo se ele não estiver na matriz.
+     * Os índices seguem a ordem crescente dos IDs.
+     */
+    int indexOf(long bookId) {
+        return Arrays.binarySearch(bookIds, bookId);
+    }
+
+    /**
+     * Retorna o ID do livro no índice denso informado.
+     */
+    long bookId(int index) {
+        return bookIds[index];
+    }
+
+    int bookCount() {
+        return bookIds.length;
+    }
+
+    long neighborCount() {
+        long total = 0;
+        for (long[] ids : neighborIds) {
+            total += ids.length;
+        }
+        return total;
+    }
+
+    /**
+     * Estimativa do espaço ocupado em heap pela matriz, em bytes (cabeçalhos de array incluídos).
+     */
+    long estimatedBytes() {
+        long arrayHeader = 16;
+        long total = arrayHeader * 3 + 8L * bookIds.length + 8L * 2 * bookIds.length;
+        for (int i = 0; i < bookIds.length; i++) {
+            total += 2 * arrayHeader + 12L * neighborIds[i].length;
+        }
+        return total;
+    }
+
+    /**
+     * Constrói a matriz a partir dos pares usuário/livro dos empréstimos.
+     * Os IDs são convertidos para índices densos e os relacionamentos são guardados em formato CSR
+     * (usuário → livros e livro → usuários). O cálculo dos vizinhos é dividido por faixas de livros
+     * entre as threads do pool fork/join; cada faixa escreve apenas nas suas próprias posições,
+     * então não há junção de resultados parciais.
+     *
+     * @param userIds        os IDs de usuário de cada empréstimo
+     * @param bookIds        os IDs de livro de cada empréstimo, na mesma ordem
+     * @param count          a quantidade de empréstimos válidos nos arrays
+     * @param topN           a quantidade máxima de vizinhos guardados por livro
+     * @param maxUserHistory usuários com mais livros distintos que isso são ignorados (evita custo quadrático)
+     * @param pool           o pool fork/join usado no cálculo
+     * @return a matriz de similaridade
+     */
+    static CoBorrowSimilarityMatrix build(long[] userIds, long[] bookIds, int count, int topN,
+                                          int maxUserHistory, ForkJoinPool pool) {
+        long[] books = sortedDistinct(bookIds, count);
+        long[] users = sortedDistinct(userIds, count);
+        int bookCount = books.length;
+        int userCount = users.length;
+
+        int[] userOffsets = new int[userCount + 1];
+        int[] userOf = new int[count];
+        int[] bookOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            userOf[i] = Arrays.binarySearch(users, userIds[i]);
+            bookOf[i] = Arrays.binarySearch(books, bookIds[i]);
+            userOffsets[userOf[i] + 1]++;
+        }
+        for (int u = 0; u < userCount; u++) {
+            userOffsets[u + 1] += userOffsets[u];
+        }
+        int[] userBooks = new int[count];
+        int[] cursor = Arrays.copyOf(userOffsets, userCount);
+        for (int i = 0; i < count; i++) {
+            userBooks[cursor[userOf[i]]++] = bookOf[i];
+        }
+
+        // ordena e remove livros repetidos de cada usuário, descartando históricos grandes demais
+        int[] compactOffsets = new int[userCount + 1];
+        int[] bookDegree = new int[bookCount];
+        int write = 0;
+        for (int u = 0; u < userCount; u++) {
+            int from = userOffsets[u];
+            int to = userOffsets[u + 1];
+            Arrays.sort(userBooks, from, to);
+            int rowStart = write;
+            for (int i = from; i < to; i++) {
+                if (i == from || userBooks[i] != userBooks[i - 1]) {
+                    userBooks[write++] = userBooks[i];
+                }
+            }
+            if (write - rowStart > maxUserHistory) {
+                write = rowStart;
+            }
+            for (int i = rowStart; i < write; i++) {
+                bookDegree[userBooks[i]]++;
+            }
+            compactOffsets[u + 1] = write;
+        }
+
+        int[] bookOffsets = new int[bookCount + 1];
+        for (int b = 0; b < bookCount; b++) {
+            bookOffsets[b + 1] = bookOffsets[b] + bookDegree[b];
+        }
+        int[] bookUsers = new int[write];
+        cursor = Arrays.copyOf(bookOffsets, bookCount);
+        for (int u = 0; u < userCount; u++) {
+            for (int i = compactOffsets[u]; i < compactOffsets[u + 1]; i++) {
+                bookUsers[cursor[userBooks[i]]++] = u;
+            }
+        }
+
+        long[][] neighborIds = new long[bookCount][];
+        float[][] neighborScores = new float[bookCount][];
+        int leafSize = Math.max(64, bookCount / (pool.getParallelism() * 4) + 1);
+        pool.invoke(new NeighborTask(0, bookCount, leafSize, topN, books, bookDegree,
+                bookOffsets, bookUsers, compactOffsets, userBooks, neighborIds, neighborScores));
+
+        return new CoBorrowSimilarityMatrix(books, neighborIds, neighborScores);
+    }
+
+    private static long[] sortedDistinct(long[] values, int count) {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    /**
+     * Calcula os vizinhos de uma faixa de livros, dividindo a faixa ao meio até o tamanho da folha.
+     * Cada folha aloca um único vetor de contagem do tamanho do catálogo e o reaproveita
+     * para todos os livros da faixa, zerando apenas as posições tocadas.
+     */
+    private static final class NeighborTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final int topN;
+        private final long[] books;
+        private final int[] bookDegree;
+        private final int[] bookOffsets;
+        private final int[] bookUsers;
+        private final int[] userOffsets;
+        private final int[] userBooks;
+        private final long[][] neighborIds;
+        private final float[][] neighborScores;
+
+        private NeighborTask(int from, int to, int leafSize, int topN, long[] books, int[] bookDegree,
+                             int[] bookOffsets, int[] bookUsers, int[] userOffsets, int[] userBooks,
+                             long[][] neighborIds, float[][] neighborScores) {
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.topN = topN;
+            this.books = books;
+            this.bookDegree = bookDegree;
+            this.bookOffsets = bookOffsets;
+            this.bookUsers = bookUsers;
+            this.userOffsets = userOffsets;
+            this.userBooks = userBooks;
+            this.neighborIds = neighborIds;
+            this.neighborScores = neighborScores;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leafSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new NeighborTask(from, middle, leafSize, topN, books, bookDegree, bookOffsets, bookUsers,
+                                userOffsets, userBooks, neighborIds, neighborScores),
+                        new NeighborTask(middle, to, leafSize, topN, books, bookDegree, bookOffsets, bookUsers,
+                                userOffsets, userBooks, neighborIds, neighborScores));
+                return;
+            }
+
+            int[] coCounts = new int[books.length];
+            int[] touched = new int[books.length];
+            TopNeighbors top = new TopNeighbors(topN);
+
+            for (int book = from; book < to; book++) {
+                int touchedCount = 0;
+                for (int i = bookOffsets[book]; i < bookOffsets[book + 1]; i++) {
+                    int user = bookUsers[i];
+                    for (int j = userOffsets[user]; j < userOffsets[user + 1]; j++) {
+                        int other = userBooks[j];
+                        if (other != book && coCounts[other]++ == 0) {
+                            touched[touchedCount++] = other;
+                        }
+                    }
+                }
+
+                top.clear();
+                for (int i = 0; i < touchedCount; i++) {
+                    int other = touched[i];
+                    float score = (float) (coCounts[other] / Math.sqrt((double) bookDegree[book] * bookDegree[other]));
+                    top.offer(other, score);
+                    coCounts[other] = 0;
+                }
+                top.drainTo(book, books, neighborIds, neighborScores);
+            }
+        }
+    }
+
+    /**
+     * Heap mínimo de tamanho fixo sobre arrays primitivos, usado para manter os N maiores escores.
+     */
+    private static final class TopNeighbors {
+        private final int[] indexes;
+        private final float[] scores;
+        private int size;
+
+        private TopNeighbors(int capacity) {
+            this.indexes = new int[capacity];
+            this.scores = new float[capacity];
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private void offer(int index, float score) {
+            if (indexes.length == 0) {
+                return;
+            }
+            if (size < indexes.length) {
+                indexes[size] = index;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                indexes[0] = index;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        private void drainTo(int book, long[] books, long[][] neighborIds, float[][] neighborScores) {
+            long[] ids = new long[size];
+            float[] values = new float[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ids[i] = books[indexes[0]];
+                values[i] = scores[0];
+                indexes[0] = indexes[size - 1];
+                scores[0] = scores[size - 1];
+                size--;
+                siftDown(0);
+            }
+            neighborIds[book] = ids;
+            neighborScores[book] = values;
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (scores[parent] <= scores[position]) {
+                    return;
+                }
+                swap(parent, position);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                int left = 2 * position + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[position] <= scores[smallest]) {
+                    return;
+                }
+                swap(position, smallest);
+                position = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int index = indexes[a];
+            indexes[a] = indexes[b];
+            indexes[b] = index;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanPairView;
+import com.elotech.biblioteca_arom.dtos.SimilarityStatsDTO;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serviço de recomendação por filtragem colaborativa item-a-item ("quem pegou X também pegou Y").
+ * Um job em segundo plano lê a tabela de empréstimos em blocos, constrói a
+ * {@link CoBorrowSimilarityMatrix} em paralelo e a publica de forma atômica;
+ * as recomendações sempre usam a última matriz publicada.
+ */
+@Service
+public class CollaborativeRecommender {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CollaborativeRecommender.class);
+
+    static final int CHUNK_SIZE = 10_000;
+
+    private final LoanRepository loanRepository;
+    private final int neighborsPerBook;
+    private final int maxUserHistory;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile CoBorrowSimilarityMatrix matrix = CoBorrowSimilarityMatrix.EMPTY;
+    private volatile SimilarityStatsDTO stats = new SimilarityStatsDTO();
+
+    /**
+     * Construtor que injeta o repositório de empréstimos e os parâmetros da matriz.
+     *
+     * @param loanRepository   o repositório de empréstimos
+     * @param neighborsPerBook a quantidade de vizinhos guardados por livro
+     * @param maxUserHistory   históricos de usuário maiores que isso são ignorados na construção
+     */
+    @Autowired
+    public CollaborativeRecommender(LoanRepository loanRepository,
+                                    @Value("${biblioteca.recommendation.similarity.neighbors:50}") int neighborsPerBook,
+                                    @Value("${biblioteca.recommendation.similarity.max-user-history:1000}") int maxUserHistory) {
+        this.loanRepository = loanRepository;
+        this.neighborsPerBook = neighborsPerBook;
+        this.maxUserHistory = maxUserHistory;
+    }
+
+    /**
+     * Reconstrói a matriz de similaridade a partir de todos os empréstimos.
+     * Os empréstimos são lidos em blocos de {@value #CHUNK_SIZE} linhas por paginação de cursor no ID,
+     * guardando apenas os pares usuário/livro em arrays primitivos. Se uma reconstrução já estiver
+     * em andamento, a chamada é ignorada.
+     */
+    @Scheduled(initialDelayString = "${biblioteca.recommendation.similarity.initial-delay-ms:10000}",
+            fixedDelayString = "${biblioteca.recommendation.similarity.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long[] userIds = new long[CHUNK_SIZE];
+            long[] bookIds = new long[CHUNK_SIZE];
+            int count = 0;
+            Long after = 0L;
+
+            while (true) {
+                List<LoanPairView> chunk = loanRepository.findLoanPairsAfter(after, Limit.of(CHUNK_SIZE));
+                if (count + chunk.size() > userIds.length) {
+                    int capacity = Math.max(userIds.length * 2, count + chunk.size());
+                    userIds = Arrays.copyOf(userIds, capacity);
+                    bookIds = Arrays.copyOf(bookIds, capacity);
+                }
+                for (LoanPairView pair : chunk) {
+                    userIds[count] = pair.getUserId();
+                    bookIds[count] = pair.getBookId();
+                    count++;
+                }
+                if (chunk.size() < CHUNK_SIZE) {
+                    break;
+                }
+                after = chunk.getLast().getLoanId();
+            }
+
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            CoBorrowSimilarityMatrix built = CoBorrowSimilarityMatrix.build(
+                    userIds, bookIds, count, neighborsPerBook, maxUserHistory, pool);
+            long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+            matrix = built;
+            stats = new SimilarityStatsDTO(Instant.now().toString(), buildMillis, count, built.bookCount(),
+                    built.neighborCount(), built.estimatedBytes(), pool.getParallelism());
+            LOGGER.info("Matriz de similaridade reconstruída: {} empréstimos, {} livros, {} vizinhos, ~{} KB em {} ms",
+                    count, built.bookCount(), built.neighborCount(), built.estimatedBytes() / 1024, buildMillis);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Retorna os IDs dos livros recomendados para o usuário com base no seu histórico.
+     * Cada livro do histórico contribui com a similaridade dos seus vizinhos; os livros que o usuário
+     * já pegou são descartados e os demais são ordenados pela soma das similaridades (empate pelo menor ID).
+     * <p>
+     * As somas são feitas em arrays de {@code long}, sem mapa nem objetos por candidato: cada contribuição
+     * guarda o índice denso do vizinho na matriz nos 32 bits altos e os bits da similaridade nos baixos,
+     * e a ordenação junta as contribuições de cada vizinho. O resultado é empacotado de novo, com a soma
+     * nos bits altos, para ser ordenado pela pontuação. As similaridades não são negativas, então a ordem
+     * dos bits de um {@code float} é a ordem dos valores.
+     *
+     * @param userId o ID do usuário
+     * @param limit  a quantidade máxima de recomendações
+     * @return os IDs dos livros recomendados, do mais para o menos relevante
+     */
+    public List<Long> recommend(Long userId, int limit) {
+        CoBorrowSimilarityMatrix current = matrix;
+        List<Long> history = loanRepository.findDistinctBookIdsByUserId(userId);
+        if (history.isEmpty() || current.bookCount() == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        long[] borrowed = new long[history.size()];
+        int total = 0;
+        for (int i = 0; i < borrowed.length; i++) {
+            borrowed[i] = history.get(i);
+            total += current.neighborIds(borrowed[i]).length;
+        }
+        Arrays.sort(borrowed);
+
+        long[] contributions = new long[total];
+        int count = 0;
+        for (long bookId : borrowed) {
+            long[] neighborIds = current.neighborIds(bookId);
+            float[] neighborScores = current.neighborScores(bookId);
+            for (int i = 0; i < neighborIds.length; i++) {
+                if (Arrays.binarySearch(borrowed, neighborIds[i]) < 0) {
+                    contributions[count++] = (long) current.indexOf(neighborIds[i]) << 32
+                            | Integer.toUnsignedLong(Float.floatToRawIntBits(neighborScores[i]));
+                }
+            }
+        }
+        Arrays.sort(contributions, 0, count);
+
+        long[] ranked = new long[count];
+        int candidates = 0;
+        for (int i = 0; i < count; ) {
+            int index = (int) (contributions[i] >>> 32);
+            float score = 0;
+            for (; i < count && (int) (contributions[i] >>> 32) == index; i++) {
+                score += Float.intBitsToFloat((int) contributions[i]);
+            }
+            // Nos bits baixos, o complemento do índice: na ordem decrescente, o menor ID vem primeiro
+            ranked[candidates++] = (long) Float.floatToRawIntBits(score) << 32 | (Integer.MAX_VALUE - index);
+        }
+        Arrays.sort(ranked, 0, candidates);
+
+        int size = Math.min(limit, candidates);
+        List<Long> recommended = new ArrayList<>(size);
+        for (int i = candidates - 1; i >= candidates - size; i--) {
+            recommended.add(current.bookId(Integer.MAX_VALUE - (int) ranked[i]));
+        }
+        return recommended;
+    }
+
+    /**
+     * Retorna o tempo da última reconstrução e o tamanho da matriz publicada.
+     *
+     * @return as estatísticas da última reconstrução
+     */
+    public SimilarityStatsDTO getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,246 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.CollectionVersion;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.repositories.CollectionVersionRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contadores de alteração por coleção (livros, usuários e empréstimos), usados para gerar os ETags e o
+ * Last-Modified das listagens e responder às requisições condicionais sem carregar as coleções.
+ * <p>
+ * Os contadores ficam na tabela {@code collection_version}, compartilhada por todas as instâncias, e são
+ * incrementados na própria transação de cada inclusão, alteração ou exclusão feita pelo Hibernate
+ * (ver {@code CollectionVersionsConfig}), logo antes do commit; atualizações em massa devem chamar
+ * {@link #changed(Tracked)} dentro da transação. Transações desfeitas não alteram os contadores. O bloqueio
+ * da linha da coleção dura até o commit, então as transações de escrita de uma mesma coleção terminam
+ * uma de cada vez. Cada requisição condicional lê as coleções de que depende em uma única consulta pela
+ * chave primária ({@link #snapshot(Tracked...)}).
+ */
+@Component
+public class CollectionVersions {
+
+    /**
+     * As coleções acompanhadas.
+     */
+    public enum Tracked {
+        BOOKS,
+        USERS,
+        LOANS;
+
+        /**
+         * Retorna a coleção de uma classe de entidade.
+         *
+         * @param entityClass a classe da entidade
+         * @return a coleção, ou null se a entidade não for acompanhada
+         */
+        public static Tracked of(Class<?> entityClass) {
+            if (entityClass == Book.class) {
+                return BOOKS;
+            }
+            if (entityClass == User.class) {
+                return USERS;
+            }
+            if (entityClass == Loan.class) {
+                return LOANS;
+            }
+            return null;
+        }
+    }
+
+    static final String BUMP_VERSION = "update collection_version set version = version + 1, "
+            + "modified_at = greatest(modified_at, ?) where collection = ?";
+    static final String CREATE_VERSION =
+            "insert into collection_version (collection, version, modified_at) values (?, 1, ?)";
+
+    private final CollectionVersionRepository repository;
+    private final EntityManager entityManager;
+    private final Map<SessionImplementor, EnumSet<Tracked>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Construtor que injeta o repositório dos contadores.
+     *
+     * @param repository    o repositório dos contadores
+     * @param entityManager usado para chegar à sessão da transação corrente nas atualizações em massa
+     */
+    @Autowired
+    public CollectionVersions(CollectionVersionRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Registra uma alteração na coleção, na transação da sessão. O contador é incrementado logo antes
+     * do commit, uma vez por coleção alterada na transação.
+     *
+     * @param session    a sessão do Hibernate que fez a alteração
+     * @param collection a coleção alterada
+     */
+    public void changed(SessionImplementor session, Tracked collection) {
+        EnumSet<Tracked> changes = pending.get(session);
+        if (changes == null) {
+            EnumSet<Tracked> created = EnumSet.noneOf(Tracked.class);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s ->
+                    s.doWork(connection -> bump(connection, created, Instant.now())));
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) ->
+                    pending.remove(session));
+            pending.put(session, created);
+            changes = created;
+        }
+        changes.add(collection);
+    }
+
+    /**
+     * Registra uma alteração na coleção na transação corrente, para as atualizações em massa que
+     * não passam pelos eventos do Hibernate.
+     *
+     * @param collection a coleção alterada
+     * @throws IllegalStateException se não houver uma transação ativa
+     */
+    public void changed(Tracked collection) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("As alterações em massa devem ser registradas dentro de uma transação!");
+        }
+        changed(entityManager.unwrap(SessionImplementor.class), collection);
+    }
+
+    /**
+     * Incrementa os contadores das coleções alteradas, sempre na ordem das coleções, para que duas
+     * transações não se bloqueiem em ordens diferentes.
+     *
+     * @param connection  a conexão da transação
+     * @param collections as coleções alteradas
+     * @param now         o instante da alteração
+     */
+    static void bump(Connection connection, Set<Tracked> collections, Instant now) throws SQLException {
+        Timestamp modifiedAt = Timestamp.from(now);
+        for (Tracked collection : collections) {
+            try (PreparedStatement update = connection.prepareStatement(BUMP_VERSION)) {
+                update.setTimestamp(1, modifiedAt);
+                update.setString(2, collection.name());
+                if (update.executeUpdate() > 0) {
+                    continue;
+                }
+            }
+            // Primeira alteração num banco em que schema-postgresql.sql não rodou (ex.: H2)
+            try (PreparedStatement create = connection.prepareStatement(CREATE_VERSION)) {
+                create.setString(1, collection.name());
+                create.setTimestamp(2, modifiedAt);
+                create.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Lê os contadores das coleções informadas em uma única consulta.
+     *
+     * @param collections as coleções de que a representação depende
+     * @return os contadores lidos
+     */
+    public Snapshot snapshot(Tracked... collections) {
+        List<String> names = new ArrayList<>(collections.length);
+        for (Tracked collection : collections) {
+            names.add(collection.name());
+        }
+        Snapshot snapshot = new Snapshot(EnumSet.copyOf(Arrays.asList(collections)));
+        for (CollectionVersion row : repository.findAllById(names)) {
+            Tracked collection = Tracked.valueOf(row.getCollection());
+            snapshot.versions[collection.ordinal()] = row.getVersion();
+            snapshot.modifiedAt[collection.ordinal()] = row.getModifiedAt().toEpochMilli();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Os contadores de um conjunto de coleções, lidos juntos, de onde saem o ETag e o Last-Modified
+     * de uma mesma resposta. Uma coleção ainda sem alterações tem contador e instante zero.
+     */
+    public static final class Snapshot {
+
+        private final Set<Tracked> collections;
+        private final long[] versions = new long[Tracked.values().length];
+        private final long[] modifiedAt = new long[Tracked.values().length];
+
+        Snapshot(Set<Tracked> collections) {
+            this.collections = collections;
+        }
+
+        /**
+         * Retorna a quantidade de alterações registradas na coleção.
+         *
+         * @param collection uma das coleções lidas
+         * @return o contador de alterações
+         */
+        public long version(Tracked collection) {
+            return versions[read(collection).ordinal()];
+        }
+
+        /**
+         * Gera o ETag de uma representação que depende de todas as coleções lidas.
+         * O ETag leva o contador e o instante da última alteração de cada coleção, então muda sempre
+         * que qualquer uma delas for alterada e não se repete se a tabela for recriada.
+         *
+         * @return o ETag, entre aspas
+         */
+        public String etag() {
+            return "\"" + tag(collections) + "\"";
+        }
+
+        /**
+         * Gera o ETag de um item, a partir da sua versão ({@code @Version}) e das coleções
+         * de que a representação do item também depende (por exemplo, os empréstimos de um livro).
+         *
+         * @param id          o ID do item
+         * @param version     a versão do item
+         * @param collections as coleções de que a representação também depende, entre as lidas
+         * @return o ETag, entre aspas
+         */
+        public String etag(long id, long version, Tracked... collections) {
+            return "\"" + id + "v" + version + "-" + tag(Arrays.asList(collections)) + "\"";
+        }
+
+        /**
+         * Retorna o instante da última alteração entre as coleções lidas.
+         *
+         * @return o instante em milissegundos desde a época Unix, ou 0 se nenhuma foi alterada
+         */
+        public long lastModified() {
+            long last = 0;
+            for (Tracked collection : collections) {
+                last = Math.max(last, modifiedAt[collection.ordinal()]);
+            }
+            return last;
+        }
+
+        private String tag(Collection<Tracked> tagged) {
+            StringJoiner tag = new StringJoiner("-");
+            for (Tracked collection : tagged) {
+                tag.add(version(collection) + "." + Long.toString(modifiedAt[collection.ordinal()], Character.MAX_RADIX));
+            }
+            return tag.toString();
+        }
+
+        private Tracked read(Tracked collection) {
+            if (!collections.contains(collection)) {
+                throw new IllegalArgumentException("A coleção " + collection + " não foi lida!");
+            }
+            return collection;
+        }
+    }
+}
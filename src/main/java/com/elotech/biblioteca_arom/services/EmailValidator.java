@@ -0,0 +1,78 @@
+package com.elotech.biblioteca_arom.services;
+
+import java.util.regex.Pattern;
+
+/**
+ * Validação do formato de email dos usuários.
+ * <p>
+ * A regra é a da expressão {@link #PATTERN}: uma parte local com letras, dígitos e {@code ._%+-},
+ * um {@code @}, um domínio com letras, dígitos, {@code .} e {@code -}, e um sufixo final de ao menos
+ * duas letras depois do último ponto. {@link #isValid(CharSequence)} aplica a mesma regra com uma única
+ * passada pelos caracteres, sem compilar a expressão nem alocar objetos.
+ */
+public final class EmailValidator {
+
+    /**
+     * A regra de validação como expressão regular, mantida como referência e para comparação.
+     */
+    public static final Pattern PATTERN = Pattern.compile("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}");
+
+    private EmailValidator() {
+    }
+
+    /**
+     * Verifica se o email tem um formato válido. Equivale a {@code PATTERN.matcher(email).matches()}.
+     *
+     * @param email o email a ser verificado (pode ser nulo)
+     * @return true se o email for válido
+     */
+    public static boolean isValid(CharSequence email) {
+        if (email == null) {
+            return false;
+        }
+        int length = email.length();
+
+        int at = 0;
+        while (at < length && email.charAt(at) != '@') {
+            if (!isLocalChar(email.charAt(at))) {
+                return false;
+            }
+            at++;
+        }
+        if (at == 0 || at == length) {
+            return false;
+        }
+
+        // Como o sufixo só pode ter letras, ele começa depois do último ponto do domínio.
+        int lastDot = -1;
+        for (int i = at + 1; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                lastDot = i;
+            } else if (!isLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        if (lastDot < at + 2 || length - lastDot - 1 < 2) {
+            return false;
+        }
+        for (int i = lastDot + 1; i < length; i++) {
+            if (!isLetter(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalChar(char c) {
+        return isLetterOrDigit(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,46 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.EntityCacheStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serviço que expõe as estatísticas do cache de segundo nível das entidades
+ * (configurado em {@code EntityCacheConfig}), a partir das estatísticas do Hibernate.
+ */
+@Service
+public class EntityCacheService {
+
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Construtor que injeta a fábrica de sessões do Hibernate.
+     *
+     * @param entityManagerFactory a fábrica de EntityManagers da aplicação
+     */
+    @Autowired
+    public EntityCacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * Retorna os acertos, faltas e inclusões de uma região do cache desde o início da aplicação.
+     *
+     * @param region o nome da região (ex.: {@code Book.CACHE_REGION})
+     * @return as estatísticas da região
+     */
+    public EntityCacheStatsDTO getStats(String region) {
+        CacheRegionStatistics stats = sessionFactory.getStatistics().getDomainDataRegionStatistics(region);
+        long lookups = stats.getHitCount() + stats.getMissCount();
+        return EntityCacheStatsDTO.builder()
+                .region(region)
+                .hitCount(stats.getHitCount())
+                .missCount(stats.getMissCount())
+                .putCount(stats.getPutCount())
+                .hitRate(lookups == 0 ? 0 : (double) stats.getHitCount() / lookups)
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.clients.GoogleBooksClient;
+import com.elotech.biblioteca_arom.entities.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Serviço responsável pela busca de livros na API do Google Books.
+ * Os volumes retornados pela API chegam como objetos {@link Book} ainda não salvos,
+ * prontos para serem revisados e cadastrados no acervo.
+ */
+@Service
+public class GoogleBooksService {
+
+    private final GoogleBooksClient googleBooksClient;
+
+    /**
+     * Construtor que injeta o cliente da API do Google Books.
+     *
+     * @param googleBooksClient o cliente usado para consultar a API
+     */
+    @Autowired
+    public GoogleBooksService(GoogleBooksClient googleBooksClient) {
+        this.googleBooksClient = googleBooksClient;
+    }
+
+    /**
+     * Busca livros na API do Google Books.
+     *
+     * @param query a consulta (título, autor ou "isbn:...")
+     * @return os livros encontrados; uma lista vazia se não houver resultados
+     */
+    public List<Book> searchBooks(String query) {
+        List<Book> books = googleBooksClient.searchBooks(query);
+        return books != null ? books : List.of();
+    }
+}
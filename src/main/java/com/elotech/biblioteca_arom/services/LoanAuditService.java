@@ -0,0 +1,285 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanJournalStatsDTO;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.LoanAudit;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
+import com.elotech.biblioteca_arom.repositories.LoanAuditRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Trilha de auditoria dos empréstimos ({@code loan_audit}), escrita em dois passos:
+ * <ol>
+ *     <li>cada alteração confirmada de empréstimo é gravada no {@link LoanJournal}, na thread da requisição,
+ *     o que custa alguns microssegundos e nenhuma ida ao banco;</li>
+ *     <li>uma thread de projeção lê o diário, só até a posição já gravada em disco, e insere os eventos na
+ *     tabela em lotes de {@code projector-batch-size}, numa transação por lote.</li>
+ * </ol>
+ * A chave de cada linha é o identificador do diário ({@link LoanJournal#readId(Path)}) e a posição do evento
+ * nele, então a maior posição na tabela com o identificador do diário é o ponto até o qual ele já foi
+ * projetado. Ao iniciar, a projeção continua desse ponto e reaplica os eventos que ficaram só no diário;
+ * os segmentos já projetados são apagados. Com {@code sync-on-append}, a requisição espera
+ * o evento chegar ao disco (compartilhando a gravação com os eventos concorrentes); sem ele, uma parada
+ * abrupta da máquina pode perder até {@code flush-interval-ms} de eventos.
+ * <p>
+ * O diário é local: cada instância grava e projeta as alterações que fez, com o seu próprio ponto de
+ * projeção, e instâncias diferentes devem usar diretórios diferentes.
+ */
+@Service
+public class LoanAuditService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoanAuditService.class);
+
+    static final String INSERT_AUDIT = "insert into loan_audit "
+            + "(journal_id, lsn, loan_id, op, status, user_id, book_id, loan_date, return_date, due_date, recorded_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final LoanAuditRepository loanAuditRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration flushInterval;
+    private final boolean syncOnAppend;
+    private final int batchSize;
+
+    private String journalId;
+    private LoanJournal journal;
+    private Thread projector;
+    private volatile boolean running;
+    private volatile long projectedPosition;
+    private volatile long projectedEvents;
+    private volatile long lastBatchSize;
+    private volatile long lastBatchMillis;
+
+    /**
+     * Construtor que injeta o repositório da auditoria e a configuração do diário.
+     *
+     * @param loanAuditRepository   o repositório da auditoria de empréstimos
+     * @param jdbcTemplate          usado para inserir os lotes de eventos
+     * @param transactionOperations usado para delimitar a transação de cada lote
+     * @param directory             o diretório dos segmentos do diário
+     * @param segmentSizeMb         o tamanho de cada segmento do diário, em MB
+     * @param flushIntervalMs       o intervalo entre as gravações do diário em disco
+     * @param syncOnAppend          se a requisição espera o evento ser gravado em disco
+     * @param batchSize             a quantidade máxima de eventos inseridos por lote
+     */
+    @Autowired
+    public LoanAuditService(LoanAuditRepository loanAuditRepository, JdbcTemplate jdbcTemplate,
+                            TransactionOperations transactionOperations,
+                            @Value("${biblioteca.journal.dir:data/loan-journal}") Path directory,
+                            @Value("${biblioteca.journal.segment-size-mb:64}") int segmentSizeMb,
+                            @Value("${biblioteca.journal.flush-interval-ms:5}") long flushIntervalMs,
+                            @Value("${biblioteca.journal.sync-on-append:false}") boolean syncOnAppend,
+                            @Value("${biblioteca.journal.projector-batch-size:500}") int batchSize) {
+        this.loanAuditRepository = loanAuditRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.directory = directory;
+        this.segmentSize = Math.multiplyExact(segmentSizeMb, 1024 * 1024);
+        this.flushInterval = Duration.ofMillis(flushIntervalMs);
+        this.syncOnAppend = syncOnAppend;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Abre o diário e posiciona a projeção logo depois do último evento dele já inserido na tabela.
+     *
+     * @throws IOException se o diário não puder ser aberto
+     */
+    @PostConstruct
+    void open() throws IOException {
+        journalId = LoanJournal.readId(directory);
+        long next = nextPosition();
+        journal = new LoanJournal(directory, segmentSize, flushInterval, next);
+        projectedPosition = Math.max(next, journal.getFirstPosition());
+    }
+
+    private long nextPosition() {
+        long lastLsn = loanAuditRepository.findLastLsn(journalId);
+        return lastLsn < 0 ? 0 : lastLsn + LoanJournal.RECORD_SIZE;
+    }
+
+    /**
+     * Inicia a thread de projeção, que começa reaplicando os eventos do diário ainda não inseridos na tabela.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startProjector() {
+        running = true;
+        projector = Thread.ofPlatform().name("loan-journal-projector").daemon().start(this::runProjector);
+    }
+
+    /**
+     * Grava a alteração de um empréstimo no diário, depois do commit.
+     *
+     * @param event o evento de alteração de empréstimo
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        try {
+            long lsn = journal.append(entryOf(event, Instant.now()));
+            if (syncOnAppend) {
+                journal.awaitDurable(lsn);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // O empréstimo já foi confirmado; a falha do diário não desfaz a requisição
+            LOGGER.error("Falha ao registrar o empréstimo {} no diário", event.loanId(), e);
+        }
+    }
+
+    static LoanJournal.Entry entryOf(LoanChangedEvent event, Instant recordedAt) {
+        Loan loan = event.loan();
+        if (loan == null) {
+            return new LoanJournal.Entry(0, event.loanId(), event.type(), null, null, null, null, null, null, recordedAt);
+        }
+        return new LoanJournal.Entry(0, event.loanId(), event.type(), loan.getStatus(),
+                loan.getUser() == null ? null : loan.getUser().getId(),
+                loan.getBook() == null ? null : loan.getBook().getId(),
+                loan.getLoan_date(), loan.getReturn_date(), loan.getDue_date(), recordedAt);
+    }
+
+    private void runProjector() {
+        while (running) {
+            try {
+                if (project() == 0) {
+                    LockSupport.parkNanos(flushInterval.toNanos());
+                }
+            } catch (DuplicateKeyException e) {
+                // Lote inserido, mas a confirmação se perdeu; continua depois do que o diário tem na tabela
+                projectedPosition = Math.max(projectedPosition, nextPosition());
+            } catch (Exception e) {
+                LOGGER.error("Falha ao projetar o diário de empréstimos a partir da posição {}", projectedPosition, e);
+                LockSupport.parkNanos(RETRY_DELAY.toNanos());
+            }
+        }
+    }
+
+    /**
+     * Insere na tabela o próximo lote de eventos já gravados em disco e apaga os segmentos já projetados.
+     *
+     * @return a quantidade de eventos inseridos
+     * @throws IOException se o diário não puder ser lido
+     */
+    int project() throws IOException {
+        List<LoanJournal.Entry> entries = journal.read(projectedPosition, batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        List<Object[]> rows = entries.stream().map(this::row).toList();
+        transactionOperations.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_AUDIT, rows));
+        projectedPosition = entries.getLast().lsn() + LoanJournal.RECORD_SIZE;
+        projectedEvents += entries.size();
+        lastBatchSize = entries.size();
+        lastBatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        journal.deleteBefore(projectedPosition);
+        return entries.size();
+    }
+
+    private Object[] row(LoanJournal.Entry entry) {
+        return new Object[]{journalId, entry.lsn(), entry.loanId(), entry.op().name(),
+                entry.status() == null ? null : entry.status().name(), entry.userId(), entry.bookId(),
+                sqlDate(entry.loanDate()), sqlDate(entry.returnDate()), sqlDate(entry.dueDate()),
+                Timestamp.from(entry.recordedAt())};
+    }
+
+    private static Date sqlDate(LocalDate date) {
+        return date == null ? null : Date.valueOf(date);
+    }
+
+    /**
+     * Retorna as alterações de um empréstimo já projetadas na auditoria, da mais antiga à mais recente.
+     *
+     * @param loanId o ID do empréstimo
+     * @return as alterações do empréstimo
+     */
+    public List<LoanAudit> getAudit(Long loanId) {
+        return loanAuditRepository.findByLoanIdOrderByRecordedAtAscLsnAsc(loanId);
+    }
+
+    /**
+     * Retorna as posições de gravação, de gravação em disco e de projeção do diário e os totais de eventos
+     * desde o início da aplicação.
+     *
+     * @return as estatísticas do diário de empréstimos
+     */
+    public LoanJournalStatsDTO getStats() {
+        return LoanJournalStatsDTO.builder()
+                .appendedEvents(journal.getAppended())
+                .projectedEvents(projectedEvents)
+                .writePosition(journal.getWritePosition())
+                .durablePosition(journal.getDurablePosition())
+                .projectedPosition(projectedPosition)
+                .flushes(journal.getFlushes())
+                .segments(journal.getSegmentCount())
+                .lastBatchSize(lastBatchSize)
+                .lastBatchMillis(lastBatchMillis)
+                .build();
+    }
+
+    /**
+     * Espera a projeção alcançar a posição de gravação atual do diário.
+     *
+     * @param timeout o tempo máximo de espera
+     * @return true se todos os eventos gravados até a chamada foram inseridos na tabela
+     * @throws InterruptedException se a thread for interrompida durante a espera
+     */
+    public boolean awaitProjected(Duration timeout) throws InterruptedException {
+        long target = journal.getWritePosition();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (projectedPosition < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    LoanJournal getJournal() {
+        return journal;
+    }
+
+    String getJournalId() {
+        return journalId;
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        running = false;
+        if (projector != null) {
+            LockSupport.unpark(projector);
+            projector.join(RETRY_DELAY.toMillis() * 5);
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Serviço responsável pela exportação em streaming do histórico completo de empréstimos.
+ * Os registros são lidos do banco com um cursor JDBC e escritos diretamente na saída,
+ * sem montar uma lista em memória, de forma que o uso de heap não depende do total de linhas.
+ */
+@Service
+public class LoanExportService {
+
+    static final int FLUSH_INTERVAL = 1000;
+
+    private static final String CSV_HEADER = "loanId,loanDate,returnDate,status,userName,bookTitle";
+
+    /**
+     * Formatos suportados pela exportação.
+     */
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Converte o nome informado pelo cliente, sem diferenciar maiúsculas de minúsculas.
+         *
+         * @param name o nome do formato, como "ndjson" ou "csv"
+         * @return o formato correspondente
+         * @throws RuntimeException se o formato não for suportado
+         */
+        public static Format of(String name) {
+            String upper = name.toUpperCase(Locale.ROOT);
+            for (Format format : values()) {
+                if (format.name().equals(upper)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("Formato de exportação não suportado: " + name + " (use ndjson ou csv)");
+        }
+    }
+
+    private final LoanRepository loanRepository;
+    private final ObjectWriter loanWriter;
+
+    /**
+     * Construtor que injeta o repositório de empréstimos e o ObjectMapper da aplicação.
+     *
+     * @param loanRepository o repositório de empréstimos
+     * @param objectMapper   o ObjectMapper usado para serializar cada linha NDJSON
+     */
+    @Autowired
+    public LoanExportService(LoanRepository loanRepository, ObjectMapper objectMapper) {
+        this.loanRepository = loanRepository;
+        this.loanWriter = objectMapper.writerFor(LoanDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Escreve todos os empréstimos na saída informada, no formato escolhido.
+     * A leitura acontece dentro de uma transação somente leitura para que o driver
+     * do PostgreSQL use o fetch size configurado na consulta em vez de carregar o resultado inteiro.
+     * Como a consulta projeta direto em {@link LoanDTO}, nenhuma entidade é anexada ao contexto de persistência.
+     *
+     * @param format o formato de saída (NDJSON ou CSV)
+     * @param out    o stream de saída da resposta HTTP
+     * @throws IOException se ocorrer um erro ao escrever na saída
+     */
+    @Transactional(readOnly = true)
+    public void exportLoanDetails(Format format, OutputStream out) throws IOException {
+        try (Stream<LoanDTO> loans = loanRepository.streamAllLoanDetails()) {
+            if (format == Format.CSV) {
+                writeCsv(loans.iterator(), out);
+            } else {
+                writeNdjson(loans.iterator(), out);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<LoanDTO> loans, OutputStream out) throws IOException {
+        JsonGenerator generator = loanWriter.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+
+        long count = 0;
+        while (loans.hasNext()) {
+            loanWriter.writeValue(generator, loans.next());
+            if (++count % FLUSH_INTERVAL == 0) {
+                generator.flush();
+            }
+        }
+        if (count > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.close();
+    }
+
+    private void writeCsv(Iterator<LoanDTO> loans, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        while (loans.hasNext()) {
+            LoanDTO loan = loans.next();
+            writer.write(String.valueOf(loan.getLoanId()));
+            writeCsvField(writer, loan.getLoanDate());
+            writeCsvField(writer, loan.getReturnDate());
+            writeCsvField(writer, loan.getStatus());
+            writeCsvField(writer, loan.getUserName());
+            writeCsvField(writer, loan.getBookTitle());
+            writer.write('\n');
+            if (++count % FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
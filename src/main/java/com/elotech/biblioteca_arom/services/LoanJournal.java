@@ -0,0 +1,538 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Diário de eventos de empréstimos: um log local, só de inclusão, em arquivos de segmento mapeados em memória.
+ * <p>
+ * Cada evento ocupa um registro de {@value #RECORD_SIZE} bytes com o tamanho do conteúdo, o CRC32C da posição
+ * e do conteúdo, a posição do registro no diário (o LSN, contado em bytes desde o início do diário) e o
+ * conteúdo em binário. Gravar um evento é copiar esses bytes para a memória mapeada, sem chamada de sistema;
+ * a gravação em disco ({@link MappedByteBuffer#force(int, int)}) é feita por uma thread própria a cada
+ * {@code flushInterval}, de uma vez para todos os eventos gravados no intervalo (group commit). A posição
+ * até a qual o diário está em disco é {@link #getDurablePosition()}; quem precisa esperar a gravação usa
+ * {@link #awaitDurable(long)}, que acorda a thread de gravação e é atendido pelo mesmo {@code force}
+ * que os demais eventos pendentes.
+ * <p>
+ * Ao abrir, o último segmento é lido até o primeiro registro vazio ou com CRC inválido (uma gravação
+ * interrompida), e o restante dele é zerado antes de aceitar novos eventos. Um registro vazio antes do fim
+ * de um segmento marca o fim dele; a leitura continua no segmento seguinte.
+ */
+public class LoanJournal implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoanJournal.class);
+
+    /**
+     * O tamanho de cada registro, em bytes; os segmentos têm um múltiplo desse tamanho.
+     */
+    public static final int RECORD_SIZE = 64;
+
+    // Tamanho do conteúdo (4 bytes), CRC32C (4) e posição (8), seguidos do conteúdo
+    private static final int HEADER_SIZE = 16;
+    private static final int CHECKED_OFFSET = 8;
+    private static final int PAYLOAD_SIZE = 46;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final byte NO_STATUS = -1;
+    private static final ChangeType[] CHANGE_TYPES = ChangeType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private static final String SEGMENT_PREFIX = "loan-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ID_FILE = "journal.id";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    // Posição inicial e tamanho de cada segmento em disco
+    private final ConcurrentSkipListMap<Long, Integer> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object flushLock = new Object();
+    private final Object durableMonitor = new Object();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final Thread flusher;
+
+    // Alterados só com appendLock
+    private volatile Segment current;
+    private volatile long writePosition;
+
+    private volatile long durablePosition;
+    private volatile boolean closed;
+
+    // Usado só pela thread que lê o diário
+    private Segment reading;
+
+    /**
+     * Um evento do diário: a alteração de um empréstimo e o estado dele depois da alteração.
+     *
+     * @param lsn        a posição do registro no diário; ignorada em {@link #append(Entry)}
+     * @param loanId     o ID do empréstimo
+     * @param op         o tipo de alteração
+     * @param status     a situação do empréstimo, ou null numa exclusão
+     * @param userId     o ID do usuário, ou null numa exclusão
+     * @param bookId     o ID do livro, ou null numa exclusão
+     * @param loanDate   a data do empréstimo, se houver
+     * @param returnDate a data de devolução, se houver
+     * @param dueDate    a data de vencimento, se houver
+     * @param recordedAt o instante da alteração, com precisão de milissegundos
+     */
+    public record Entry(long lsn, long loanId, ChangeType op, Status status, Long userId, Long bookId,
+                        LocalDate loanDate, LocalDate returnDate, LocalDate dueDate, Instant recordedAt) {
+    }
+
+    /**
+     * Um segmento mapeado em memória e a posição do seu primeiro registro no diário.
+     */
+    private record Segment(long base, MappedByteBuffer buffer) {
+
+        long end() {
+            return base + buffer.capacity();
+        }
+    }
+
+    /**
+     * Retorna o identificador do diário no diretório informado, gerado e gravado no próprio diretório na
+     * primeira vez. Posições de diários diferentes se repetem; o identificador as distingue.
+     *
+     * @param directory o diretório dos segmentos, criado se não existir
+     * @return o identificador do diário
+     * @throws IOException se o identificador não puder ser lido ou gravado
+     */
+    public static String readId(Path directory) throws IOException {
+        Path file = Files.createDirectories(directory).resolve(ID_FILE);
+        if (Files.exists(file)) {
+            return Files.readString(file).strip();
+        }
+        String id = UUID.randomUUID().toString();
+        Files.writeString(file, id, StandardOpenOption.CREATE_NEW, StandardOpenOption.SYNC);
+        return id;
+    }
+
+    /**
+     * Abre o diário no diretório informado, recuperando o último segmento, e inicia a thread de gravação.
+     *
+     * @param directory     o diretório dos segmentos, criado se não existir
+     * @param segmentSize   o tamanho de cada novo segmento, em bytes, arredondado para um múltiplo de
+     *                      {@value #RECORD_SIZE}
+     * @param flushInterval o intervalo entre as gravações em disco
+     * @param minPosition   a menor posição aceita para o próximo evento; se o diário terminar antes dela
+     *                      (por exemplo, se os segmentos foram apagados), um novo segmento começa nela
+     * @throws IOException se os segmentos não puderem ser lidos ou criados
+     */
+    public LoanJournal(Path directory, int segmentSize, Duration flushInterval, long minPosition) throws IOException {
+        if (segmentSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("O segmento do diário deve ter ao menos " + RECORD_SIZE + " bytes!");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize - segmentSize % RECORD_SIZE;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        recover(Math.ceilDiv(Math.max(minPosition, 0), RECORD_SIZE) * RECORD_SIZE);
+        this.flusher = Thread.ofPlatform().name("loan-journal-flusher").daemon().start(this::runFlusher);
+    }
+
+    private void recover(long minPosition) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long base = Long.parseLong(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10);
+                    long size = Files.size(file);
+                    if (size < RECORD_SIZE) {
+                        // Criado e não mapeado antes de uma parada
+                        Files.delete(file);
+                    } else {
+                        segments.put(base, (int) (size - size % RECORD_SIZE));
+                    }
+                }
+            }
+        }
+        if (!segments.isEmpty()) {
+            Map.Entry<Long, Integer> last = segments.lastEntry();
+            Segment segment = map(last.getKey(), last.getValue(), FileChannel.MapMode.READ_WRITE);
+            int offset = 0;
+            while (offset < segment.buffer.capacity() && decode(segment.buffer, offset, segment.base + offset) != null) {
+                offset += RECORD_SIZE;
+            }
+            if (offset < segment.buffer.capacity()) {
+                // Descarta o registro interrompido e o que uma gravação parcial deixou depois dele
+                LOGGER.info("Diário de empréstimos recuperado até a posição {}", segment.base + offset);
+                for (int i = offset; i < segment.buffer.capacity(); i += Long.BYTES) {
+                    segment.buffer.putLong(i, 0);
+                }
+                segment.buffer.force();
+            }
+            current = segment;
+            writePosition = segment.base + offset;
+        }
+        if (current == null || writePosition < minPosition) {
+            current = create(Math.max(minPosition, writePosition));
+            writePosition = current.base;
+        }
+        durablePosition = writePosition;
+    }
+
+    /**
+     * Grava um evento no diário, só na memória mapeada; a gravação em disco acontece no próximo intervalo.
+     *
+     * @param entry o evento; a posição informada é ignorada
+     * @return a posição do evento no diário
+     */
+    public long append(Entry entry) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("O diário de empréstimos está fechado!");
+            }
+            if (writePosition == current.end()) {
+                roll();
+            }
+            long lsn = writePosition;
+            encode(current.buffer, (int) (lsn - current.base), lsn, entry);
+            writePosition = lsn + RECORD_SIZE;
+            appended.incrementAndGet();
+            return lsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Grava em disco o segmento cheio e passa a gravar num novo segmento.
+     */
+    private void roll() {
+        current.buffer.force();
+        advanceDurable(current.end());
+        try {
+            current = create(current.end());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Grava em disco os eventos gravados desde a última chamada, de uma só vez.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Segment segment;
+            long target;
+            appendLock.lock();
+            try {
+                segment = current;
+                target = writePosition;
+            } finally {
+                appendLock.unlock();
+            }
+            long durable = durablePosition;
+            if (target <= durable) {
+                return;
+            }
+            // Os segmentos anteriores ao atual já foram gravados na troca de segmento
+            int from = (int) (Math.max(durable, segment.base) - segment.base);
+            segment.buffer.force(from, (int) (target - segment.base) - from);
+            flushes.incrementAndGet();
+            advanceDurable(target);
+        }
+    }
+
+    private void advanceDurable(long position) {
+        synchronized (durableMonitor) {
+            if (position > durablePosition) {
+                durablePosition = position;
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Espera o evento da posição informada ser gravado em disco, antecipando a próxima gravação.
+     *
+     * @param lsn a posição do evento
+     * @throws InterruptedException se a thread for interrompida durante a espera
+     */
+    public void awaitDurable(long lsn) throws InterruptedException {
+        if (durablePosition > lsn) {
+            return;
+        }
+        LockSupport.unpark(flusher);
+        synchronized (durableMonitor) {
+            while (durablePosition <= lsn) {
+                if (closed) {
+                    throw new IllegalStateException("O diário de empréstimos está fechado!");
+                }
+                durableMonitor.wait();
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                LOGGER.error("Falha ao gravar o diário de empréstimos em disco", e);
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+    }
+
+    /**
+     * Lê os eventos já gravados em disco a partir da posição informada, na ordem do diário.
+     *
+     * @param from a posição do primeiro evento a ler
+     * @param max  a quantidade máxima de eventos
+     * @return os eventos lidos, vazio se não houver eventos gravados depois da posição
+     * @throws IOException           se um segmento não puder ser mapeado
+     * @throws IllegalStateException se um registro estiver corrompido
+     */
+    public List<Entry> read(long from, int max) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long position = from;
+        long durable = durablePosition;
+        while (entries.size() < max && position < durable) {
+            Segment segment = segmentAt(position);
+            if (segment == null) {
+                break;
+            }
+            position = Math.max(position, segment.base);
+            long end = Math.min(durable, segment.end());
+            while (entries.size() < max && position < end) {
+                int offset = (int) (position - segment.base);
+                if (segment.buffer.getInt(offset) == 0) {
+                    // Fim antecipado do segmento; o próximo evento está no segmento seguinte
+                    position = segment.end();
+                    break;
+                }
+                Entry entry = decode(segment.buffer, offset, position);
+                if (entry == null) {
+                    throw new IllegalStateException("Registro corrompido no diário de empréstimos na posição "
+                            + position + "!");
+                }
+                entries.add(entry);
+                position += RECORD_SIZE;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Retorna o segmento que contém a posição, ou o primeiro depois dela.
+     */
+    private Segment segmentAt(long position) throws IOException {
+        Segment active = current;
+        if (position >= active.base) {
+            return active;
+        }
+        Map.Entry<Long, Integer> entry = segments.floorEntry(position);
+        if (entry == null || position >= entry.getKey() + entry.getValue()) {
+            entry = segments.higherEntry(position);
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (reading == null || reading.base != entry.getKey()) {
+            reading = map(entry.getKey(), entry.getValue(), FileChannel.MapMode.READ_ONLY);
+        }
+        return reading;
+    }
+
+    /**
+     * Apaga os segmentos cujos eventos estão todos antes da posição informada, exceto o atual.
+     *
+     * @param position a posição até a qual os eventos não são mais necessários
+     * @return a quantidade de segmentos apagados
+     * @throws IOException se um segmento não puder ser apagado
+     */
+    public int deleteBefore(long position) throws IOException {
+        int deleted = 0;
+        for (Map.Entry<Long, Integer> entry : segments.headMap(current.base).entrySet()) {
+            if (entry.getKey() + entry.getValue() > position) {
+                break;
+            }
+            Files.deleteIfExists(segmentPath(entry.getKey()));
+            segments.remove(entry.getKey());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    private Segment create(long base) throws IOException {
+        Segment segment;
+        try (FileChannel channel = FileChannel.open(segmentPath(base),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = new Segment(base, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+        segments.put(base, segmentSize);
+        return segment;
+    }
+
+    private Segment map(long base, int size, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        // O mapeamento continua válido depois que o canal é fechado
+        try (FileChannel channel = FileChannel.open(segmentPath(base), options)) {
+            return new Segment(base, channel.map(mode, 0, size));
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", base) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Escreve o registro do evento: conteúdo, posição, CRC e, por último, o tamanho, que marca o registro
+     * como presente.
+     */
+    static void encode(MappedByteBuffer buffer, int offset, long lsn, Entry entry) {
+        int at = offset + HEADER_SIZE;
+        buffer.putLong(at, entry.loanId());
+        buffer.put(at + 8, (byte) entry.op().ordinal());
+        buffer.put(at + 9, entry.status() == null ? NO_STATUS : (byte) entry.status().ordinal());
+        buffer.putLong(at + 10, entry.userId() == null ? 0 : entry.userId());
+        buffer.putLong(at + 18, entry.bookId() == null ? 0 : entry.bookId());
+        buffer.putInt(at + 26, epochDay(entry.loanDate()));
+        buffer.putInt(at + 30, epochDay(entry.returnDate()));
+        buffer.putInt(at + 34, epochDay(entry.dueDate()));
+        buffer.putLong(at + 38, entry.recordedAt().toEpochMilli());
+        buffer.putLong(offset + CHECKED_OFFSET, lsn);
+        buffer.putInt(offset + 4, checksum(buffer, offset));
+        buffer.putInt(offset, PAYLOAD_SIZE);
+    }
+
+    /**
+     * Lê o registro da posição informada, ou retorna null se ele estiver vazio, incompleto ou corrompido.
+     */
+    static Entry decode(MappedByteBuffer buffer, int offset, long lsn) {
+        if (buffer.getInt(offset) != PAYLOAD_SIZE
+                || buffer.getLong(offset + CHECKED_OFFSET) != lsn
+                || buffer.getInt(offset + 4) != checksum(buffer, offset)) {
+            return null;
+        }
+        int at = offset + HEADER_SIZE;
+        byte status = buffer.get(at + 9);
+        long userId = buffer.getLong(at + 10);
+        long bookId = buffer.getLong(at + 18);
+        return new Entry(lsn, buffer.getLong(at), CHANGE_TYPES[buffer.get(at + 8)],
+                status == NO_STATUS ? null : STATUSES[status],
+                userId == 0 ? null : userId, bookId == 0 ? null : bookId,
+                date(buffer.getInt(at + 26)), date(buffer.getInt(at + 30)), date(buffer.getInt(at + 34)),
+                Instant.ofEpochMilli(buffer.getLong(at + 38)));
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + CHECKED_OFFSET, HEADER_SIZE - CHECKED_OFFSET + PAYLOAD_SIZE));
+        return (int) crc.getValue();
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Retorna a posição do próximo evento, já gravado em disco ou não.
+     *
+     * @return a posição seguinte ao último evento gravado
+     */
+    public long getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Retorna a posição até a qual os eventos estão gravados em disco.
+     *
+     * @return a posição seguinte ao último evento em disco
+     */
+    public long getDurablePosition() {
+        return durablePosition;
+    }
+
+    /**
+     * Retorna a posição do primeiro segmento ainda em disco.
+     *
+     * @return a menor posição que pode ser lida
+     */
+    public long getFirstPosition() {
+        return segments.firstKey();
+    }
+
+    /**
+     * Retorna a quantidade de eventos gravados desde a abertura do diário.
+     *
+     * @return a quantidade de eventos
+     */
+    public long getAppended() {
+        return appended.get();
+    }
+
+    /**
+     * Retorna a quantidade de gravações em disco desde a abertura do diário, sem contar as trocas de segmento.
+     *
+     * @return a quantidade de gravações
+     */
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    /**
+     * Retorna a quantidade de segmentos em disco.
+     *
+     * @return a quantidade de segmentos
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Para a thread de gravação e grava em disco os eventos pendentes. Novos eventos são recusados.
+     */
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (durableMonitor) {
+            durableMonitor.notifyAll();
+        }
+    }
+}
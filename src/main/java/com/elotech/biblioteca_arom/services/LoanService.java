@@ -1,54 +1,107 @@
 package com.elotech.biblioteca_arom.services;
 
+import com.elotech.biblioteca_arom.clients.ServiceTimers;
+import com.elotech.biblioteca_arom.dtos.LoanBatchRequestDTO;
+import com.elotech.biblioteca_arom.dtos.LoanBatchResultDTO;
 import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.dtos.LoanReturnBatchRequestDTO;
 import com.elotech.biblioteca_arom.entities.Book;
 import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
 import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
 import com.elotech.biblioteca_arom.repositories.LoanRepository;
 import com.elotech.biblioteca_arom.repositories.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Serviço responsável pela gestão de empréstimos de livros no sistema de biblioteca.
  * Fornece operações para criar, atualizar, listar e excluir empréstimos,
  * além de verificar se há empréstimos ativos e realizar validações.
+ * <p>
+ * Todos os métodos públicos são medidos pelo mesmo timer dos outros serviços, mas com {@link ServiceTimers}
+ * registrados no construtor em vez do aspecto do {@code @Timed}: em operações de uma linha, como
+ * {@link #createLoan(Loan)}, o aspecto custaria mais que 1% da chamada (ver {@code ServiceHotPathBenchmark}).
  */
 @Service
 public class LoanService {
 
+    static final String ACTIVE_LOAN_INDEX = "ux_loan_active_book";
+    static final int CHECKOUT_LOCK_STRIPES = 256;
+    static final int MAX_BATCH_SIZE = 200;
+    static final int LOAN_PERIOD_DAYS = 14;
+
     private final LoanRepository loanRepository;
     private final BookRepository bookRepository;
+    private final BookRecommendationEngine recommendationEngine;
+    private final CollaborativeRecommender collaborativeRecommender;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionOperations transactionOperations;
+    private final BookAvailabilityIndex availabilityIndex;
+    private final BookCheckoutLocks checkoutLocks = new BookCheckoutLocks(CHECKOUT_LOCK_STRIPES);
+    private final ServiceTimers timers;
 
 
     /**
      * Construtor que injeta os repositórios e serviços necessários.
      *
-     * @param loanRepository o repositório de empréstimos
-     * @param bookRepository o repositório de livros
-     * @param bookService    o serviço de livros para operações relacionadas
+     * @param loanRepository       o repositório de empréstimos
+     * @param bookRepository       o repositório de livros
+     * @param bookService          o serviço de livros para operações relacionadas
+     * @param recommendationEngine     o motor de recomendação por categoria mantido em memória
+     * @param collaborativeRecommender o serviço de recomendação por co-empréstimos
+     * @param eventPublisher           o publicador usado para notificar alterações nos empréstimos
+     * @param transactionOperations    usado para delimitar as transações das operações em lote
+     * @param availabilityIndex        o índice em memória dos livros emprestados
+     * @param meterRegistry            o registro dos timers dos métodos públicos
      */
     @Autowired
-    public LoanService(LoanRepository loanRepository, BookRepository bookRepository, BookService bookService) {
+    public LoanService(LoanRepository loanRepository, BookRepository bookRepository, BookService bookService,
+                       BookRecommendationEngine recommendationEngine, CollaborativeRecommender collaborativeRecommender,
+                       ApplicationEventPublisher eventPublisher, TransactionOperations transactionOperations,
+                       BookAvailabilityIndex availabilityIndex, MeterRegistry meterRegistry) {
         this.loanRepository = loanRepository;
         this.bookRepository = bookRepository;
+        this.recommendationEngine = recommendationEngine;
+        this.collaborativeRecommender = collaborativeRecommender;
+        this.eventPublisher = eventPublisher;
+        this.transactionOperations = transactionOperations;
+        this.availabilityIndex = availabilityIndex;
+        this.timers = new ServiceTimers(meterRegistry, LoanService.class, "createLoan", "createLoans", "returnLoans",
+                "updateLoan", "getAllLoans", "getLoansByUser", "getLoansByBook", "deleteLoan", "recomendBooksForUser",
+                "recomendBooksByCoBorrowing", "getAllLoanDetails", "getLoanDetailsByUser", "getLoanDetailsByBook");
     }
 
     /**
      * Cria um novo empréstimo de livro.
      * Verifica se o livro já está emprestado e valida a data de empréstimo.
+     * Sem data prevista de devolução, o empréstimo vence {@value #LOAN_PERIOD_DAYS} dias após a data de empréstimo.
+     * A disponibilidade vem do {@link BookAvailabilityIndex}, sem consulta ao banco, assim que ele estiver pronto.
+     * A verificação e a gravação acontecem sob o lock do livro, então dois empréstimos simultâneos
+     * do mesmo livro nesta instância são serializados; o índice único parcial
+     * {@value #ACTIVE_LOAN_INDEX} impede o empréstimo duplo entre instâncias diferentes.
      *
      * @param loan o objeto Loan contendo os detalhes do empréstimo
      * @return o empréstimo criado com o status atualizado
      * @throws RuntimeException se o livro já estiver emprestado ou se a data de empréstimo for inválida
      */
     public Loan createLoan(Loan loan) {
+        return timers.record("createLoan", () -> checkOut(loan));
+    }
+
+    private Loan checkOut(Loan loan) {
         if (loan.getLoan_date() != null && loan.getLoan_date().isBefore(LocalDate.now())) {
             throw new RuntimeException("A data de empréstimo não pode ser no passado!");
         }
@@ -57,34 +110,290 @@ public class LoanService {
             loan.setLoan_date(LocalDate.now());
         }
 
-        List<Loan> activeLoans = loanRepository.findByBookIdAndStatus(loan.getBook().getId(), Status.EMPRESTADO);
-        if (!activeLoans.isEmpty()) {
-            throw new RuntimeException("O livro já está emprestado!");
+        if (loan.getDue_date() == null) {
+            loan.setDue_date(loan.getLoan_date().plusDays(LOAN_PERIOD_DAYS));
+        } else if (loan.getDue_date().isBefore(loan.getLoan_date())) {
+            throw new RuntimeException("A data prevista de devolução não pode ser anterior à data de empréstimo!");
+        }
+
+        Lock lock = checkoutLocks.lockFor(loan.getBook().getId());
+        lock.lock();
+        Loan savedLoan;
+        try {
+            if (isOnLoan(loan.getBook().getId())) {
+                throw new RuntimeException("O livro já está emprestado!");
+            }
+
+            if (loan.getReturn_date() != null && loan.getReturn_date().isBefore(loan.getLoan_date())) {
+                throw new RuntimeException("A data de devolução não pode ser anterior à data de empréstimo!");
+            }
+
+            loan.setStatus(Status.EMPRESTADO);
+
+            savedLoan = saveCheckout(loan);
+            availabilityIndex.markOnLoan(loan.getBook().getId());
+        } finally {
+            lock.unlock();
+        }
+
+        eventPublisher.publishEvent(new LoanChangedEvent(savedLoan.getId(), savedLoan, ChangeType.CREATED));
+        return savedLoan;
+    }
+
+    /**
+     * Verifica se o livro tem um empréstimo ativo. O índice de disponibilidade só é aceito quando diz
+     * que o livro está disponível (um empréstimo gravado por outra instância esbarra no índice único
+     * {@value #ACTIVE_LOAN_INDEX}); quando diz que está emprestado, a resposta é confirmada no banco
+     * e o bit é limpo se o empréstimo já tiver sido devolvido em outra instância.
+     */
+    private boolean isOnLoan(Long bookId) {
+        if (availabilityIndex.isReady() && !availabilityIndex.isOnLoan(bookId)) {
+            return false;
+        }
+        boolean onLoan = !loanRepository.findByBookIdAndStatus(bookId, Status.EMPRESTADO).isEmpty();
+        if (!onLoan) {
+            availabilityIndex.markReturned(bookId);
+        }
+        return onLoan;
+    }
+
+    /**
+     * Filtra os livros que têm um empréstimo ativo, com a mesma regra de {@link #isOnLoan(Long)}:
+     * só os livros que o índice aponta como emprestados são confirmados no banco, em uma única consulta.
+     */
+    private Set<Long> onLoanAmong(Collection<Long> bookIds) {
+        Collection<Long> candidates = availabilityIndex.isReady() ? availabilityIndex.onLoanAmong(bookIds) : bookIds;
+        if (candidates.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<Long> onLoan = new HashSet<>(loanRepository.findBookIdsByStatus(candidates, Status.EMPRESTADO));
+        for (Long bookId : candidates) {
+            if (!onLoan.contains(bookId)) {
+                availabilityIndex.markReturned(bookId);
+            }
+        }
+        return onLoan;
+    }
+
+    private Loan saveCheckout(Loan loan) {
+        try {
+            return loanRepository.save(loan);
+        } catch (DataIntegrityViolationException e) {
+            if (isActiveLoanConflict(e)) {
+                availabilityIndex.markOnLoan(loan.getBook().getId());
+                throw new RuntimeException("O livro já está emprestado!");
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isActiveLoanConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(ACTIVE_LOAN_INDEX);
+    }
+
+    /**
+     * Cria os empréstimos de um carrinho de livros para um mesmo usuário.
+     * A disponibilidade de todos os livros é verificada em uma única consulta, com os locks
+     * de todos os livros adquiridos, e os empréstimos disponíveis são gravados em uma única
+     * transação usando lotes JDBC. Livros indisponíveis, inexistentes ou repetidos no carrinho
+     * são recusados individualmente sem impedir os demais.
+     *
+     * @param request o usuário, os livros e as datas do empréstimo
+     * @return o resultado de cada livro, na mesma ordem do pedido
+     * @throws RuntimeException se o pedido for inválido (lote vazio ou grande demais, datas inválidas)
+     *                          ou se a gravação conflitar duas vezes com empréstimos de outra instância
+     */
+    public List<LoanBatchResultDTO> createLoans(LoanBatchRequestDTO request) {
+        return timers.record("createLoans", () -> checkOutAll(request));
+    }
+
+    private List<LoanBatchResultDTO> checkOutAll(LoanBatchRequestDTO request) {
+        List<Long> bookIds = request.getBookIds();
+        if (request.getUserId() == null || bookIds == null || bookIds.isEmpty()) {
+            throw new RuntimeException("Informe o usuário e ao menos um livro!");
+        }
+        if (bookIds.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("O lote pode ter no máximo " + MAX_BATCH_SIZE + " livros!");
         }
 
-        if (loan.getReturn_date() != null && loan.getReturn_date().isBefore(loan.getLoan_date())) {
+        LocalDate loanDate = request.getLoanDate() != null ? request.getLoanDate() : LocalDate.now();
+        if (loanDate.isBefore(LocalDate.now())) {
+            throw new RuntimeException("A data de empréstimo não pode ser no passado!");
+        }
+        if (request.getReturnDate() != null && request.getReturnDate().isBefore(loanDate)) {
             throw new RuntimeException("A data de devolução não pode ser anterior à data de empréstimo!");
         }
 
-        loan.setStatus(Status.EMPRESTADO);
+        Set<Long> distinctBookIds = new LinkedHashSet<>(bookIds);
+        Map<Long, Loan> createdByBook = new HashMap<>();
+        Set<Long> unavailable;
+        Set<Long> existing;
+
+        List<Lock> locks = checkoutLocks.lockAll(distinctBookIds);
+        try {
+            existing = new HashSet<>(bookRepository.findExistingIds(distinctBookIds));
+            unavailable = onLoanAmong(distinctBookIds);
+
+            saveCheckouts(request, loanDate, distinctBookIds, existing, unavailable).forEach(loan -> {
+                createdByBook.put(loan.getBook().getId(), loan);
+                availabilityIndex.markOnLoan(loan.getBook().getId());
+            });
+        } finally {
+            checkoutLocks.unlockAll(locks);
+        }
+
+        createdByBook.values().forEach(loan ->
+                eventPublisher.publishEvent(new LoanChangedEvent(loan.getId(), loan, ChangeType.CREATED)));
+
+        Set<Long> reported = new HashSet<>();
+        List<LoanBatchResultDTO> results = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            if (!reported.add(bookId)) {
+                results.add(new LoanBatchResultDTO(bookId, null, false, "Livro repetido no lote!"));
+            } else if (!existing.contains(bookId)) {
+                results.add(new LoanBatchResultDTO(bookId, null, false, "Livro não encontrado!"));
+            } else if (unavailable.contains(bookId)) {
+                results.add(new LoanBatchResultDTO(bookId, null, false, "O livro já está emprestado!"));
+            } else {
+                results.add(new LoanBatchResultDTO(bookId, createdByBook.get(bookId).getId(), true, null));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Grava, em uma única transação, os empréstimos dos livros existentes e disponíveis do lote.
+     * Se outra instância emprestar um desses livros depois da consulta de disponibilidade, o índice
+     * {@value #ACTIVE_LOAN_INDEX} desfaz a transação inteira; os livros do lote são então consultados
+     * de novo, os que ficaram emprestados são marcados no índice de disponibilidade e passam para
+     * {@code unavailable}, e os demais são gravados mais uma vez.
+     *
+     * @param request     o pedido do lote
+     * @param loanDate    a data de empréstimo
+     * @param bookIds     os livros do lote, sem repetição
+     * @param existing    os livros que existem
+     * @param unavailable os livros já emprestados, completado com os que conflitarem na gravação
+     * @return os empréstimos gravados
+     * @throws RuntimeException se a nova tentativa também conflitar com um empréstimo ativo
+     */
+    private List<Loan> saveCheckouts(LoanBatchRequestDTO request, LocalDate loanDate, Set<Long> bookIds,
+                                     Set<Long> existing, Set<Long> unavailable) {
+        boolean retried = false;
+        while (true) {
+            List<Loan> toSave = new ArrayList<>();
+            for (Long bookId : bookIds) {
+                if (existing.contains(bookId) && !unavailable.contains(bookId)) {
+                    toSave.add(newCheckout(request.getUserId(), bookId, loanDate, request.getReturnDate()));
+                }
+            }
+            if (toSave.isEmpty()) {
+                return List.of();
+            }
+
+            try {
+                return transactionOperations.execute(status -> loanRepository.saveAll(toSave));
+            } catch (DataIntegrityViolationException e) {
+                if (!isActiveLoanConflict(e)) {
+                    throw e;
+                }
+                if (retried) {
+                    throw new RuntimeException("Um dos livros já está emprestado!");
+                }
+                List<Long> attempted = toSave.stream().map(loan -> loan.getBook().getId()).toList();
+                List<Long> taken = loanRepository.findBookIdsByStatus(attempted, Status.EMPRESTADO);
+                taken.forEach(availabilityIndex::markOnLoan);
+                unavailable.addAll(taken);
+                retried = true;
+            }
+        }
+    }
+
+    private static Loan newCheckout(Long userId, Long bookId, LocalDate loanDate, LocalDate returnDate) {
+        User user = new User();
+        user.setId(userId);
+        Book book = new Book();
+        book.setId(bookId);
+        Loan loan = new Loan(null, user, book, loanDate, returnDate, Status.EMPRESTADO);
+        loan.setDue_date(loanDate.plusDays(LOAN_PERIOD_DAYS));
+        return loan;
+    }
+
+    /**
+     * Registra a devolução de vários empréstimos de uma vez.
+     * Os empréstimos são carregados em uma única consulta e atualizados na mesma transação;
+     * as alterações são enviadas ao banco em lotes JDBC no commit.
+     *
+     * @param request os IDs dos empréstimos e a data de devolução (hoje, se não informada)
+     * @return o resultado de cada empréstimo, na mesma ordem do pedido
+     * @throws RuntimeException se o lote estiver vazio ou for grande demais
+     */
+    public List<LoanBatchResultDTO> returnLoans(LoanReturnBatchRequestDTO request) {
+        return timers.record("returnLoans", () -> returnAll(request));
+    }
+
+    private List<LoanBatchResultDTO> returnAll(LoanReturnBatchRequestDTO request) {
+        List<Long> loanIds = request.getLoanIds();
+        if (loanIds == null || loanIds.isEmpty()) {
+            throw new RuntimeException("Informe ao menos um empréstimo!");
+        }
+        if (loanIds.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("O lote pode ter no máximo " + MAX_BATCH_SIZE + " empréstimos!");
+        }
+        LocalDate returnDate = request.getReturnDate() != null ? request.getReturnDate() : LocalDate.now();
+
+        List<Loan> returned = new ArrayList<>();
+        List<LoanBatchResultDTO> results = transactionOperations.execute(status -> {
+            Map<Long, Loan> loansById = loanRepository.findAllById(new LinkedHashSet<>(loanIds)).stream()
+                    .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+            List<LoanBatchResultDTO> itemResults = new ArrayList<>(loanIds.size());
+            for (Long loanId : loanIds) {
+                Loan loan = loansById.get(loanId);
+                if (loan == null) {
+                    itemResults.add(new LoanBatchResultDTO(null, loanId, false, "Empréstimo não encontrado!"));
+                } else if (loan.getStatus() != Status.EMPRESTADO) {
+                    itemResults.add(new LoanBatchResultDTO(loan.getBook().getId(), loanId, false, "Empréstimo já devolvido!"));
+                } else {
+                    loan.setReturn_date(returnDate);
+                    loan.setStatus(Status.PRESENTE);
+                    returned.add(loan);
+                    itemResults.add(new LoanBatchResultDTO(loan.getBook().getId(), loanId, true, null));
+                }
+            }
+            return itemResults;
+        });
 
-        return loanRepository.save(loan);
+        returned.forEach(loan -> {
+            availabilityIndex.markReturned(loan.getBook().getId());
+            eventPublisher.publishEvent(new LoanChangedEvent(loan.getId(), loan, ChangeType.UPDATED));
+        });
+        return results;
     }
 
     /**
      * Atualiza um empréstimo existente, alterando a data de devolução e o status.
+     * Um empréstimo devolvido que volta a ficar ativo é um novo empréstimo do livro: a disponibilidade
+     * é verificada e a gravação feita sob o lock do livro, como em {@link #createLoan(Loan)}, e ele volta a
+     * vencer {@value #LOAN_PERIOD_DAYS} dias a partir de hoje, sem a marca de atraso. O vencimento antigo
+     * já ficou para trás da marca d'água do {@link OverdueLoanService}, que não o veria mais.
      *
      * @param loanId     o ID do empréstimo a ser atualizado
      * @param returnDate a data de devolução a ser registrada
      * @return o empréstimo atualizado
-     * @throws RuntimeException se o empréstimo não for encontrado
+     * @throws RuntimeException se o empréstimo não for encontrado ou se, ao reativá-lo, o livro já estiver emprestado
      */
     public Loan updateLoan(Long loanId, LocalDate returnDate, Status status) {
+        return timers.record("updateLoan", () -> update(loanId, returnDate, status));
+    }
+
+    private Loan update(Long loanId, LocalDate returnDate, Status status) {
         Optional<Loan> loanOptional = loanRepository.findById(loanId);
         if (loanOptional.isEmpty()) {
             throw new RuntimeException("Empréstimo não encontrado!");
         }
         Loan loan = loanOptional.get();
+        boolean wasActive = loan.getStatus() == Status.EMPRESTADO;
         loan.setReturn_date(returnDate);
 
         if (status != null) {
@@ -93,7 +402,30 @@ public class LoanService {
             loan.setStatus(returnDate == null ? Status.EMPRESTADO : Status.PRESENTE);
         }
 
-        return loanRepository.save(loan);
+        Long bookId = loan.getBook().getId();
+        Loan savedLoan;
+        if (!wasActive && loan.getStatus() == Status.EMPRESTADO) {
+            Lock lock = checkoutLocks.lockFor(bookId);
+            lock.lock();
+            try {
+                if (isOnLoan(bookId)) {
+                    throw new RuntimeException("O livro já está emprestado!");
+                }
+                loan.setDue_date(LocalDate.now().plusDays(LOAN_PERIOD_DAYS));
+                loan.setOverdue(false);
+                savedLoan = saveCheckout(loan);
+                availabilityIndex.markOnLoan(bookId);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            savedLoan = loanRepository.save(loan);
+            if (wasActive && savedLoan.getStatus() != Status.EMPRESTADO) {
+                availabilityIndex.markReturned(bookId);
+            }
+        }
+        eventPublisher.publishEvent(new LoanChangedEvent(savedLoan.getId(), savedLoan, ChangeType.UPDATED));
+        return savedLoan;
     }
 
     /**
@@ -102,7 +434,7 @@ public class LoanService {
      * @return uma lista contendo todos os empréstimos
      */
     public List<Loan> getAllLoans() {
-        return loanRepository.findAll();
+        return timers.record("getAllLoans", () -> loanRepository.findAll());
     }
 
     /**
@@ -112,7 +444,7 @@ public class LoanService {
      * @return uma lista de empréstimos associados ao usuário
      */
     public List<Loan> getLoansByUser(Long userId) {
-        return loanRepository.findByUserId(userId);
+        return timers.record("getLoansByUser", () -> loanRepository.findByUserId(userId));
     }
 
     /**
@@ -122,7 +454,7 @@ public class LoanService {
      * @return uma lista de empréstimos associados ao livro
      */
     public List<Loan> getLoansByBook(Long bookId) {
-        return loanRepository.findByBookId(bookId);
+        return timers.record("getLoansByBook", () -> loanRepository.findByBookId(bookId));
     }
 
     /**
@@ -132,53 +464,91 @@ public class LoanService {
      * @throws RuntimeException se o empréstimo não for encontrado
      */
     public void deleteLoan(Long loanId) {
-        if (!loanRepository.existsById(loanId)) {
-            throw new RuntimeException("Empréstimo não encontrado!");
-        }
+        timers.run("deleteLoan", () -> delete(loanId));
+    }
+
+    private void delete(Long loanId) {
+        Loan loan = loanRepository.findById(loanId)
+                .orElseThrow(() -> new RuntimeException("Empréstimo não encontrado!"));
         loanRepository.deleteById(loanId);
+        if (loan.getStatus() == Status.EMPRESTADO) {
+            availabilityIndex.markReturned(loan.getBook().getId());
+        }
+        eventPublisher.publishEvent(new LoanChangedEvent(loanId, null, ChangeType.DELETED));
     }
 
     /**
      * Gera uma lista de recomendações de livros para um usuário com base nas categorias
-     * dos livros que ele já pegou emprestado. O método busca livros na mesma categoria
-     * que o usuário já emprestou, mas que ele ainda não pegou emprestado.
+     * dos livros que ele já pegou emprestado. As recomendações vêm do índice em memória
+     * do {@link BookRecommendationEngine}, que pondera a afinidade do usuário com cada categoria
+     * pela popularidade dos livros, e apenas os livros escolhidos são carregados do banco.
+     *
+     * @param userId o ID do usuário para o qual as recomendações serão geradas
+     * @param limit  a quantidade máxima de livros recomendados
+     * @return Uma lista de objetos Book recomendados ao usuário, do mais para o menos relevante,
+     * excluindo os livros que ele já pegou.
+     */
+    public List<Book> recomendBooksForUser(Long userId, int limit) {
+        return timers.record("recomendBooksForUser", () -> loadBooksInOrder(recommendationEngine.recommend(userId, limit)));
+    }
+
+    /**
+     * Gera uma lista de recomendações de livros por filtragem colaborativa: livros que outros usuários
+     * pegaram junto com os livros do histórico deste usuário, ordenados pela similaridade acumulada.
      *
      * @param userId o ID do usuário para o qual as recomendações serão geradas
-     * @return Uma lista de objetos Book recomendados ao usuário, com base nas categorias
-     * dos livros que ele já pegou emprestado, excluindo os livros que ele já pegou.
+     * @param limit  a quantidade máxima de livros recomendados
+     * @return Uma lista de objetos Book recomendados ao usuário, do mais para o menos relevante
      */
-    public List<Book> recomendBooksForUser(Long userId) {
-        List<Loan> userLoans = loanRepository.findByUserId(userId);
+    public List<Book> recomendBooksByCoBorrowing(Long userId, int limit) {
+        return timers.record("recomendBooksByCoBorrowing",
+                () -> loadBooksInOrder(collaborativeRecommender.recommend(userId, limit)));
+    }
+
+    private List<Book> loadBooksInOrder(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return List.of();
+        }
 
-        Set<String> borrowedCategories = userLoans.stream()
-                .map(loan -> loan.getBook().getCategory())
-                .collect(Collectors.toSet());
+        Map<Long, Book> booksById = bookRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
 
-        return bookRepository.findByCategoryInAndIdNotIn(borrowedCategories,
-                userLoans.stream().map(loan -> loan.getBook().getId()).collect(Collectors.toList()));
+        return bookIds.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     /**
      * Retorna os detalhes de todos os empréstimos cadastrados.
-     * Esse método busca todos os empréstimos registrados no repositório,
-     * converte cada um em um objeto `LoanDTO` contendo as principais informações do empréstimo.
+     * A consulta projeta diretamente em `LoanDTO` com um único join entre empréstimo, usuário e livro,
+     * evitando carregar as entidades e disparar consultas secundárias por linha.
      *
      * @return uma lista de objetos `LoanDTO`, onde cada DTO contém o ID do empréstimo, data de empréstimo,
      * data de devolução (se aplicável), status do empréstimo, nome do usuário e título do livro.
      */
     public List<LoanDTO> getAllLoanDetails() {
-        List<Loan> loans = loanRepository.findAll();
-
-        return loans.stream()
-                .map(loan -> new LoanDTO(
-                        loan.getId(),
-                        loan.getLoan_date().toString(),
-                        loan.getReturn_date() != null ? loan.getReturn_date().toString() : null,
-                        loan.getStatus().name(),
-                        loan.getUser().getName(),
-                        loan.getBook().getTitle()
-                ))
-                .collect(Collectors.toList());
+        return timers.record("getAllLoanDetails", () -> loanRepository.findAllLoanDetails());
+    }
+
+    /**
+     * Retorna os detalhes dos empréstimos de um usuário específico em uma única consulta.
+     *
+     * @param userId o ID do usuário
+     * @return uma lista de objetos `LoanDTO` dos empréstimos do usuário
+     */
+    public List<LoanDTO> getLoanDetailsByUser(Long userId) {
+        return timers.record("getLoanDetailsByUser", () -> loanRepository.findLoanDetailsByUserId(userId));
+    }
+
+    /**
+     * Retorna os detalhes dos empréstimos de um livro específico em uma única consulta.
+     *
+     * @param bookId o ID do livro
+     * @return uma lista de objetos `LoanDTO` dos empréstimos do livro
+     */
+    public List<LoanDTO> getLoanDetailsByBook(Long bookId) {
+        return timers.record("getLoanDetailsByBook", () -> loanRepository.findLoanDetailsByBookId(bookId));
     }
 
 }
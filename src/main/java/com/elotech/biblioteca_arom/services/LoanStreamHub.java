@@ -0,0 +1,275 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.dtos.LoanStreamStatsDTO;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envia aos painéis de circulação, por Server-Sent Events, cada empréstimo criado, atualizado ou excluído,
+ * assim que a alteração é confirmada ({@code GET /api/loans/stream}).
+ * <p>
+ * Cada alteração vira um evento SSE com o nome da operação ({@code CREATED}, {@code UPDATED} ou
+ * {@code DELETED}) e o {@link LoanDTO} em JSON (só com o ID nas exclusões). Os detalhes do empréstimo são
+ * lidos e serializados uma única vez, numa thread própria que preserva a ordem das alterações, e o mesmo
+ * evento é entregue a todos os inscritos. Nenhuma escrita de resposta acontece na thread de quem alterou
+ * o empréstimo nem na de publicação: cada inscrito tem uma fila limitada a {@code buffer-size} eventos,
+ * esvaziada numa thread virtual só quando há eventos. Entregar um evento custa só um {@code offer} na fila
+ * de cada inscrito: a publicação nunca espera um painel. Um inscrito com a fila cheia, ou cujo envio em
+ * andamento está parado há mais de {@code stall-timeout-ms}, é desconectado na hora. O {@code EventSource}
+ * do navegador reconecta sozinho e o painel deve então recarregar a lista ({@code GET /api/loans} com
+ * {@code If-None-Match}).
+ * <p>
+ * A cada {@code heartbeat-ms} um comentário é enviado a todos, o que mantém a conexão aberta em proxies
+ * e descobre as conexões encerradas pelo cliente e os envios parados. Alterações feitas por outras
+ * instâncias não são enviadas.
+ */
+@Service
+public class LoanStreamHub {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoanStreamHub.class);
+
+    private static final Duration RECONNECT_TIME = Duration.ofSeconds(3);
+
+    private final LoanRepository loanRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long stallTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("loan-stream-publisher").daemon().factory());
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("loan-stream-", 0).factory());
+    private final AtomicLong eventIds = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Construtor que injeta o repositório e os limites do envio.
+     *
+     * @param loanRepository o repositório de empréstimos, usado para ler os detalhes de cada alteração
+     * @param objectMapper   o mapeador usado para serializar os eventos
+     * @param maxSubscribers a quantidade máxima de painéis conectados
+     * @param bufferSize     a quantidade máxima de eventos aguardando envio para um painel
+     * @param timeoutMinutes a duração máxima de uma conexão, depois da qual o painel reconecta
+     * @param stallTimeoutMs por quanto tempo um envio pode ficar parado antes de o painel ser desconectado
+     */
+    @Autowired
+    public LoanStreamHub(LoanRepository loanRepository, ObjectMapper objectMapper,
+                         @Value("${biblioteca.loan-stream.max-subscribers:10000}") int maxSubscribers,
+                         @Value("${biblioteca.loan-stream.buffer-size:256}") int bufferSize,
+                         @Value("${biblioteca.loan-stream.timeout-minutes:30}") long timeoutMinutes,
+                         @Value("${biblioteca.loan-stream.stall-timeout-ms:1000}") long stallTimeoutMs) {
+        this.loanRepository = loanRepository;
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = Duration.ofMinutes(timeoutMinutes).toMillis();
+        this.stallTimeoutNanos = Duration.ofMillis(stallTimeoutMs).toNanos();
+    }
+
+    /**
+     * Inscreve um painel para receber as alterações de empréstimos.
+     *
+     * @return o emissor da conexão SSE
+     * @throws RuntimeException se o limite de painéis conectados for atingido
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new RuntimeException("Limite de painéis conectados atingido, tente novamente mais tarde!");
+        }
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // O primeiro envio confirma a conexão ao cliente e define o intervalo de reconexão
+        offer(subscriber, SseEmitter.event().reconnectTime(RECONNECT_TIME.toMillis()).comment("conectado").build());
+        return emitter;
+    }
+
+    /**
+     * Envia a alteração de um empréstimo aos painéis conectados, depois do commit.
+     *
+     * @param event o evento de alteração de empréstimo
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        publisher.execute(() -> publish(event.loanId(), event.type()));
+    }
+
+    /**
+     * Lê os detalhes do empréstimo, monta o evento e o entrega a todos os inscritos.
+     *
+     * @param loanId o ID do empréstimo alterado
+     * @param type   o tipo de alteração
+     */
+    void publish(long loanId, ChangeType type) {
+        LoanDTO loan = type == ChangeType.DELETED
+                ? LoanDTO.builder().loanId(loanId).build()
+                : loanRepository.findLoanDetailsById(loanId).orElse(null);
+        if (loan == null) {
+            // Excluído antes de ser enviado; a exclusão chega em seguida
+            return;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(loan);
+            broadcast(SseEmitter.event()
+                    .id(Long.toString(eventIds.incrementAndGet()))
+                    .name(type.name())
+                    .data(json, MediaType.APPLICATION_JSON)
+                    .build());
+            published.increment();
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Falha ao serializar o empréstimo {} para os painéis", loanId, e);
+        }
+    }
+
+    /**
+     * Envia um comentário a todos os inscritos, mantendo as conexões abertas e descartando as encerradas.
+     */
+    @Scheduled(fixedDelayString = "${biblioteca.loan-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            broadcast(SseEmitter.event().comment("").build());
+        }
+    }
+
+    private void broadcast(Set<DataWithMediaType> event) {
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, event);
+        }
+    }
+
+    private void offer(Subscriber subscriber, Set<DataWithMediaType> event) {
+        long started = subscriber.sendStartedNanos;
+        boolean stalled = started != 0 && System.nanoTime() - started > stallTimeoutNanos;
+        if (stalled || !subscriber.buffer.offer(event)) {
+            drop(subscriber);
+            return;
+        }
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    /**
+     * Esvazia a fila de um inscrito. Só uma thread esvazia a fila de cada inscrito por vez; um evento
+     * enfileirado enquanto ela termina é percebido na verificação final e gera um novo envio.
+     */
+    private void send(Subscriber subscriber) {
+        try {
+            Set<DataWithMediaType> event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                subscriber.sendStartedNanos = System.nanoTime();
+                subscriber.emitter.send(event);
+                subscriber.sendStartedNanos = 0;
+                delivered.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Conexão encerrada pelo cliente ou emissor já concluído
+            subscribers.remove(subscriber);
+            subscriber.buffer.clear();
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.sendStartedNanos = 0;
+            subscriber.sending.set(false);
+        }
+        if (!subscriber.buffer.isEmpty() && subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            dropped.increment();
+            subscriber.buffer.clear();
+            // O emissor pode estar preso num envio para o cliente lento; a conclusão espera por ele fora da publicação
+            senders.execute(subscriber.emitter::complete);
+        }
+    }
+
+    /**
+     * Retorna a quantidade de painéis conectados e os totais de eventos desde o início da aplicação.
+     *
+     * @return as estatísticas do envio de alterações
+     */
+    public LoanStreamStatsDTO getStats() {
+        return LoanStreamStatsDTO.builder()
+                .subscribers(subscribers.size())
+                .publishedEvents(published.sum())
+                .deliveredEvents(delivered.sum())
+                .droppedSubscribers(dropped.sum())
+                .build();
+    }
+
+    /**
+     * Retorna a quantidade de painéis conectados.
+     *
+     * @return a quantidade de inscritos
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void close() {
+        publisher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Um painel conectado, com a sua fila de eventos aguardando envio.
+     */
+    private static final class Subscriber {
+
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Set<DataWithMediaType>> buffer;
+        final AtomicBoolean sending = new AtomicBoolean();
+        // Quando começou o envio em andamento, ou 0 se nenhum envio está em andamento
+        volatile long sendStartedNanos;
+
+        Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
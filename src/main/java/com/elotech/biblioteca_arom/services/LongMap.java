@@ -0,0 +1,138 @@
+package com.elotech.biblioteca_arom.services;
+
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * Mapa de chaves {@code long} para objetos, com endereçamento aberto e sondagem linear.
+ * Ao contrário de um {@code HashMap<Long, V>}, não cria um {@link Long} por chave nem um nó por entrada:
+ * as chaves ficam num {@code long[]} e os valores num array paralelo. Não aceita valores nulos
+ * e não é thread-safe.
+ *
+ * @param <V> o tipo dos valores
+ */
+final class LongMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    // Uma posição sem valor está livre
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    LongMap() {
+        keys = new long[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        mask = MIN_CAPACITY - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Retorna o valor associado à chave, ou null se não houver.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        for (int slot = slot(key); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associa o valor à chave.
+     *
+     * @return o valor anterior, ou null se não havia
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        Objects.requireNonNull(value);
+        int slot = slot(key);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // Mantém a ocupação abaixo de 2/3, para que as sequências de sondagem fiquem curtas
+        if (++size > values.length / 3 * 2) {
+            resize(values.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Retorna o valor associado à chave, criando-o com a função se não houver.
+     */
+    V computeIfAbsent(long key, LongFunction<V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Remove a chave. As entradas seguintes da mesma sequência de sondagem são puxadas para trás,
+     * em vez de deixar marcas de exclusão que alongariam as buscas.
+     *
+     * @return o valor removido, ou null se a chave não existia
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        for (int slot = slot(key); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V removed = (V) values[slot];
+                closeGap(slot);
+                size--;
+                return removed;
+            }
+        }
+        return null;
+    }
+
+    private void closeGap(int gap) {
+        for (int slot = (gap + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            int home = slot(keys[slot]);
+            // A entrada pode ocupar a lacuna se a sua posição de origem não estiver entre a lacuna e ela
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
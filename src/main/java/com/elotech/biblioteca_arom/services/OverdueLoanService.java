@@ -0,0 +1,176 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanDueView;
+import com.elotech.biblioteca_arom.dtos.OverdueStatsDTO;
+import com.elotech.biblioteca_arom.entities.JobWatermark;
+import com.elotech.biblioteca_arom.entities.enums.ChangedEntity;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.JobWatermarkRepository;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serviço que marca como atrasados os empréstimos ativos cuja data prevista de devolução já passou.
+ * <p>
+ * Cada execução processa apenas os empréstimos que venceram desde a execução anterior: a data até a qual
+ * todos os vencimentos já foram verificados fica gravada em {@link JobWatermark}, e a leitura usa o índice
+ * {@code (status, due_date, id)} na faixa entre essa data e hoje, então o custo não depende do tamanho
+ * da tabela. Os empréstimos são lidos por paginação de cursor e marcados em lotes, cada um na sua transação.
+ * A marcação só altera empréstimos ainda não marcados, então repetir uma faixa (por exemplo, depois de
+ * uma falha ou em outra instância) não tem efeito.
+ */
+@Service
+public class OverdueLoanService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OverdueLoanService.class);
+
+    static final String JOB = "overdue-loans";
+    static final LocalDate FIRST_DUE_DATE = LocalDate.EPOCH;
+
+    private final LoanRepository loanRepository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final TransactionOperations transactionOperations;
+    private final CollectionVersions collectionVersions;
+    private final ChangeFeedService changeFeedService;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder totalMarked = new LongAdder();
+
+    private volatile Instant lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile long lastRunMarked;
+    private volatile long lastRunBatches;
+
+    /**
+     * Construtor que injeta os repositórios e o tamanho dos lotes de marcação.
+     *
+     * @param loanRepository        o repositório de empréstimos
+     * @param watermarkRepository   o repositório das marcas d'água dos jobs
+     * @param transactionOperations usado para delimitar a transação de cada lote
+     * @param collectionVersions    os contadores de alteração, avisados a cada lote marcado
+     * @param changeFeedService     o registro de alterações, em que cada lote marcado é gravado
+     * @param batchSize             a quantidade de empréstimos marcados por lote
+     */
+    @Autowired
+    public OverdueLoanService(LoanRepository loanRepository, JobWatermarkRepository watermarkRepository,
+                              TransactionOperations transactionOperations, CollectionVersions collectionVersions,
+                              ChangeFeedService changeFeedService,
+                              @Value("${biblioteca.overdue.batch-size:1000}") int batchSize) {
+        this.loanRepository = loanRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.transactionOperations = transactionOperations;
+        this.collectionVersions = collectionVersions;
+        this.changeFeedService = changeFeedService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Marca os empréstimos que venceram desde a última execução.
+     * Roda quando a aplicação inicia e periodicamente; execuções no mesmo dia depois da primeira
+     * não encontram nada a processar e custam apenas a leitura da marca d'água.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${biblioteca.overdue.cron:0 5 * * * *}")
+    public void detectOverdueLoans() {
+        detect(LocalDate.now());
+    }
+
+    /**
+     * Marca os empréstimos ativos com vencimento entre a marca d'água e o dia informado (exclusivo)
+     * e avança a marca d'água para esse dia. Se uma verificação já estiver em andamento, a chamada é ignorada.
+     *
+     * @param today o dia de referência; empréstimos que vencem nele ainda não estão atrasados
+     * @return a quantidade de empréstimos marcados como atrasados
+     */
+    long detect(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            LocalDate from = watermarkRepository.findById(JOB)
+                    .map(JobWatermark::getWatermark)
+                    .orElse(FIRST_DUE_DATE);
+            if (!from.isBefore(today)) {
+                return 0;
+            }
+
+            long marked = 0;
+            long batches = 0;
+            LocalDate afterDue = from;
+            Long afterId = 0L;
+            while (true) {
+                LocalDate cursorDue = afterDue;
+                Long cursorId = afterId;
+                List<LoanDueView> chunk = transactionOperations.execute(status -> {
+                    List<LoanDueView> due = loanRepository.findDueBetween(
+                            Status.EMPRESTADO, from, today, cursorDue, cursorId, Limit.of(batchSize));
+                    if (!due.isEmpty()) {
+                        List<Long> ids = due.stream().map(LoanDueView::getId).toList();
+                        loanRepository.markOverdue(ids, Status.EMPRESTADO);
+                        // A marcação é um UPDATE em massa, que não passa pelos eventos do Hibernate. Os registros
+                        // seguem a ordem dos ouvintes (ver ChangeLogConfig), para que os bloqueios de fim de
+                        // transação sejam sempre tomados na mesma ordem
+                        collectionVersions.changed(CollectionVersions.Tracked.LOANS);
+                        changeFeedService.record(ChangedEntity.LOAN, ids, ChangeType.UPDATED);
+                    }
+                    return due;
+                });
+                if (!chunk.isEmpty()) {
+                    marked += chunk.size();
+                    batches++;
+                    afterDue = chunk.getLast().getDueDate();
+                    afterId = chunk.getLast().getId();
+                }
+                if (chunk.size() < batchSize) {
+                    break;
+                }
+            }
+
+            watermarkRepository.save(new JobWatermark(JOB, today, Instant.now()));
+            totalMarked.add(marked);
+            lastRunAt = Instant.now();
+            lastRunMillis = (System.nanoTime() - start) / 1_000_000;
+            lastRunMarked = marked;
+            lastRunBatches = batches;
+            LOGGER.info("Verificação de atrasos de {} a {}: {} empréstimos marcados em {} lotes ({} ms)",
+                    from, today.minusDays(1), marked, batches, lastRunMillis);
+            return marked;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Retorna a quantidade de empréstimos ativos em atraso e os números da última verificação.
+     *
+     * @return as estatísticas de empréstimos atrasados
+     */
+    public OverdueStatsDTO getStats() {
+        return OverdueStatsDTO.builder()
+                .activeOverdueLoans(loanRepository.countOverdue(Status.EMPRESTADO))
+                .watermark(watermarkRepository.findById(JOB).map(JobWatermark::getWatermark).orElse(null))
+                .lastRunAt(lastRunAt != null ? lastRunAt.toString() : null)
+                .lastRunMillis(lastRunMillis)
+                .lastRunMarked(lastRunMarked)
+                .lastRunBatches(lastRunBatches)
+                .totalMarked(totalMarked.sum())
+                .build();
+    }
+}
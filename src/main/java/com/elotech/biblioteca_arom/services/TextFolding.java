@@ -0,0 +1,35 @@
+package com.elotech.biblioteca_arom.services;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de texto usada pelos índices em memória do catálogo:
+ * remove acentos e converte para minúsculas, para que "Programação" e "programacao" sejam iguais.
+ */
+final class TextFolding {
+
+    static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextFolding() {
+    }
+
+    /**
+     * Remove os acentos e converte o texto para minúsculas.
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Além de {@link #fold(String)}, troca cada sequência de pontuação e espaços por um único espaço
+     * e remove os espaços das pontas, para que "JavaScript: o guia" e "javascript o guia" sejam iguais.
+     */
+    static String key(String text) {
+        return NON_ALPHANUMERIC.matcher(fold(text)).replaceAll(" ").strip();
+    }
+}
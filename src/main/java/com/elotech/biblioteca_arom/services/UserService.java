@@ -1,12 +1,16 @@
 package com.elotech.biblioteca_arom.services;
 
+import com.elotech.biblioteca_arom.clients.MetricsConfig;
+import com.elotech.biblioteca_arom.dtos.UserBatchResultDTO;
 import com.elotech.biblioteca_arom.entities.User;
 import com.elotech.biblioteca_arom.repositories.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
 
 /**
  * Serviço responsável pela gestão dos usuários no sistema de biblioteca.
@@ -14,8 +18,13 @@ import java.util.List;
  * além de validações de email e data de registro.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class UserService {
 
+    static final String UNIQUE_EMAIL_INDEX = "ux_users_email";
+    static final int MAX_BATCH_SIZE = 5_000;
+    static final int EMAIL_LOOKUP_CHUNK = 1_000;
+
     private final UserRepository userRepository;
 
     /**
@@ -33,7 +42,7 @@ public class UserService {
      *
      * @param user o objeto User contendo os detalhes do usuário
      * @return o usuário criado
-     * @throws RuntimeException se o email for inválido ou se a data de registro for maior que a data atual
+     * @throws RuntimeException se o email for inválido ou já cadastrado, ou se a data de registro for maior que a data atual
      */
     public User createUser(User user) {
         validateEmail(user.getEmail());
@@ -43,7 +52,112 @@ public class UserService {
         }
 
         validateRegistrationDate(user.getRegistrationDate());
-        return userRepository.save(user);
+        try {
+            return userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new RuntimeException("Email já cadastrado!");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cadastra vários usuários em uma única requisição, como na carga de alunos do semestre.
+     * Cada usuário é validado sem lançar exceções, emails repetidos no próprio lote são detectados em memória
+     * e os já cadastrados com poucas consultas, e os válidos são gravados em uma única transação usando lotes JDBC.
+     * Usuários inválidos são recusados individualmente sem impedir os demais. O índice único de email
+     * no banco garante a unicidade quando outro cadastro concorrente grava o mesmo email.
+     *
+     * @param users os usuários a serem cadastrados
+     * @return o resultado de cada usuário, na mesma ordem do pedido
+     * @throws RuntimeException se o lote for vazio ou grande demais, ou se um dos emails for cadastrado
+     *                          por outra requisição durante a gravação
+     */
+    public List<UserBatchResultDTO> createUsers(List<User> users) {
+        if (users == null || users.isEmpty()) {
+            throw new RuntimeException("Informe ao menos um usuário!");
+        }
+        if (users.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("O lote pode ter no máximo " + MAX_BATCH_SIZE + " usuários!");
+        }
+
+        LocalDate today = LocalDate.now();
+        String[] messages = new String[users.size()];
+        String[] keys = new String[users.size()];
+        Set<String> distinctKeys = new HashSet<>(users.size() * 2);
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            messages[i] = validationError(user, today);
+            if (messages[i] == null) {
+                keys[i] = user.getEmail().toLowerCase(Locale.ROOT);
+                if (!distinctKeys.add(keys[i])) {
+                    messages[i] = "Email repetido no lote!";
+                }
+            }
+        }
+
+        Set<String> existing = findExistingEmails(distinctKeys);
+        List<User> toSave = new ArrayList<>();
+        List<Integer> savedPositions = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (messages[i] == null && existing.contains(keys[i])) {
+                messages[i] = "Email já cadastrado!";
+            } else if (messages[i] == null) {
+                User user = users.get(i);
+                if (user.getRegistrationDate() == null) {
+                    user.setRegistrationDate(today);
+                }
+                toSave.add(user);
+                savedPositions.add(i);
+            }
+        }
+
+        Long[] ids = new Long[users.size()];
+        if (!toSave.isEmpty()) {
+            try {
+                List<User> saved = userRepository.saveAll(toSave);
+                for (int i = 0; i < saved.size(); i++) {
+                    ids[savedPositions.get(i)] = saved.get(i).getId();
+                }
+            } catch (DataIntegrityViolationException e) {
+                if (isDuplicateEmail(e)) {
+                    throw new RuntimeException("Um dos emails já está cadastrado!");
+                }
+                throw e;
+            }
+        }
+
+        List<UserBatchResultDTO> results = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            String email = users.get(i) != null ? users.get(i).getEmail() : null;
+            results.add(messages[i] == null
+                    ? new UserBatchResultDTO(email, ids[i], true, null)
+                    : new UserBatchResultDTO(email, null, false, messages[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Busca, em consultas de até {@link #EMAIL_LOOKUP_CHUNK} emails, quais já estão cadastrados.
+     *
+     * @param emails os emails em minúsculas
+     * @return os emails já cadastrados, em minúsculas
+     */
+    private Set<String> findExistingEmails(Collection<String> emails) {
+        Set<String> existing = new HashSet<>();
+        List<String> chunk = new ArrayList<>(Math.min(emails.size(), EMAIL_LOOKUP_CHUNK));
+        for (String email : emails) {
+            chunk.add(email);
+            if (chunk.size() == EMAIL_LOOKUP_CHUNK) {
+                existing.addAll(userRepository.findExistingEmails(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            existing.addAll(userRepository.findExistingEmails(chunk));
+        }
+        return existing;
     }
 
     /**
@@ -57,6 +171,7 @@ public class UserService {
 
     /**
      * Busca um usuário pelo seu ID.
+     * Usuários lidos recentemente vêm do cache de segundo nível, sem consulta ao banco.
      *
      * @param id o ID do usuário a ser buscado
      * @return o usuário encontrado
@@ -66,6 +181,16 @@ public class UserService {
         return userRepository.findById(id).orElseThrow(() -> new RuntimeException("Usuário não foi encontrado!"));
     }
 
+    /**
+     * Retorna a versão atual de um usuário ({@code @Version}) sem carregar a entidade.
+     *
+     * @param id o ID do usuário
+     * @return a versão do usuário, ou vazio se o usuário não existir
+     */
+    public Optional<Long> getUserVersion(Long id) {
+        return userRepository.findVersionById(id);
+    }
+
     /**
      * Atualiza os dados de um usuário existente.
      *
@@ -96,14 +221,39 @@ public class UserService {
      * Valida o formato do email.
      *
      * @param email o email a ser validado
-     * @throws RuntimeException se o email for inválido
+     * @throws RuntimeException se o email for nulo ou inválido
      */
     private void validateEmail(String email) {
-        if (!email.matches("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}")) {
+        if (!EmailValidator.isValid(email)) {
             throw new RuntimeException("Email inválido!");
         }
     }
 
+    /**
+     * Aplica ao usuário de um lote as mesmas validações do cadastro individual, sem lançar exceções.
+     *
+     * @param user  o usuário a ser validado
+     * @param today a data atual
+     * @return a mensagem de erro, ou null se o usuário for válido
+     */
+    private static String validationError(User user, LocalDate today) {
+        if (user == null || !EmailValidator.isValid(user.getEmail())) {
+            return "Email inválido!";
+        }
+        if (user.getName() == null || user.getPhoneNumber() == null) {
+            return "Nome e telefone são obrigatórios!";
+        }
+        if (user.getRegistrationDate() != null && user.getRegistrationDate().isAfter(today)) {
+            return "Data de cadastro não pode ser maior que o dia atual!";
+        }
+        return null;
+    }
+
+    private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(UNIQUE_EMAIL_INDEX);
+    }
+
     /**
      * Valida a data de registro para garantir que não seja uma data futura.
      *
@@ -0,0 +1,20 @@
+-- Executado após o Hibernate criar/atualizar as tabelas (spring.jpa.defer-datasource-initialization=true).
+
+-- Garante no banco que um livro tenha no máximo um empréstimo ativo.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_loan_active_book ON loan (book_id) WHERE status = 'EMPRESTADO';
+
+-- Empréstimos gravados antes da data prevista de devolução existir vencem no prazo padrão (LoanService.LOAN_PERIOD_DAYS).
+UPDATE loan SET due_date = loan_date + 14 WHERE due_date IS NULL AND loan_date IS NOT NULL;
+
+-- Garante no banco que um email pertença a um único usuário, sem diferenciar maiúsculas (UserService.UNIQUE_EMAIL_INDEX).
+-- Emails já repetidos precisam ser corrigidos antes, ou a criação do índice falha.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email ON users (lower(email));
+
+-- Contadores de alteração das coleções, compartilhados pelas instâncias (CollectionVersions).
+-- Criados aqui para que a primeira alteração de cada coleção não dispute a inclusão da linha.
+INSERT INTO collection_version (collection, version, modified_at)
+VALUES ('BOOKS', 0, now()), ('USERS', 0, now()), ('LOANS', 0, now())
+ON CONFLICT (collection) DO NOTHING;
+
+-- Linha única da sequência do registro de alterações (ChangeFeedService).
+INSERT INTO change_log_sequence (id, last_seq, truncated_through) VALUES (1, 0, 0) ON CONFLICT (id) DO NOTHING;
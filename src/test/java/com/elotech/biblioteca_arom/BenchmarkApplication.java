@@ -0,0 +1,101 @@
+package com.elotech.biblioteca_arom;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inicia a aplicação para os benchmarks que precisam do contexto completo (repositórios, transações, Tomcat).
+ * <p>
+ * As propriedades informadas são passadas como argumentos de linha de comando, que têm precedência sobre o
+ * {@code application.properties} e os perfis. A conexão pode ser trocada com
+ * {@code -Dspring.datasource.url=... -Dspring.datasource.username=... -Dspring.datasource.password=...};
+ * {@link #datasourceJvmArgs()} repassa essas propriedades ao processo em que o JMH roda o benchmark.
+ * Use sempre um banco descartável: as tabelas são recriadas a cada execução.
+ */
+public final class BenchmarkApplication {
+
+    private static final String[] DATASOURCE_PROPERTIES = {
+            "spring.datasource.url", "spring.datasource.username", "spring.datasource.password"};
+
+    // Adia as reconstruções periódicas em segundo plano para depois de qualquer medição
+    private static final long BACKGROUND_DELAY_MS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Um H2 em memória, usado quando nenhuma conexão é informada.
+     */
+    public static final Map<String, String> H2 = Map.of(
+            "spring.datasource.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+            "spring.datasource.driver-class-name", "org.h2.Driver",
+            "spring.datasource.username", "sa",
+            "spring.datasource.password", "",
+            "spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+            "spring.sql.init.mode", "never");
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Inicia a aplicação com o schema recriado, sem log de SQL, sem as tarefas agendadas de atrasos e de
+     * manutenção do registro de alterações, sem as reconstruções periódicas das recomendações e das sugestões
+     * e com o diário de empréstimos num diretório temporário (um diário de outra execução seria reaplicado
+     * na auditoria recriada).
+     *
+     * @param webType    o tipo de aplicação (NONE para benchmarks sem HTTP)
+     * @param fallback   a conexão usada quando {@code spring.datasource.url} não for informada
+     * @param properties propriedades adicionais, que prevalecem sobre as anteriores
+     * @param profiles   os perfis ativos
+     * @return o contexto iniciado
+     */
+    public static ConfigurableApplicationContext start(WebApplicationType webType, Map<String, String> fallback,
+                                                       Map<String, String> properties, String... profiles) {
+        List<String> args = new ArrayList<>();
+        if (System.getProperty("spring.datasource.url") == null) {
+            fallback.forEach((key, value) -> args.add("--" + key + "=" + value));
+        }
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--spring.jpa.properties.hibernate.format_sql=false");
+        args.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        args.add("--biblioteca.overdue.cron=-");
+        args.add("--biblioteca.changes.maintenance-cron=-");
+        args.add("--biblioteca.recommendation.similarity.initial-delay-ms=" + BACKGROUND_DELAY_MS);
+        args.add("--biblioteca.suggest.refresh-interval-ms=" + BACKGROUND_DELAY_MS);
+        args.add("--biblioteca.journal.dir=" + journalDirectory());
+        properties.forEach((key, value) -> args.add("--" + key + "=" + value));
+        return new SpringApplicationBuilder(BibliotecaAromApplication.class)
+                .web(webType)
+                .profiles(profiles)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static Path journalDirectory() {
+        try {
+            return Files.createTempDirectory("loan-journal");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Repassa a conexão informada na linha de comando ao processo do benchmark.
+     *
+     * @return os argumentos {@code -D} da conexão, se houver
+     */
+    public static String[] datasourceJvmArgs() {
+        List<String> jvmArgs = new ArrayList<>();
+        for (String property : DATASOURCE_PROPERTIES) {
+            if (System.getProperty(property) != null) {
+                jvmArgs.add("-D" + property + "=" + System.getProperty(property));
+            }
+        }
+        return jvmArgs.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,70 @@
+package com.elotech.biblioteca_arom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dois resultados do JMH em JSON (gerados pelo perfil {@code benchmarks} do Maven em commits
+ * diferentes) e lista a variação de cada benchmark. Termina com código 1 se algum benchmark piorar além
+ * da tolerância, para poder ser usado em um pipeline.
+ * <p>
+ * Uso: {@code java -cp ... com.elotech.biblioteca_arom.BenchmarkComparison base.json novo.json [tolerância %]}.
+ * Os modos de tempo (médio, amostrado, execução única) pioram quando o valor sobe; o de vazão, quando desce.
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BenchmarkComparison <base.json> <novo.json> [tolerância em %]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> base = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : new TreeMap<>(current).entrySet()) {
+            JsonNode before = base.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            double score = after.path("primaryMetric").path("score").asDouble();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-90s %12.3f %-10s (novo)%n", entry.getKey(), score, unit);
+                continue;
+            }
+            double previous = before.path("primaryMetric").path("score").asDouble();
+            double change = previous == 0 ? 0 : (score - previous) / previous * 100;
+            boolean higherIsWorse = !after.path("mode").asText().equals("thrpt");
+            boolean regressed = higherIsWorse ? change > tolerance : change < -tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %12.3f -> %12.3f %-10s %+7.1f%%%s%n", entry.getKey(), previous, score, unit,
+                    change, regressed ? "  PIOROU" : "");
+        }
+        System.out.printf("%n%d benchmark(s) pioraram mais de %.1f%%%n", regressions, tolerance);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
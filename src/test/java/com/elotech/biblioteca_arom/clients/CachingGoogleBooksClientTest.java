@@ -0,0 +1,144 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe CachingGoogleBooksClient, usando um cliente falso no lugar da API
+ * do Google Books para que rodem sem acesso à rede.
+ */
+public class CachingGoogleBooksClientTest {
+
+    private static final List<Book> FOUND = List.of(new Book(null, "Dune", "Frank Herbert", "9780441013593", "1965", "Fiction", null, null));
+    private static final List<Book> NOT_FOUND = List.of();
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private CachingGoogleBooksClient cachingClient(GoogleBooksClient delegate) {
+        return new CachingGoogleBooksClient(delegate, 100, Duration.ofHours(1), Duration.ofMinutes(5), now::get);
+    }
+
+    /**
+     * Testa se consultas repetidas, mesmo com espaços e maiúsculas diferentes,
+     * fazem uma única chamada à API e são contadas como acertos.
+     */
+    @Test
+    public void testSearchBooks_repeatedQueryIsServedFromCache() {
+        CachingGoogleBooksClient client = cachingClient(query -> {
+            calls.incrementAndGet();
+            return FOUND;
+        });
+
+        client.searchBooks("Dune");
+        client.searchBooks("  dune ");
+        List<Book> response = client.searchBooks("DUNE");
+
+        assertEquals("Dune", response.getFirst().getTitle());
+        assertEquals(1, calls.get());
+        assertEquals(2, client.getStats().getHitCount());
+        assertEquals(1, client.getStats().getMissCount());
+    }
+
+    /**
+     * Testa se cada chamada recebe cópias dos livros guardados, para que alterações
+     * feitas por um chamador não apareçam para os próximos.
+     */
+    @Test
+    public void testSearchBooks_returnsCopies() {
+        CachingGoogleBooksClient client = cachingClient(query -> FOUND);
+
+        client.searchBooks("dune").getFirst().setTitle("Alterado");
+
+        assertEquals("Dune", client.searchBooks("dune").getFirst().getTitle());
+        assertEquals("Dune", FOUND.getFirst().getTitle());
+    }
+
+    /**
+     * Testa se respostas sem resultados expiram antes das respostas com resultados.
+     */
+    @Test
+    public void testSearchBooks_negativeResultsUseShorterTtl() {
+        CachingGoogleBooksClient client = cachingClient(query -> {
+            calls.incrementAndGet();
+            return query.equals("dune") ? FOUND : NOT_FOUND;
+        });
+
+        client.searchBooks("dune");
+        client.searchBooks("livro inexistente");
+        now.addAndGet(Duration.ofMinutes(6).toNanos());
+        client.searchBooks("dune");
+        client.searchBooks("livro inexistente");
+
+        assertEquals(3, calls.get());
+    }
+
+    /**
+     * Testa se uma falha da API não fica guardada e a próxima chamada tenta novamente.
+     */
+    @Test
+    public void testSearchBooks_failuresAreNotCached() {
+        CachingGoogleBooksClient client = cachingClient(query -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("API indisponível");
+            }
+            return FOUND;
+        });
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> client.searchBooks("dune"));
+
+        assertEquals("API indisponível", exception.getMessage());
+        assertEquals(1, client.searchBooks("dune").size());
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Testa se chamadas simultâneas com a mesma consulta compartilham uma única requisição à API.
+     */
+    @Test
+    public void testSearchBooks_concurrentCallsAreCoalesced() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CachingGoogleBooksClient client = cachingClient(query -> {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return FOUND;
+        });
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<Book>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> client.searchBooks("dune")));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> client.searchBooks("dune")));
+            }
+            while (client.getStats().getCoalescedCount() < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<List<Book>> result : results) {
+                assertEquals("Dune", result.get(5, TimeUnit.SECONDS).getFirst().getTitle());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+}
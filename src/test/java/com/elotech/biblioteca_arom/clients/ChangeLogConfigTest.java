@@ -0,0 +1,121 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.dtos.ChangeDTO;
+import com.elotech.biblioteca_arom.dtos.ChangeFeedDTO;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.ChangeLogEntry;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.ChangedEntity;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.elotech.biblioteca_arom.repositories.ChangeLogRepository;
+import com.elotech.biblioteca_arom.repositories.UserRepository;
+import com.elotech.biblioteca_arom.services.ChangeFeedService;
+import com.elotech.biblioteca_arom.services.CollectionVersions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe ChangeLogConfig, cobrindo a gravação das alterações na transação que as fez
+ * e a ordem dos números de sequência.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import({ChangeLogConfig.class, ChangeFeedService.class, CollectionVersionsConfig.class, CollectionVersions.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ChangeLogConfigTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static Book book(String title) {
+        return new Book(null, title, "Frank Herbert", "9780441013593", "1965", "Fiction", null, null);
+    }
+
+    private long currentSeq() {
+        return changeFeedService.getChanges(null, 1).getLastSeq();
+    }
+
+    private List<ChangeLogEntry> entriesOf(ChangedEntity entity, long id, long since) {
+        return changeLogRepository.findAfter(since, Limit.of(1_000)).stream()
+                .filter(entry -> entry.getEntity() == entity && entry.getEntityId() == id)
+                .toList();
+    }
+
+    /**
+     * Testa se a inclusão, a alteração e a exclusão de um livro, cada uma na sua transação, geram
+     * alterações com números de sequência consecutivos e as operações correspondentes.
+     */
+    @Test
+    public void testCommittedChanges_areLoggedInOrder() {
+        long since = currentSeq();
+
+        Book book = bookRepository.save(book("Dune"));
+        book.setTitle("Dune Messiah");
+        bookRepository.save(book);
+        bookRepository.deleteById(book.getId());
+
+        ChangeFeedDTO feed = changeFeedService.getChanges(since, 10);
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.DELETED),
+                feed.getChanges().stream().map(ChangeDTO::getOp).toList());
+        assertEquals(List.of(since + 1, since + 2, since + 3),
+                feed.getChanges().stream().map(ChangeDTO::getSeq).toList());
+        assertTrue(feed.getChanges().stream().allMatch(change ->
+                change.getEntity() == ChangedEntity.BOOK && change.getId() == book.getId()));
+        assertEquals(since + 3, feed.getLastSeq());
+        assertFalse(feed.isHasMore());
+    }
+
+    /**
+     * Testa se a inclusão seguida de alteração na mesma transação gera uma única inclusão
+     * e se uma transação desfeita não gera alterações.
+     */
+    @Test
+    public void testTransaction_mergesChangesAndSkipsRollback() {
+        long since = currentSeq();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        User user = transaction.execute(status -> {
+            User created = userRepository.saveAndFlush(new User(null, "Ana", "ana@example.com", LocalDate.now(), "123456789", null));
+            created.setPhoneNumber("987654321");
+            return userRepository.saveAndFlush(created);
+        });
+        transaction.executeWithoutResult(status -> {
+            userRepository.saveAndFlush(new User(null, "Bia", "bia@example.com", LocalDate.now(), "123456789", null));
+            status.setRollbackOnly();
+        });
+
+        List<ChangeDTO> changes = changeFeedService.getChanges(since, 10).getChanges();
+        assertEquals(1, changes.size());
+        assertEquals(ChangedEntity.USER, changes.getFirst().getEntity());
+        assertEquals(user.getId(), changes.getFirst().getId());
+        assertEquals(ChangeType.CREATED, changes.getFirst().getOp());
+        assertEquals(since + 1, currentSeq());
+    }
+}
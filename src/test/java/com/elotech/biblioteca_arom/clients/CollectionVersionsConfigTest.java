@@ -0,0 +1,109 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.elotech.biblioteca_arom.repositories.UserRepository;
+import com.elotech.biblioteca_arom.services.CollectionVersions;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Tracked;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe CollectionVersionsConfig, cobrindo o incremento dos contadores de alteração
+ * na tabela compartilhada e da versão das entidades no commit das transações.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import({CollectionVersionsConfig.class, CollectionVersions.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CollectionVersionsConfigTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CollectionVersions versions;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long version(Tracked collection) {
+        return versions.snapshot(collection).version(collection);
+    }
+
+    /**
+     * Testa se a inclusão, a alteração e a exclusão de um livro incrementam o contador de livros
+     * no commit, sem alterar os das outras coleções, e se a alteração incrementa a versão do livro.
+     */
+    @Test
+    public void testCommittedChanges_incrementCounter() {
+        long books = version(Tracked.BOOKS);
+        long users = version(Tracked.USERS);
+
+        Book book = bookRepository.save(new Book(null, "Dune", "Frank Herbert", "9780441013593", "1965", "Fiction", null, null));
+        assertEquals(books + 1, version(Tracked.BOOKS));
+        assertEquals(0L, bookRepository.findVersionById(book.getId()).orElseThrow());
+
+        book.setTitle("Dune Messiah");
+        bookRepository.save(book);
+        assertEquals(books + 2, version(Tracked.BOOKS));
+        assertEquals(1L, bookRepository.findVersionById(book.getId()).orElseThrow());
+
+        bookRepository.deleteById(book.getId());
+        assertEquals(books + 3, version(Tracked.BOOKS));
+        assertTrue(bookRepository.findVersionById(book.getId()).isEmpty());
+        assertEquals(users, version(Tracked.USERS));
+    }
+
+    /**
+     * Testa se uma transação desfeita não altera o contador.
+     */
+    @Test
+    public void testRolledBackChanges_keepCounter() {
+        long users = version(Tracked.USERS);
+        String etag = versions.snapshot(Tracked.USERS).etag();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.saveAndFlush(new User(null, "Ana", "ana@example.com", LocalDate.now(), "123456789", null));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(users, version(Tracked.USERS));
+        assertEquals(etag, versions.snapshot(Tracked.USERS).etag());
+    }
+
+    /**
+     * Testa se uma atualização em massa registrada na transação incrementa o contador uma única vez
+     * por transação, e o Last-Modified, no commit.
+     */
+    @Test
+    public void testBulkChange_incrementsCounterOnCommit() {
+        long loans = version(Tracked.LOANS);
+        long before = System.currentTimeMillis();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            versions.changed(Tracked.LOANS);
+            versions.changed(Tracked.LOANS);
+            assertEquals(loans, version(Tracked.LOANS));
+        });
+
+        assertEquals(loans + 1, version(Tracked.LOANS));
+        assertTrue(versions.snapshot(Tracked.LOANS).lastModified() >= before);
+    }
+}
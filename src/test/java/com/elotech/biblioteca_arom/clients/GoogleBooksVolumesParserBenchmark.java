@@ -0,0 +1,129 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a leitura das respostas gravadas da API do Google Books pelo {@link GoogleBooksVolumesParser}
+ * com a decodificação anterior, que montava um {@code Map<String, Object>} e depois o percorria.
+ * <p>
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.clients.GoogleBooksVolumesParserBenchmark};
+ * o profiler de GC informa a taxa de alocação ({@code gc.alloc.rate.norm}) de cada decodificação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GoogleBooksVolumesParserBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"volumes.json", "volumes-empty.json"})
+    public String payload;
+
+    private byte[] body;
+
+    @Setup
+    public void loadPayload() throws IOException {
+        try (InputStream in = GoogleBooksVolumesParserBenchmark.class.getResourceAsStream("/google-books/" + payload)) {
+            body = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public List<Book> streaming() throws IOException {
+        return GoogleBooksVolumesParser.parse(body);
+    }
+
+    @Benchmark
+    public List<Book> mapTree() throws IOException {
+        Map<String, Object> response = objectMapper.readValue(body, MAP_TYPE);
+        if (response == null || !(response.get("items") instanceof List<?> items)) {
+            return List.of();
+        }
+
+        List<Book> books = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (item instanceof Map<?, ?> volume && volume.get("volumeInfo") instanceof Map<?, ?> volumeInfo) {
+                books.add(toBook(volumeInfo));
+            }
+        }
+        return books;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GoogleBooksVolumesParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Conversão usada pelo {@code GoogleBooksService} antes do {@link GoogleBooksVolumesParser}.
+     */
+    private static Book toBook(Map<?, ?> volumeInfo) {
+        Book book = new Book();
+        book.setTitle(asString(volumeInfo.get("title")));
+        book.setAuthor(joined(volumeInfo.get("authors")));
+        book.setIsbn(isbnOf(volumeInfo.get("industryIdentifiers")));
+        book.setPublicationDate(asString(volumeInfo.get("publishedDate")));
+        book.setCategory(joined(volumeInfo.get("categories")));
+        if (volumeInfo.get("imageLinks") instanceof Map<?, ?> imageLinks) {
+            book.setThumbnail_url(asString(imageLinks.get("thumbnail")));
+        }
+        return book;
+    }
+
+    private static String isbnOf(Object identifiers) {
+        if (!(identifiers instanceof List<?> list)) {
+            return null;
+        }
+        String first = null;
+        for (Object entry : list) {
+            if (entry instanceof Map<?, ?> identifier) {
+                String value = asString(identifier.get("identifier"));
+                if ("ISBN_13".equals(identifier.get("type"))) {
+                    return value;
+                }
+                if (first == null) {
+                    first = value;
+                }
+            }
+        }
+        return first;
+    }
+
+    private static String joined(Object values) {
+        if (!(values instanceof List<?> list) || list.isEmpty()) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>(list.size());
+        list.forEach(value -> parts.add(String.valueOf(value)));
+        return String.join(", ", parts);
+    }
+
+    private static String asString(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
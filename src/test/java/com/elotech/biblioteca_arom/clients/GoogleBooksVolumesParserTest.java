@@ -0,0 +1,85 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe GoogleBooksVolumesParser, usando respostas gravadas da API do Google Books.
+ */
+public class GoogleBooksVolumesParserTest {
+
+    private static List<Book> parseResource(String name) throws IOException {
+        try (InputStream body = GoogleBooksVolumesParserTest.class.getResourceAsStream("/google-books/" + name)) {
+            return GoogleBooksVolumesParser.parse(body);
+        }
+    }
+
+    /**
+     * Testa a leitura de uma resposta completa.
+     * Verifica se os campos do livro são preenchidos, preferindo o ISBN-13 ao ISBN-10.
+     */
+    @Test
+    public void testParse_mapsVolumeInfoIntoBooks() throws IOException {
+        List<Book> books = parseResource("volumes.json");
+
+        assertEquals(5, books.size());
+        Book first = books.getFirst();
+        assertEquals("Effective Java", first.getTitle());
+        assertEquals("Joshua Bloch", first.getAuthor());
+        assertEquals("9780321356680", first.getIsbn());
+        assertEquals("2008-05-08", first.getPublicationDate());
+        assertEquals("Computers", first.getCategory());
+        assertTrue(first.getThumbnail_url().endsWith("zoom=1"));
+        assertNull(first.getId());
+        assertEquals("Computers, Software Engineering", books.get(1).getCategory());
+        assertEquals("O Senhor dos Anéis", books.get(3).getTitle());
+    }
+
+    /**
+     * Testa se o primeiro identificador é usado quando o volume não tem ISBN-13.
+     */
+    @Test
+    public void testParse_fallsBackToFirstIdentifier() throws IOException {
+        Book book = parseResource("volumes.json").getLast();
+
+        assertEquals("Dom Casmurro", book.getTitle());
+        assertTrue(book.getIsbn().startsWith("UOM:"));
+    }
+
+    /**
+     * Testa a leitura de uma resposta sem itens.
+     */
+    @Test
+    public void testParse_withoutItems() throws IOException {
+        assertTrue(parseResource("volumes-empty.json").isEmpty());
+    }
+
+    /**
+     * Testa se campos ausentes, nulos ou com tipos inesperados são ignorados sem erro.
+     */
+    @Test
+    public void testParse_toleratesMissingAndUnexpectedFields() throws IOException {
+        String json = """
+                {"items": [
+                  {"id": "x"},
+                  {"volumeInfo": {"title": "Sem autor", "authors": null, "categories": [], "imageLinks": "n/a",
+                                  "industryIdentifiers": [{"identifier": "123"}], "extra": {"a": [1, 2, {"b": 3}]}}}
+                ]}""";
+
+        List<Book> books = GoogleBooksVolumesParser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(1, books.size());
+        assertEquals("Sem autor", books.getFirst().getTitle());
+        assertNull(books.getFirst().getAuthor());
+        assertNull(books.getFirst().getCategory());
+        assertNull(books.getFirst().getThumbnail_url());
+        assertEquals("123", books.getFirst().getIsbn());
+    }
+}
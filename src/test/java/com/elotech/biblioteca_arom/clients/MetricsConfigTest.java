@@ -0,0 +1,117 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import com.elotech.biblioteca_arom.repositories.UserRepository;
+import com.elotech.biblioteca_arom.services.BookAvailabilityIndex;
+import com.elotech.biblioteca_arom.services.UserService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.MeterNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe MetricsConfig, cobrindo o gauge de empréstimos ativos e os timers dos serviços,
+ * com o aspecto e com {@link ServiceTimers}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class MetricsConfigTest {
+
+    @Mock
+    private BookAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final MetricsConfig config = new MetricsConfig();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    /**
+     * Testa se o gauge de empréstimos ativos usa o índice em memória quando ele está pronto
+     * e a contagem no banco enquanto ele não está.
+     */
+    @Test
+    public void testActiveLoansGauge() {
+        config.activeLoansGauge(availabilityIndex, loanRepository).bindTo(registry);
+
+        when(availabilityIndex.isReady()).thenReturn(false);
+        when(loanRepository.countByStatus(Status.EMPRESTADO)).thenReturn(3L);
+        assertEquals(3.0, registry.get(MetricsConfig.ACTIVE_LOANS_GAUGE).gauge().value());
+
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.onLoanCount()).thenReturn(7);
+        assertEquals(7.0, registry.get(MetricsConfig.ACTIVE_LOANS_GAUGE).gauge().value());
+    }
+
+    /**
+     * Testa se os métodos de um serviço anotado com @Timed são medidos, com o nome do método
+     * e a exceção lançada nas tags.
+     */
+    @Test
+    public void testServiceTimers() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new UserService(userRepository));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(config.timedAspect(registry));
+        UserService userService = factory.getProxy();
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.createUser(new User(null, "Ana", "ana@example.com", LocalDate.now(), "123456789", null));
+        assertThrows(RuntimeException.class,
+                () -> userService.createUser(new User(null, "Ana", "ana", LocalDate.now(), "123456789", null)));
+
+        Timer succeeded = registry.get(MetricsConfig.SERVICE_TIMER)
+                .tags("class", UserService.class.getName(), "method", "createUser", "exception", "none").timer();
+        Timer failed = registry.get(MetricsConfig.SERVICE_TIMER)
+                .tags("method", "createUser", "exception", "RuntimeException").timer();
+        assertEquals(1, succeeded.count());
+        assertEquals(1, failed.count());
+    }
+
+    /**
+     * Testa se os timers registrados no construtor usam as mesmas tags do aspecto, com a exceção
+     * lançada na tag {@code exception}.
+     */
+    @Test
+    public void testServiceTimersWithoutAspect() {
+        ServiceTimers timers = new ServiceTimers(registry, UserService.class, "createUser");
+
+        assertEquals("ok", timers.record("createUser", () -> "ok"));
+        assertThrows(IllegalStateException.class, () -> timers.run("createUser", () -> {
+            throw new IllegalStateException();
+        }));
+
+        Timer succeeded = registry.get(MetricsConfig.SERVICE_TIMER)
+                .tags("class", UserService.class.getName(), "method", "createUser", "exception", "none").timer();
+        Timer failed = registry.get(MetricsConfig.SERVICE_TIMER)
+                .tags("method", "createUser", "exception", "IllegalStateException").timer();
+        assertEquals(1, succeeded.count());
+        assertEquals(1, failed.count());
+    }
+
+    /**
+     * Testa se o filtro usado com {@code biblioteca.metrics.service-timers=false} descarta os timers dos serviços.
+     */
+    @Test
+    public void testServiceTimersFilter() {
+        registry.config().meterFilter(config.serviceTimersFilter());
+        ServiceTimers timers = new ServiceTimers(registry, UserService.class, "createUser");
+
+        assertEquals("ok", timers.record("createUser", () -> "ok"));
+
+        assertThrows(MeterNotFoundException.class, () -> registry.get(MetricsConfig.SERVICE_TIMER).timer());
+    }
+}
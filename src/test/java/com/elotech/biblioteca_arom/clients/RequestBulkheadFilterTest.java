@@ -0,0 +1,78 @@
+package com.elotech.biblioteca_arom.clients;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe RequestBulkheadFilter, com requisições simuladas presas dentro da cadeia
+ * de filtros para ocupar as vagas.
+ */
+public class RequestBulkheadFilterTest {
+
+    /**
+     * Testa se uma requisição além do limite espera o prazo e recebe 503 com Retry-After,
+     * e se as vagas são devolvidas quando as requisições terminam.
+     */
+    @Test
+    public void testDoFilter_rejectsWhenFull() throws Exception {
+        RequestBulkheadFilter filter = new RequestBulkheadFilter(2, 50);
+        CountDownLatch inside = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (request, response) -> {
+            inside.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> first = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), blocking);
+                return null;
+            });
+            Future<?> second = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), blocking);
+                return null;
+            });
+            assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+            MockHttpServletResponse rejected = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest(), rejected, (request, response) -> fail("não deveria ser atendida"));
+            assertEquals(503, rejected.getStatus());
+            assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, filter.availablePermits());
+    }
+
+    /**
+     * Testa se as requisições dentro do limite passam pela cadeia normalmente.
+     */
+    @Test
+    public void testDoFilter_passesWithinLimit() throws Exception {
+        RequestBulkheadFilter filter = new RequestBulkheadFilter(1, 50);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, (req, res) -> ((MockHttpServletResponse) res).setStatus(200));
+        filter.doFilter(new MockHttpServletRequest(), response, (req, res) -> ((MockHttpServletResponse) res).setStatus(200));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1, filter.availablePermits());
+    }
+}
@@ -0,0 +1,66 @@
+package com.elotech.biblioteca_arom.clients;
+
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o custo que os {@link ServiceTimers} somam a cada chamada ({@code timed} menos {@code direct}),
+ * com o registro Prometheus da aplicação e com os timers descartados pelo filtro de
+ * {@code biblioteca.metrics.service-timers=false}.
+ * <p>
+ * A diferença entre {@code serviceTimers} ligado e desligado em {@code ServiceHotPathBenchmark.createLoan}
+ * varia mais que 1% de uma execução para outra; medido isoladamente, o custo do timer fica na casa das
+ * dezenas de nanossegundos e pode ser comparado com o tempo de {@code createLoan}.
+ * Rodar pelo perfil {@code benchmarks} do Maven.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(5)
+public class ServiceTimersBenchmark {
+
+    @Param({"true", "false"})
+    public boolean serviceTimers;
+
+    private ServiceTimers timers;
+    private long calls;
+
+    @Setup(Level.Trial)
+    public void start() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        if (!serviceTimers) {
+            registry.config().meterFilter(new MetricsConfig().serviceTimersFilter());
+        }
+        timers = new ServiceTimers(registry, ServiceTimersBenchmark.class, "call");
+    }
+
+    @Benchmark
+    public Long direct() {
+        return call();
+    }
+
+    @Benchmark
+    public Long timed() {
+        return timers.record("call", this::call);
+    }
+
+    private Long call() {
+        return calls++;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ServiceTimersBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
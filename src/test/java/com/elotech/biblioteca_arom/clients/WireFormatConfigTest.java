@@ -0,0 +1,45 @@
+package com.elotech.biblioteca_arom.clients;
+
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe WireFormatConfig, cobrindo a ida e volta das listas de empréstimos
+ * nos formatos binários e o tamanho de cada formato em relação ao JSON.
+ */
+public class WireFormatConfigTest {
+
+    private static final List<LoanDTO> LOANS = LongStream.rangeClosed(1, 200)
+            .mapToObj(id -> new LoanDTO(id, LocalDate.of(2024, 1, 1).plusDays(id), null, Status.EMPRESTADO,
+                    "User " + id % 10, "Book " + id))
+            .toList();
+
+    /**
+     * Testa se as listas de empréstimos voltam iguais do Smile e do CBOR, e se o Smile,
+     * que não repete os nomes dos campos, fica menor que o JSON.
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper smile = WireFormatConfig.smileMapper(new Jackson2ObjectMapperBuilder());
+        ObjectMapper cbor = WireFormatConfig.cborMapper(new Jackson2ObjectMapperBuilder());
+        byte[] jsonBytes = json.writeValueAsBytes(LOANS);
+
+        for (ObjectMapper mapper : List.of(smile, cbor)) {
+            byte[] bytes = mapper.writeValueAsBytes(LOANS);
+            List<LoanDTO> decoded = mapper.readerForListOf(LoanDTO.class).readValue(bytes);
+            assertEquals(json.writeValueAsString(LOANS), json.writeValueAsString(decoded));
+            assertTrue(bytes.length < jsonBytes.length);
+        }
+        assertTrue(smile.writeValueAsBytes(LOANS).length < jsonBytes.length / 2);
+    }
+}
@@ -0,0 +1,85 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da compressão gzip nas listagens com ETag, com a aplicação rodando num Tomcat de verdade:
+ * o Tomcat só comprime respostas sem ETag ou com ETag fraco.
+ */
+public class CompressionTest {
+
+    private static final int BOOKS = 200;
+
+    private static ConfigurableApplicationContext context;
+    private static HttpClient client;
+    private static URI books;
+
+    /**
+     * Inicia a aplicação numa porta livre, com um H2 próprio, e cadastra livros suficientes para
+     * passar do tamanho mínimo de compressão.
+     */
+    @BeforeAll
+    static void start() {
+        Map<String, String> h2 = new HashMap<>(BenchmarkApplication.H2);
+        h2.put("spring.datasource.url", "jdbc:h2:mem:compression;DB_CLOSE_DELAY=-1");
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, h2, Map.of("server.port", "0"));
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into book (id, title, author, isbn, publication_date, category) values (?, ?, ?, ?, ?, ?)",
+                LongStream.rangeClosed(1, BOOKS).mapToObj(id -> new Object[]{
+                        id, "Book " + id, "Author " + id % 10, "isbn-" + id, "2020", "Fiction"}).toList());
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        books = URI.create("http://localhost:" + port + "/api/books");
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    /**
+     * Testa se a listagem de livros vem com gzip e com ETag fraco para um cliente que aceita gzip,
+     * e se o mesmo ETag ainda recebe 304 na consulta seguinte.
+     */
+    @Test
+    public void testListEndpoint_isGzipped() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(books)
+                .header("Accept-Encoding", "gzip")
+                .GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("W/\""), etag);
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            assertTrue(new String(body.readAllBytes(), StandardCharsets.UTF_8).contains("\"Book " + BOOKS + "\""));
+        }
+
+        HttpResponse<byte[]> revalidated = client.send(HttpRequest.newBuilder(books)
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", etag)
+                .GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(304, revalidated.statusCode());
+    }
+}
@@ -0,0 +1,141 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simula o front end consultando periodicamente uma listagem ({@code endpoint}) e mede a latência de cada
+ * consulta, com e sem os cabeçalhos condicionais ({@code conditional}). A cada {@code writeEvery} consultas
+ * um usuário é alterado, o que invalida as listagens de usuários e de empréstimos, mas não a de livros.
+ * Ao fim de cada execução são impressos os bytes recebidos por consulta e a fração de respostas 304.
+ * <p>
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.controllers.ConditionalGetBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ConditionalGetBenchmark {
+
+    private static final int USERS = 500;
+    private static final int BOOKS = 2_000;
+    private static final int LOANS = 5_000;
+
+    @Param({"/api/books", "/api/users", "/api/loans"})
+    public String endpoint;
+
+    @Param({"false", "true"})
+    public boolean conditional;
+
+    @Param({"20"})
+    public int writeEvery;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private HttpClient client;
+    private URI uri;
+    private String etag;
+    private long polls;
+    private long notModified;
+    private long bytes;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, BenchmarkApplication.H2, Map.of("server.port", "0"));
+        seed(context.getBean(JdbcTemplate.class));
+        userService = context.getBean(UserService.class);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        uri = URI.create("http://localhost:" + port + endpoint);
+        client = HttpClient.newHttpClient();
+    }
+
+    private static void seed(JdbcTemplate jdbc) {
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (long u = 1; u <= USERS; u++) {
+            rows.add(new Object[]{u, "User " + u, "user" + u + "@example.com", Date.valueOf(today), "123456789"});
+        }
+        jdbc.batchUpdate("insert into users (id, name, email, registration_date, phone_number) values (?, ?, ?, ?, ?)", rows);
+        rows.clear();
+        for (long b = 1; b <= BOOKS; b++) {
+            rows.add(new Object[]{b, "Book " + b, "Author " + b % 100, "isbn-" + b, "2020", "Fiction"});
+        }
+        jdbc.batchUpdate("insert into book (id, title, author, isbn, publication_date, category) values (?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+        for (long l = 1; l <= LOANS; l++) {
+            rows.add(new Object[]{l, 1 + l % USERS, 1 + l % BOOKS, Date.valueOf(today.minusDays(l % 30)), Date.valueOf(today)});
+        }
+        jdbc.batchUpdate("insert into loan (id, user_id, book_id, loan_date, return_date, status, overdue) "
+                + "values (?, ?, ?, ?, ?, 'PRESENTE', false)", rows);
+    }
+
+    @Benchmark
+    public int poll() throws IOException, InterruptedException {
+        polls++;
+        if (writeEvery > 0 && polls % writeEvery == 0) {
+            User user = userService.getUserById(1 + polls / writeEvery % USERS);
+            user.setPhoneNumber(Long.toString(polls));
+            userService.updateUser(user.getId(), user);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+        if (conditional && etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 304) {
+            notModified++;
+        } else {
+            etag = response.headers().firstValue("ETag").orElse(null);
+        }
+        bytes += response.body().length;
+        return response.statusCode();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long requests = Math.max(1, polls);
+        System.out.printf("%n%s conditional=%s: %d bytes por consulta, %.0f%% de respostas 304%n",
+                endpoint, conditional, bytes / requests, 100.0 * notModified / requests);
+        polls = 0;
+        notModified = 0;
+        bytes = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConditionalGetBenchmark.class.getSimpleName())
+                .jvmArgsAppend(BenchmarkApplication.datasourceJvmArgs())
+                .build();
+        new Runner(options).run();
+    }
+}
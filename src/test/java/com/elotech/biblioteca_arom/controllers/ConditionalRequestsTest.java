@@ -0,0 +1,66 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.clients.WireFormatConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe ConditionalRequests, cobrindo as respostas 304 e o ETag fraco de cada formato.
+ */
+public class ConditionalRequestsTest {
+
+    private static final String ETAG = "\"abc-1-2\"";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    /**
+     * Testa se a primeira consulta recebe o ETag, o Last-Modified e o Vary, e se a consulta seguinte
+     * com o mesmo ETag recebe 304.
+     */
+    @Test
+    public void testNotModified_withMatchingEtag() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertFalse(ConditionalRequests.notModified(webRequest(null, null, first), ETAG, LAST_MODIFIED));
+        assertEquals("W/" + ETAG, first.getHeader(HttpHeaders.ETAG));
+        assertEquals(HttpHeaders.ACCEPT, first.getHeader(HttpHeaders.VARY));
+        assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertTrue(ConditionalRequests.notModified(webRequest(null, "W/" + ETAG, second), ETAG, LAST_MODIFIED));
+        assertEquals(304, second.getStatus());
+
+        // Um cliente que ainda guarda o ETag forte também recebe 304
+        MockHttpServletResponse strong = new MockHttpServletResponse();
+        assertTrue(ConditionalRequests.notModified(webRequest(null, ETAG, strong), ETAG, LAST_MODIFIED));
+    }
+
+    /**
+     * Testa se cada formato binário tem o seu próprio ETag, de modo que o ETag do JSON
+     * não valide uma resposta Smile.
+     */
+    @Test
+    public void testNotModified_etagPerFormat() {
+        MockHttpServletResponse smile = new MockHttpServletResponse();
+        assertFalse(ConditionalRequests.notModified(webRequest(WireFormatConfig.SMILE_VALUE, ETAG, smile), ETAG, LAST_MODIFIED));
+        assertEquals("W/\"abc-1-2-smile\"", smile.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse cbor = new MockHttpServletResponse();
+        assertTrue(ConditionalRequests.notModified(webRequest(WireFormatConfig.CBOR_VALUE, "\"abc-1-2-cbor\"", cbor),
+                ETAG, LAST_MODIFIED));
+    }
+
+    private static ServletWebRequest webRequest(String accept, String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,78 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a serialização em JSON das listas de livros e de empréstimos devolvidas pela API, com um
+ * {@link ObjectMapper} configurado como o do Spring Boot. Cada livro traz os seus empréstimos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final int LOANS_PER_BOOK = 5;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Book> books;
+    private List<Loan> loans;
+
+    @Setup(Level.Trial)
+    public void build() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        books = new ArrayList<>(size);
+        loans = new ArrayList<>(size * LOANS_PER_BOOK);
+        User user = new User(1L, "Miquella the Kind", "miquella@kind.com", LocalDate.of(2019, 12, 31), "123456789", null);
+        for (long id = 1; id <= size; id++) {
+            List<Loan> bookLoans = new ArrayList<>(LOANS_PER_BOOK);
+            Book book = new Book(id, "Neon Genesis Evangelion " + id, "Hideaki Anno", "978000000" + id, "1994-12-26",
+                    "Fiction", "https://books.example.com/thumbs/" + id + ".jpg", bookLoans);
+            for (int l = 0; l < LOANS_PER_BOOK; l++) {
+                LocalDate loanDate = LocalDate.of(2024, 1, 1).plusDays(l * 20L);
+                Loan loan = new Loan(id * LOANS_PER_BOOK + l, user, book, loanDate, loanDate.plusDays(10), Status.PRESENTE);
+                bookLoans.add(loan);
+                loans.add(loan);
+            }
+            books.add(book);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeLoans() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loans);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JsonSerializationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,287 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.services.LoanService;
+import com.elotech.biblioteca_arom.services.LoanStreamHub;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compara {@code dashboards} painéis de circulação acompanhando os empréstimos de três formas ({@code mode}):
+ * <ul>
+ *     <li>{@code sse}: cada painel mantém aberta uma conexão com {@code GET /api/loans/stream};</li>
+ *     <li>{@code polling}: cada painel consulta {@code GET /api/loans} a cada {@code pollMillis};</li>
+ *     <li>{@code polling-etag}: como o anterior, mas com {@code If-None-Match}, recebendo 304 quando nada mudou.</li>
+ * </ul>
+ * Cada execução dura {@code seconds} segundos, com {@code writesPerSecond} empréstimos criados ou devolvidos
+ * por segundo. Ao fim de cada execução são impressos o tempo de CPU do processo, o heap ocupado depois de
+ * um GC, a quantidade de threads de plataforma, as requisições atendidas e as alterações recebidas pelos painéis.
+ * Os painéis simulados rodam no mesmo processo (em threads virtuais), então o CPU inclui o lado cliente,
+ * que é pequeno perto do servidor nos modos de consulta periódica.
+ * <p>
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.controllers.LoanStreamLoadBenchmark}.
+ * Com 5 mil painéis, o sistema operacional precisa permitir ao menos 12 mil arquivos abertos ({@code ulimit -n}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class LoanStreamLoadBenchmark {
+
+    private static final int USERS = 500;
+    private static final int BOOKS = 2_000;
+    private static final int LOANS = 1_000;
+    // Os empréstimos do acervo usam IDs altos, para não colidir com os gerados pelo Hibernate
+    private static final long SEEDED_ID = 1_000_000;
+
+    @Param({"sse", "polling", "polling-etag"})
+    public String mode;
+
+    @Param({"5000"})
+    public int dashboards;
+
+    @Param({"3000"})
+    public int pollMillis;
+
+    @Param({"5"})
+    public int writesPerSecond;
+
+    @Param({"30"})
+    public int seconds;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private LoanStreamHub hub;
+    private HttpClient client;
+    private ExecutorService dashboardThreads;
+    private String baseUrl;
+    private final List<InputStream> streams = new ArrayList<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private volatile boolean running;
+    private long nextBook = LOANS;
+    private final List<Long> openLoans = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void start() {
+        Map<String, String> properties = Map.of("server.port", "0",
+                "biblioteca.loan-stream.max-subscribers", String.valueOf(dashboards + 100),
+                "server.tomcat.max-connections", String.valueOf(dashboards * 2 + 100),
+                "server.tomcat.accept-count", String.valueOf(dashboards),
+                "spring.jpa.properties.hibernate.generate_statistics", "false");
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, BenchmarkApplication.H2, properties);
+        seed(context.getBean(JdbcTemplate.class));
+        loanService = context.getBean(LoanService.class);
+        hub = context.getBean(LoanStreamHub.class);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/loans";
+        dashboardThreads = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder().executor(dashboardThreads).build();
+    }
+
+    private static void seed(JdbcTemplate jdbc) {
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (long u = 1; u <= USERS; u++) {
+            rows.add(new Object[]{u, "User " + u, "user" + u + "@example.com", Date.valueOf(today), "123456789"});
+        }
+        jdbc.batchUpdate("insert into users (id, name, email, registration_date, phone_number) values (?, ?, ?, ?, ?)", rows);
+        rows.clear();
+        for (long b = 1; b <= BOOKS; b++) {
+            rows.add(new Object[]{b, "Book " + b, "Author " + b % 100, "isbn-" + b, "2020", "Fiction"});
+        }
+        jdbc.batchUpdate("insert into book (id, title, author, isbn, publication_date, category) values (?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+        for (long l = 1; l <= LOANS; l++) {
+            rows.add(new Object[]{SEEDED_ID + l, 1 + l % USERS, l, Date.valueOf(today.minusDays(l % 30)), Date.valueOf(today)});
+        }
+        jdbc.batchUpdate("insert into loan (id, user_id, book_id, loan_date, return_date, status, overdue) "
+                + "values (?, ?, ?, ?, ?, 'PRESENTE', false)", rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void connect() throws Exception {
+        running = true;
+        if (mode.equals("sse")) {
+            for (int i = 0; i < dashboards; i++) {
+                HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/stream"))
+                        .header("Accept", "text/event-stream").GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+                InputStream body = response.body();
+                synchronized (streams) {
+                    streams.add(body);
+                }
+                dashboardThreads.execute(() -> readEvents(body));
+            }
+            while (hub.getSubscriberCount() < dashboards) {
+                Thread.sleep(10);
+            }
+        } else {
+            for (int i = 0; i < dashboards; i++) {
+                dashboardThreads.execute(this::poll);
+            }
+        }
+        // Deixa as conexões e as consultas se estabilizarem antes da medição
+        Thread.sleep(pollMillis);
+        requests.set(0);
+        received.set(0);
+        notModified.set(0);
+    }
+
+    private void readEvents(InputStream body) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("event:")) {
+                    received.incrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            // Conexão encerrada ao fim da execução
+        }
+    }
+
+    private void poll() {
+        boolean conditional = mode.equals("polling-etag");
+        String etag = null;
+        String lastBody = null;
+        try {
+            // Espalha as consultas dos painéis pelo intervalo, como painéis abertos em momentos diferentes
+            Thread.sleep(ThreadLocalRandom.current().nextInt(pollMillis));
+            while (running) {
+                HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl)).GET();
+                if (conditional && etag != null) {
+                    request.header("If-None-Match", etag);
+                }
+                HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                requests.incrementAndGet();
+                if (response.statusCode() == 304) {
+                    notModified.incrementAndGet();
+                } else {
+                    etag = response.headers().firstValue("ETag").orElse(null);
+                    if (lastBody != null && !lastBody.equals(response.body())) {
+                        received.incrementAndGet();
+                    }
+                    lastBody = response.body();
+                }
+                Thread.sleep(pollMillis);
+            }
+        } catch (Exception e) {
+            // Interrompido ao fim da execução
+        }
+    }
+
+    @Benchmark
+    public long window() throws InterruptedException {
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long cpuBefore = os.getProcessCpuTime();
+        long start = System.nanoTime();
+        long writes = 0;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / writesPerSecond;
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < end) {
+            write();
+            writes++;
+            long next = start + writes * intervalNanos;
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, next - System.nanoTime()));
+        }
+        long cpuMillis = (os.getProcessCpuTime() - cpuBefore) / 1_000_000;
+
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapMb = memory.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.out.printf("%n%s com %d painéis: CPU %d ms (%.0f%% de um núcleo), heap %d MB, %d threads de plataforma, "
+                        + "%d requisições (%d respostas 304), %d alterações escritas, %d recebidas pelos painéis%n",
+                mode, dashboards, cpuMillis, 100.0 * cpuMillis / (seconds * 1000L), heapMb, threads,
+                requests.get(), notModified.get(), writes, received.get());
+        return cpuMillis;
+    }
+
+    /**
+     * Alterna entre criar um empréstimo de um livro livre e devolver o empréstimo aberto mais antigo.
+     */
+    private void write() {
+        if (openLoans.size() < 50) {
+            Book book = new Book();
+            book.setId(1 + nextBook++ % BOOKS);
+            User user = new User();
+            user.setId(1 + nextBook % USERS);
+            Loan loan = new Loan();
+            loan.setBook(book);
+            loan.setUser(user);
+            try {
+                openLoans.add(loanService.createLoan(loan).getId());
+            } catch (RuntimeException e) {
+                // Livro ainda emprestado; tenta o próximo na próxima escrita
+            }
+        } else {
+            loanService.updateLoan(openLoans.removeFirst(), LocalDate.now(), null);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void disconnect() throws Exception {
+        running = false;
+        synchronized (streams) {
+            for (InputStream stream : streams) {
+                stream.close();
+            }
+            streams.clear();
+        }
+        while (hub.getSubscriberCount() > 0) {
+            hub.heartbeat();
+            Thread.sleep(50);
+        }
+        Thread.sleep(pollMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        dashboardThreads.shutdownNow();
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LoanStreamLoadBenchmark.class.getSimpleName())
+                .jvmArgsAppend(BenchmarkApplication.datasourceJvmArgs())
+                .build();
+        new Runner(options).run();
+    }
+}
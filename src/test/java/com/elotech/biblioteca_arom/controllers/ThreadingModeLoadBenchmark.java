@@ -0,0 +1,147 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compara o modo padrão (threads de plataforma do Tomcat) com o perfil {@code virtual} sob alta concorrência.
+ * Cada execução dispara {@code requests} chamadas a {@code GET /api/loans/user/{id}/details}, com até
+ * {@code concurrency} clientes ao mesmo tempo, e mede o tempo total; a latência p50/p99 e a quantidade
+ * de respostas diferentes de 200 são impressas ao fim de cada execução. Os dois modos usam o mesmo
+ * tamanho de pool de conexões.
+ * <p>
+ * Por padrão usa um H2 em memória, em que as consultas quase não esperam pelo banco e a diferença entre
+ * os modos aparece pouco. Para um resultado representativo, aponte para um PostgreSQL descartável
+ * como descrito em {@link BenchmarkApplication}.
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.controllers.ThreadingModeLoadBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ThreadingModeLoadBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final int LOANS_PER_USER = 20;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"2000"})
+    public int concurrency;
+
+    @Param({"20000"})
+    public int requests;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private ExecutorService clients;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        Map<String, String> properties = Map.of("server.port", "0",
+                "spring.datasource.hikari.maximum-pool-size", "32",
+                "server.tomcat.accept-count", String.valueOf(concurrency));
+        String[] profiles = mode.equals("virtual") ? new String[]{"virtual"} : new String[0];
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, BenchmarkApplication.H2, properties, profiles);
+        seed(context.getBean(JdbcTemplate.class));
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/loans/user/";
+        clients = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder().executor(clients).build();
+    }
+
+    private static void seed(JdbcTemplate jdbc) {
+        LocalDate today = LocalDate.now();
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> books = new ArrayList<>();
+        List<Object[]> loans = new ArrayList<>();
+        for (long u = 1; u <= USERS; u++) {
+            users.add(new Object[]{u, "User " + u, "user" + u + "@example.com", Date.valueOf(today), "123456789"});
+            for (int l = 0; l < LOANS_PER_USER; l++) {
+                long id = (u - 1) * LOANS_PER_USER + l + 1;
+                books.add(new Object[]{id, "Book " + id, "Author", "isbn-" + id, "2020", "Fiction"});
+                loans.add(new Object[]{id, u, id, Date.valueOf(today), Date.valueOf(today.plusDays(14))});
+            }
+        }
+        jdbc.batchUpdate("insert into users (id, name, email, registration_date, phone_number) values (?, ?, ?, ?, ?)", users);
+        jdbc.batchUpdate("insert into book (id, title, author, isbn, publication_date, category) values (?, ?, ?, ?, ?, ?)", books);
+        jdbc.batchUpdate("insert into loan (id, user_id, book_id, loan_date, due_date, status, overdue) "
+                + "values (?, ?, ?, ?, ?, 'EMPRESTADO', false)", loans);
+    }
+
+    @Benchmark
+    public int load() throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                int index = i;
+                senders.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + (1 + index % USERS) + "/details"))
+                            .GET().build();
+                    long start = System.nanoTime();
+                    try {
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - start;
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%n%s: p50 %.1f ms, p99 %.1f ms, %d falhas%n", mode,
+                latencies[requests / 2] / 1e6, latencies[(int) (requests * 0.99)] / 1e6, failures.get());
+        return failures.get();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        clients.close();
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ThreadingModeLoadBenchmark.class.getSimpleName())
+                .jvmArgsAppend(BenchmarkApplication.datasourceJvmArgs())
+                .build();
+        new Runner(options).run();
+    }
+}
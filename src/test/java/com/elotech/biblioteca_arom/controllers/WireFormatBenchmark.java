@@ -0,0 +1,126 @@
+package com.elotech.biblioteca_arom.controllers;
+
+import com.elotech.biblioteca_arom.clients.WireFormatConfig;
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compara os formatos de resposta das listagens em massa com 100 mil linhas: JSON, JSON com gzip
+ * (como o Tomcat comprime com {@code server.compression.enabled}), Smile, Smile com gzip e CBOR.
+ * Mede o tempo de serialização no servidor ({@code serialize}) e o de decodificação no cliente
+ * ({@code decode}); o tamanho de cada resposta é impresso na preparação.
+ * <p>
+ * Executar pelo perfil {@code benchmarks} do Maven com {@code -Djmh.includes=WireFormatBenchmark} ou com
+ * {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.controllers.WireFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class WireFormatBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final String[] CATEGORIES = {"Fiction", "History", "Science", "Poetry", "Biography", "Art"};
+
+    @Param({"json", "json-gzip", "smile", "smile-gzip", "cbor"})
+    public String format;
+
+    @Param({"loans", "books"})
+    public String payload;
+
+    private ObjectMapper mapper;
+    private ObjectReader reader;
+    private boolean gzip;
+    private List<?> rows;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        mapper = switch (format) {
+            case "json", "json-gzip" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile", "smile-gzip" -> WireFormatConfig.smileMapper(new Jackson2ObjectMapperBuilder());
+            case "cbor" -> WireFormatConfig.cborMapper(new Jackson2ObjectMapperBuilder());
+            default -> throw new IllegalArgumentException(format);
+        };
+        gzip = format.endsWith("-gzip");
+        if (payload.equals("loans")) {
+            rows = loans();
+            reader = mapper.readerForListOf(LoanDTO.class);
+        } else {
+            rows = books();
+            reader = mapper.readerForListOf(Book.class);
+        }
+        encoded = serialize();
+        System.out.printf("%n%s %s: %d bytes (%.1f bytes por linha)%n",
+                payload, format, encoded.length, (double) encoded.length / ROWS);
+    }
+
+    private static List<LoanDTO> loans() {
+        List<LoanDTO> loans = new ArrayList<>(ROWS);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (long id = 1; id <= ROWS; id++) {
+            LocalDate loanDate = start.plusDays(id % 365);
+            loans.add(new LoanDTO(id, loanDate, id % 3 == 0 ? null : loanDate.plusDays(10),
+                    id % 3 == 0 ? Status.EMPRESTADO : Status.PRESENTE, "User " + id % 5_000, "Book " + id % 20_000));
+        }
+        return loans;
+    }
+
+    private static List<Book> books() {
+        List<Book> books = new ArrayList<>(ROWS);
+        for (long id = 1; id <= ROWS; id++) {
+            books.add(new Book(id, "Book " + id, "Author " + id % 2_000, "978" + (1_000_000_000L + id), "2020",
+                    CATEGORIES[(int) (id % CATEGORIES.length)], "https://books.example.com/thumbs/" + id + ".jpg",
+                    List.of()));
+        }
+        return books;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes) {
+            mapper.writeValue(out, rows);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<?> decode() throws IOException {
+        InputStream bytes = new ByteArrayInputStream(encoded);
+        try (InputStream in = gzip ? new GZIPInputStream(bytes, 8192) : bytes) {
+            return reader.readValue(in);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(WireFormatBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,133 @@
+package com.elotech.biblioteca_arom.repositories;
+
+import com.elotech.biblioteca_arom.clients.EntityCacheConfig;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de carga para o cache de segundo nível de livros e usuários.
+ * Cada chamada ao repositório roda na sua própria transação, como nas requisições da API,
+ * e as estatísticas do Hibernate mostram quantos comandos SQL chegaram ao banco.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+@Import(EntityCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EntityCacheTest {
+
+    private static final int BOOKS = 20;
+    private static final int USERS = 5;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Long> bookIds = new ArrayList<>();
+    private final List<Long> userIds = new ArrayList<>();
+
+    /**
+     * Cadastra livros e usuários, esvazia o cache e zera as estatísticas.
+     */
+    @BeforeEach
+    void setUp() {
+        for (int b = 0; b < BOOKS; b++) {
+            Book book = new Book(null, "Book " + b, "Author", "97800000000" + b, "2020", "Fiction", null, null);
+            bookIds.add(bookRepository.save(book).getId());
+        }
+        for (int u = 0; u < USERS; u++) {
+            User user = new User(null, "User " + u, "user" + u + "@example.com", LocalDate.now(), "123456789", null);
+            userIds.add(userRepository.save(user).getId());
+        }
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Testa as leituras repetidas por ID: só a primeira leitura de cada entidade vai ao banco,
+     * as demais são atendidas pelo cache.
+     */
+    @Test
+    public void testFindById_readsThroughCache() {
+        for (int round = 0; round < ROUNDS; round++) {
+            bookIds.forEach(id -> assertTrue(bookRepository.findById(id).isPresent()));
+            userIds.forEach(id -> assertTrue(userRepository.findById(id).isPresent()));
+        }
+
+        assertEquals(BOOKS + USERS, statistics.getPrepareStatementCount());
+        assertEquals((long) (ROUNDS - 1) * (BOOKS + USERS), statistics.getSecondLevelCacheHitCount());
+        assertEquals((long) (ROUNDS - 1) * BOOKS,
+                statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount());
+        assertEquals((long) (ROUNDS - 1) * USERS,
+                statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+    }
+
+    /**
+     * Testa se a atualização de um livro substitui a entrada do cache no commit,
+     * sem que a próxima leitura devolva o valor antigo.
+     */
+    @Test
+    public void testUpdate_refreshesCachedEntity() {
+        Long id = bookIds.getFirst();
+        Book book = bookRepository.findById(id).orElseThrow();
+        book.setTitle("Novo título");
+        bookRepository.save(book);
+        statistics.clear();
+
+        assertEquals("Novo título", bookRepository.findById(id).orElseThrow().getTitle());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Testa se a exclusão de um usuário invalida a entrada do cache: a próxima leitura não é atendida
+     * pelo cache e vai ao banco. A região READ_WRITE guarda uma trava no lugar da entrada,
+     * por isso a invalidação é verificada pelas estatísticas e não por {@code Cache.contains}.
+     */
+    @Test
+    public void testDelete_evictsCachedEntity() {
+        Long id = userIds.getFirst();
+        assertTrue(userRepository.findById(id).isPresent());
+
+        userRepository.deleteById(id);
+        statistics.clear();
+
+        assertTrue(userRepository.findById(id).isEmpty());
+        assertEquals(0, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getMissCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,199 @@
+package com.elotech.biblioteca_arom.repositories;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede, no PostgreSQL, o ganho de cada ajuste do perfil {@code prod}. O parâmetro {@code step} aplica os
+ * ajustes de forma cumulativa, do padrão do driver e do Hibernate até o perfil {@code prod} completo:
+ * <ul>
+ *     <li>{@code baseline}: sem lotes JDBC, prepared statements no servidor só a partir da 5ª execução;</li>
+ *     <li>{@code batching}: lotes de 50 com INSERTs e UPDATEs ordenados;</li>
+ *     <li>{@code rewrite}: {@code reWriteBatchedInserts}, cada lote vira um INSERT multi-valores;</li>
+ *     <li>{@code prepare}: {@code prepareThreshold=2} e cache de statements maior;</li>
+ *     <li>{@code fetch}: {@code hibernate.jdbc.fetch_size=500} nas leituras longas;</li>
+ *     <li>{@code prod}: o perfil {@code prod} como é distribuído (inclui pool e cache de planos).</li>
+ * </ul>
+ * As cargas são a gravação de empréstimos em lote, a leitura de todos os detalhes de empréstimos e uma
+ * sequência de consultas curtas por usuário.
+ * <p>
+ * Não depende de Docker: basta um PostgreSQL local, por exemplo a partir dos binários da distribuição,
+ * com {@code initdb -D /tmp/pg-bench && pg_ctl -D /tmp/pg-bench -o "-p 5433" start && createdb -p 5433 biblioteca_bench}.
+ * O padrão é {@code jdbc:postgresql://localhost:5433/biblioteca_bench} com o usuário do sistema; outra conexão
+ * pode ser informada como descrito em {@link BenchmarkApplication}. Executar com {@code ./mvnw test-compile
+ * exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.elotech.biblioteca_arom.repositories.JdbcTuningBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class JdbcTuningBenchmark {
+
+    private static final Map<String, String> LOCAL_POSTGRES = Map.of(
+            "spring.datasource.url", "jdbc:postgresql://localhost:5433/biblioteca_bench",
+            "spring.datasource.username", System.getProperty("user.name"),
+            "spring.datasource.password", "");
+
+    private static final Map<String, Map<String, String>> STEPS = new LinkedHashMap<>();
+
+    static {
+        Map<String, String> knobs = new LinkedHashMap<>();
+        knobs.put("spring.jpa.properties.hibernate.jdbc.batch_size", "1");
+        knobs.put("spring.jpa.properties.hibernate.order_inserts", "false");
+        knobs.put("spring.jpa.properties.hibernate.order_updates", "false");
+        knobs.put("spring.datasource.hikari.maximum-pool-size", "10");
+        STEPS.put("baseline", Map.copyOf(knobs));
+
+        knobs.put("spring.jpa.properties.hibernate.jdbc.batch_size", "50");
+        knobs.put("spring.jpa.properties.hibernate.order_inserts", "true");
+        knobs.put("spring.jpa.properties.hibernate.order_updates", "true");
+        STEPS.put("batching", Map.copyOf(knobs));
+
+        knobs.put("spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", "true");
+        STEPS.put("rewrite", Map.copyOf(knobs));
+
+        knobs.put("spring.datasource.hikari.data-source-properties.prepareThreshold", "2");
+        knobs.put("spring.datasource.hikari.data-source-properties.preparedStatementCacheQueries", "512");
+        knobs.put("spring.datasource.hikari.data-source-properties.preparedStatementCacheSizeMiB", "16");
+        STEPS.put("prepare", Map.copyOf(knobs));
+
+        knobs.put("spring.jpa.properties.hibernate.jdbc.fetch_size", "500");
+        STEPS.put("fetch", Map.copyOf(knobs));
+    }
+
+    private static final int USERS = 1_000;
+    private static final int BOOKS = 20_000;
+    private static final int INSERTS_PER_OP = 2_000;
+    private static final int LOOKUPS_PER_OP = 500;
+
+    @Param({"baseline", "batching", "rewrite", "prepare", "fetch", "prod"})
+    public String step;
+
+    @Param({"200000"})
+    public int loans;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private LoanRepository loanRepository;
+    private TransactionTemplate transaction;
+    private TransactionTemplate readOnlyTransaction;
+    private long lookups;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = step.equals("prod")
+                ? BenchmarkApplication.start(WebApplicationType.NONE, LOCAL_POSTGRES, Map.of(), "prod")
+                : BenchmarkApplication.start(WebApplicationType.NONE, LOCAL_POSTGRES, STEPS.get(step));
+        jdbc = context.getBean(JdbcTemplate.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        transaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        seed();
+    }
+
+    private void seed() {
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (long u = 1; u <= USERS; u++) {
+            rows.add(new Object[]{u, "User " + u, "user" + u + "@example.com", Date.valueOf(today), "123456789"});
+        }
+        jdbc.batchUpdate("insert into users (id, name, email, registration_date, phone_number) values (?, ?, ?, ?, ?)", rows);
+        rows.clear();
+        for (long b = 1; b <= BOOKS; b++) {
+            rows.add(new Object[]{b, "Book " + b, "Author", "isbn-" + b, "2020", "Fiction"});
+        }
+        jdbc.batchUpdate("insert into book (id, title, author, isbn, publication_date, category) values (?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+        for (long id = 1; id <= loans; id++) {
+            LocalDate loanDate = today.minusDays(id % 365);
+            rows.add(new Object[]{id, 1 + id % USERS, 1 + id % BOOKS, Date.valueOf(loanDate), Date.valueOf(loanDate.plusDays(7))});
+            if (rows.size() == 10_000 || id == loans) {
+                jdbc.batchUpdate("insert into loan (id, user_id, book_id, loan_date, return_date, status, overdue) "
+                        + "values (?, ?, ?, ?, ?, 'PRESENTE', false)", rows);
+                rows.clear();
+            }
+        }
+        jdbc.execute("alter sequence loan_seq restart with " + (loans + 1_000));
+        jdbc.execute("analyze");
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeInsertedLoans() {
+        jdbc.update("delete from loan where id > ?", loans);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Grava empréstimos em uma única transação, como nos endpoints de empréstimo em lote.
+     */
+    @Benchmark
+    public int insertLoans() {
+        List<Loan> batch = new ArrayList<>(INSERTS_PER_OP);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < INSERTS_PER_OP; i++) {
+            User user = new User();
+            user.setId(1L + i % USERS);
+            Book book = new Book();
+            book.setId(1L + i % BOOKS);
+            batch.add(new Loan(null, user, book, today, today, Status.PRESENTE));
+        }
+        return transaction.execute(status -> loanRepository.saveAll(batch).size());
+    }
+
+    /**
+     * Lê os detalhes de todos os empréstimos, como a listagem completa.
+     */
+    @Benchmark
+    public int readAllLoanDetails() {
+        return readOnlyTransaction.execute(status -> loanRepository.findAllLoanDetails().size());
+    }
+
+    /**
+     * Faz consultas curtas e repetidas, cada uma na sua transação, como as requisições por usuário.
+     */
+    @Benchmark
+    public int lookupsByUser() {
+        int found = 0;
+        for (int i = 0; i < LOOKUPS_PER_OP; i++) {
+            found += loanRepository.findLoanDetailsByUserId(1 + lookups++ % USERS).size();
+        }
+        return found;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JdbcTuningBenchmark.class.getSimpleName())
+                .jvmArgsAppend(BenchmarkApplication.datasourceJvmArgs())
+                .build();
+        new Runner(options).run();
+    }
+}
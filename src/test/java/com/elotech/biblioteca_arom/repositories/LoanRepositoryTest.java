@@ -0,0 +1,155 @@
+package com.elotech.biblioteca_arom.repositories;
+
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.dtos.LoanDueView;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de regressão para as consultas de leitura de empréstimos.
+ * Usa as estatísticas do Hibernate para garantir que cada listagem custa um número
+ * fixo de comandos SQL, independente da quantidade de empréstimos retornados.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+public class LoanRepositoryTest {
+
+    private static final int USERS = 3;
+    private static final int BOOKS_PER_USER = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    private Statistics statistics;
+    private final List<User> users = new ArrayList<>();
+    private final List<Book> books = new ArrayList<>();
+
+    /**
+     * Cadastra usuários, livros e empréstimos e limpa o contexto de persistência e as estatísticas,
+     * para que cada teste conte apenas os comandos da consulta exercitada.
+     */
+    @BeforeEach
+    void setUp() {
+        for (int u = 0; u < USERS; u++) {
+            User user = new User(null, "User " + u, "user" + u + "@example.com", LocalDate.now(), "123456789", null);
+            users.add(entityManager.persist(user));
+
+            for (int b = 0; b < BOOKS_PER_USER; b++) {
+                Book book = new Book(null, "Book " + u + "-" + b, "Author", "978000000" + u + b, "2020", "Fiction", null, null);
+                books.add(entityManager.persist(book));
+                entityManager.persist(new Loan(null, user, book, LocalDate.now(), null, Status.EMPRESTADO));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Testa a listagem de todos os empréstimos.
+     * Verifica se todos os detalhes são retornados com um único comando SQL.
+     */
+    @Test
+    public void testFindAllLoanDetails_singleStatement() {
+        List<LoanDTO> details = loanRepository.findAllLoanDetails();
+
+        assertEquals(USERS * BOOKS_PER_USER, details.size());
+        assertEquals("User 0", details.getFirst().getUserName());
+        assertEquals("Book 0-0", details.getFirst().getBookTitle());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Testa a listagem dos empréstimos de um usuário.
+     * Verifica se a consulta usa um único comando SQL.
+     */
+    @Test
+    public void testFindLoanDetailsByUserId_singleStatement() {
+        List<LoanDTO> details = loanRepository.findLoanDetailsByUserId(users.get(1).getId());
+
+        assertEquals(BOOKS_PER_USER, details.size());
+        assertTrue(details.stream().allMatch(detail -> detail.getUserName().equals("User 1")));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Testa a listagem dos empréstimos de um livro.
+     * Verifica se a consulta usa um único comando SQL.
+     */
+    @Test
+    public void testFindLoanDetailsByBookId_singleStatement() {
+        List<LoanDTO> details = loanRepository.findLoanDetailsByBookId(books.get(2).getId());
+
+        assertEquals(1, details.size());
+        assertEquals("Book 0-2", details.getFirst().getBookTitle());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Testa a busca de entidades de empréstimo por usuário.
+     * Verifica se, com as associações LAZY, nenhum select secundário é disparado por linha.
+     */
+    @Test
+    public void testFindByUserId_noSecondarySelects() {
+        List<Loan> loans = loanRepository.findByUserId(users.getFirst().getId());
+
+        assertEquals(BOOKS_PER_USER, loans.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Testa a leitura dos empréstimos vencidos por cursor e a marcação em lote.
+     * Verifica se só os vencimentos anteriores ao dia de referência são lidos, em ordem de vencimento,
+     * e se os já marcados, com a versão incrementada, não voltam na próxima leitura.
+     */
+    @Test
+    public void testFindDueBetween_andMarkOverdue() {
+        LocalDate today = LocalDate.now();
+        List<Long> dueIds = new ArrayList<>();
+        for (int days : new int[]{2, 5, -1}) {
+            Loan loan = new Loan(null, users.getFirst(), books.get(dueIds.size()), today.minusDays(20), null,
+                    Status.EMPRESTADO, today.minusDays(days), false, 0);
+            dueIds.add(entityManager.persist(loan).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<LoanDueView> first = loanRepository.findDueBetween(Status.EMPRESTADO, LocalDate.EPOCH, today,
+                LocalDate.EPOCH, 0L, Limit.of(1));
+        assertEquals(List.of(dueIds.get(1)), first.stream().map(LoanDueView::getId).toList());
+        List<LoanDueView> next = loanRepository.findDueBetween(Status.EMPRESTADO, LocalDate.EPOCH, today,
+                first.getFirst().getDueDate(), first.getFirst().getId(), Limit.of(10));
+        assertEquals(List.of(dueIds.get(0)), next.stream().map(LoanDueView::getId).toList());
+
+        assertEquals(2, loanRepository.markOverdue(List.of(dueIds.get(0), dueIds.get(1)), Status.EMPRESTADO));
+        assertEquals(2, loanRepository.countOverdue(Status.EMPRESTADO));
+        assertEquals(1, entityManager.find(Loan.class, dueIds.get(0)).getVersion());
+        assertTrue(loanRepository.findDueBetween(Status.EMPRESTADO, LocalDate.EPOCH, today,
+                LocalDate.EPOCH, 0L, Limit.of(10)).isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe BookAvailabilityIndex, cobrindo a montagem a partir do banco,
+ * as atualizações dos empréstimos e a listagem dos livros disponíveis.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookAvailabilityIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @InjectMocks
+    private BookAvailabilityIndex index;
+
+    private void rebuildWith(List<Long> bookIds, List<Long> onLoan) {
+        when(bookRepository.streamAllIds()).thenReturn(bookIds.stream());
+        when(loanRepository.findAllBookIdsByStatus(Status.EMPRESTADO)).thenReturn(onLoan);
+        index.rebuild();
+    }
+
+    /**
+     * Testa se o índice só fica pronto depois de montado a partir do banco.
+     */
+    @Test
+    public void testRebuild_loadsBooksAndActiveLoans() {
+        assertFalse(index.isReady());
+
+        rebuildWith(List.of(1L, 2L, 3L, 5L), List.of(2L));
+
+        assertTrue(index.isReady());
+        assertTrue(index.isOnLoan(2L));
+        assertFalse(index.isOnLoan(1L));
+        assertEquals(Set.of(2L), index.onLoanAmong(List.of(1L, 2L, 99L)));
+    }
+
+    /**
+     * Testa a listagem paginada dos livros disponíveis.
+     */
+    @Test
+    public void testAvailableAfter_skipsBooksOnLoan() {
+        rebuildWith(List.of(1L, 2L, 3L, 5L, 8L), List.of(2L, 5L));
+
+        assertEquals(List.of(1L, 3L), index.availableAfter(0L, 2));
+        assertEquals(List.of(8L), index.availableAfter(3L, 10));
+        assertEquals(List.of(), index.availableAfter(8L, 10));
+    }
+
+    /**
+     * Testa se empréstimos, devoluções e alterações do acervo atualizam o índice.
+     */
+    @Test
+    public void testMarks_updateAvailability() {
+        rebuildWith(List.of(1L, 2L), List.of());
+
+        index.markOnLoan(1L);
+        index.onBookChanged(new BookChangedEvent(7L, null, ChangeType.CREATED));
+        assertEquals(List.of(2L, 7L), index.availableAfter(0L, 10));
+
+        index.markReturned(1L);
+        index.onBookChanged(new BookChangedEvent(2L, null, ChangeType.DELETED));
+        assertEquals(List.of(1L, 7L), index.availableAfter(0L, 10));
+    }
+
+    /**
+     * Testa se alterações feitas enquanto o índice é reconstruído não se perdem na troca de estado.
+     */
+    @Test
+    public void testRebuild_replaysChangesMadeDuringRebuild() {
+        when(bookRepository.streamAllIds()).thenReturn(Stream.of(1L, 2L, 3L));
+        when(loanRepository.findAllBookIdsByStatus(Status.EMPRESTADO)).thenAnswer(invocation -> {
+            index.markReturned(2L);
+            index.markOnLoan(3L);
+            index.onBookChanged(new BookChangedEvent(4L, null, ChangeType.CREATED));
+            return List.of(2L);
+        });
+
+        index.rebuild();
+
+        assertFalse(index.isOnLoan(2L));
+        assertTrue(index.isOnLoan(3L));
+        assertEquals(List.of(1L, 2L, 4L), index.availableAfter(0L, 10));
+    }
+
+    /**
+     * Testa se IDs fora do alcance do bitmap desativam o índice em vez de dar respostas erradas.
+     */
+    @Test
+    public void testRebuild_withIdsOutOfRange() {
+        rebuildWith(List.of(1L, 3_000_000_000L), List.of());
+
+        assertFalse(index.isReady());
+    }
+}
@@ -0,0 +1,246 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.clients.GoogleBooksClient;
+import com.elotech.biblioteca_arom.clients.GoogleBooksClientConfig;
+import com.elotech.biblioteca_arom.dtos.BookImportStatusDTO;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.Retryer;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe BookImportService.
+ * O cliente Feign real acessa um servidor HTTP local que simula a API do Google Books,
+ * e o repositório simulado guarda os livros em memória, registrando o tamanho de cada lote gravado.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookImportServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private HttpServer server;
+    private GoogleBooksClient client;
+    private final Map<String, Book> stored = new ConcurrentHashMap<>();
+    private final List<Integer> savedBatches = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> requests = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Integer>> failures = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicLong ids = new AtomicLong();
+    private volatile long responseDelayMillis;
+
+    /**
+     * Sobe o servidor local e monta o cliente Feign e o repositório em memória.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/volumes", this::handleVolumes);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+
+        client = Feign.builder()
+                .contract(new SpringMvcContract())
+                .decoder(new GoogleBooksClientConfig().googleBooksDecoder())
+                .retryer(Retryer.NEVER_RETRY)
+                .target(GoogleBooksClient.class, "http://localhost:" + server.getAddress().getPort());
+
+        lenient().when(entityManager.unwrap(Session.class)).thenReturn(session);
+        lenient().when(bookRepository.findByIsbnIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> isbns = invocation.getArgument(0);
+            return isbns.stream().map(stored::get).filter(Objects::nonNull).toList();
+        });
+        lenient().when(bookRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            savedBatches.add(books.size());
+            books.forEach(book -> {
+                book.setId(ids.incrementAndGet());
+                stored.put(book.getIsbn(), book);
+            });
+            return books;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private BookImportService importService(int concurrency, int batchSize) {
+        return new BookImportService(client, bookRepository, entityManager, TransactionOperations.withoutTransaction(),
+                eventPublisher, concurrency, batchSize, 3, 1);
+    }
+
+    private BookImportStatusDTO runImport(BookImportService service, String... lines) throws InterruptedException {
+        String jobId = service.startImport(List.of(lines)).getJobId();
+        assertTrue(service.getJob(jobId).await(Duration.ofSeconds(10)));
+        return service.getStatus(jobId);
+    }
+
+    /**
+     * Responde {@code isbn:<n>} com um livro de ISBN n e consultas livres com o livro de ISBN
+     * igual ao tamanho da consulta; "nada" não tem resultados. Falhas programadas são devolvidas antes.
+     */
+    private void handleVolumes(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery().substring("q=".length());
+        requests.merge(query, 1, Integer::sum);
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (responseDelayMillis > 0) {
+                Thread.sleep(responseDelayMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // O cliente libera a vaga assim que lê a resposta, então a requisição deixa de contar antes do envio
+            inFlight.decrementAndGet();
+        }
+        try {
+            Integer status = Optional.ofNullable(failures.get(query)).map(Deque::poll).orElse(null);
+            if (status != null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            String isbn = query.startsWith("isbn:") ? query.substring(5) : "978" + String.format("%010d", query.length());
+            String body = query.equals("nada") ? "{\"totalItems\": 0}" : """
+                    {"items": [{"volumeInfo": {"title": "Livro %s", "authors": ["Autor"], "publishedDate": "2020",
+                      "categories": ["Ficção"], "industryIdentifiers": [{"type": "ISBN_13", "identifier": "%s"}]}}]}"""
+                    .formatted(isbn, isbn);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Testa a importação completa: entradas e ISBNs repetidos são descartados, livros já cadastrados
+     * são atualizados, os demais são inseridos em lotes do tamanho configurado.
+     */
+    @Test
+    public void testImport_dedupesAndUpsertsInBatches() throws InterruptedException {
+        Book existing = new Book(77L, "Título antigo", "Autor", "9780000000001", "1999", "Outros", null, null);
+        stored.put(existing.getIsbn(), existing);
+
+        BookImportStatusDTO status = runImport(importService(4, 2),
+                "# ISBNs da filial",
+                "978-0-00-000000-1",
+                "9780000000002",
+                "9780000000003",
+                "9780000000002",
+                "",
+                "9780000000004",
+                "abcdefghij",
+                "9780000000010",
+                "nada");
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(8, status.getTotal());
+        assertEquals(8, status.getProcessed());
+        assertEquals(4, status.getInserted());
+        assertEquals(1, status.getUpdated());
+        assertEquals(2, status.getDuplicates());
+        assertEquals(1, status.getNotFound());
+        assertEquals(0, status.getFailed());
+        assertEquals("Livro 9780000000001", existing.getTitle());
+        assertEquals(Long.valueOf(77L), stored.get("9780000000001").getId());
+        assertTrue(savedBatches.stream().allMatch(size -> size <= 2));
+        assertEquals(4, savedBatches.stream().mapToInt(Integer::intValue).sum());
+        verify(session, atLeastOnce()).setJdbcBatchSize(2);
+        verify(eventPublisher, times(4)).publishEvent(argThat((BookChangedEvent event) -> event.type() == ChangeType.CREATED));
+        verify(eventPublisher).publishEvent(argThat((BookChangedEvent event) -> event.type() == ChangeType.UPDATED));
+    }
+
+    /**
+     * Testa se falhas temporárias da API são repetidas e se erros do cliente não são.
+     */
+    @Test
+    public void testImport_retriesOnlyTransientFailures() throws InterruptedException {
+        failures.put("isbn:9780000000001", new ArrayDeque<>(List.of(503, 429)));
+        failures.put("isbn:9780000000002", new ArrayDeque<>(List.of(400)));
+        failures.put("isbn:9780000000003", new ArrayDeque<>(List.of(500, 500, 500)));
+
+        BookImportStatusDTO status = runImport(importService(2, 10), "9780000000001", "9780000000002", "9780000000003");
+
+        assertEquals(1, status.getInserted());
+        assertEquals(2, status.getFailed());
+        assertEquals(3, requests.get("isbn:9780000000001"));
+        assertEquals(1, requests.get("isbn:9780000000002"));
+        assertEquals(3, requests.get("isbn:9780000000003"));
+        assertEquals(2, status.getFailures().size());
+    }
+
+    /**
+     * Testa se a quantidade de requisições simultâneas à API respeita o limite configurado.
+     */
+    @Test
+    public void testImport_boundsConcurrentRequests() throws InterruptedException {
+        responseDelayMillis = 20;
+        String[] isbns = new String[24];
+        for (int i = 0; i < isbns.length; i++) {
+            isbns[i] = "978" + String.format("%010d", i);
+        }
+
+        BookImportStatusDTO status = runImport(importService(3, 5), isbns);
+
+        assertEquals(24, status.getInserted());
+        assertTrue(maxInFlight.get() <= 3, "requisições simultâneas: " + maxInFlight.get());
+        assertTrue(status.getBooksPerSecond() > 0);
+    }
+
+    /**
+     * Testa se uma importação sem entradas é recusada.
+     */
+    @Test
+    public void testImport_withoutEntries() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> importService(1, 1).startImport(List.of("", "# só comentários")));
+
+        assertEquals("Informe ao menos um ISBN ou consulta!", exception.getMessage());
+    }
+}
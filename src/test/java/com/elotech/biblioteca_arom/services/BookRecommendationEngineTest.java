@@ -0,0 +1,174 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookCategoryView;
+import com.elotech.biblioteca_arom.dtos.LoanPairView;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes para a classe BookRecommendationEngine, cobrindo a atualização incremental
+ * da afinidade por categoria e o ranking top-K das recomendações.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookRecommendationEngineTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @InjectMocks
+    private BookRecommendationEngine engine;
+
+    private long nextLoanId;
+
+    /**
+     * Cadastra um catálogo pequeno com duas categorias antes de cada teste.
+     */
+    @BeforeEach
+    void setUp() {
+        registerBook(1L, "Programming");
+        registerBook(2L, "Programming");
+        registerBook(3L, "Programming");
+        registerBook(4L, "Fiction");
+        registerBook(5L, "Fiction");
+        registerBook(6L, "History");
+    }
+
+    /**
+     * Testa se os livros já emprestados pelo usuário não são recomendados
+     * e se livros de categorias que ele nunca pegou ficam de fora.
+     */
+    @Test
+    public void testRecommend_excludesBorrowedBooksAndUnknownCategories() {
+        borrow(10L, 1L);
+
+        List<Long> recommendations = engine.recommend(10L, 10);
+
+        assertEquals(List.of(2L, 3L), recommendations);
+    }
+
+    /**
+     * Testa se a afinidade por categoria e a popularidade dos livros definem a ordem do ranking.
+     */
+    @Test
+    public void testRecommend_ranksByAffinityAndPopularity() {
+        borrow(10L, 1L);
+        borrow(10L, 2L);
+        borrow(10L, 4L);
+        borrow(20L, 5L);
+        borrow(30L, 5L);
+        borrow(40L, 3L);
+
+        List<Long> recommendations = engine.recommend(10L, 10);
+
+        // 3: afinidade 2 (Programming) x (1 empréstimo + 1) = 4; 5: afinidade 1 (Fiction) x (2 + 1) = 3
+        assertEquals(List.of(3L, 5L), recommendations);
+    }
+
+    /**
+     * Testa se o parâmetro limit restringe a quantidade de recomendações.
+     */
+    @Test
+    public void testRecommend_respectsLimit() {
+        borrow(10L, 4L);
+        borrow(10L, 6L);
+        registerBook(7L, "Fiction");
+        registerBook(8L, "History");
+
+        assertEquals(1, engine.recommend(10L, 1).size());
+        assertEquals(3, engine.recommend(10L, 3).size());
+    }
+
+    /**
+     * Testa se livros excluídos e livros que mudaram de categoria são refletidos no índice.
+     */
+    @Test
+    public void testRecommend_followsCatalogChanges() {
+        borrow(10L, 1L);
+        engine.onBookChanged(new BookChangedEvent(2L, null, ChangeType.DELETED));
+        registerBook(3L, "History");
+
+        assertTrue(engine.recommend(10L, 10).isEmpty());
+    }
+
+    /**
+     * Testa se alterações feitas enquanto o índice é reconstruído não se perdem na troca de estado,
+     * e se um empréstimo que a reconstrução já leu do banco não é contado duas vezes.
+     */
+    @Test
+    public void testRebuild_replaysChangesMadeDuringRebuild() {
+        when(bookRepository.streamBookCategories()).thenReturn(Stream.of(
+                new CategoryRow(1L, "Programming"), new CategoryRow(2L, "Programming"), new CategoryRow(3L, "Programming"),
+                new CategoryRow(4L, "Fiction"), new CategoryRow(5L, "Fiction")));
+        when(loanRepository.streamUserBookPairs()).thenAnswer(invocation -> {
+            // O empréstimo 100 já está no banco quando a leitura começa; o 101 não
+            borrow(100L, 20L, 2L);
+            borrow(101L, 30L, 3L);
+            borrow(102L, 30L, 3L);
+            registerBook(6L, "Fiction");
+            engine.onBookChanged(new BookChangedEvent(5L, null, ChangeType.DELETED));
+            return Stream.of(new PairRow(100L, 20L, 2L), new PairRow(50L, 10L, 1L), new PairRow(51L, 10L, 4L));
+        });
+
+        engine.rebuild();
+
+        // 3: afinidade 1 (Programming) x (2 empréstimos + 1) = 3; 2: 1 x (1 + 1) = 2; 6: 1 x (0 + 1) = 1
+        assertEquals(List.of(3L, 2L, 6L), engine.recommend(10L, 10));
+    }
+
+    /**
+     * Testa a recomendação para um usuário sem empréstimos.
+     */
+    @Test
+    public void testRecommend_unknownUser() {
+        assertTrue(engine.recommend(99L, 10).isEmpty());
+    }
+
+    private void registerBook(Long id, String category) {
+        Book book = new Book();
+        book.setId(id);
+        book.setCategory(category);
+        engine.onBookChanged(new BookChangedEvent(id, book, ChangeType.CREATED));
+    }
+
+    private void borrow(Long userId, Long bookId) {
+        borrow(++nextLoanId, userId, bookId);
+    }
+
+    private void borrow(Long loanId, Long userId, Long bookId) {
+        User user = new User();
+        user.setId(userId);
+        Book book = new Book();
+        book.setId(bookId);
+        Loan loan = new Loan(loanId, user, book, LocalDate.now(), null, Status.EMPRESTADO);
+        engine.onLoanChanged(new LoanChangedEvent(loanId, loan, ChangeType.CREATED));
+    }
+
+    private record CategoryRow(Long getId, String getCategory) implements BookCategoryView {
+    }
+
+    private record PairRow(Long getLoanId, Long getUserId, Long getBookId) implements LoanPairView {
+    }
+}
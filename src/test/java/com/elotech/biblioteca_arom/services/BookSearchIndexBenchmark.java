@@ -0,0 +1,73 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a latência das buscas do {@link BookSearchIndex} em um catálogo sintético de 500 mil livros.
+ * O modo {@code SampleTime} informa os percentis; a meta é p99 abaixo de 5 ms.
+ * <p>
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.services.BookSearchIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BookSearchIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "historia", "brasil", "amor", "guerra", "tempo", "vida", "casa", "mar", "noite", "cidade",
+            "segredo", "jardim", "memorias", "viagem", "sertao", "rio", "sol", "caminho", "sombra", "luz",
+            "programacao", "java", "dados", "sistemas", "redes", "algoritmos", "economia", "direito", "poesia", "contos"};
+    private static final String[] NAMES = {
+            "Machado", "Clarice", "Jorge", "Cecilia", "Graciliano", "Rachel", "Erico", "Lygia", "Mario", "Carlos"};
+    private static final String[] CATEGORIES = {
+            "Romance", "Poesia", "Computação", "Direito", "Economia", "História", "Infantil", "Ficção Científica"};
+
+    @Param({"500000"})
+    public int books;
+
+    @Param({"amor", "historia brasil", "prog", "machado memorias", "978850012"})
+    public String query;
+
+    private BookSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        index = new BookSearchIndex(null);
+        SplittableRandom random = new SplittableRandom(42);
+        for (long id = 1; id <= books; id++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + id;
+            String author = NAMES[random.nextInt(NAMES.length)] + " " + NAMES[random.nextInt(NAMES.length)];
+            String isbn = "97885" + String.format("%08d", id);
+            Book book = new Book(id, title, author, isbn, "2020", CATEGORIES[random.nextInt(CATEGORIES.length)], null, null);
+            index.onBookChanged(new BookChangedEvent(id, book, ChangeType.CREATED));
+        }
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return index.search(query, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BookSearchIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,177 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookSummary;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes para a classe BookSearchIndex, cobrindo a normalização dos termos,
+ * a busca por prefixo, o ranking BM25 e a sincronização com as alterações do catálogo.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookSearchIndex index;
+
+    /**
+     * Cadastra um catálogo pequeno antes de cada teste.
+     */
+    @BeforeEach
+    void setUp() {
+        registerBook(1L, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "Romance", "978-85-7232-001-1");
+        registerBook(2L, "Dom Casmurro", "Machado de Assis", "Romance", "9788572320028");
+        registerBook(3L, "Programação em Java", "Ana Souza", "Computação", "9788572320035");
+        registerBook(4L, "Java Efetivo", "Joshua Bloch", "Computação", "9788572320042");
+        registerBook(5L, "JavaScript: o guia", "David Flanagan", "Computação", "9788572320059");
+    }
+
+    /**
+     * Testa se a busca ignora acentos, maiúsculas e palavras vazias.
+     */
+    @Test
+    public void testTokenize_foldsAccentsAndDropsStopWords() {
+        assertEquals(List.of("memorias", "postumas", "bras", "cubas"),
+                BookSearchIndex.tokenize("Memórias Póstumas de Brás Cubas"));
+        assertEquals(List.of(1L), index.search("POSTUMAS bras", 10));
+        assertEquals(List.of(3L), index.search("programacao", 10));
+    }
+
+    /**
+     * Testa se todos os termos precisam aparecer e se o último também casa como prefixo.
+     */
+    @Test
+    public void testSearch_requiresAllTermsAndMatchesLastAsPrefix() {
+        assertEquals(List.of(2L), index.search("machado casm", 10));
+        assertEquals(Set.of(1L, 2L), Set.copyOf(index.search("machado", 10)));
+        assertTrue(index.search("machado java", 10).isEmpty());
+        assertEquals(3, index.search("jav", 10).size());
+    }
+
+    /**
+     * Testa o ranking: um termo no título pesa mais que na categoria, e livros com o termo exato
+     * ficam à frente dos que só casam pelo prefixo.
+     */
+    @Test
+    public void testSearch_ranksByBm25() {
+        registerBook(6L, "Estruturas de Dados", "Carla Lima", "Java", "9788572320066");
+
+        List<Long> results = index.search("java", 10);
+
+        assertEquals(4, results.size());
+        assertEquals(6L, results.getLast());
+        assertTrue(results.indexOf(4L) < results.indexOf(6L));
+    }
+
+    /**
+     * Testa a busca por ISBN, com ou sem hífens, inclusive pelo começo do número.
+     */
+    @Test
+    public void testSearch_byIsbn() {
+        assertEquals(List.of(1L), index.search("978-85-7232-001-1", 10));
+        assertEquals(List.of(1L), index.search("9788572320011", 10));
+        assertEquals(5, index.search("978-85-7232", 10).size());
+    }
+
+    /**
+     * Testa se livros alterados e excluídos são refletidos nas buscas.
+     */
+    @Test
+    public void testSearch_followsCatalogChanges() {
+        registerBook(2L, "Quincas Borba", "Machado de Assis", "Romance", "9788572320028");
+        index.onBookChanged(new BookChangedEvent(1L, null, ChangeType.DELETED));
+
+        assertTrue(index.search("casmurro", 10).isEmpty());
+        assertEquals(List.of(2L), index.search("machado", 10));
+        assertEquals(List.of(2L), index.search("quincas", 10));
+        assertEquals(4, index.size());
+    }
+
+    /**
+     * Testa se as buscas continuam corretas depois que os livros excluídos são removidos das listas.
+     */
+    @Test
+    public void testSearch_afterCompaction() {
+        for (long id = 100; id < 3100; id++) {
+            registerBook(id, "Livro " + id, "Autor", "Temporário", "97800000" + id);
+        }
+        for (long id = 100; id < 3100; id++) {
+            index.onBookChanged(new BookChangedEvent(id, null, ChangeType.DELETED));
+        }
+
+        assertTrue(index.search("temporario", 10).isEmpty());
+        assertEquals(List.of(4L), index.search("java efetivo", 10));
+        assertEquals(5, index.size());
+    }
+
+    /**
+     * Testa se alterações feitas enquanto o índice é reconstruído não se perdem na troca de estado,
+     * mesmo quando a leitura do banco trouxe a versão anterior do livro.
+     */
+    @Test
+    public void testRebuild_replaysChangesMadeDuringRebuild() {
+        when(bookRepository.streamBookSummaries()).thenAnswer(invocation -> {
+            registerBook(2L, "Quincas Borba", "Machado de Assis", "Romance", "9788572320028");
+            index.onBookChanged(new BookChangedEvent(1L, null, ChangeType.DELETED));
+            registerBook(6L, "Java Concorrente", "Brian Goetz", "Computação", "9788572320066");
+            return Stream.of(
+                    new SummaryRow(1L, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "Romance", "978-85-7232-001-1"),
+                    new SummaryRow(2L, "Dom Casmurro", "Machado de Assis", "Romance", "9788572320028"));
+        });
+
+        index.rebuild();
+
+        assertTrue(index.search("casmurro", 10).isEmpty());
+        assertEquals(List.of(2L), index.search("machado", 10));
+        assertEquals(List.of(2L), index.search("quincas", 10));
+        assertEquals(List.of(6L), index.search("concorrente", 10));
+        assertEquals(2, index.size());
+    }
+
+    /**
+     * Testa se o parâmetro limit restringe a quantidade de resultados e se consultas vazias não retornam nada.
+     */
+    @Test
+    public void testSearch_respectsLimitAndEmptyQueries() {
+        assertEquals(2, index.search("computacao", 2).size());
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertTrue(index.search("de", 10).isEmpty());
+    }
+
+    private void registerBook(Long id, String title, String author, String category, String isbn) {
+        Book book = new Book(id, title, author, isbn, "2020", category, null, null);
+        index.onBookChanged(new BookChangedEvent(id, book, ChangeType.CREATED));
+    }
+
+    private record SummaryRow(Long getId, String getTitle, String getAuthor, String getCategory, String getIsbn)
+            implements BookSummary {
+
+        @Override
+        public String getPublicationDate() {
+            return "2020";
+        }
+
+        @Override
+        public String getThumbnail_url() {
+            return null;
+        }
+    }
+}
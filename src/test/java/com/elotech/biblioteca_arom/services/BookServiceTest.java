@@ -1,6 +1,8 @@
 package com.elotech.biblioteca_arom.services;
 
 import com.elotech.biblioteca_arom.clients.GoogleBooksClient;
+import com.elotech.biblioteca_arom.dtos.BookPageDTO;
+import com.elotech.biblioteca_arom.dtos.BookSummary;
 import com.elotech.biblioteca_arom.entities.Book;
 import com.elotech.biblioteca_arom.repositories.BookRepository;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.*;
 
@@ -25,6 +29,12 @@ public class BookServiceTest {
     private BookRepository bookRepository;
     @Mock
     private GoogleBooksClient googleBooksClient;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BookSearchIndex searchIndex;
+    @Mock
+    private BookAvailabilityIndex availabilityIndex;
     @InjectMocks
     private BookService bookService;
     @InjectMocks
@@ -66,6 +76,103 @@ public class BookServiceTest {
         assertEquals("Book 2", result.get(1).getTitle());
     }
 
+    /**
+     * Testa a paginação por cursor dos livros.
+     * Verifica se o serviço busca uma linha a mais para saber se existe próxima página
+     * e se o cursor retornado é o ID do último livro da página.
+     */
+    @Test
+    public void testGetBooksPage() {
+        BookSummary first = mock(BookSummary.class);
+        BookSummary second = mock(BookSummary.class);
+        BookSummary third = mock(BookSummary.class);
+        when(second.getId()).thenReturn(12L);
+
+        when(bookRepository.findSummariesAfter(10L, Limit.of(3)))
+                .thenReturn(List.of(first, second, third));
+
+        BookPageDTO page = bookService.getBooksPage(10L, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(12L, page.getNextCursor());
+    }
+
+    /**
+     * Testa a última página da paginação por cursor.
+     * Verifica se o cursor da próxima página é nulo quando não há mais livros.
+     */
+    @Test
+    public void testGetBooksPage_lastPage() {
+        BookSummary only = mock(BookSummary.class);
+
+        when(bookRepository.findSummariesAfter(0L, Limit.of(51)))
+                .thenReturn(List.of(only));
+
+        BookPageDTO page = bookService.getBooksPage(null, 50);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    /**
+     * Testa a paginação dos livros disponíveis com o índice de disponibilidade pronto.
+     * Verifica se apenas os livros escolhidos pelo índice são lidos, em ordem de ID.
+     */
+    @Test
+    public void testGetAvailableBooksPage() {
+        BookSummary first = mock(BookSummary.class);
+        BookSummary second = mock(BookSummary.class);
+        BookSummary third = mock(BookSummary.class);
+        when(first.getId()).thenReturn(4L);
+        when(second.getId()).thenReturn(6L);
+        when(third.getId()).thenReturn(9L);
+
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.availableAfter(3L, 3)).thenReturn(List.of(4L, 6L, 9L));
+        when(bookRepository.findSummariesByIdIn(List.of(4L, 6L, 9L))).thenReturn(List.of(third, first, second));
+
+        BookPageDTO page = bookService.getAvailableBooksPage(3L, 2);
+
+        assertEquals(List.of(first, second), page.getItems());
+        assertEquals(6L, page.getNextCursor());
+        verify(bookRepository, never()).findAvailableSummariesAfter(anyLong(), any());
+    }
+
+    /**
+     * Testa a paginação dos livros disponíveis antes de o índice de disponibilidade ficar pronto.
+     * Verifica se a disponibilidade é filtrada pela consulta ao banco.
+     */
+    @Test
+    public void testGetAvailableBooksPage_beforeIndexIsReady() {
+        BookSummary only = mock(BookSummary.class);
+        when(bookRepository.findAvailableSummariesAfter(0L, Limit.of(51))).thenReturn(List.of(only));
+
+        BookPageDTO page = bookService.getAvailableBooksPage(null, 50);
+
+        assertEquals(List.of(only), page.getItems());
+        assertNull(page.getNextCursor());
+        verify(availabilityIndex, never()).availableAfter(anyLong(), anyInt());
+    }
+
+    /**
+     * Testa a busca textual no acervo.
+     * Verifica se os livros são retornados na ordem de relevância do índice e se o limite é respeitado.
+     */
+    @Test
+    public void testSearchCatalog() {
+        BookSummary first = mock(BookSummary.class);
+        BookSummary second = mock(BookSummary.class);
+        when(first.getId()).thenReturn(7L);
+        when(second.getId()).thenReturn(3L);
+
+        when(searchIndex.search("machado", BookService.MAX_SEARCH_RESULTS)).thenReturn(List.of(3L, 7L));
+        when(bookRepository.findSummariesByIdIn(List.of(3L, 7L))).thenReturn(List.of(first, second));
+
+        List<BookSummary> results = bookService.searchBooks("machado", 1000);
+
+        assertEquals(List.of(second, first), results);
+    }
+
     /**
      * Testa a recuperação de um livro por ID.
      * Verifica se o livro é encontrado corretamente e se os dados correspondem ao esperado.
@@ -129,22 +236,14 @@ public class BookServiceTest {
 
     /**
      * Testa a busca de livros por título na API do Google Books.
-     * Simula a resposta da API e verifica se o serviço processa corretamente os dados.
+     * Simula a resposta do cliente e verifica se o serviço repassa os livros encontrados.
      * Verifica se o título e o autor do livro retornado são os esperados.
      */
     @Test
     public void testSearchBooks() {
-        Map<String, Object> googleApiResponse = new HashMap<>();
-        Map<String, Object> volumeInfo = new HashMap<>();
-        volumeInfo.put("title", "Effective Java");
-        volumeInfo.put("authors", List.of("Joshua Bloch"));
-        volumeInfo.put("publishedDate", "2008");
-        volumeInfo.put("industryIdentifiers", List.of(Map.of("identifier", "0321356683")));
-        volumeInfo.put("categories", List.of("Programming"));
-
-        googleApiResponse.put("items", List.of(Map.of("volumeInfo", volumeInfo)));
+        Book found = new Book(null, "Effective Java", "Joshua Bloch", "0321356683", "2008", "Programming", null, null);
 
-        when(googleBooksClient.searchBooks("Effective Java")).thenReturn(googleApiResponse);
+        when(googleBooksClient.searchBooks("Effective Java")).thenReturn(List.of(found));
 
         List<Book> books = googleBooksService.searchBooks("Effective Java");
 
@@ -0,0 +1,73 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookSuggestionDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a latência das sugestões do {@link BookSuggestionIndex} em um acervo sintético de 500 mil livros
+ * e informa, na preparação, quantos bytes o dicionário ocupa por entrada.
+ * <p>
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.services.BookSuggestionIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BookSuggestionIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "historia", "brasil", "amor", "guerra", "tempo", "vida", "casa", "mar", "noite", "cidade",
+            "segredo", "jardim", "memorias", "viagem", "sertao", "rio", "sol", "caminho", "sombra", "luz"};
+    private static final String[] NAMES = {
+            "Machado", "Clarice", "Jorge", "Cecilia", "Graciliano", "Rachel", "Erico", "Lygia", "Mario", "Carlos"};
+
+    @Param({"500000"})
+    public int books;
+
+    @Param({"h", "amor", "historia brasil", "machado c"})
+    public String prefix;
+
+    private BookSuggestionIndex index;
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<BookSuggestionIndex.Candidate> candidates = new ArrayList<>(2 * books);
+        for (long id = 1; id <= books; id++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + id;
+            String author = NAMES[random.nextInt(NAMES.length)] + " " + NAMES[random.nextInt(NAMES.length)]
+                    + " " + (id % 20_000);
+            int loans = random.nextInt(200);
+            candidates.add(new BookSuggestionIndex.Candidate(title, BookSuggestionIndex.Kind.TITLE, id, loans));
+            candidates.add(new BookSuggestionIndex.Candidate(author, BookSuggestionIndex.Kind.AUTHOR, id, loans));
+        }
+        index = BookSuggestionIndex.build(candidates);
+        System.out.printf("%n%d entradas, %d bytes (%.1f bytes por entrada)%n",
+                index.size(), index.estimatedBytes(), (double) index.estimatedBytes() / index.size());
+    }
+
+    @Benchmark
+    public List<BookSuggestionDTO> suggest() {
+        return index.suggest(prefix, 10);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BookSuggestionIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,122 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookSuggestionDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe BookSuggestionIndex, cobrindo a normalização dos prefixos,
+ * a ordenação por empréstimos e a deduplicação de títulos e autores.
+ */
+public class BookSuggestionIndexTest {
+
+    private BookSuggestionIndex index;
+
+    /**
+     * Monta um dicionário pequeno antes de cada teste.
+     */
+    @BeforeEach
+    void setUp() {
+        index = BookSuggestionIndex.build(List.of(
+                title("Memórias Póstumas de Brás Cubas", 1L, 5),
+                title("Dom Casmurro", 2L, 12),
+                title("Programação em Java", 3L, 3),
+                title("Java Efetivo", 4L, 9),
+                title("JavaScript: o guia", 5L, 7),
+                author("Machado de Assis", 1L, 5),
+                author("Machado de Assis", 2L, 12),
+                author("Joshua Bloch", 4L, 9)));
+    }
+
+    private static BookSuggestionIndex.Candidate title(String text, long bookId, int loans) {
+        return new BookSuggestionIndex.Candidate(text, BookSuggestionIndex.Kind.TITLE, bookId, loans);
+    }
+
+    private static BookSuggestionIndex.Candidate author(String text, long bookId, int loans) {
+        return new BookSuggestionIndex.Candidate(text, BookSuggestionIndex.Kind.AUTHOR, bookId, loans);
+    }
+
+    private static List<String> texts(List<BookSuggestionDTO> suggestions) {
+        return suggestions.stream().map(BookSuggestionDTO::getText).toList();
+    }
+
+    /**
+     * Testa se o prefixo ignora acentos, maiúsculas e pontuação.
+     */
+    @Test
+    public void testSuggest_foldsAccentsAndPunctuation() {
+        assertEquals(List.of("Memórias Póstumas de Brás Cubas"), texts(index.suggest("MEMORIAS post", 10)));
+        assertEquals(List.of("Programação em Java"), texts(index.suggest("programaçao", 10)));
+        assertEquals(List.of("JavaScript: o guia"), texts(index.suggest("javascript o", 10)));
+    }
+
+    /**
+     * Testa se as sugestões saem das mais para as menos emprestadas e respeitam o limite.
+     */
+    @Test
+    public void testSuggest_ranksByLoans() {
+        assertEquals(List.of("Java Efetivo", "JavaScript: o guia"), texts(index.suggest("ja", 10)));
+        assertEquals(List.of("Java Efetivo"), texts(index.suggest("ja", 1)));
+        assertEquals(List.of("Machado de Assis", "Memórias Póstumas de Brás Cubas"), texts(index.suggest("m", 10)));
+    }
+
+    /**
+     * Testa se o mesmo autor em vários livros vira uma única sugestão com os empréstimos somados.
+     */
+    @Test
+    public void testSuggest_mergesRepeatedAuthors() {
+        List<BookSuggestionDTO> suggestions = index.suggest("machado", 10);
+
+        assertEquals(1, suggestions.size());
+        assertEquals("AUTHOR", suggestions.getFirst().getType());
+        assertEquals(17, suggestions.getFirst().getLoans());
+        assertNull(suggestions.getFirst().getBookId());
+        assertEquals(Long.valueOf(2L), index.suggest("dom", 1).getFirst().getBookId());
+        assertEquals(7, index.size());
+    }
+
+    /**
+     * Testa se um espaço no fim do prefixo exige que a palavra termine ali.
+     */
+    @Test
+    public void testSuggest_trailingSpaceEndsWord() {
+        assertEquals(List.of("Java Efetivo"), texts(index.suggest("java ", 10)));
+        assertEquals(List.of(), index.suggest("dom casmurro ", 10));
+    }
+
+    /**
+     * Testa prefixos que não casam com nada e prefixos vazios.
+     */
+    @Test
+    public void testSuggest_withoutMatches() {
+        assertEquals(List.of(), index.suggest("xyz", 10));
+        assertEquals(List.of(), index.suggest("  ", 10));
+        assertEquals(List.of(), index.suggest(null, 10));
+        assertEquals(List.of(), BookSuggestionIndex.EMPTY.suggest("java", 10));
+    }
+
+    /**
+     * Testa se faixas que atravessam vários blocos da codificação incremental são encontradas por inteiro.
+     */
+    @Test
+    public void testSuggest_acrossBlocks() {
+        List<BookSuggestionIndex.Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            candidates.add(title("Volume %03d".formatted(i), i, i));
+            candidates.add(title("Vol%03d extra".formatted(i), 1000 + i, 0));
+        }
+        BookSuggestionIndex large = BookSuggestionIndex.build(candidates);
+
+        assertEquals(List.of("Volume 199", "Volume 198", "Volume 197"), texts(large.suggest("volume", 3)));
+        assertEquals(List.of("Volume 150"), texts(large.suggest("volume 150", 10)));
+        assertEquals(10, large.suggest("volume 15", 20).size());
+        assertEquals(List.of("Vol000 extra"), texts(large.suggest("vol000", 10)));
+        assertEquals(20, large.suggest("vol", 20).size());
+        assertTrue(large.estimatedBytes() > 0);
+    }
+}
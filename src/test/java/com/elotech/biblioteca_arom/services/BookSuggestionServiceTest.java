@@ -0,0 +1,114 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.BookLoanCountView;
+import com.elotech.biblioteca_arom.dtos.SuggestionStatsDTO;
+import com.elotech.biblioteca_arom.events.BookChangedEvent;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe BookSuggestionService, cobrindo a reconstrução do dicionário
+ * a partir do repositório e a marcação de desatualização pelos eventos.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookSuggestionServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookSuggestionService suggestionService;
+
+    private static BookLoanCountView book(long id, String title, String author, long loans) {
+        return new BookLoanCountView() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getTitle() {
+                return title;
+            }
+
+            public String getAuthor() {
+                return author;
+            }
+
+            public Long getLoans() {
+                return loans;
+            }
+        };
+    }
+
+    /**
+     * Testa se a reconstrução lê os livros e publica um dicionário novo com títulos e autores.
+     */
+    @Test
+    public void testRefresh_buildsFromRepository() {
+        when(bookRepository.findLoanCountsAfter(eq(0L), any(Limit.class))).thenReturn(List.of(
+                book(1L, "Dom Casmurro", "Machado de Assis", 4),
+                book(2L, "Quincas Borba", "Machado de Assis", 2)));
+
+        assertEquals(List.of(), suggestionService.suggest("dom", 10));
+        suggestionService.refresh();
+
+        assertEquals("Dom Casmurro", suggestionService.suggest("dom", 10).getFirst().getText());
+        assertEquals(6, suggestionService.suggest("mach", 10).getFirst().getLoans());
+        SuggestionStatsDTO stats = suggestionService.getStats();
+        assertEquals(3, stats.getEntries());
+        assertTrue(stats.getBytesPerEntry() > 0);
+        assertEquals(3, stats.getLookups());
+        assertNotNull(stats.getBuiltAt());
+    }
+
+    /**
+     * Testa se o dicionário só é reconstruído depois de mudanças no acervo ou de novos empréstimos.
+     */
+    @Test
+    public void testRefresh_onlyWhenStale() {
+        when(bookRepository.findLoanCountsAfter(anyLong(), any(Limit.class))).thenReturn(List.of());
+
+        suggestionService.refresh();
+        suggestionService.refresh();
+        verify(bookRepository, times(1)).findLoanCountsAfter(anyLong(), any(Limit.class));
+
+        suggestionService.onLoanChanged(new LoanChangedEvent(1L, null, ChangeType.UPDATED));
+        suggestionService.refresh();
+        verify(bookRepository, times(1)).findLoanCountsAfter(anyLong(), any(Limit.class));
+
+        suggestionService.onLoanChanged(new LoanChangedEvent(1L, null, ChangeType.CREATED));
+        suggestionService.refresh();
+        suggestionService.onBookChanged(new BookChangedEvent(1L, null, ChangeType.DELETED));
+        suggestionService.refresh();
+        verify(bookRepository, times(3)).findLoanCountsAfter(anyLong(), any(Limit.class));
+    }
+
+    /**
+     * Testa se o limite de sugestões é mantido entre 1 e o máximo permitido.
+     */
+    @Test
+    public void testSuggest_clampsLimit() {
+        List<BookLoanCountView> books = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            books.add(book(id, "Livro " + id, "Autor " + id, id));
+        }
+        when(bookRepository.findLoanCountsAfter(eq(0L), any(Limit.class))).thenReturn(books);
+        suggestionService.rebuild();
+
+        assertEquals(1, suggestionService.suggest("livro", 0).size());
+        assertEquals(BookSuggestionService.MAX_SUGGESTIONS, suggestionService.suggest("livro", 500).size());
+    }
+}
@@ -0,0 +1,256 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.ChangeFeedDTO;
+import com.elotech.biblioteca_arom.entities.ChangeLogEntry;
+import com.elotech.biblioteca_arom.entities.ChangeLogSequence;
+import com.elotech.biblioteca_arom.entities.enums.ChangedEntity;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.ChangeLogRepository;
+import com.elotech.biblioteca_arom.repositories.ChangeLogSequenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe ChangeFeedService, cobrindo a paginação das alterações, o aviso de
+ * ressincronização, a espera por novas alterações, a junção das alterações de uma transação e a
+ * compactação e a retenção do registro.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ChangeFeedServiceTest {
+
+    @Mock
+    private ChangeLogRepository changeLogRepository;
+
+    @Mock
+    private ChangeLogSequenceRepository sequenceRepository;
+
+    private ChangeFeedService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ChangeFeedService(changeLogRepository, sequenceRepository, null, true, 168, 60, 1_000);
+    }
+
+    private void sequence(long lastSeq, long truncatedThrough) {
+        when(sequenceRepository.findById(ChangeLogSequence.ID))
+                .thenReturn(Optional.of(new ChangeLogSequence(ChangeLogSequence.ID, lastSeq, truncatedThrough)));
+    }
+
+    private static ChangeLogEntry entry(long seq, long loanId) {
+        return new ChangeLogEntry(seq, ChangedEntity.LOAN, loanId, ChangeType.UPDATED, Instant.EPOCH);
+    }
+
+    /**
+     * Testa se a consulta sem número de sequência retorna apenas o número atual, sem ler o registro.
+     */
+    @Test
+    public void testGetChanges_withoutSince_returnsCurrentSeq() {
+        sequence(42, 0);
+
+        ChangeFeedDTO feed = service.getChanges(null, 100);
+
+        assertEquals(42, feed.getLastSeq());
+        assertTrue(feed.getChanges().isEmpty());
+        assertFalse(feed.isResync());
+        verifyNoInteractions(changeLogRepository);
+    }
+
+    /**
+     * Testa se a consulta retorna no máximo {@code limit} alterações, indica que há mais
+     * e avança {@code lastSeq} até a última alteração retornada.
+     */
+    @Test
+    public void testGetChanges_pagesByLimit() {
+        sequence(20, 0);
+        when(changeLogRepository.findAfter(10L, Limit.of(3)))
+                .thenReturn(List.of(entry(11, 5), entry(14, 6), entry(15, 7)));
+
+        ChangeFeedDTO feed = service.getChanges(10L, 2);
+
+        assertEquals(2, feed.getChanges().size());
+        assertEquals(5, feed.getChanges().getFirst().getId());
+        assertEquals(14, feed.getLastSeq());
+        assertTrue(feed.isHasMore());
+    }
+
+    /**
+     * Testa se um cliente anterior ao ponto de corte da retenção recebe o aviso de ressincronização.
+     */
+    @Test
+    public void testGetChanges_beforeRetention_requestsResync() {
+        sequence(500, 300);
+
+        ChangeFeedDTO feed = service.getChanges(120L, 100);
+
+        assertTrue(feed.isResync());
+        assertEquals(500, feed.getLastSeq());
+        verifyNoInteractions(changeLogRepository);
+    }
+
+    /**
+     * Testa se parâmetros inválidos são recusados.
+     */
+    @Test
+    public void testGetChanges_invalidParameters_throwException() {
+        assertThrows(RuntimeException.class, () -> service.getChanges(-1L, 100));
+        assertThrows(RuntimeException.class, () -> service.getChanges(0L, 0));
+        assertThrows(RuntimeException.class, () -> service.getChanges(0L, ChangeFeedService.MAX_LIMIT + 1));
+        assertThrows(RuntimeException.class, () -> service.awaitChanges(0L, 100, Duration.ofMinutes(5)));
+    }
+
+    /**
+     * Testa se a espera termina quando uma transação confirma alterações,
+     * retornando as alterações novas.
+     */
+    @Test
+    public void testAwaitChanges_wakesOnCommit() throws Exception {
+        sequence(10, 0);
+        when(changeLogRepository.findAfter(10L, Limit.of(101)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(entry(11, 3)));
+
+        CompletableFuture<ChangeFeedDTO> future = service.awaitChanges(10L, 100, Duration.ofSeconds(30));
+        assertFalse(future.isDone());
+        assertEquals(1, service.getWaiting());
+
+        service.committed(11);
+
+        ChangeFeedDTO feed = future.get(5, TimeUnit.SECONDS);
+        assertEquals(11, feed.getLastSeq());
+        assertEquals(0, service.getWaiting());
+    }
+
+    /**
+     * Testa se uma confirmação só acorda os clientes que esperam por alterações anteriores a ela,
+     * e se a nova consulta roda fora da thread que confirmou a transação.
+     */
+    @Test
+    public void testAwaitChanges_wakesOnlyWaitersBehindCommit() throws Exception {
+        sequence(12, 0);
+        List<Thread> readers = new CopyOnWriteArrayList<>();
+        when(changeLogRepository.findAfter(10L, Limit.of(101)))
+                .thenReturn(List.of())
+                .thenAnswer(invocation -> {
+                    readers.add(Thread.currentThread());
+                    return List.of(entry(11, 3));
+                });
+        when(changeLogRepository.findAfter(12L, Limit.of(101))).thenReturn(List.of());
+
+        CompletableFuture<ChangeFeedDTO> behind = service.awaitChanges(10L, 100, Duration.ofSeconds(30));
+        CompletableFuture<ChangeFeedDTO> ahead = service.awaitChanges(12L, 100, Duration.ofSeconds(30));
+        assertEquals(2, service.getWaiting());
+
+        service.committed(11);
+
+        assertEquals(11, behind.get(5, TimeUnit.SECONDS).getLastSeq());
+        assertNotSame(Thread.currentThread(), readers.getFirst());
+        assertFalse(ahead.isDone());
+        assertEquals(1, service.getWaiting());
+        verify(changeLogRepository, times(1)).findAfter(12L, Limit.of(101));
+        ahead.cancel(true);
+    }
+
+    /**
+     * Testa se a espera termina sem alterações quando o tempo acaba.
+     */
+    @Test
+    public void testAwaitChanges_timesOut() throws Exception {
+        sequence(10, 0);
+        when(changeLogRepository.findAfter(10L, Limit.of(101))).thenReturn(List.of());
+
+        ChangeFeedDTO feed = service.awaitChanges(10L, 100, Duration.ofMillis(50)).get(5, TimeUnit.SECONDS);
+
+        assertTrue(feed.getChanges().isEmpty());
+        assertEquals(10, feed.getLastSeq());
+        assertEquals(0, service.getWaiting());
+    }
+
+    /**
+     * Testa se as alterações de uma mesma entidade numa transação viram uma só: inclusão seguida de
+     * alteração continua inclusão, inclusão seguida de exclusão some e a última operação prevalece nas demais.
+     */
+    @Test
+    public void testPendingChanges_mergesPerEntity() {
+        ChangeFeedService.PendingChanges pending = new ChangeFeedService.PendingChanges();
+
+        pending.add(ChangedEntity.BOOK, 1, ChangeType.CREATED);
+        pending.add(ChangedEntity.BOOK, 1, ChangeType.UPDATED);
+        pending.add(ChangedEntity.USER, 1, ChangeType.UPDATED);
+        pending.add(ChangedEntity.USER, 1, ChangeType.DELETED);
+        pending.add(ChangedEntity.LOAN, 7, ChangeType.CREATED);
+        pending.add(ChangedEntity.LOAN, 7, ChangeType.DELETED);
+
+        assertEquals(Map.of(
+                new ChangeFeedService.ChangeKey(ChangedEntity.BOOK, 1), ChangeType.CREATED,
+                new ChangeFeedService.ChangeKey(ChangedEntity.USER, 1), ChangeType.DELETED), pending.changes);
+    }
+
+    /**
+     * Testa se a compactação considera só as alterações anteriores a {@code compact-after-minutes} e
+     * apaga as sucedidas em faixas de no máximo {@code maintenance-batch-size} números de sequência.
+     */
+    @Test
+    public void testCompact_deletesSupersededInChunks() {
+        Instant now = Instant.parse("2024-03-01T12:00:00Z");
+        when(changeLogRepository.findFirstSeq()).thenReturn(Optional.of(1L));
+        when(changeLogRepository.findLastSeqBefore(now.minus(Duration.ofMinutes(60)))).thenReturn(Optional.of(2_500L));
+        when(changeLogRepository.deleteSupersededInRange(anyLong(), anyLong())).thenReturn(10, 20, 5);
+
+        assertEquals(35, service.compact(now));
+
+        InOrder order = inOrder(changeLogRepository);
+        order.verify(changeLogRepository).deleteSupersededInRange(0, 1_000);
+        order.verify(changeLogRepository).deleteSupersededInRange(1_000, 2_000);
+        order.verify(changeLogRepository).deleteSupersededInRange(2_000, 2_500);
+        verifyNoMoreInteractions(sequenceRepository);
+    }
+
+    /**
+     * Testa se a retenção grava o ponto de corte antes de descartar as alterações anteriores a
+     * {@code retention-hours}, para que os clientes que ficaram para trás recebam o aviso de ressincronização.
+     */
+    @Test
+    public void testExpire_advancesTruncationBeforeDeleting() {
+        Instant now = Instant.parse("2024-03-01T12:00:00Z");
+        when(changeLogRepository.findFirstSeq()).thenReturn(Optional.of(1_001L));
+        when(changeLogRepository.findLastSeqBefore(now.minus(Duration.ofHours(168)))).thenReturn(Optional.of(1_800L));
+        when(changeLogRepository.deleteRange(1_000, 1_800)).thenReturn(800);
+
+        assertEquals(800, service.expire(now));
+
+        InOrder order = inOrder(sequenceRepository, changeLogRepository);
+        order.verify(sequenceRepository).advanceTruncation(1_800);
+        order.verify(changeLogRepository).deleteRange(1_000, 1_800);
+    }
+
+    /**
+     * Testa se a manutenção não apaga nada quando o registro está vazio.
+     */
+    @Test
+    public void testMaintain_emptyLog_deletesNothing() {
+        when(changeLogRepository.findFirstSeq()).thenReturn(Optional.empty());
+
+        service.maintain();
+
+        verify(changeLogRepository, never()).deleteRange(anyLong(), anyLong());
+        verify(changeLogRepository, never()).deleteSupersededInRange(anyLong(), anyLong());
+        verifyNoInteractions(sequenceRepository);
+    }
+}
@@ -0,0 +1,133 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import com.elotech.biblioteca_arom.dtos.ChangeFeedDTO;
+import com.elotech.biblioteca_arom.entities.ChangeLogSequence;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a manutenção do registro de alterações do {@link ChangeFeedService} sobre {@code entries} alterações
+ * de {@code entities} empréstimos, espalhadas pelos últimos 10 dias:
+ * <ul>
+ *     <li>{@code compact}: apaga as alterações sucedidas por outra mais recente do mesmo empréstimo;</li>
+ *     <li>{@code expire}: descarta as alterações mais antigas que a retenção padrão de 7 dias;</li>
+ *     <li>{@code catchUp}: lê todo o registro em páginas de {@link ChangeFeedService#MAX_LIMIT}, como um
+ *     cliente que sincroniza desde o início, com o registro compactado ou não ({@code compacted}).</li>
+ * </ul>
+ * O parâmetro {@code batchSize} é a faixa de números de sequência apagada por comando na manutenção
+ * ({@code biblioteca.changes.maintenance-batch-size}). O registro é recriado antes de cada iteração.
+ * <p>
+ * Por padrão usa um H2 em memória; para medir no PostgreSQL, informe a conexão como descrito em
+ * {@link BenchmarkApplication}.
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.services.ChangeLogMaintenanceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ChangeLogMaintenanceBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+    private static final Duration SPAN = Duration.ofDays(10);
+
+    @Param({"1000000"})
+    public int entries;
+
+    @Param({"20000"})
+    public int entities;
+
+    @Param({"1000", "10000", "100000"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean compacted;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private ChangeFeedService service;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, BenchmarkApplication.H2,
+                Map.of("biblioteca.changes.maintenance-batch-size", Integer.toString(batchSize)));
+        jdbc = context.getBean(JdbcTemplate.class);
+        service = context.getBean(ChangeFeedService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void populate() {
+        jdbc.update("delete from change_log");
+        jdbc.update("delete from change_log_sequence");
+        Instant now = Instant.now();
+        Instant first = now.minus(SPAN);
+        long step = SPAN.toMillis() / entries;
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+        for (long seq = 1; seq <= entries; seq++) {
+            String op = seq <= entities ? "CREATED" : "UPDATED";
+            rows.add(new Object[]{seq, "LOAN", 1 + (seq - 1) % entities, op, Timestamp.from(first.plusMillis(seq * step))});
+            if (rows.size() == INSERT_BATCH || seq == entries) {
+                jdbc.batchUpdate(ChangeFeedService.INSERT_CHANGE, rows);
+                rows.clear();
+            }
+        }
+        jdbc.update("insert into change_log_sequence (id, last_seq, truncated_through) values (?, ?, 0)",
+                ChangeLogSequence.ID, entries);
+        if (compacted) {
+            service.compact(now);
+        }
+    }
+
+    @Benchmark
+    public long compact() {
+        return service.compact(Instant.now());
+    }
+
+    @Benchmark
+    public long expire() {
+        return service.expire(Instant.now());
+    }
+
+    @Benchmark
+    public long catchUp() {
+        long since = 0;
+        long read = 0;
+        ChangeFeedDTO feed;
+        do {
+            feed = service.getChanges(since, ChangeFeedService.MAX_LIMIT);
+            read += feed.getChanges().size();
+            since = feed.getLastSeq();
+        } while (feed.isHasMore());
+        return read;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ChangeLogMaintenanceBenchmark.class.getSimpleName())
+                .jvmArgsAppend(BenchmarkApplication.datasourceJvmArgs())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.elotech.biblioteca_arom.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe CoBorrowSimilarityMatrix, cobrindo o cálculo da similaridade
+ * por co-empréstimos e a construção paralela.
+ */
+public class CoBorrowSimilarityMatrixTest {
+
+    /**
+     * Testa a similaridade em um cenário pequeno.
+     * Os usuários 1 e 2 pegaram os livros 10 e 20; o usuário 3 pegou 10 e 30.
+     * O livro 20 deve ser o vizinho mais similar do livro 10.
+     */
+    @Test
+    public void testBuild_cosineSimilarity() {
+        long[] users = {1, 1, 2, 2, 3, 3, 3};
+        long[] books = {10, 20, 10, 20, 10, 30, 30};
+
+        CoBorrowSimilarityMatrix matrix = CoBorrowSimilarityMatrix.build(users, books, users.length, 10, 100,
+                ForkJoinPool.commonPool());
+
+        assertEquals(3, matrix.bookCount());
+        assertArrayEquals(new long[]{20, 30}, matrix.neighborIds(10));
+        // 10 e 20: 2 co-empréstimos / sqrt(3 leitores * 2 leitores)
+        assertEquals(2 / Math.sqrt(6), matrix.neighborScores(10)[0], 1e-6);
+        assertEquals(1 / Math.sqrt(3), matrix.neighborScores(10)[1], 1e-6);
+        assertArrayEquals(new long[]{10}, matrix.neighborIds(30));
+        assertEquals(0, matrix.neighborIds(99).length);
+    }
+
+    /**
+     * Testa se a quantidade de vizinhos por livro é limitada e se históricos
+     * maiores que o limite são descartados.
+     */
+    @Test
+    public void testBuild_limitsNeighborsAndUserHistory() {
+        long[] users = {1, 1, 1, 1, 2, 2};
+        long[] books = {10, 20, 30, 40, 50, 60};
+
+        CoBorrowSimilarityMatrix limited = CoBorrowSimilarityMatrix.build(users, books, users.length, 2, 100,
+                ForkJoinPool.commonPool());
+        assertEquals(2, limited.neighborIds(10).length);
+
+        CoBorrowSimilarityMatrix capped = CoBorrowSimilarityMatrix.build(users, books, users.length, 10, 3,
+                ForkJoinPool.commonPool());
+        assertEquals(0, capped.neighborIds(10).length);
+        assertArrayEquals(new long[]{60}, capped.neighborIds(50));
+    }
+
+    /**
+     * Testa se a construção paralela produz o mesmo resultado da construção com uma única thread.
+     */
+    @Test
+    public void testBuild_parallelMatchesSequential() {
+        Random random = new Random(42);
+        int loans = 20_000;
+        long[] users = new long[loans];
+        long[] books = new long[loans];
+        for (int i = 0; i < loans; i++) {
+            users[i] = random.nextInt(2_000);
+            books[i] = random.nextInt(1_500);
+        }
+
+        ForkJoinPool sequential = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            CoBorrowSimilarityMatrix expected = CoBorrowSimilarityMatrix.build(users, books, loans, 20, 1000, sequential);
+            CoBorrowSimilarityMatrix actual = CoBorrowSimilarityMatrix.build(users, books, loans, 20, 1000, parallel);
+
+            assertEquals(expected.neighborCount(), actual.neighborCount());
+            for (long book = 0; book < 1_500; book++) {
+                assertTrue(Arrays.equals(expected.neighborScores(book), actual.neighborScores(book)));
+            }
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanPairView;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes para a classe CollaborativeRecommender, cobrindo a soma das similaridades dos vizinhos,
+ * o descarte dos livros já emprestados e a ordem das recomendações.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CollaborativeRecommenderTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    private CollaborativeRecommender recommender;
+
+    /**
+     * Constrói a matriz a partir de um histórico pequeno.
+     * Os usuários 1 e 2 pegaram os livros 10 e 20, o usuário 3 pegou 10 e 30,
+     * e os usuários 4 e 5 pegaram o livro 40, junto com 50 e 60, respectivamente.
+     */
+    @BeforeEach
+    void setUp() {
+        recommender = new CollaborativeRecommender(loanRepository, 10, 100);
+        when(loanRepository.findLoanPairsAfter(anyLong(), any())).thenReturn(List.of(
+                new PairRow(1L, 1L, 10L), new PairRow(2L, 1L, 20L), new PairRow(3L, 2L, 10L), new PairRow(4L, 2L, 20L),
+                new PairRow(5L, 3L, 10L), new PairRow(6L, 3L, 30L), new PairRow(7L, 4L, 40L), new PairRow(8L, 4L, 50L),
+                new PairRow(9L, 5L, 40L), new PairRow(10L, 5L, 60L)));
+        recommender.rebuild();
+    }
+
+    /**
+     * Testa a ordem das recomendações: 20 (0,82) vem antes de 50 e 60 (0,71 cada, empatados e
+     * ordenados pelo ID), que vêm antes de 30 (0,58). Os livros do histórico não são recomendados.
+     */
+    @Test
+    public void testRecommend_ordersByScoreThenId() {
+        when(loanRepository.findDistinctBookIdsByUserId(99L)).thenReturn(List.of(40L, 10L));
+
+        assertEquals(List.of(20L, 50L, 60L, 30L), recommender.recommend(99L, 10));
+        assertEquals(List.of(20L, 50L), recommender.recommend(99L, 2));
+    }
+
+    /**
+     * Testa se as similaridades de um mesmo vizinho, vindas de livros diferentes do histórico, são somadas:
+     * 10 recebe 0,82 de 20 e 0,58 de 30 e passa à frente de 40, que recebe só 0,71 de 50.
+     */
+    @Test
+    public void testRecommend_sumsScoresPerNeighbor() {
+        when(loanRepository.findDistinctBookIdsByUserId(98L)).thenReturn(List.of(50L, 30L, 20L));
+
+        assertEquals(List.of(10L, 40L), recommender.recommend(98L, 10));
+    }
+
+    /**
+     * Testa a recomendação para um usuário sem empréstimos.
+     */
+    @Test
+    public void testRecommend_withoutHistory() {
+        when(loanRepository.findDistinctBookIdsByUserId(97L)).thenReturn(List.of());
+
+        assertTrue(recommender.recommend(97L, 10).isEmpty());
+    }
+
+    private record PairRow(Long getLoanId, Long getUserId, Long getBookId) implements LoanPairView {
+    }
+}
@@ -0,0 +1,131 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.CollectionVersion;
+import com.elotech.biblioteca_arom.entities.JobWatermark;
+import com.elotech.biblioteca_arom.repositories.CollectionVersionRepository;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Snapshot;
+import com.elotech.biblioteca_arom.services.CollectionVersions.Tracked;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe CollectionVersions, cobrindo a geração dos ETags e do Last-Modified
+ * a partir dos contadores de alteração lidos do banco.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CollectionVersionsTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-10T12:00:00Z");
+
+    @Mock
+    private CollectionVersionRepository repository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private CollectionVersions versions;
+
+    private final List<CollectionVersion> rows = new ArrayList<>();
+
+    private Snapshot read(Tracked... collections) {
+        when(repository.findAllById(anyIterable())).thenReturn(List.copyOf(rows));
+        return versions.snapshot(collections);
+    }
+
+    /**
+     * Testa se o ETag de uma listagem só muda quando uma das coleções de que ela depende é alterada.
+     */
+    @Test
+    public void testEtag_changesOnlyWithDependencies() {
+        rows.add(new CollectionVersion("BOOKS", 3, T0));
+        rows.add(new CollectionVersion("LOANS", 5, T0));
+        String books = read(Tracked.BOOKS, Tracked.LOANS).etag();
+        String users = read(Tracked.USERS).etag();
+
+        rows.set(1, new CollectionVersion("LOANS", 6, T0.plusSeconds(1)));
+
+        assertNotEquals(books, read(Tracked.BOOKS, Tracked.LOANS).etag());
+        assertEquals(users, read(Tracked.USERS).etag());
+        assertEquals(6, read(Tracked.LOANS).version(Tracked.LOANS));
+        assertTrue(books.startsWith("\"") && books.endsWith("\""));
+    }
+
+    /**
+     * Testa se o ETag muda quando a tabela é recriada e o contador volta ao mesmo valor, pelo instante
+     * da última alteração.
+     */
+    @Test
+    public void testEtag_includesModifiedAt() {
+        rows.add(new CollectionVersion("USERS", 1, T0));
+        String etag = read(Tracked.USERS).etag();
+
+        rows.set(0, new CollectionVersion("USERS", 1, T0.plusMillis(1)));
+
+        assertNotEquals(etag, read(Tracked.USERS).etag());
+    }
+
+    /**
+     * Testa se o ETag de um item muda com a versão do item e com as coleções de que ele depende,
+     * e se itens diferentes com a mesma versão têm ETags diferentes.
+     */
+    @Test
+    public void testItemEtag() {
+        rows.add(new CollectionVersion("LOANS", 1, T0));
+        Snapshot snapshot = read(Tracked.BOOKS, Tracked.LOANS);
+        String etag = snapshot.etag(1L, 0, Tracked.LOANS);
+
+        assertEquals(etag, snapshot.etag(1L, 0, Tracked.LOANS));
+        assertNotEquals(etag, snapshot.etag(2L, 0, Tracked.LOANS));
+        assertNotEquals(etag, snapshot.etag(1L, 1, Tracked.LOANS));
+        rows.set(0, new CollectionVersion("LOANS", 2, T0));
+        assertNotEquals(etag, read(Tracked.BOOKS, Tracked.LOANS).etag(1L, 0, Tracked.LOANS));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.etag(1L, 0, Tracked.USERS));
+    }
+
+    /**
+     * Testa se o Last-Modified é o da alteração mais recente entre as coleções lidas, e zero
+     * para coleções ainda sem alterações.
+     */
+    @Test
+    public void testLastModified() {
+        rows.add(new CollectionVersion("BOOKS", 1, T0));
+        rows.add(new CollectionVersion("USERS", 1, T0.plusSeconds(5)));
+
+        assertEquals(T0.toEpochMilli(), read(Tracked.BOOKS).lastModified());
+        assertEquals(T0.plusSeconds(5).toEpochMilli(), read(Tracked.BOOKS, Tracked.USERS).lastModified());
+        rows.clear();
+        assertEquals(0, read(Tracked.LOANS).lastModified());
+    }
+
+    /**
+     * Testa se as atualizações em massa fora de uma transação são recusadas.
+     */
+    @Test
+    public void testChanged_outsideTransaction() {
+        assertThrows(IllegalStateException.class, () -> versions.changed(Tracked.LOANS));
+        verifyNoInteractions(entityManager);
+    }
+
+    /**
+     * Testa o mapeamento das classes de entidade para as coleções acompanhadas.
+     */
+    @Test
+    public void testTrackedOf() {
+        assertEquals(Tracked.BOOKS, Tracked.of(Book.class));
+        assertNull(Tracked.of(JobWatermark.class));
+    }
+}
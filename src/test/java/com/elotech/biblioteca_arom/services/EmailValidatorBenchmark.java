@@ -0,0 +1,88 @@
+package com.elotech.biblioteca_arom.services;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a vazão, em emails por milissegundo, das três formas de validar o email de um usuário: {@code String.matches}, que compila a
+ * expressão a cada chamada (a validação anterior do {@link UserService}), o {@link EmailValidator#PATTERN}
+ * pré-compilado e o {@link EmailValidator#isValid(CharSequence) scanner} sem alocação. Cada operação valida
+ * um lote de mil emails, dos quais cerca de um em dez é inválido, como numa carga de alunos.
+ * <p>
+ * Rodar com {@code -prof gc} mostra a alocação por operação de cada forma. Executar pelo perfil
+ * {@code benchmarks} do Maven ou com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.services.EmailValidatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class EmailValidatorBenchmark {
+
+    private static final int BATCH = 1_000;
+    private static final String REGEX = EmailValidator.PATTERN.pattern();
+    private static final String[] DOMAINS = {"alunos.universidade.edu.br", "gmail.com", "outlook.com", "example.org"};
+
+    private String[] emails;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        SplittableRandom random = new SplittableRandom(7);
+        emails = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            String email = "aluno." + random.nextInt(1_000_000) + "@" + DOMAINS[random.nextInt(DOMAINS.length)];
+            emails[i] = random.nextInt(10) == 0 ? email.replace('@', ' ') : email;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int stringMatches() {
+        int valid = 0;
+        for (String email : emails) {
+            if (email.matches(REGEX)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int precompiledPattern() {
+        int valid = 0;
+        for (String email : emails) {
+            if (EmailValidator.PATTERN.matcher(email).matches()) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int scanner() {
+        int valid = 0;
+        for (String email : emails) {
+            if (EmailValidator.isValid(email)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EmailValidatorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
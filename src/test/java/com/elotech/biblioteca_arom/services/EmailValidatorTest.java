@@ -0,0 +1,64 @@
+package com.elotech.biblioteca_arom.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe EmailValidator, cobrindo os formatos aceitos e recusados
+ * e a equivalência com a expressão regular original.
+ */
+public class EmailValidatorTest {
+
+    private static final String ALPHABET = "aZ09._%+-@.@-xY";
+
+    /**
+     * Testa emails válidos, incluindo domínios com vários pontos e hífens.
+     */
+    @Test
+    public void testIsValid_withValidEmails() {
+        assertTrue(EmailValidator.isValid("test@example.com"));
+        assertTrue(EmailValidator.isValid("first.last+tag@sub-domain.example.co.uk"));
+        assertTrue(EmailValidator.isValid("a_b%c-d@x.io"));
+        assertTrue(EmailValidator.isValid("user@a.b.cd"));
+    }
+
+    /**
+     * Testa emails inválidos e nulos.
+     * Verifica que nenhum deles lança exceção.
+     */
+    @Test
+    public void testIsValid_withInvalidEmails() {
+        assertFalse(EmailValidator.isValid(null));
+        assertFalse(EmailValidator.isValid(""));
+        assertFalse(EmailValidator.isValid("invalid-email"));
+        assertFalse(EmailValidator.isValid("@example.com"));
+        assertFalse(EmailValidator.isValid("user@.com"));
+        assertFalse(EmailValidator.isValid("user@example.c"));
+        assertFalse(EmailValidator.isValid("user@example.c0m"));
+        assertFalse(EmailValidator.isValid("user@@example.com"));
+        assertFalse(EmailValidator.isValid("user name@example.com"));
+        assertFalse(EmailValidator.isValid("usuário@example.com"));
+        assertFalse(EmailValidator.isValid("user@example.com."));
+    }
+
+    /**
+     * Testa a equivalência com a expressão regular em emails gerados aleatoriamente
+     * a partir de um alfabeto pequeno, que produz muitos casos limite.
+     */
+    @Test
+    public void testIsValid_matchesPattern() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder email = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int c = 0; c < length; c++) {
+                email.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            String candidate = email.toString();
+            assertEquals(EmailValidator.PATTERN.matcher(candidate).matches(), EmailValidator.isValid(candidate), candidate);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
+import com.elotech.biblioteca_arom.repositories.LoanAuditRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe LoanAuditService, cobrindo a gravação das alterações no diário, a projeção em lotes
+ * na tabela de auditoria e a retomada da projeção a partir da última posição do diário gravada na tabela.
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoanAuditServiceTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private LoanAuditRepository loanAuditRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path directory;
+
+    private LoanAuditService service;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    private LoanAuditService open(long lastLsn) throws Exception {
+        if (service != null) {
+            service.close();
+        }
+        when(loanAuditRepository.findLastLsn(LoanJournal.readId(directory))).thenReturn(lastLsn);
+        service = new LoanAuditService(loanAuditRepository, jdbcTemplate, TransactionOperations.withoutTransaction(),
+                directory, 1, 1, true, BATCH_SIZE);
+        service.open();
+        return service;
+    }
+
+    private static LoanChangedEvent created(long loanId) {
+        User user = new User();
+        user.setId(3L);
+        Book book = new Book();
+        book.setId(4L);
+        Loan loan = new Loan(loanId, user, book, LocalDate.of(2024, 3, 1), null, Status.EMPRESTADO);
+        return new LoanChangedEvent(loanId, loan, ChangeType.CREATED);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object[]>> insertedBatches(int batches) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(batches)).batchUpdate(eq(LoanAuditService.INSERT_AUDIT), rows.capture());
+        return rows.getAllValues();
+    }
+
+    /**
+     * Testa se as alterações gravadas no diário são inseridas na auditoria em lotes do tamanho
+     * configurado, com o estado do empréstimo e o diário e a posição de cada evento como chave.
+     */
+    @Test
+    public void testProject_insertsInBatches() throws Exception {
+        open(-1);
+        service.onLoanChanged(created(10));
+        service.onLoanChanged(new LoanChangedEvent(11L, null, ChangeType.DELETED));
+        service.onLoanChanged(created(12));
+
+        assertEquals(2, service.project());
+        assertEquals(1, service.project());
+        assertEquals(0, service.project());
+
+        String journalId = service.getJournalId();
+        List<List<Object[]>> batches = insertedBatches(2);
+        Object[] created = batches.get(0).get(0);
+        assertArrayEquals(new Object[]{journalId, 0L, 10L, "CREATED", "EMPRESTADO", 3L, 4L, Date.valueOf("2024-03-01"),
+                null, null}, Arrays.copyOf(created, 10));
+        assertInstanceOf(Timestamp.class, created[10]);
+        assertArrayEquals(new Object[]{journalId, (long) LoanJournal.RECORD_SIZE, 11L, "DELETED", null, null, null,
+                null, null, null}, Arrays.copyOf(batches.get(0).get(1), 10));
+        assertEquals(1, batches.get(1).size());
+        assertEquals(3, service.getStats().getProjectedEvents());
+        assertEquals(3L * LoanJournal.RECORD_SIZE, service.getStats().getProjectedPosition());
+    }
+
+    /**
+     * Testa se, ao reabrir, a projeção continua depois da maior posição do mesmo diário já gravada na tabela,
+     * reaplicando apenas os eventos que ficaram só no diário.
+     */
+    @Test
+    public void testOpen_replaysUnprojectedEvents() throws Exception {
+        open(-1);
+        String journalId = service.getJournalId();
+        for (long loanId = 1; loanId <= 3; loanId++) {
+            service.onLoanChanged(created(loanId));
+        }
+
+        // A primeira alteração já estava na tabela quando a aplicação parou
+        open(0);
+        assertEquals(journalId, service.getJournalId());
+        assertEquals(2, service.project());
+
+        List<Object[]> rows = insertedBatches(1).getFirst();
+        assertEquals((long) LoanJournal.RECORD_SIZE, rows.get(0)[1]);
+        assertEquals(2L, rows.get(0)[2]);
+        assertEquals(3L, rows.get(1)[2]);
+        assertEquals(3L * LoanJournal.RECORD_SIZE, service.getJournal().getWritePosition());
+    }
+
+    /**
+     * Testa se uma falha ao inserir o lote mantém a posição da projeção, para que o mesmo lote
+     * seja tentado de novo.
+     */
+    @Test
+    public void testProject_failure_keepsPosition() throws Exception {
+        open(-1);
+        service.onLoanChanged(created(1));
+        when(jdbcTemplate.batchUpdate(eq(LoanAuditService.INSERT_AUDIT), anyList()))
+                .thenThrow(new RuntimeException("conexão recusada"))
+                .thenReturn(new int[]{1});
+
+        assertThrows(RuntimeException.class, () -> service.project());
+        assertEquals(0, service.getStats().getProjectedPosition());
+        assertEquals(1, service.project());
+        assertEquals(LoanJournal.RECORD_SIZE, service.getStats().getProjectedPosition());
+    }
+
+    /**
+     * Testa se a projeção ignora as posições gravadas por outro diário: um diário novo, com outro
+     * identificador, começa do início mesmo que a tabela já tenha posições maiores de outra instância.
+     */
+    @Test
+    public void testOpen_otherJournalPositions_areIgnored(@TempDir Path otherDirectory) throws Exception {
+        String otherId = LoanJournal.readId(otherDirectory);
+        lenient().when(loanAuditRepository.findLastLsn(otherId)).thenReturn(100L * LoanJournal.RECORD_SIZE);
+        open(-1);
+        service.onLoanChanged(created(1));
+
+        assertNotEquals(otherId, service.getJournalId());
+        assertEquals(1, service.project());
+        Object[] row = insertedBatches(1).getFirst().getFirst();
+        assertEquals(service.getJournalId(), row[0]);
+        assertEquals(0L, row[1]);
+    }
+}
@@ -0,0 +1,172 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import com.elotech.biblioteca_arom.dtos.LoanBatchRequestDTO;
+import com.elotech.biblioteca_arom.dtos.LoanBatchResultDTO;
+import com.elotech.biblioteca_arom.dtos.LoanReturnBatchRequestDTO;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Compara o empréstimo e a devolução de um carrinho de {@code cartSize} livros feitos um a um
+ * ({@link LoanService#createLoan} e {@link LoanService#updateLoan} por livro, cada um na sua transação)
+ * e em lote ({@link LoanService#createLoans} e {@link LoanService#returnLoans}, numa única transação
+ * com lotes JDBC). O tempo é o do carrinho inteiro; os empréstimos de cada chamada são criados ou
+ * devolvidos fora da medição, para que os livros estejam sempre no estado esperado.
+ * <p>
+ * Por padrão usa um H2 em memória; para medir no PostgreSQL, informe a conexão como descrito em
+ * {@link BenchmarkApplication}.
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.services.LoanBatchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class LoanBatchBenchmark {
+
+    private static final int BOOKS = 10_000;
+    // O usuário e os livros do acervo usam IDs altos, para não colidir com os gerados pelo Hibernate
+    private static final long SEEDED_ID = 1_000_000;
+
+    @Param({"10", "50"})
+    public int cartSize;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private long nextBook;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, BenchmarkApplication.H2,
+                Map.of("spring.jpa.properties.hibernate.generate_statistics", "false"));
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("insert into users (id, name, email, registration_date, phone_number) values (?, ?, ?, ?, ?)",
+                SEEDED_ID, "Benchmark User", "benchmark.user@example.com", Date.valueOf(LocalDate.now()), "123456789");
+        jdbc.batchUpdate("insert into book (id, title, author, isbn, publication_date, category) values (?, ?, ?, ?, ?, ?)",
+                LongStream.range(0, BOOKS).mapToObj(n -> new Object[]{
+                        SEEDED_ID + n, "Book " + n, "Author " + n % 500, "isbn-" + n, "2020", "Fiction"}).toList());
+        context.getBean(BookAvailabilityIndex.class).rebuild();
+        loanService = context.getBean(LoanService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Os próximos {@code cartSize} livros do acervo, em rodízio.
+     */
+    private List<Long> nextCart() {
+        List<Long> bookIds = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            bookIds.add(SEEDED_ID + nextBook++ % BOOKS);
+        }
+        return bookIds;
+    }
+
+    private void returnAll(List<Long> loanIds) {
+        if (!loanIds.isEmpty()) {
+            loanService.returnLoans(new LoanReturnBatchRequestDTO(loanIds, null));
+        }
+    }
+
+    private List<Long> checkOut(List<Long> bookIds) {
+        return loanService.createLoans(new LoanBatchRequestDTO(SEEDED_ID, bookIds, null, null)).stream()
+                .map(LoanBatchResultDTO::getLoanId)
+                .toList();
+    }
+
+    /**
+     * Um carrinho de livros livres; os empréstimos criados pela chamada são devolvidos depois dela.
+     */
+    @State(Scope.Thread)
+    public static class FreeBooks {
+        List<Long> bookIds;
+        final List<Long> createdLoanIds = new ArrayList<>();
+
+        @Setup(Level.Invocation)
+        public void prepare(LoanBatchBenchmark benchmark) {
+            bookIds = benchmark.nextCart();
+        }
+
+        @TearDown(Level.Invocation)
+        public void release(LoanBatchBenchmark benchmark) {
+            benchmark.returnAll(createdLoanIds);
+            createdLoanIds.clear();
+        }
+    }
+
+    /**
+     * Os empréstimos ativos de um carrinho, criados antes da chamada.
+     */
+    @State(Scope.Thread)
+    public static class OpenLoans {
+        List<Long> loanIds;
+
+        @Setup(Level.Invocation)
+        public void prepare(LoanBatchBenchmark benchmark) {
+            loanIds = benchmark.checkOut(benchmark.nextCart());
+        }
+    }
+
+    @Benchmark
+    public List<Long> createLoansOneByOne(FreeBooks cart) {
+        for (Long bookId : cart.bookIds) {
+            User user = new User();
+            user.setId(SEEDED_ID);
+            Book book = new Book();
+            book.setId(bookId);
+            cart.createdLoanIds.add(loanService.createLoan(new Loan(null, user, book, null, null, null)).getId());
+        }
+        return cart.createdLoanIds;
+    }
+
+    @Benchmark
+    public List<Long> createLoansBatch(FreeBooks cart) {
+        cart.createdLoanIds.addAll(checkOut(cart.bookIds));
+        return cart.createdLoanIds;
+    }
+
+    @Benchmark
+    public int returnLoansOneByOne(OpenLoans loans) {
+        LocalDate today = LocalDate.now();
+        for (Long loanId : loans.loanIds) {
+            loanService.updateLoan(loanId, today, null);
+        }
+        return loans.loanIds.size();
+    }
+
+    @Benchmark
+    public List<LoanBatchResultDTO> returnLoansBatch(OpenLoans loans) {
+        return loanService.returnLoans(new LoanReturnBatchRequestDTO(loans.loanIds, null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LoanBatchBenchmark.class.getSimpleName())
+                .jvmArgsAppend(BenchmarkApplication.datasourceJvmArgs())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe LoanExportService, cobrindo a exportação em NDJSON e CSV e a escolha do formato.
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoanExportServiceTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    private LoanExportService loanExportService;
+
+    private final LoanDTO loan1 = new LoanDTO(1L, "2024-09-01", null, "EMPRESTADO", "Miquella the Kind", "Neon Genesis Evangelion");
+    private final LoanDTO loan2 = new LoanDTO(2L, "2024-09-02", "2024-09-10", "PRESENTE", "Radahn", "Dune, Messiah");
+
+    /**
+     * Inicializa o serviço com um ObjectMapper real antes de cada teste.
+     */
+    @BeforeEach
+    void setUp() {
+        loanExportService = new LoanExportService(loanRepository, new ObjectMapper());
+    }
+
+    /**
+     * Testa a exportação em NDJSON.
+     * Verifica se cada empréstimo é escrito como um objeto JSON em uma linha própria.
+     */
+    @Test
+    public void testExportNdjson() throws Exception {
+        when(loanRepository.streamAllLoanDetails()).thenReturn(Stream.of(loan1, loan2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loanExportService.exportLoanDetails(LoanExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"loanId\":1,"));
+        assertTrue(lines[1].contains("\"bookTitle\":\"Dune, Messiah\""));
+    }
+
+    /**
+     * Testa a exportação em CSV.
+     * Verifica o cabeçalho e se campos com vírgula são escapados entre aspas.
+     */
+    @Test
+    public void testExportCsv() throws Exception {
+        when(loanRepository.streamAllLoanDetails()).thenReturn(Stream.of(loan1, loan2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loanExportService.exportLoanDetails(LoanExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("loanId,loanDate,returnDate,status,userName,bookTitle", lines[0]);
+        assertEquals("1,2024-09-01,,EMPRESTADO,Miquella the Kind,Neon Genesis Evangelion", lines[1]);
+        assertEquals("2,2024-09-02,2024-09-10,PRESENTE,Radahn,\"Dune, Messiah\"", lines[2]);
+    }
+
+    /**
+     * Testa a exportação sem empréstimos cadastrados.
+     * Verifica se nenhuma linha é escrita no NDJSON.
+     */
+    @Test
+    public void testExportNdjson_empty() throws Exception {
+        when(loanRepository.streamAllLoanDetails()).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loanExportService.exportLoanDetails(LoanExportService.Format.NDJSON, out);
+
+        assertEquals(0, out.size());
+    }
+
+    /**
+     * Testa a conversão do formato pedido pelo cliente.
+     * Verifica se maiúsculas e minúsculas são aceitas e se um formato desconhecido é recusado com uma mensagem.
+     */
+    @Test
+    public void testFormatOf() {
+        assertEquals(LoanExportService.Format.CSV, LoanExportService.Format.of("csv"));
+        assertEquals(LoanExportService.Format.NDJSON, LoanExportService.Format.of("NDJson"));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> LoanExportService.Format.of("xml"));
+        assertTrue(exception.getMessage().contains("xml"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import com.elotech.biblioteca_arom.entities.LoanAudit;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compara o registro de uma alteração de empréstimo na auditoria, com 8 threads gravando ao mesmo tempo:
+ * <ul>
+ *     <li>{@code journalAppend}: gravação no {@link LoanJournal}, o custo na thread da requisição;</li>
+ *     <li>{@code journalAppendDurable}: gravação no diário esperando o evento chegar ao disco, com as threads
+ *     concorrentes compartilhando cada gravação (como {@code biblioteca.journal.sync-on-append=true});</li>
+ *     <li>{@code jpaInsert}: um {@code persist} de {@link LoanAudit} numa transação própria, como seria
+ *     gravar a auditoria na requisição;</li>
+ *     <li>{@code projectorCatchUp}: o tempo para a projeção do {@link LoanAuditService} inserir na tabela
+ *     {@code events} alterações gravadas no diário, em lotes de {@code batchSize}.</li>
+ * </ul>
+ * Os três primeiros medem operações por segundo e o último, milissegundos por execução; para comparar,
+ * divida {@code events} pelo tempo da projeção. Os dois primeiros usam um diário próprio, fora da aplicação,
+ * cujos segmentos são apagados ao fim de cada iteração. Os resultados do diário dependem do disco
+ * (um {@code force} por intervalo).
+ * <p>
+ * Por padrão usa um H2 em memória; para medir no PostgreSQL, informe a conexão como descrito em
+ * {@link BenchmarkApplication}.
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.services.LoanJournalBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class LoanJournalBenchmark {
+
+    @Param({"500"})
+    public int batchSize;
+
+    @Param({"100000"})
+    public int events;
+
+    private ConfigurableApplicationContext context;
+    private LoanAuditService auditService;
+    private EntityManager entityManager;
+    private TransactionOperations transactionOperations;
+    private JdbcTemplate jdbc;
+    private LoanJournal journal;
+    // As linhas do jpaInsert usam um diário próprio, para não colidir com as posições da projeção
+    private final AtomicLong nextAuditId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, BenchmarkApplication.H2,
+                Map.of("biblioteca.journal.projector-batch-size", Integer.toString(batchSize),
+                        "spring.jpa.properties.hibernate.generate_statistics", "false"));
+        auditService = context.getBean(LoanAuditService.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionOperations = context.getBean(TransactionOperations.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        journal = new LoanJournal(Files.createTempDirectory("loan-journal-benchmark"), 64 * 1024 * 1024,
+                Duration.ofMillis(5), 0);
+    }
+
+    private static LoanJournal.Entry entry(long loanId) {
+        return new LoanJournal.Entry(0, loanId, ChangeType.UPDATED, Status.PRESENTE, 3L, 4L,
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 10), LocalDate.of(2024, 3, 15), Instant.now());
+    }
+
+    @Benchmark
+    public long journalAppend() {
+        return journal.append(entry(1));
+    }
+
+    @Benchmark
+    public long journalAppendDurable() throws InterruptedException {
+        long lsn = journal.append(entry(1));
+        journal.awaitDurable(lsn);
+        return lsn;
+    }
+
+    @Benchmark
+    public long jpaInsert() {
+        long id = nextAuditId.incrementAndGet();
+        transactionOperations.executeWithoutResult(status -> entityManager.persist(new LoanAudit("jpa-insert", id, 1L,
+                ChangeType.UPDATED, Status.PRESENTE, 3L, 4L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 10),
+                LocalDate.of(2024, 3, 15), Instant.now())));
+        return id;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public boolean projectorCatchUp() throws InterruptedException {
+        for (long loanId = 1; loanId <= events; loanId++) {
+            auditService.getJournal().append(entry(loanId));
+        }
+        return auditService.awaitProjected(Duration.ofMinutes(5));
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() throws IOException {
+        journal.flush();
+        journal.deleteBefore(journal.getWritePosition());
+        jdbc.update("delete from loan_audit");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        journal.close();
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LoanJournalBenchmark.class.getSimpleName())
+                .jvmArgsAppend(BenchmarkApplication.datasourceJvmArgs())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,181 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe LoanJournal, cobrindo a leitura dos eventos gravados, a troca e a exclusão de
+ * segmentos, a recuperação depois de uma gravação interrompida e a detecção de registros corrompidos.
+ */
+public class LoanJournalTest {
+
+    private static final int RECORDS_PER_SEGMENT = 10;
+    private static final int SEGMENT_SIZE = RECORDS_PER_SEGMENT * LoanJournal.RECORD_SIZE;
+
+    @TempDir
+    private Path directory;
+
+    private LoanJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private LoanJournal open(long minPosition) throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        journal = new LoanJournal(directory, SEGMENT_SIZE, Duration.ofMillis(1), minPosition);
+        return journal;
+    }
+
+    private static LoanJournal.Entry entry(long loanId) {
+        return new LoanJournal.Entry(0, loanId, ChangeType.CREATED, Status.EMPRESTADO, 3L, 4L,
+                LocalDate.of(2024, 3, 1), null, LocalDate.of(2024, 3, 15), Instant.ofEpochMilli(1_709_251_200_123L));
+    }
+
+    private long appendAll(int count) throws InterruptedException {
+        long lsn = -1;
+        for (long id = 1; id <= count; id++) {
+            lsn = journal.append(entry(id));
+        }
+        journal.awaitDurable(lsn);
+        return lsn;
+    }
+
+    private List<Long> loanIds(long from) throws IOException {
+        return journal.read(from, 1_000).stream().map(LoanJournal.Entry::loanId).toList();
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+
+    private static void corrupt(Path segment, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), offset);
+        }
+    }
+
+    /**
+     * Testa se os eventos são lidos com todos os campos, nas posições em que foram gravados,
+     * e se eventos nulos de uma exclusão são preservados.
+     */
+    @Test
+    public void testAppendAndRead_roundTrip() throws Exception {
+        open(0);
+        long first = journal.append(entry(7));
+        long second = journal.append(new LoanJournal.Entry(0, 7, ChangeType.DELETED, null, null, null,
+                null, null, null, Instant.ofEpochMilli(5)));
+        journal.awaitDurable(second);
+
+        List<LoanJournal.Entry> entries = journal.read(0, 10);
+
+        assertEquals(0, first);
+        assertEquals(LoanJournal.RECORD_SIZE, second);
+        assertEquals(new LoanJournal.Entry(0, 7, ChangeType.CREATED, Status.EMPRESTADO, 3L, 4L,
+                LocalDate.of(2024, 3, 1), null, LocalDate.of(2024, 3, 15), Instant.ofEpochMilli(1_709_251_200_123L)),
+                entries.get(0));
+        assertEquals(new LoanJournal.Entry(second, 7, ChangeType.DELETED, null, null, null,
+                null, null, null, Instant.ofEpochMilli(5)), entries.get(1));
+        assertEquals(2 * LoanJournal.RECORD_SIZE, journal.getDurablePosition());
+    }
+
+    /**
+     * Testa se o diário passa para um novo segmento quando o atual enche, se a leitura atravessa os
+     * segmentos respeitando o limite e se só os segmentos inteiramente anteriores à posição são apagados.
+     */
+    @Test
+    public void testSegments_rollAndDelete() throws Exception {
+        open(0);
+        appendAll(25);
+
+        assertEquals(3, journal.getSegmentCount());
+        assertEquals(List.of(9L, 10L, 11L, 12L), journal.read(8L * LoanJournal.RECORD_SIZE, 4).stream()
+                .map(LoanJournal.Entry::loanId).toList());
+
+        assertEquals(1, journal.deleteBefore(15L * LoanJournal.RECORD_SIZE));
+        assertEquals(SEGMENT_SIZE, journal.getFirstPosition());
+        assertEquals(15, loanIds(SEGMENT_SIZE).size());
+    }
+
+    /**
+     * Testa se, ao reabrir, o diário descarta o registro com CRC inválido no fim do último segmento
+     * e o que vem depois dele, e volta a gravar nessa posição.
+     */
+    @Test
+    public void testRecovery_discardsTornTail() throws Exception {
+        open(0);
+        appendAll(5);
+        journal.close();
+        // Um byte alterado no conteúdo do quarto registro
+        corrupt(lastSegment(), 3L * LoanJournal.RECORD_SIZE + 30);
+
+        open(0);
+        assertEquals(3L * LoanJournal.RECORD_SIZE, journal.getWritePosition());
+        long lsn = journal.append(entry(99));
+        journal.awaitDurable(lsn);
+
+        assertEquals(3L * LoanJournal.RECORD_SIZE, lsn);
+        assertEquals(List.of(1L, 2L, 3L, 99L), loanIds(0));
+    }
+
+    /**
+     * Testa se um registro corrompido antes do fim do diário interrompe a leitura com erro,
+     * em vez de ser ignorado.
+     */
+    @Test
+    public void testRead_corruptedRecord_throwsException() throws Exception {
+        open(0);
+        appendAll(15);
+        journal.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            corrupt(files.sorted().findFirst().orElseThrow(), 2L * LoanJournal.RECORD_SIZE + 20);
+        }
+
+        open(0);
+
+        assertEquals(15L * LoanJournal.RECORD_SIZE, journal.getWritePosition());
+        assertEquals(2, journal.read(0, 2).size());
+        assertThrows(IllegalStateException.class, () -> journal.read(0, 100));
+    }
+
+    /**
+     * Testa se o diário começa um novo segmento na posição mínima quando termina antes dela,
+     * e se a leitura pula o fim vazio do segmento anterior.
+     */
+    @Test
+    public void testOpen_minPositionAfterEnd_startsNewSegment() throws Exception {
+        open(0);
+        appendAll(3);
+
+        open(100L * LoanJournal.RECORD_SIZE);
+        long lsn = journal.append(entry(4));
+        journal.awaitDurable(lsn);
+
+        assertEquals(100L * LoanJournal.RECORD_SIZE, lsn);
+        assertEquals(List.of(1L, 2L, 3L, 4L), loanIds(0));
+    }
+}
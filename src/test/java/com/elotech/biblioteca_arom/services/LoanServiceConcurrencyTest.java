@@ -0,0 +1,158 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes de estresse para a criação concorrente de empréstimos.
+ * O repositório simulado guarda os empréstimos ativos em memória e demora 1 ms para gravar,
+ * abrindo uma janela entre a verificação e a gravação em que empréstimos duplos aconteceriam sem o lock.
+ * Com {@code saveBarrier}, cada gravação espera as demais chegarem à barreira, o que só acontece se
+ * elas estiverem em andamento ao mesmo tempo.
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoanServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private LoanService loanService;
+    private final Map<Long, List<Loan>> activeLoans = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private volatile CyclicBarrier saveBarrier;
+
+    /**
+     * Monta o serviço com um repositório simulado em memória.
+     */
+    @BeforeEach
+    void setUp() {
+        loanService = new LoanService(loanRepository, bookRepository, null, null, null, eventPublisher,
+                TransactionOperations.withoutTransaction(), new BookAvailabilityIndex(bookRepository, loanRepository),
+                new SimpleMeterRegistry());
+
+        when(loanRepository.findByBookIdAndStatus(anyLong(), eq(Status.EMPRESTADO)))
+                .thenAnswer(invocation -> List.copyOf(activeLoans.getOrDefault(invocation.<Long>getArgument(0), List.of())));
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> {
+            Loan loan = invocation.getArgument(0);
+            CyclicBarrier barrier = saveBarrier;
+            if (barrier != null) {
+                barrier.await(5, TimeUnit.SECONDS);
+            }
+            Thread.sleep(1);
+            loan.setId(ids.incrementAndGet());
+            activeLoans.computeIfAbsent(loan.getBook().getId(), key -> new CopyOnWriteArrayList<>()).add(loan);
+            return loan;
+        });
+    }
+
+    /**
+     * Testa vários usuários tentando pegar o mesmo livro ao mesmo tempo.
+     * Verifica se apenas um empréstimo é criado e os demais são recusados.
+     */
+    @Test
+    public void testConcurrentCheckoutOfSameBook_createsSingleLoan() throws Exception {
+        int attempts = 64;
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(attempts, i -> {
+            try {
+                loanService.createLoan(newLoan(i, 1L));
+            } catch (RuntimeException e) {
+                assertEquals("O livro já está emprestado!", e.getMessage());
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, activeLoans.get(1L).size());
+        assertEquals(attempts - 1, rejected.get());
+    }
+
+    /**
+     * Testa empréstimos concorrentes de livros diferentes.
+     * Verifica se todos são criados e se, por usarem locks diferentes, as gravações acontecem ao mesmo
+     * tempo: cada uma só termina quando todas as {@value #THREADS} estiverem gravando.
+     */
+    @Test
+    public void testConcurrentCheckoutOfDifferentBooks_overlap() throws Exception {
+        BookCheckoutLocks locks = new BookCheckoutLocks(LoanService.CHECKOUT_LOCK_STRIPES);
+        Set<Integer> stripes = new HashSet<>();
+        List<Long> bookIds = LongStream.rangeClosed(1, 10 * THREADS)
+                .filter(bookId -> stripes.add(locks.stripeOf(bookId)))
+                .limit(THREADS)
+                .boxed()
+                .toList();
+        saveBarrier = new CyclicBarrier(THREADS);
+
+        runConcurrently(THREADS, i -> loanService.createLoan(newLoan(i, bookIds.get(i))));
+
+        assertEquals(THREADS, activeLoans.size());
+        assertTrue(activeLoans.values().stream().allMatch(loans -> loans.size() == 1));
+        assertFalse(saveBarrier.isBroken());
+    }
+
+    private void runConcurrently(int tasks, IntConsumer task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.accept(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Loan newLoan(long userId, long bookId) {
+        User user = new User();
+        user.setId(userId);
+        Book book = new Book();
+        book.setId(bookId);
+        return new Loan(null, user, book, LocalDate.now(), null, null);
+    }
+}
@@ -1,16 +1,27 @@
 package com.elotech.biblioteca_arom.services;
 
+import com.elotech.biblioteca_arom.clients.MetricsConfig;
+import com.elotech.biblioteca_arom.dtos.LoanBatchRequestDTO;
+import com.elotech.biblioteca_arom.dtos.LoanBatchResultDTO;
+import com.elotech.biblioteca_arom.dtos.LoanReturnBatchRequestDTO;
 import com.elotech.biblioteca_arom.entities.Book;
 import com.elotech.biblioteca_arom.entities.Loan;
 import com.elotech.biblioteca_arom.entities.User;
 import com.elotech.biblioteca_arom.entities.enums.Status;
 import com.elotech.biblioteca_arom.repositories.BookRepository;
 import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -34,6 +45,24 @@ public class LoanServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookRecommendationEngine recommendationEngine;
+
+    @Mock
+    private CollaborativeRecommender collaborativeRecommender;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionOperations transactionOperations;
+
+    @Mock
+    private BookAvailabilityIndex availabilityIndex;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private LoanService loanService;
 
@@ -84,6 +113,105 @@ public class LoanServiceTest {
         verify(loanRepository, never()).save(any(Loan.class));
     }
 
+    /**
+     * Testa a criação de um empréstimo com o índice de disponibilidade pronto.
+     * Verifica se o livro que o índice aponta como emprestado é confirmado no banco antes de ser recusado.
+     */
+    @Test
+    public void testCreateLoan_usesAvailabilityIndex() {
+        loan.setLoan_date(LocalDate.now());
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.isOnLoan(book.getId())).thenReturn(true);
+        when(loanRepository.findByBookIdAndStatus(book.getId(), Status.EMPRESTADO)).thenReturn(List.of(new Loan()));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> loanService.createLoan(loan));
+
+        assertEquals("O livro já está emprestado!", exception.getMessage());
+        verify(loanRepository, never()).save(any(Loan.class));
+        verify(availabilityIndex, never()).markReturned(anyLong());
+    }
+
+    /**
+     * Testa a criação de um empréstimo quando o índice ainda aponta como emprestado um livro
+     * devolvido em outra instância.
+     * Verifica se o banco prevalece, o bit é limpo e o empréstimo é criado.
+     */
+    @Test
+    public void testCreateLoan_staleAvailabilityIndex() {
+        loan.setLoan_date(LocalDate.now());
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.isOnLoan(book.getId())).thenReturn(true);
+        when(loanRepository.findByBookIdAndStatus(book.getId(), Status.EMPRESTADO)).thenReturn(List.of());
+        when(loanRepository.save(any(Loan.class))).thenReturn(loan);
+
+        loanService.createLoan(loan);
+
+        verify(availabilityIndex).markReturned(book.getId());
+        verify(availabilityIndex).markOnLoan(book.getId());
+    }
+
+    /**
+     * Testa se um empréstimo criado marca o livro como emprestado no índice de disponibilidade.
+     */
+    @Test
+    public void testCreateLoan_marksBookOnLoan() {
+        loan.setLoan_date(LocalDate.now());
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.isOnLoan(book.getId())).thenReturn(false);
+        when(loanRepository.save(any(Loan.class))).thenReturn(loan);
+
+        loanService.createLoan(loan);
+
+        verify(availabilityIndex).markOnLoan(book.getId());
+        verify(loanRepository, never()).findByBookIdAndStatus(anyLong(), any());
+    }
+
+    /**
+     * Testa se cada chamada de createLoan é medida pelo timer dos serviços, separando as que falham.
+     */
+    @Test
+    public void testCreateLoan_recordsServiceTimer() {
+        loan.setLoan_date(LocalDate.now());
+        when(loanRepository.save(any(Loan.class))).thenReturn(loan);
+
+        loanService.createLoan(loan);
+        loan.setLoan_date(LocalDate.now().minusDays(1));
+        assertThrows(RuntimeException.class, () -> loanService.createLoan(loan));
+
+        assertEquals(1, meterRegistry.get(MetricsConfig.SERVICE_TIMER)
+                .tags("class", LoanService.class.getName(), "method", "createLoan", "exception", "none").timer().count());
+        assertEquals(1, meterRegistry.get(MetricsConfig.SERVICE_TIMER)
+                .tags("method", "createLoan", "exception", "RuntimeException").timer().count());
+    }
+
+    /**
+     * Testa se um empréstimo sem data prevista de devolução vence no prazo padrão.
+     */
+    @Test
+    public void testCreateLoan_setsDefaultDueDate() {
+        loan.setLoan_date(LocalDate.now());
+        when(loanRepository.save(any(Loan.class))).thenReturn(loan);
+
+        Loan createdLoan = loanService.createLoan(loan);
+
+        assertEquals(LocalDate.now().plusDays(LoanService.LOAN_PERIOD_DAYS), createdLoan.getDue_date());
+        assertFalse(createdLoan.isOverdue());
+    }
+
+    /**
+     * Testa a criação de um empréstimo com data prevista de devolução anterior à data de empréstimo.
+     */
+    @Test
+    public void testCreateLoan_whenDueDateIsBeforeLoanDate() {
+        loan.setLoan_date(LocalDate.now());
+        loan.setDue_date(LocalDate.now().minusDays(1));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> loanService.createLoan(loan));
+
+        assertEquals("A data prevista de devolução não pode ser anterior à data de empréstimo!", exception.getMessage());
+        verify(loanRepository, never()).save(any(Loan.class));
+    }
+
     /**
      * Testa a criação de um empréstimo quando a data de empréstimo é maior que o dia atual.
      * Verifica se o sistema lança uma exceção para garantir que a data de empréstimo é válida.
@@ -208,48 +336,91 @@ public class LoanServiceTest {
     public void testDeleteLoan() {
         Long loanId = 1L;
 
-        when(loanRepository.existsById(loanId)).thenReturn(true);
+        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
 
         doNothing().when(loanRepository).deleteById(loanId);
 
         loanService.deleteLoan(loanId);
 
-        verify(loanRepository, times(1)).existsById(loanId);
+        verify(loanRepository, times(1)).findById(loanId);
         verify(loanRepository, times(1)).deleteById(loanId);
+        verify(availabilityIndex).markReturned(book.getId());
+    }
+
+    /**
+     * Testa a exclusão de um empréstimo inexistente.
+     */
+    @Test
+    public void testDeleteLoan_whenLoanDoesNotExist() {
+        when(loanRepository.findById(9L)).thenReturn(Optional.empty());
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> loanService.deleteLoan(9L));
+
+        assertEquals("Empréstimo não encontrado!", exception.getMessage());
+        verify(loanRepository, never()).deleteById(anyLong());
     }
 
     /**
      * Testa o sistema de recomendação de livros com base nas categorias
      * dos livros que o usuário já pegou emprestado.
-     * Simula os empréstimos do usuário e verifica se o sistema recomenda
-     * livros que ele ainda não pegou, mas que são da mesma categoria.
+     * Simula o ranking do motor de recomendação e verifica se os livros são
+     * carregados e devolvidos na mesma ordem do ranking.
      */
     @Test
     public void testRecommendBooksForUser() {
-        Loan loan1 = new Loan();
-        Book book1 = new Book();
-        book1.setCategory("Programming");
-        loan1.setBook(book1);
+        Book cleanCode = new Book();
+        cleanCode.setId(5L);
+        cleanCode.setTitle("Clean Code");
+        cleanCode.setCategory("Programming");
 
-        Loan loan2 = new Loan();
-        Book book2 = new Book();
-        book2.setCategory("Programming");
-        loan2.setBook(book2);
+        Book refactoring = new Book();
+        refactoring.setId(7L);
+        refactoring.setTitle("Refactoring");
+        refactoring.setCategory("Programming");
 
-        when(loanRepository.findByUserId(1L)).thenReturn(List.of(loan1, loan2));
+        when(recommendationEngine.recommend(1L, 10)).thenReturn(List.of(7L, 5L));
+        when(bookRepository.findAllById(List.of(7L, 5L))).thenReturn(List.of(cleanCode, refactoring));
 
-        Book recomendedBook = new Book();
-        recomendedBook.setTitle("Clean Code");
-        recomendedBook.setCategory("Programming");
+        List<Book> recommendations = loanService.recomendBooksForUser(1L, 10);
 
-        when(bookRepository.findByCategoryInAndIdNotIn(anySet(), anyList()))
-                .thenReturn(Collections.singletonList(recomendedBook));
+        assertNotNull(recommendations);
+        assertEquals(2, recommendations.size());
+        assertEquals("Refactoring", recommendations.getFirst().getTitle());
+        assertEquals("Clean Code", recommendations.get(1).getTitle());
+    }
 
-        List<Book> recommendations = loanService.recomendBooksForUser(1L);
+    /**
+     * Testa a recomendação por co-empréstimos.
+     * Verifica se os livros são devolvidos na ordem de similaridade do recomendador.
+     */
+    @Test
+    public void testRecommendBooksByCoBorrowing() {
+        Book dune = new Book();
+        dune.setId(3L);
+        dune.setTitle("Dune");
+
+        when(collaborativeRecommender.recommend(1L, 5)).thenReturn(List.of(3L));
+        when(bookRepository.findAllById(List.of(3L))).thenReturn(List.of(dune));
+
+        List<Book> recommendations = loanService.recomendBooksByCoBorrowing(1L, 5);
 
-        assertNotNull(recommendations);
         assertEquals(1, recommendations.size());
-        assertEquals("Clean Code", recommendations.getFirst().getTitle());
+        assertEquals("Dune", recommendations.getFirst().getTitle());
+        verify(recommendationEngine, never()).recommend(anyLong(), anyInt());
+    }
+
+    /**
+     * Testa a recomendação para um usuário sem histórico de empréstimos.
+     * Verifica se nenhuma consulta de livros é feita.
+     */
+    @Test
+    public void testRecommendBooksForUser_withoutHistory() {
+        when(recommendationEngine.recommend(2L, 10)).thenReturn(List.of());
+
+        List<Book> recommendations = loanService.recomendBooksForUser(2L, 10);
+
+        assertTrue(recommendations.isEmpty());
+        verify(bookRepository, never()).findAllById(anyList());
     }
 
     /**
@@ -303,6 +474,21 @@ public class LoanServiceTest {
         verify(loanRepository, times(1)).save(loan);
     }
 
+    /**
+     * Testa se a devolução de um empréstimo ativo libera o livro no índice de disponibilidade.
+     */
+    @Test
+    public void testUpdateLoan_returnMarksBookAvailable() {
+        when(loanRepository.findById(loan.getId())).thenReturn(Optional.of(loan));
+        when(loanRepository.save(any(Loan.class))).thenReturn(loan);
+
+        loanService.updateLoan(loan.getId(), LocalDate.of(2023, 9, 10), null);
+
+        assertEquals(Status.PRESENTE, loan.getStatus());
+        verify(availabilityIndex).markReturned(book.getId());
+        verify(availabilityIndex, never()).markOnLoan(anyLong());
+    }
+
     /**
      * Testa a atualização de um empréstimo quando nem a data de devolução nem o status são fornecidos.
      * Verifica se o empréstimo mantém a data de devolução nula e o status continua como EMPRESTADO.
@@ -325,5 +511,209 @@ public class LoanServiceTest {
         verify(loanRepository, times(1)).findById(loan.getId());
         verify(loanRepository, times(1)).save(loan);
     }
-}
 
+    /**
+     * Testa a reativação de um empréstimo devolvido e atrasado.
+     * Verifica se ele volta a vencer a partir de hoje, sem a marca de atraso, para que a verificação
+     * incremental de atrasos o encontre de novo.
+     */
+    @Test
+    public void testUpdateLoan_reactivateResetsDueDateAndOverdue() {
+        loan.setStatus(Status.PRESENTE);
+        loan.setReturn_date(LocalDate.of(2023, 9, 20));
+        loan.setDue_date(LocalDate.of(2023, 9, 15));
+        loan.setOverdue(true);
+        when(loanRepository.findById(loan.getId())).thenReturn(Optional.of(loan));
+        when(loanRepository.save(loan)).thenReturn(loan);
+
+        Loan updatedLoan = loanService.updateLoan(loan.getId(), null, Status.EMPRESTADO);
+
+        assertEquals(Status.EMPRESTADO, updatedLoan.getStatus());
+        assertEquals(LocalDate.now().plusDays(LoanService.LOAN_PERIOD_DAYS), updatedLoan.getDue_date());
+        assertFalse(updatedLoan.isOverdue());
+        verify(availabilityIndex).markOnLoan(book.getId());
+    }
+
+    /**
+     * Testa a reativação de um empréstimo devolvido quando o livro já tem outro empréstimo ativo.
+     * Verifica se a reativação é recusada sem gravar o empréstimo.
+     */
+    @Test
+    public void testUpdateLoan_reactivateWhenBookIsAlreadyLoaned() {
+        loan.setStatus(Status.PRESENTE);
+        loan.setReturn_date(LocalDate.of(2023, 9, 10));
+        when(loanRepository.findById(loan.getId())).thenReturn(Optional.of(loan));
+        Loan other = new Loan(2L, user, book, LocalDate.of(2023, 9, 12), null, Status.EMPRESTADO);
+        when(loanRepository.findByBookIdAndStatus(book.getId(), Status.EMPRESTADO)).thenReturn(List.of(other));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> loanService.updateLoan(loan.getId(), LocalDate.of(2023, 9, 20), Status.EMPRESTADO));
+
+        assertEquals("O livro já está emprestado!", exception.getMessage());
+        verify(loanRepository, never()).save(any(Loan.class));
+    }
+
+    /**
+     * Testa se a reativação que viola o índice único de empréstimo ativo, por um empréstimo criado em
+     * outra instância, é recusada com a mesma mensagem de livro emprestado.
+     */
+    @Test
+    public void testUpdateLoan_reactivateConflictInDatabase() {
+        loan.setStatus(Status.PRESENTE);
+        when(loanRepository.findById(loan.getId())).thenReturn(Optional.of(loan));
+        when(loanRepository.save(loan)).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new RuntimeException("violates unique constraint \"" + LoanService.ACTIVE_LOAN_INDEX + "\"")));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> loanService.updateLoan(loan.getId(), LocalDate.of(2023, 9, 20), Status.EMPRESTADO));
+
+        assertEquals("O livro já está emprestado!", exception.getMessage());
+    }
+
+    /**
+     * Testa a criação de empréstimos em lote.
+     * Verifica que apenas os livros disponíveis são gravados, em uma única chamada ao repositório,
+     * e que livros emprestados, inexistentes ou repetidos são recusados individualmente.
+     */
+    @Test
+    public void testCreateLoans_partialSuccess() {
+        LoanBatchRequestDTO request = new LoanBatchRequestDTO(1L, List.of(1L, 2L, 3L, 1L), null, null);
+        when(transactionOperations.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(bookRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L));
+        when(loanRepository.findBookIdsByStatus(anyCollection(), eq(Status.EMPRESTADO))).thenReturn(List.of(2L));
+        when(loanRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Loan> loans = inv.getArgument(0);
+            loans.forEach(l -> l.setId(10L + l.getBook().getId()));
+            return loans;
+        });
+
+        List<LoanBatchResultDTO> results = loanService.createLoans(request);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(11L, results.get(0).getLoanId());
+        assertEquals("O livro já está emprestado!", results.get(1).getMessage());
+        assertEquals("Livro não encontrado!", results.get(2).getMessage());
+        assertEquals("Livro repetido no lote!", results.get(3).getMessage());
+        verify(loanRepository, times(1)).saveAll(argThat(loans -> ((List<Loan>) loans).size() == 1));
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    /**
+     * Testa o lote em que outra instância empresta um dos livros entre a consulta e a gravação.
+     * Verifica se o conflito no índice único recusa apenas esse livro e se os demais são gravados
+     * na segunda tentativa.
+     */
+    @Test
+    public void testCreateLoans_conflictInDatabase_retriesWithoutTakenBook() {
+        LoanBatchRequestDTO request = new LoanBatchRequestDTO(1L, List.of(1L, 2L), null, null);
+        when(transactionOperations.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(bookRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L));
+        when(loanRepository.findBookIdsByStatus(anyCollection(), eq(Status.EMPRESTADO)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(2L));
+        when(loanRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key",
+                        new RuntimeException("violates unique constraint \"" + LoanService.ACTIVE_LOAN_INDEX + "\"")))
+                .thenAnswer(inv -> {
+                    List<Loan> loans = inv.getArgument(0);
+                    loans.forEach(l -> l.setId(10L + l.getBook().getId()));
+                    return loans;
+                });
+
+        List<LoanBatchResultDTO> results = loanService.createLoans(request);
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(11L, results.get(0).getLoanId());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("O livro já está emprestado!", results.get(1).getMessage());
+        verify(loanRepository, times(2)).saveAll(anyList());
+        verify(availabilityIndex).markOnLoan(2L);
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    /**
+     * Testa o lote com o índice de disponibilidade pronto.
+     * Verifica se só os livros que o índice aponta como emprestados são consultados no banco e se o
+     * livro que o banco mostra disponível é emprestado e tem o bit limpo.
+     */
+    @Test
+    public void testCreateLoans_confirmsAvailabilityIndexInDatabase() {
+        LoanBatchRequestDTO request = new LoanBatchRequestDTO(1L, List.of(1L, 2L, 3L), null, null);
+        when(transactionOperations.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(bookRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L, 3L));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.onLoanAmong(anyCollection())).thenReturn(new HashSet<>(Set.of(1L, 2L)));
+        when(loanRepository.findBookIdsByStatus(Set.of(1L, 2L), Status.EMPRESTADO)).thenReturn(List.of(2L));
+        when(loanRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Loan> loans = inv.getArgument(0);
+            loans.forEach(l -> l.setId(10L + l.getBook().getId()));
+            return loans;
+        });
+
+        List<LoanBatchResultDTO> results = loanService.createLoans(request);
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+        verify(availabilityIndex).markReturned(1L);
+        verify(availabilityIndex, never()).markReturned(2L);
+        verify(loanRepository, times(1)).saveAll(argThat(loans -> ((List<Loan>) loans).size() == 2));
+    }
+
+    /**
+     * Testa o lote que conflita com um empréstimo ativo também na segunda tentativa.
+     * Verifica se o lote é recusado sem publicar eventos.
+     */
+    @Test
+    public void testCreateLoans_conflictInDatabase_twice() {
+        LoanBatchRequestDTO request = new LoanBatchRequestDTO(1L, List.of(1L, 2L), null, null);
+        when(transactionOperations.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(bookRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L));
+        when(loanRepository.findBookIdsByStatus(anyCollection(), eq(Status.EMPRESTADO))).thenReturn(List.of());
+        when(loanRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new RuntimeException("violates unique constraint \"" + LoanService.ACTIVE_LOAN_INDEX + "\"")));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> loanService.createLoans(request));
+
+        assertEquals("Um dos livros já está emprestado!", exception.getMessage());
+        verify(loanRepository, times(2)).saveAll(anyList());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    /**
+     * Testa a criação de empréstimos em lote com data de empréstimo no passado.
+     * Verifica que o lote inteiro é recusado antes de qualquer consulta.
+     */
+    @Test
+    public void testCreateLoans_withPastLoanDate() {
+        LoanBatchRequestDTO request = new LoanBatchRequestDTO(1L, List.of(1L), LocalDate.now().minusDays(1), null);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> loanService.createLoans(request));
+
+        assertEquals("A data de empréstimo não pode ser no passado!", exception.getMessage());
+        verifyNoInteractions(loanRepository, bookRepository);
+    }
+
+    /**
+     * Testa a devolução de empréstimos em lote.
+     * Verifica que os empréstimos ativos são marcados como 'PRESENTE' com a data informada,
+     * e que empréstimos já devolvidos ou inexistentes são recusados individualmente.
+     */
+    @Test
+    public void testReturnLoans() {
+        Loan returned = new Loan(2L, user, book, LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 10), Status.PRESENTE);
+        LocalDate returnDate = LocalDate.of(2023, 9, 15);
+        when(transactionOperations.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(loanRepository.findAllById(anyCollection())).thenReturn(List.of(loan, returned));
+
+        List<LoanBatchResultDTO> results = loanService.returnLoans(new LoanReturnBatchRequestDTO(List.of(1L, 2L, 3L), returnDate));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(Status.PRESENTE, loan.getStatus());
+        assertEquals(returnDate, loan.getReturn_date());
+        assertEquals("Empréstimo já devolvido!", results.get(1).getMessage());
+        assertEquals("Empréstimo não encontrado!", results.get(2).getMessage());
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+}
@@ -0,0 +1,221 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.events.LoanChangedEvent;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe LoanStreamHub, cobrindo a entrega das alterações a todos os painéis,
+ * a desconexão imediata dos painéis lentos ou parados e o limite de painéis conectados.
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoanStreamHubTest {
+
+    private static final int BUFFER_SIZE = 4;
+    private static final long STALL_TIMEOUT_MS = 200;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    private LoanStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new LoanStreamHub(loanRepository, new ObjectMapper(), 2, BUFFER_SIZE, 30, STALL_TIMEOUT_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.close();
+    }
+
+    /**
+     * Emissor que guarda os eventos enviados em vez de escrevê-los numa resposta.
+     * Se {@code blocked}, os envios ficam presos até {@code release}, como num cliente que não lê.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(boolean blocked) {
+            this.release = new CountDownLatch(blocked ? 1 : 0);
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            StringBuilder event = new StringBuilder();
+            items.forEach(item -> event.append(item.getData()));
+            events.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        List<String> awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return events;
+        }
+    }
+
+    /**
+     * Testa se uma alteração é lida uma única vez e entregue a todos os painéis, com o nome da operação
+     * e o empréstimo em JSON.
+     */
+    @Test
+    public void testPublish_deliversToAllSubscribers() throws Exception {
+        RecordingEmitter first = new RecordingEmitter(false);
+        RecordingEmitter second = new RecordingEmitter(false);
+        hub.subscribe(first);
+        hub.subscribe(second);
+        when(loanRepository.findLoanDetailsById(7L)).thenReturn(Optional.of(
+                new LoanDTO(7L, "2024-03-01", null, "EMPRESTADO", "Ana", "Dune")));
+
+        hub.publish(7L, ChangeType.CREATED);
+
+        for (RecordingEmitter emitter : List.of(first, second)) {
+            List<String> events = emitter.awaitEvents(2);
+            assertEquals(2, events.size());
+            assertTrue(events.get(0).contains(":conectado"));
+            assertTrue(events.get(1).contains("event:CREATED"));
+            assertTrue(events.get(1).contains("\"loanId\":7"));
+            assertTrue(events.get(1).contains("\"bookTitle\":\"Dune\""));
+        }
+        verify(loanRepository, times(1)).findLoanDetailsById(7L);
+        assertEquals(1, hub.getStats().getPublishedEvents());
+    }
+
+    /**
+     * Testa se a exclusão é enviada só com o ID, sem consultar o banco.
+     */
+    @Test
+    public void testPublish_deletedLoan_sendsIdOnly() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(false);
+        hub.subscribe(emitter);
+
+        hub.publish(9L, ChangeType.DELETED);
+
+        List<String> events = emitter.awaitEvents(2);
+        assertTrue(events.get(1).contains("event:DELETED"));
+        assertTrue(events.get(1).contains("\"loanId\":9"));
+        verifyNoInteractions(loanRepository);
+    }
+
+    /**
+     * Testa se um painel que não lê é desconectado assim que a sua fila enche, sem que a publicação
+     * espere por ele, e se o outro painel recebe todos os eventos.
+     */
+    @Test
+    public void testSlowSubscriber_isDroppedWithoutBlocking() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter(true);
+        RecordingEmitter fast = new RecordingEmitter(false);
+        hub.subscribe(slow);
+        hub.subscribe(fast);
+        // O envio do evento de conexão já está preso no painel lento
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+
+        int events = BUFFER_SIZE + 3;
+        long publishNanos = 0;
+        for (long id = 1; id <= events; id++) {
+            long start = System.nanoTime();
+            hub.publish(id, ChangeType.DELETED);
+            publishNanos += System.nanoTime() - start;
+            assertEquals(id + 1, fast.awaitEvents((int) id + 1).size());
+        }
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(publishNanos) < STALL_TIMEOUT_MS);
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, hub.getStats().getDroppedSubscribers());
+        assertEquals(1, hub.getSubscriberCount());
+        slow.release.countDown();
+    }
+
+    /**
+     * Testa se um painel cujo envio está parado há mais que o tempo limite é desconectado no heartbeat,
+     * mesmo com a fila ainda vazia.
+     */
+    @Test
+    public void testStalledSend_isDroppedOnHeartbeat() throws Exception {
+        RecordingEmitter stalled = new RecordingEmitter(true);
+        hub.subscribe(stalled);
+        assertTrue(stalled.entered.await(5, TimeUnit.SECONDS));
+
+        hub.heartbeat();
+        assertEquals(1, hub.getSubscriberCount());
+
+        Thread.sleep(STALL_TIMEOUT_MS + 50);
+        hub.heartbeat();
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, hub.getStats().getDroppedSubscribers());
+        assertEquals(0, hub.getSubscriberCount());
+        stalled.release.countDown();
+    }
+
+    /**
+     * Testa se uma rajada que cabe na fila é entregue inteira, mesmo antes de o envio começar,
+     * sem desconectar o painel.
+     */
+    @Test
+    public void testBurst_withinBuffer_isDelivered() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(true);
+        hub.subscribe(emitter);
+
+        // Com o evento de conexão, a fila fica cheia mas não transborda
+        int events = BUFFER_SIZE - 1;
+        for (long id = 1; id <= events; id++) {
+            hub.publish(id, ChangeType.DELETED);
+        }
+        emitter.release.countDown();
+
+        assertEquals(events + 1, emitter.awaitEvents(events + 1).size());
+        assertEquals(0, hub.getStats().getDroppedSubscribers());
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    /**
+     * Testa se novas inscrições são recusadas quando o limite de painéis é atingido
+     * e se nada é consultado quando não há painéis conectados.
+     */
+    @Test
+    public void testSubscribe_limitAndNoSubscribers() {
+        hub.onLoanChanged(new LoanChangedEvent(1L, null, ChangeType.UPDATED));
+        verifyNoInteractions(loanRepository);
+
+        hub.subscribe(new RecordingEmitter(false));
+        hub.subscribe(new RecordingEmitter(false));
+        assertThrows(RuntimeException.class, () -> hub.subscribe(new RecordingEmitter(false)));
+    }
+}
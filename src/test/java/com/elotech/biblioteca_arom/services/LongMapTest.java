@@ -0,0 +1,62 @@
+package com.elotech.biblioteca_arom.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes para a classe LongMap, cobrindo a inclusão, a substituição e a remoção de chaves,
+ * inclusive com o mapa crescendo e com remoções no meio das sequências de sondagem.
+ */
+public class LongMapTest {
+
+    /**
+     * Testa se valores são incluídos, substituídos e removidos, e se chaves ausentes retornam null.
+     */
+    @Test
+    public void testPutGetRemove() {
+        LongMap<String> map = new LongMap<>();
+
+        assertNull(map.put(7L, "a"));
+        assertEquals("a", map.put(7L, "b"));
+        assertEquals("c", map.computeIfAbsent(-3L, key -> "c"));
+        assertEquals("c", map.computeIfAbsent(-3L, key -> "d"));
+
+        assertEquals("b", map.get(7L));
+        assertNull(map.get(8L));
+        assertEquals(2, map.size());
+        assertEquals("b", map.remove(7L));
+        assertNull(map.remove(7L));
+        assertNull(map.get(7L));
+        assertEquals(1, map.size());
+    }
+
+    /**
+     * Testa o mapa contra um HashMap com uma sequência aleatória de inclusões e remoções, que
+     * faz o mapa crescer várias vezes e remove chaves de sequências de sondagem ocupadas.
+     */
+    @Test
+    public void testRandomOperations_matchHashMap() {
+        LongMap<Long> map = new LongMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000) * 1024L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 5_000 * 1024L; key += 1024) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o tempo de uma execução do {@link OverdueLoanService} sobre uma tabela com 10 milhões de empréstimos,
+ * dos quais apenas um por livro está ativo. O parâmetro {@code window} é a quantidade de dias desde a
+ * última execução: 1 é a execução diária normal, 60 é uma retomada depois de dois meses parada.
+ * <p>
+ * Por padrão usa um H2 em memória; para medir no PostgreSQL, informe a conexão como descrito em
+ * {@link BenchmarkApplication}.
+ * Executar com {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elotech.biblioteca_arom.services.OverdueLoanScanBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+public class OverdueLoanScanBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"10000000"})
+    public int loans;
+
+    @Param({"200000"})
+    public int books;
+
+    @Param({"1", "60"})
+    public int window;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private OverdueLoanService service;
+    private final LocalDate today = LocalDate.now();
+
+    @Setup(Level.Trial)
+    public void populate() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, BenchmarkApplication.H2, Map.of());
+        jdbc = context.getBean(JdbcTemplate.class);
+        service = context.getBean(OverdueLoanService.class);
+
+        jdbc.update("insert into users (id, name, email, registration_date, phone_number) values (1, 'Bench', "
+                + "'bench@example.com', ?, '123456789')", Date.valueOf(today));
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+        for (int id = 1; id <= books; id++) {
+            rows.add(new Object[]{id, "Book " + id, "Author", "isbn-" + id, "2020", "Fiction"});
+            if (rows.size() == INSERT_BATCH || id == books) {
+                jdbc.batchUpdate("insert into book (id, title, author, isbn, publication_date, category) "
+                        + "values (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        // Os primeiros empréstimos (um por livro) estão ativos, com vencimentos espalhados pelos últimos
+        // 90 dias e pelas próximas duas semanas; os demais são históricos já devolvidos.
+        for (long id = 1; id <= loans; id++) {
+            boolean active = id <= books;
+            LocalDate due = today.minusDays(90 - id % 104);
+            LocalDate loanDate = due.minusDays(LoanService.LOAN_PERIOD_DAYS);
+            rows.add(new Object[]{id, 1, 1 + (id - 1) % books, Date.valueOf(loanDate), Date.valueOf(due),
+                    active ? null : Date.valueOf(due), active ? "EMPRESTADO" : "PRESENTE"});
+            if (rows.size() == INSERT_BATCH || id == loans) {
+                jdbc.batchUpdate("insert into loan (id, user_id, book_id, loan_date, due_date, return_date, status, "
+                        + "overdue) values (?, ?, ?, ?, ?, ?, ?, false)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void rewind() {
+        jdbc.update("update loan set overdue = false where status = 'EMPRESTADO' and overdue = true");
+        jdbc.update("delete from job_watermark");
+        jdbc.update("insert into job_watermark (job, watermark, updated_at) values (?, ?, ?)",
+                OverdueLoanService.JOB, Date.valueOf(today.minusDays(window)), Timestamp.from(Instant.now()));
+    }
+
+    @Benchmark
+    public long detect() {
+        return service.detect(today);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OverdueLoanScanBenchmark.class.getSimpleName())
+                .jvmArgsAppend(BenchmarkApplication.datasourceJvmArgs())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,149 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.dtos.LoanDueView;
+import com.elotech.biblioteca_arom.dtos.OverdueStatsDTO;
+import com.elotech.biblioteca_arom.entities.JobWatermark;
+import com.elotech.biblioteca_arom.entities.enums.ChangedEntity;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.events.ChangeType;
+import com.elotech.biblioteca_arom.repositories.JobWatermarkRepository;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes para a classe OverdueLoanService, cobrindo o uso da marca d'água,
+ * a paginação por cursor e a marcação em lotes.
+ */
+@ExtendWith(MockitoExtension.class)
+public class OverdueLoanServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private JobWatermarkRepository watermarkRepository;
+
+    @Mock
+    private CollectionVersions collectionVersions;
+
+    @Mock
+    private ChangeFeedService changeFeedService;
+
+    private OverdueLoanService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OverdueLoanService(loanRepository, watermarkRepository,
+                TransactionOperations.withoutTransaction(), collectionVersions, changeFeedService, 2);
+    }
+
+    private static LoanDueView due(long id, LocalDate dueDate) {
+        return new LoanDueView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDate getDueDate() {
+                return dueDate;
+            }
+        };
+    }
+
+    /**
+     * Testa se a verificação percorre os vencimentos em lotes, continuando de onde o lote anterior
+     * parou, e se avança a marca d'água para o dia de referência.
+     */
+    @Test
+    public void testDetect_marksInBatchesAndAdvancesWatermark() {
+        LocalDate from = TODAY.minusDays(3);
+        when(watermarkRepository.findById(OverdueLoanService.JOB))
+                .thenReturn(Optional.of(new JobWatermark(OverdueLoanService.JOB, from, Instant.EPOCH)));
+        when(loanRepository.findDueBetween(Status.EMPRESTADO, from, TODAY, from, 0L, Limit.of(2)))
+                .thenReturn(List.of(due(4L, from), due(9L, from.plusDays(1))));
+        when(loanRepository.findDueBetween(Status.EMPRESTADO, from, TODAY, from.plusDays(1), 9L, Limit.of(2)))
+                .thenReturn(List.of(due(2L, from.plusDays(2))));
+
+        assertEquals(3, service.detect(TODAY));
+
+        verify(loanRepository).markOverdue(List.of(4L, 9L), Status.EMPRESTADO);
+        verify(loanRepository).markOverdue(List.of(2L), Status.EMPRESTADO);
+        verify(collectionVersions, times(2)).changed(CollectionVersions.Tracked.LOANS);
+        verify(changeFeedService).record(ChangedEntity.LOAN, List.of(4L, 9L), ChangeType.UPDATED);
+        verify(changeFeedService).record(ChangedEntity.LOAN, List.of(2L), ChangeType.UPDATED);
+        ArgumentCaptor<JobWatermark> saved = ArgumentCaptor.forClass(JobWatermark.class);
+        verify(watermarkRepository).save(saved.capture());
+        assertEquals(TODAY, saved.getValue().getWatermark());
+    }
+
+    /**
+     * Testa se a primeira execução, sem marca d'água gravada, verifica todos os vencimentos anteriores.
+     */
+    @Test
+    public void testDetect_withoutWatermark_scansFromTheBeginning() {
+        when(watermarkRepository.findById(OverdueLoanService.JOB)).thenReturn(Optional.empty());
+        when(loanRepository.findDueBetween(eq(Status.EMPRESTADO), eq(OverdueLoanService.FIRST_DUE_DATE), eq(TODAY),
+                eq(OverdueLoanService.FIRST_DUE_DATE), eq(0L), any(Limit.class))).thenReturn(List.of());
+
+        assertEquals(0, service.detect(TODAY));
+
+        verify(loanRepository, never()).markOverdue(any(), any());
+        verify(watermarkRepository).save(any(JobWatermark.class));
+    }
+
+    /**
+     * Testa se uma segunda execução no mesmo dia não consulta os empréstimos.
+     */
+    @Test
+    public void testDetect_whenAlreadyRunToday_doesNothing() {
+        when(watermarkRepository.findById(OverdueLoanService.JOB))
+                .thenReturn(Optional.of(new JobWatermark(OverdueLoanService.JOB, TODAY, Instant.EPOCH)));
+
+        assertEquals(0, service.detect(TODAY));
+
+        verifyNoInteractions(loanRepository);
+        verify(watermarkRepository, never()).save(any());
+    }
+
+    /**
+     * Testa se as estatísticas refletem a última verificação e a contagem de atrasados no banco.
+     */
+    @Test
+    public void testGetStats() {
+        LocalDate from = TODAY.minusDays(1);
+        when(watermarkRepository.findById(OverdueLoanService.JOB))
+                .thenReturn(Optional.of(new JobWatermark(OverdueLoanService.JOB, from, Instant.EPOCH)));
+        when(loanRepository.findDueBetween(Status.EMPRESTADO, from, TODAY, from, 0L, Limit.of(2)))
+                .thenReturn(List.of(due(5L, from)));
+        service.detect(TODAY);
+        when(loanRepository.countOverdue(Status.EMPRESTADO)).thenReturn(7L);
+
+        OverdueStatsDTO stats = service.getStats();
+
+        assertEquals(7L, stats.getActiveOverdueLoans());
+        assertEquals(1L, stats.getLastRunMarked());
+        assertEquals(1L, stats.getLastRunBatches());
+        assertEquals(1L, stats.getTotalMarked());
+        assertNotNull(stats.getLastRunAt());
+    }
+}
@@ -0,0 +1,258 @@
+package com.elotech.biblioteca_arom.services;
+
+import com.elotech.biblioteca_arom.BenchmarkApplication;
+import com.elotech.biblioteca_arom.clients.MetricsConfig;
+import com.elotech.biblioteca_arom.dtos.BookCategoryView;
+import com.elotech.biblioteca_arom.dtos.LoanDTO;
+import com.elotech.biblioteca_arom.dtos.LoanPairView;
+import com.elotech.biblioteca_arom.entities.Book;
+import com.elotech.biblioteca_arom.entities.Loan;
+import com.elotech.biblioteca_arom.entities.User;
+import com.elotech.biblioteca_arom.entities.enums.Status;
+import com.elotech.biblioteca_arom.repositories.BookRepository;
+import com.elotech.biblioteca_arom.repositories.LoanRepository;
+import com.elotech.biblioteca_arom.repositories.UserRepository;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mede os caminhos mais usados da camada de serviço em dois cenários ({@code backend}):
+ * <ul>
+ *     <li>{@code fake}: os serviços reais sobre repositórios falsos em memória (Mockito), o que isola
+ *     o custo da lógica de negócio;</li>
+ *     <li>{@code h2}: a aplicação completa sobre um H2 em memória, com transações, Hibernate e os
+ *     ouvintes de eventos.</li>
+ * </ul>
+ * Os dois cenários usam o mesmo acervo sintético. O parâmetro {@code serviceTimers} liga e desliga os timers
+ * de {@code MetricsConfig}, para medir o custo das métricas em cada método. Rodar pelo perfil {@code benchmarks} do Maven,
+ * que grava o resultado em JSON para comparação entre commits (ver {@code BenchmarkComparison}).
+ * <p>
+ * Numa máquina de um núcleo, o aspecto custou de 1,5 a 4 µs por chamada (diferença entre {@code serviceTimers}
+ * ligado e desligado no cenário {@code fake}): cerca de 28% de {@code createLoan} e menos de 0,3% de
+ * {@code recomendBooksForUser} (1 ms) e {@code getAllLoanDetails} (25 ms) no H2. Por isso o {@code LoanService}
+ * usa {@code ServiceTimers}, que custam cerca de 0,13 µs por chamada (ver {@code ServiceTimersBenchmark}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ServiceHotPathBenchmark {
+
+    private static final String[] CATEGORIES = {"Fiction", "History", "Science", "Poetry", "Biography", "Art"};
+    private static final int USERS = 1_000;
+    private static final int BOOKS = 20_000;
+    private static final int LOANS = 20_000;
+    // Usuários e empréstimos do acervo usam IDs altos, para não colidir com os gerados pelo Hibernate
+    private static final long SEEDED_ID = 1_000_000;
+
+    @Param({"fake", "h2"})
+    public String backend;
+
+    @Param({"true", "false"})
+    public boolean serviceTimers;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private UserService userService;
+    private long nextUser;
+
+    @Setup(Level.Trial)
+    public void start() {
+        if (backend.equals("h2")) {
+            startH2();
+        } else {
+            startFakes();
+        }
+    }
+
+    private void startFakes() {
+        LoanRepository loanRepository = stub(LoanRepository.class);
+        BookRepository bookRepository = stub(BookRepository.class);
+        UserRepository userRepository = stub(UserRepository.class);
+
+        Map<Long, Book> books = new HashMap<>();
+        LongStream.rangeClosed(1, BOOKS).forEach(id -> books.put(id, book(id)));
+        List<LoanDTO> details = LongStream.rangeClosed(1, LOANS)
+                .mapToObj(id -> new LoanDTO(id, LocalDate.now(), null, Status.EMPRESTADO, "User " + id % USERS, "Book " + id))
+                .toList();
+        AtomicLong ids = new AtomicLong();
+
+        when(bookRepository.streamBookCategories()).thenAnswer(invocation -> books.values().stream()
+                .map(book -> (BookCategoryView) new CategoryRow(book.getId(), book.getCategory())));
+        when(bookRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Book> found = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                Book book = books.get(id);
+                if (book != null) {
+                    found.add(book);
+                }
+            }
+            return found;
+        });
+        when(loanRepository.streamUserBookPairs()).thenAnswer(invocation -> LongStream.rangeClosed(1, LOANS)
+                .mapToObj(id -> (LoanPairView) new PairRow(SEEDED_ID + id, userId(id), 1 + (id * 7) % BOOKS)));
+        when(loanRepository.findAllLoanDetails()).thenReturn(details);
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> {
+            Loan loan = invocation.getArgument(0);
+            loan.setId(ids.incrementAndGet());
+            return loan;
+        });
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Sem serviceTimers, o registro descarta os timers como com biblioteca.metrics.service-timers=false
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        if (!serviceTimers) {
+            registry.config().meterFilter(new MetricsConfig().serviceTimersFilter());
+        }
+        BookRecommendationEngine recommendationEngine = new BookRecommendationEngine(bookRepository, loanRepository);
+        recommendationEngine.rebuild();
+        loanService = new LoanService(loanRepository, bookRepository, stub(BookService.class), recommendationEngine,
+                stub(CollaborativeRecommender.class), stub(ApplicationEventPublisher.class),
+                TransactionOperations.withoutTransaction(), new BookAvailabilityIndex(bookRepository, loanRepository),
+                registry);
+        userService = timed(new UserService(userRepository), registry);
+    }
+
+    /**
+     * Aplica o mesmo aspecto de métricas da aplicação quando {@code serviceTimers}.
+     */
+    private <T> T timed(T service, MeterRegistry registry) {
+        if (!serviceTimers) {
+            return service;
+        }
+        AspectJProxyFactory factory = new AspectJProxyFactory(service);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TimedAspect(registry));
+        return factory.getProxy();
+    }
+
+    private void startH2() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, BenchmarkApplication.H2,
+                Map.of("biblioteca.metrics.service-timers", String.valueOf(serviceTimers)));
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        LocalDate today = LocalDate.now();
+        jdbc.batchUpdate("insert into users (id, name, email, registration_date, phone_number) values (?, ?, ?, ?, ?)",
+                LongStream.rangeClosed(1, USERS).mapToObj(id -> new Object[]{
+                        userId(id), "User " + id, "user" + id + "@example.com", Date.valueOf(today), "123456789"}).toList());
+        jdbc.batchUpdate("insert into book (id, title, author, isbn, publication_date, category) values (?, ?, ?, ?, ?, ?)",
+                LongStream.rangeClosed(1, BOOKS).mapToObj(id -> new Object[]{
+                        id, "Book " + id, "Author " + id % 500, "isbn-" + id, "2020", CATEGORIES[(int) (id % CATEGORIES.length)]}).toList());
+        jdbc.batchUpdate("insert into loan (id, user_id, book_id, loan_date, return_date, due_date, status, overdue) "
+                        + "values (?, ?, ?, ?, ?, ?, 'PRESENTE', false)",
+                LongStream.rangeClosed(1, LOANS).mapToObj(id -> new Object[]{
+                        SEEDED_ID + id, userId(id), 1 + (id * 7) % BOOKS, Date.valueOf(today), Date.valueOf(today),
+                        Date.valueOf(today.plusDays(LoanService.LOAN_PERIOD_DAYS))}).toList());
+
+        context.getBean(BookRecommendationEngine.class).rebuild();
+        context.getBean(BookAvailabilityIndex.class).rebuild();
+        loanService = context.getBean(LoanService.class);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * Um livro livre para cada chamada de {@link #createLoan}: o empréstimo da chamada anterior é
+     * excluído fora da medição, então o livro volta a ficar disponível.
+     */
+    @State(Scope.Thread)
+    public static class Checkout {
+        private Long previousLoanId;
+        private long nextBook;
+        private Loan loan;
+
+        @Setup(Level.Invocation)
+        public void prepare(ServiceHotPathBenchmark benchmark) {
+            if (previousLoanId != null && benchmark.backend.equals("h2")) {
+                benchmark.loanService.deleteLoan(previousLoanId);
+            }
+            User user = new User();
+            user.setId(userId(nextBook));
+            Book book = new Book();
+            book.setId(1 + nextBook++ % BOOKS);
+            loan = new Loan(null, user, book, null, null, null);
+        }
+    }
+
+    @Benchmark
+    public Loan createLoan(Checkout checkout) {
+        Loan created = loanService.createLoan(checkout.loan);
+        checkout.previousLoanId = created.getId();
+        return created;
+    }
+
+    @Benchmark
+    public List<Book> recomendBooksForUser() {
+        return loanService.recomendBooksForUser(userId(nextUser++), 20);
+    }
+
+    @Benchmark
+    public List<LoanDTO> getAllLoanDetails() {
+        return loanService.getAllLoanDetails();
+    }
+
+    @Benchmark
+    public User createUser() {
+        User user = new User(null, "Benchmark User", "benchmark.user+" + nextUser++ % 1000 + "@biblioteca.example.com",
+                null, "123456789", null);
+        return userService.createUser(user);
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly());
+    }
+
+    private static long userId(long n) {
+        return SEEDED_ID + 1 + n % USERS;
+    }
+
+    private static Book book(long id) {
+        return new Book(id, "Book " + id, "Author " + id % 500, "isbn-" + id, "2020",
+                CATEGORIES[(int) (id % CATEGORIES.length)], null, List.of());
+    }
+
+    private record CategoryRow(Long getId, String getCategory) implements BookCategoryView {
+    }
+
+    private record PairRow(Long getLoanId, Long getUserId, Long getBookId) implements LoanPairView {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ServiceHotPathBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
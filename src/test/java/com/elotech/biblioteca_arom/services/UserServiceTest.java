@@ -1,6 +1,7 @@
 package com.elotech.biblioteca_arom.services;
 
 import com.elotech.biblioteca_arom.clients.GoogleBooksClient;
+import com.elotech.biblioteca_arom.dtos.UserBatchResultDTO;
 import com.elotech.biblioteca_arom.entities.Book;
 import com.elotech.biblioteca_arom.entities.User;
 import com.elotech.biblioteca_arom.repositories.UserRepository;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -177,4 +179,80 @@ public class UserServiceTest {
 
         verify(userRepository, times(1)).deleteById(1L);
     }
+
+    /**
+     * Testa a criação de um usuário sem email.
+     * Verifica se o email nulo é recusado como inválido, sem NullPointerException.
+     */
+    @Test
+    public void testCreateUserWithNullEmail() {
+        user.setEmail(null);
+
+        Exception exception = assertThrows(RuntimeException.class, () -> userService.createUser(user));
+
+        assertEquals("Email inválido!", exception.getMessage());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    /**
+     * Testa a criação de um usuário com um email já cadastrado.
+     * Verifica se a violação do índice único de email vira a mensagem de email já cadastrado.
+     */
+    @Test
+    public void testCreateUserWithDuplicateEmail() {
+        when(userRepository.save(user)).thenThrow(new DataIntegrityViolationException(
+                "duplicate key value violates unique constraint \"" + UserService.UNIQUE_EMAIL_INDEX + "\""));
+
+        Exception exception = assertThrows(RuntimeException.class, () -> userService.createUser(user));
+
+        assertEquals("Email já cadastrado!", exception.getMessage());
+    }
+
+    /**
+     * Testa o cadastro de usuários em lote.
+     * Verifica que os usuários válidos são gravados juntos, e que emails inválidos, repetidos no lote
+     * (sem diferenciar maiúsculas) ou já cadastrados são recusados individualmente.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateUsers() {
+        User repeated = new User(null, "Repeated", "TEST@example.com", null, "123456789", null);
+        User invalid = new User(null, "Invalid", "invalid-email", null, "123456789", null);
+        User registered = new User(null, "Registered", "registered@example.com", null, "123456789", null);
+        User noPhone = new User(null, "No Phone", "nophone@example.com", null, null, null);
+        user.setId(null);
+        user.setRegistrationDate(null);
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("registered@example.com"));
+        when(userRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<User> users = inv.getArgument(0);
+            users.forEach(saved -> saved.setId(10L));
+            return users;
+        });
+
+        List<UserBatchResultDTO> results = userService.createUsers(List.of(user, repeated, invalid, registered, noPhone));
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(10L, results.get(0).getUserId());
+        assertEquals(LocalDate.now(), user.getRegistrationDate());
+        assertEquals("Email repetido no lote!", results.get(1).getMessage());
+        assertEquals("Email inválido!", results.get(2).getMessage());
+        assertEquals("Email já cadastrado!", results.get(3).getMessage());
+        assertEquals("Nome e telefone são obrigatórios!", results.get(4).getMessage());
+        verify(userRepository, times(1)).saveAll(argThat(users -> ((List<User>) users).size() == 1));
+    }
+
+    /**
+     * Testa o cadastro de usuários em lote acima do tamanho máximo.
+     * Verifica que o lote inteiro é recusado antes de qualquer consulta.
+     */
+    @Test
+    public void testCreateUsers_withOversizedBatch() {
+        List<User> users = Collections.nCopies(UserService.MAX_BATCH_SIZE + 1, user);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> userService.createUsers(users));
+
+        assertEquals("O lote pode ter no máximo " + UserService.MAX_BATCH_SIZE + " usuários!", exception.getMessage());
+        verifyNoInteractions(userRepository);
+    }
 }